@@ -118,9 +118,14 @@ public class BitVector {
 
     public int indexOfLastSet() {
     	//最后被设置的bit序号
-        int index = bytes.length * 7 - 1;
-        while (index >= 0 && !isSet(index))
-            index--;
-        return index;
+        int byteIndex = bytes.length - 1;
+        while (byteIndex >= 0 && (bytes[byteIndex] & VALUE_BITS_SET) == 0)
+            byteIndex--;
+        if (byteIndex < 0)
+            return -1;
+        int bit = 0;
+        while ((bytes[byteIndex] & (1 << bit)) == 0)
+            bit++;
+        return byteIndex * 7 + 6 - bit;
     }
 }
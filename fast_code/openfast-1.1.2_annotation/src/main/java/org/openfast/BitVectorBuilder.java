@@ -20,22 +20,134 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
  */
 package org.openfast;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Builds a presence map bit by bit.  Presence maps of up to 63 bits are built in a long and written out without
+ * creating a {@link BitVector}; longer ones fall back to a {@link BitVector}.
+ */
 public class BitVectorBuilder {
-    private final BitVector vector;
+    private static final int MAX_PACKED_BITS = BitVectorReader.MAX_PACKED_BYTES * 7;
+    private final int size;
+    // the bits a BitVector of the size would hold, whole bytes of 7
+    private final int packedCapacity;
+    private BitVector vector;
+    // the bits set so far, the first one in the sign bit
+    private long bits;
     private int index = 0;
 
     public BitVectorBuilder(int size) {
-        vector = new BitVector(size);
+        this.size = size;
+        this.packedCapacity = ((size - 1) / 7 + 1) * 7;
+        if (size > MAX_PACKED_BITS)
+            vector = new BitVector(size);
     }
+    /**
+     * Sets the next bit.
+     * 
+     * @throws ArrayIndexOutOfBoundsException
+     *             if the presence map has no room for the bit, as a {@link BitVector} of the size would throw
+     */
     public void set() {
-        vector.set(index);
+        if (size > MAX_PACKED_BITS)
+            vector.set(index);
+        else if (index < packedCapacity)
+            bits |= Long.MIN_VALUE >>> index;
+        else
+            throw new ArrayIndexOutOfBoundsException("Bit " + index + " is past the " + packedCapacity
+                    + " bits of the presence map.");
         index++;
     }
     public void skip() {
         index++;
     }
+    /**
+     * Clears the bits so that the builder can be reused for another presence map of the same size.
+     */
+    public void reset() {
+        if (size > MAX_PACKED_BITS)
+            vector = new BitVector(size);
+        bits = 0;
+        index = 0;
+    }
     public BitVector getBitVector() {
-        return vector;
+        if (size > MAX_PACKED_BITS)
+            return vector;
+        BitVector packed = new BitVector(size);
+        for (int i = 0; i < index; i++)
+            if ((bits & (Long.MIN_VALUE >>> i)) != 0)
+                packed.set(i);
+        return packed;
+    }
+    /**
+     * @return the number of bytes of the presence map once the trailing bytes with no bits set are dropped
+     */
+    public int getTruncatedLength() {
+        if (size > MAX_PACKED_BITS)
+            return vector.getTruncatedBytes().length;
+        if (bits == 0)
+            return 1;
+        return (63 - Long.numberOfTrailingZeros(bits)) / 7 + 1;
+    }
+    /**
+     * @return the presence map without its trailing bytes that have no bits set
+     */
+    public byte[] getTruncatedBytes() {
+        if (size > MAX_PACKED_BITS)
+            return vector.getTruncatedBytes();
+        byte[] bytes = new byte[getTruncatedLength()];
+        writeTruncatedBytes(bytes, 0);
+        return bytes;
+    }
+    /**
+     * Writes the truncated presence map into an array.
+     * 
+     * @return the number of bytes written
+     */
+    public int writeTruncatedBytes(byte[] destination, int offset) {
+        if (size > MAX_PACKED_BITS) {
+            byte[] bytes = vector.getTruncatedBytes();
+            System.arraycopy(bytes, 0, destination, offset, bytes.length);
+            return bytes.length;
+        }
+        int length = getTruncatedLength();
+        for (int i = 0; i < length; i++)
+            destination[offset + i] = (byte) ((bits >>> (57 - 7 * i)) & 0x7f);
+        destination[offset + length - 1] |= 0x80;
+        return length;
+    }
+    /**
+     * Writes the truncated presence map into a buffer at the given index, leaving the buffer's position unchanged.
+     * 
+     * @return the number of bytes written
+     */
+    public int writeTruncatedBytes(ByteBuffer buffer, int index) {
+        if (size > MAX_PACKED_BITS) {
+            byte[] bytes = vector.getTruncatedBytes();
+            for (int i = 0; i < bytes.length; i++)
+                buffer.put(index + i, bytes[i]);
+            return bytes.length;
+        }
+        int length = getTruncatedLength();
+        for (int i = 0; i < length - 1; i++)
+            buffer.put(index + i, (byte) ((bits >>> (57 - 7 * i)) & 0x7f));
+        buffer.put(index + length - 1, (byte) (((bits >>> (57 - 7 * (length - 1))) & 0x7f) | 0x80));
+        return length;
+    }
+    /**
+     * Writes the truncated presence map to a stream.
+     */
+    public void writeTruncatedBytes(OutputStream out) throws IOException {
+        if (size > MAX_PACKED_BITS) {
+            out.write(vector.getTruncatedBytes());
+            return;
+        }
+        int length = getTruncatedLength();
+        for (int i = 0; i < length - 1; i++)
+            out.write((int) (bits >>> (57 - 7 * i)) & 0x7f);
+        out.write((int) ((bits >>> (57 - 7 * (length - 1))) & 0x7f) | 0x80);
     }
     public void setOnValueSkipOnNull(Object value) {
     	//字段值为null,对应bit不设置为1
@@ -20,7 +20,17 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
  */
 package org.openfast;
 
+/**
+ * Reads the bits of a presence map in order.  Presence maps of up to {@link #MAX_PACKED_BYTES} bytes, which covers
+ * nearly every real template, are held in a long and read by shifting it; longer maps fall back to a {@link BitVector}.
+ * A reader can be reused for one presence map after another, see {@link Context#acquirePresenceMapReader()}.
+ */
 public class BitVectorReader {
+    /**
+     * The number of presence map bytes, of 7 bits each, that fit in a long.
+     */
+    public static final int MAX_PACKED_BYTES = 9;
+
     public static final BitVectorReader NULL = new BitVectorReader(null) {
         public boolean read() {
             throw new IllegalStateException();
@@ -36,34 +46,122 @@ public class BitVectorReader {
         }
     };
     //存在图
-    private final BitVector vector;
+    private BitVector vector;
+    // the unread bits of a packed presence map, the next one in the sign bit
+    private long bits;
+    private long packedBits;
+    // the number of bytes of a packed presence map, or -1 when the bits are read from the vector
+    private int byteCount = -1;
+    private boolean overlong;
     //存在图中的索引
     private int index = 0;
 
+    /**
+     * Creates a reader that is given its presence map by {@link #reset(long, int, boolean)}.
+     */
+    public BitVectorReader() {
+    }
+
     public BitVectorReader(BitVector vector) {
+        if (vector == null)
+            return;
+        byte[] bytes = vector.getBytes();
+        if (bytes.length > MAX_PACKED_BYTES) {
+            reset(vector);
+            return;
+        }
+        long packed = 0;
+        for (int i = 0; i < bytes.length; i++)
+            packed |= pack(bytes[i], i);
+        reset(packed, bytes.length, vector.isOverlong());
         this.vector = vector;
     }
 
+    /**
+     * Positions the value bits of one presence map byte within a packed presence map.
+     * 
+     * @param byteIndex
+     *            the index of the byte, less than {@link #MAX_PACKED_BYTES}
+     */
+    public static long pack(int presenceMapByte, int byteIndex) {
+        return ((long) (presenceMapByte & 0x7f)) << (57 - 7 * byteIndex);
+    }
+
+    /**
+     * Starts reading a packed presence map.
+     * 
+     * @param bits
+     *            the value bits of the presence map bytes, combined with {@link #pack(int, int)}
+     * @param byteCount
+     *            the number of bytes in the presence map
+     * @param overlong
+     *            true if the last byte of a presence map of more than one byte has no bits set
+     */
+    public void reset(long bits, int byteCount, boolean overlong) {
+        this.vector = null;
+        this.bits = bits;
+        this.packedBits = bits;
+        this.byteCount = byteCount;
+        this.overlong = overlong;
+        this.index = 0;
+    }
+
+    /**
+     * Starts reading a presence map that is too long to be packed.
+     */
+    public void reset(BitVector vector) {
+        this.vector = vector;
+        this.bits = 0;
+        this.byteCount = -1;
+        this.overlong = vector.isOverlong();
+        this.index = 0;
+    }
+
     public boolean read() {
         //存在图中读取bit值
      	//index位存在图bit位序号
-        return vector.isSet(index++);
+        if (byteCount < 0)
+            return vector.isSet(index++);
+        index++;
+        boolean set = bits < 0;
+        bits <<= 1;
+        return set;
     }
 
     public BitVector getBitVector() {
+        if (vector == null && byteCount > 0) {
+            byte[] bytes = new byte[byteCount];
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = (byte) ((packedBits >>> (57 - 7 * i)) & 0x7f);
+            vector = new BitVector(bytes);
+        }
         return vector;
     }
 
+    /**
+     * @return true if a bit after the next one is set
+     */
     public boolean hasMoreBitsSet() {
-        return vector.indexOfLastSet() > index;
+        if (byteCount < 0)
+            return vector.indexOfLastSet() > index;
+        return (bits << 1) != 0;
+    }
+
+    /**
+     * @return true if the presence map has more than one byte and no bits set in its last byte
+     */
+    public boolean isOverlong() {
+        return overlong;
     }
 
     public String toString() {
-        return vector.toString();
+        return getBitVector().toString();
     }
 
     public boolean peek() {
-        return vector.isSet(index);
+        if (byteCount < 0)
+            return vector.isSet(index);
+        return bits < 0;
     }
 
     public int getIndex() {
@@ -20,6 +20,7 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
  */
 package org.openfast;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -28,6 +29,7 @@ import java.util.Map;
 import org.openfast.debug.BasicDecodeTrace;
 import org.openfast.debug.BasicEncodeTrace;
 import org.openfast.debug.Trace;
+import org.openfast.debug.Tracer;
 import org.openfast.error.ErrorHandler;
 import org.openfast.error.FastConstants;
 import org.openfast.logging.FastMessageLogger;
@@ -35,9 +37,13 @@ import org.openfast.template.BasicTemplateRegistry;
 import org.openfast.template.Group;
 import org.openfast.template.MessageTemplate;
 import org.openfast.template.TemplateRegisteredListener;
+import org.openfast.template.LongValue;
 import org.openfast.template.TemplateRegistry;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.template.type.codec.PrimitiveValue;
 import org.openfast.util.Cache;
 import org.openfast.util.UnboundedCache;
+import org.openfast.util.Util;
 
 /**
  * Manages current state of an encoding or decoding process.  Each encoder/decoder should have a separate context
@@ -45,45 +51,85 @@ import org.openfast.util.UnboundedCache;
  * @author Jacob Northey
  */
 public class Context implements OpenFastContext {
+    private static final byte OBJECT_LANE = 0;
+    private static final byte LONG_LANE = 1;
+    private static final byte DECIMAL_LANE = 2;
+    private static final byte ASCII_LANE = 3;
+    private static final byte BYTES_LANE = 4;
     private TemplateRegistry templateRegistry = new BasicTemplateRegistry();
     private int lastTemplateId;
-    private final Map dictionaries = new HashMap();
+    private ScalarValue[] dictionary;
+    private byte[] lanes;
+    private long[] longDictionary;
+    private int[] exponentDictionary;
+    private byte[][] byteDictionary;
+    private int[] generations;
+    private int generation = 1;
+    private int[] journaled;
+    private int journal;
+    private boolean journaling;
+    private int journalSize;
+    private int[] journalSlots = new int[16];
+    private ScalarValue[] journalValues = new ScalarValue[16];
+    private byte[] journalLanes = new byte[16];
+    private long[] journalLongs = new long[16];
+    private int[] journalExponents = new int[16];
+    private byte[][] journalBytes = new byte[16][];
+    private int[] journalGenerations = new int[16];
+    private final DictionarySlots slots = new DictionarySlots();
+    private int[] boundSlots;
     private ErrorHandler errorHandler = ErrorHandler.DEFAULT;
-    private QName currentApplicationType;
     private final List listeners = Collections.EMPTY_LIST;
     private boolean traceEnabled;
+    private Tracer tracer = Tracer.NONE;
+    private ValidationLevel validationLevel = ValidationLevel.STRICT;
+    private boolean strictValidation = true;
     private Trace encodeTrace;
     private Trace decodeTrace;
     private final Map caches = new HashMap();
     private final OpenFastContext parentContext;
     private FastMessageLogger logger = null;
+    private BitVectorReader[] presenceMapReaders = new BitVectorReader[4];
+    private final PrimitiveValue scratchValue = new PrimitiveValue();
+    private final ByteRange scratchBytes = new ByteRange();
+    private int presenceMapDepth;
+    private BitVectorBuilder[] presenceMapBuilders = new BitVectorBuilder[4];
+    private int presenceMapBuilderDepth;
 
     public Context() {
         this(new NullOpenFastContext());
     }
     public Context(OpenFastContext context) {
         this.parentContext = context;
-        dictionaries.put("global", new GlobalDictionary());
-        dictionaries.put("template", new TemplateDictionary());
-        dictionaries.put("type", new ApplicationTypeDictionary());
+        int size = slots.size();
+        this.dictionary = new ScalarValue[size];
+        this.lanes = new byte[size];
+        this.longDictionary = new long[size];
+        this.exponentDictionary = new int[size];
+        this.byteDictionary = new byte[size][];
+        this.generations = new int[size];
+        this.journaled = new int[size];
     }
     public int getTemplateId(MessageTemplate template) {
-        if (!templateRegistry.isRegistered(template)) {
+        int templateId = templateRegistry.getId(template);
+        if (templateId == -1) {
             errorHandler.error(FastConstants.D9_TEMPLATE_NOT_REGISTERED, "The template " + template + " has not been registered.");
             return 0;
         }
-        return templateRegistry.getId(template);
+        return templateId;
     }
     public MessageTemplate getTemplate(int templateId) {
-        if (!templateRegistry.isRegistered(templateId)) {
+        MessageTemplate template = templateRegistry.get(templateId);
+        if (template == null) {
             errorHandler.error(FastConstants.D9_TEMPLATE_NOT_REGISTERED, "The template with id " + templateId
                     + " has not been registered.");
             return null;
         }
-        return templateRegistry.get(templateId);
+        return template;
     }
     public void registerTemplate(int templateId, MessageTemplate template) {
         templateRegistry.register(templateId, template);
+        slots.allocate(template);
         Iterator iter = listeners.iterator();
         while (iter.hasNext()) {
             ((TemplateRegisteredListener) iter.next()).templateRegistered(template, templateId);
@@ -96,40 +142,451 @@ public class Context implements OpenFastContext {
         lastTemplateId = templateId;
     }
     public ScalarValue lookup(String dictionary, Group group, QName key) {
-        if (group.hasTypeReference())
-            currentApplicationType = group.getTypeReference();
-        return getDictionary(dictionary).lookup(group, key, currentApplicationType);
+        return lookup(slots.getSlot(dictionary, group, key));
     }
-    private Dictionary getDictionary(String dictionary) {
-        if (!dictionaries.containsKey(dictionary))
-            dictionaries.put(dictionary, new GlobalDictionary());
-        return (Dictionary) dictionaries.get(dictionary);
+    /**
+     * Looks up a dictionary entry by the slot assigned to it by {@link #getDictionarySlots()}.
+     * 
+     * @return the stored value, or {@link ScalarValue#UNDEFINED} if nothing has been stored since the last reset
+     */
+    public ScalarValue lookup(int slot) {
+        if (!isAssigned(slot))
+            return ScalarValue.UNDEFINED;
+        if (lanes[slot] != OBJECT_LANE) {
+            if (lanes[slot] == LONG_LANE)
+                dictionary[slot] = Util.isBiggerThanInt(longDictionary[slot]) ? (ScalarValue) new LongValue(longDictionary[slot])
+                        : new IntegerValue((int) longDictionary[slot]);
+            else if (lanes[slot] == DECIMAL_LANE)
+                dictionary[slot] = new DecimalValue(longDictionary[slot], exponentDictionary[slot]);
+            else if (lanes[slot] == ASCII_LANE)
+                dictionary[slot] = new StringValue(new String(byteDictionary[slot], 0, (int) longDictionary[slot]));
+            else {
+                byte[] bytes = new byte[(int) longDictionary[slot]];
+                System.arraycopy(byteDictionary[slot], 0, bytes, 0, bytes.length);
+                dictionary[slot] = new ByteVectorValue(bytes);
+            }
+            lanes[slot] = OBJECT_LANE;
+        }
+        return dictionary[slot];
+    }
+    /**
+     * @return true if the entry holds an integer, which {@link #lookupLong(int)} returns without creating a value
+     */
+    public boolean hasLong(int slot) {
+        if (!isAssigned(slot))
+            return false;
+        if (lanes[slot] == LONG_LANE)
+            return true;
+        return lanes[slot] == OBJECT_LANE && (dictionary[slot] instanceof IntegerValue || dictionary[slot] instanceof LongValue);
+    }
+    public long lookupLong(int slot) {
+        if (lanes[slot] == LONG_LANE)
+            return longDictionary[slot];
+        return dictionary[slot].toLong();
+    }
+    /**
+     * @return true if the entry holds a decimal, whose mantissa and exponent can be looked up without creating a value
+     */
+    public boolean hasDecimal(int slot) {
+        if (!isAssigned(slot))
+            return false;
+        return lanes[slot] == DECIMAL_LANE || (lanes[slot] == OBJECT_LANE && dictionary[slot] instanceof DecimalValue);
+    }
+    public long lookupMantissa(int slot) {
+        if (lanes[slot] == DECIMAL_LANE)
+            return longDictionary[slot];
+        return ((DecimalValue) dictionary[slot]).mantissa;
+    }
+    public int lookupExponent(int slot) {
+        if (lanes[slot] == DECIMAL_LANE)
+            return exponentDictionary[slot];
+        return ((DecimalValue) dictionary[slot]).exponent;
+    }
+    /**
+     * @return true if the entry holds the bytes of a string or byte vector, which
+     *         {@link #lookupBytes(int, ByteRange)} returns without creating a value
+     */
+    public boolean hasBytes(int slot) {
+        return isAssigned(slot) && (lanes[slot] == ASCII_LANE || lanes[slot] == BYTES_LANE);
+    }
+    /**
+     * @return true if the entry has been stored since the last reset that covered it
+     */
+    private boolean isAssigned(int slot) {
+        return slot < dictionary.length && generations[slot] == generation;
+    }
+    /**
+     * Points the range at the bytes of the entry, which are only valid until the entry is stored again.
+     */
+    public void lookupBytes(int slot, ByteRange range) {
+        range.wrap(byteDictionary[slot], 0, (int) longDictionary[slot]);
+    }
+    /**
+     * @return the number of bytes held by the entry, which must hold bytes
+     */
+    public int lookupLength(int slot) {
+        return (int) longDictionary[slot];
     }
     public void store(String dictionary, Group group, QName key, ScalarValue valueToEncode) {
-        if (group.hasTypeReference())
-            currentApplicationType = group.getTypeReference();
-        getDictionary(dictionary).store(group, currentApplicationType, key, valueToEncode);
+        store(slots.getSlot(dictionary, group, key), valueToEncode);
+    }
+    /**
+     * Stores a dictionary entry by the slot assigned to it by {@link #getDictionarySlots()}.
+     */
+    public void store(int slot, ScalarValue value) {
+        if (slot >= dictionary.length)
+            growDictionary(slot);
+        if (journaling)
+            record(slot);
+        dictionary[slot] = value;
+        lanes[slot] = OBJECT_LANE;
+        generations[slot] = generation;
+    }
+    /**
+     * Stores an integer dictionary entry without creating a value.
+     */
+    public void store(int slot, long value) {
+        if (slot >= dictionary.length)
+            growDictionary(slot);
+        if (journaling)
+            record(slot);
+        longDictionary[slot] = value;
+        lanes[slot] = LONG_LANE;
+        generations[slot] = generation;
+    }
+    /**
+     * Stores a decimal dictionary entry without creating a value.
+     */
+    public void store(int slot, long mantissa, int exponent) {
+        if (slot >= dictionary.length)
+            growDictionary(slot);
+        if (journaling)
+            record(slot);
+        longDictionary[slot] = mantissa;
+        exponentDictionary[slot] = exponent;
+        lanes[slot] = DECIMAL_LANE;
+        generations[slot] = generation;
+    }
+    /**
+     * Stores an ASCII string dictionary entry by copying its bytes into storage reused by the entry.
+     */
+    public void storeAscii(int slot, ByteRange value) {
+        storeBytes(slot, value, ASCII_LANE);
+    }
+    /**
+     * Stores a byte vector dictionary entry by copying its bytes into storage reused by the entry.
+     */
+    public void storeBytes(int slot, ByteRange value) {
+        storeBytes(slot, value, BYTES_LANE);
+    }
+    private void storeBytes(int slot, ByteRange value, byte lane) {
+        if (slot >= dictionary.length)
+            growDictionary(slot);
+        if (journaling)
+            record(slot);
+        value.copyTo(reserveBytes(slot, value.length()), 0);
+        longDictionary[slot] = value.length();
+        lanes[slot] = lane;
+        generations[slot] = generation;
+    }
+    /**
+     * Applies a string delta to the bytes of an entry in place.  A subtraction length that is not negative removes
+     * that many bytes from the end and appends the difference; a negative one removes one less than its magnitude from
+     * the front and prepends the difference.  The remaining bytes are moved within the entry's storage, which is only
+     * replaced when the result does not fit.
+     * 
+     * @param slot
+     *            an entry holding bytes, whose length the subtraction must not exceed
+     */
+    public void applyDifference(int slot, int subtraction, ByteRange difference) {
+        byte[] prior = byteDictionary[slot];
+        if (journaling)
+            record(slot);
+        int length = (int) longDictionary[slot];
+        int differenceLength = difference.length();
+        byte[] bytes;
+        if (subtraction >= 0) {
+            int kept = length - subtraction;
+            bytes = reserveBytes(slot, kept + differenceLength);
+            if (bytes != prior)
+                System.arraycopy(prior, 0, bytes, 0, kept);
+            difference.copyTo(bytes, kept);
+            longDictionary[slot] = kept + differenceLength;
+        } else {
+            int removed = -subtraction - 1;
+            int kept = length - removed;
+            bytes = reserveBytes(slot, differenceLength + kept);
+            System.arraycopy(prior, removed, bytes, differenceLength, kept);
+            difference.copyTo(bytes, 0);
+            longDictionary[slot] = differenceLength + kept;
+        }
+    }
+    /**
+     * @return the storage of the entry, replaced by a larger array when it is shorter than the given length
+     */
+    private byte[] reserveBytes(int slot, int length) {
+        byte[] bytes = byteDictionary[slot];
+        if (bytes == null || bytes.length < length)
+            bytes = byteDictionary[slot] = new byte[Math.max(length, (bytes == null) ? 16 : bytes.length * 2)];
+        return bytes;
+    }
+    private void growDictionary(int slot) {
+        int size = Math.max(slot + 1, slots.size());
+        ScalarValue[] grown = new ScalarValue[size];
+        System.arraycopy(dictionary, 0, grown, 0, dictionary.length);
+        byte[] grownLanes = new byte[size];
+        System.arraycopy(lanes, 0, grownLanes, 0, lanes.length);
+        long[] grownLongs = new long[size];
+        System.arraycopy(longDictionary, 0, grownLongs, 0, longDictionary.length);
+        int[] grownExponents = new int[size];
+        System.arraycopy(exponentDictionary, 0, grownExponents, 0, exponentDictionary.length);
+        byte[][] grownBytes = new byte[size][];
+        System.arraycopy(byteDictionary, 0, grownBytes, 0, byteDictionary.length);
+        int[] grownGenerations = new int[size];
+        System.arraycopy(generations, 0, grownGenerations, 0, generations.length);
+        int[] grownJournaled = new int[size];
+        System.arraycopy(journaled, 0, grownJournaled, 0, journaled.length);
+        dictionary = grown;
+        lanes = grownLanes;
+        longDictionary = grownLongs;
+        exponentDictionary = grownExponents;
+        byteDictionary = grownBytes;
+        generations = grownGenerations;
+        journaled = grownJournaled;
+    }
+    /**
+     * Starts recording the entries stored, so that the message being coded can be undone with {@link #rollback()} if it
+     * fails part way.  Each entry is recorded before its first store.  The journal takes over the storage of a string or
+     * byte vector entry and hands the entry a spare array in exchange, so no bytes are copied.
+     */
+    public void startJournal() {
+        journaling = true;
+        journalSize = 0;
+        if (++journal == Integer.MAX_VALUE) {
+            Arrays.fill(journaled, 0);
+            journal = 1;
+        }
     }
+    /**
+     * Stops recording the entries stored, keeping them as they are.  The storage taken over by the journal is kept
+     * as spares for later journals.
+     */
+    public void endJournal() {
+        journaling = false;
+        for (int i = 0; i < journalSize; i++)
+            journalValues[i] = null;
+        journalSize = 0;
+    }
+    /**
+     * Puts back every entry stored since {@link #startJournal()} as it was then, and stops recording.
+     */
+    public void rollback() {
+        for (int i = journalSize - 1; i >= 0; i--) {
+            int slot = journalSlots[i];
+            dictionary[slot] = journalValues[i];
+            lanes[slot] = journalLanes[i];
+            longDictionary[slot] = journalLongs[i];
+            exponentDictionary[slot] = journalExponents[i];
+            generations[slot] = journalGenerations[i];
+            if (lanes[slot] == ASCII_LANE || lanes[slot] == BYTES_LANE)
+                swapBytes(slot, i);
+        }
+        endJournal();
+    }
+    private void record(int slot) {
+        if (journaled[slot] == journal)
+            return;
+        journaled[slot] = journal;
+        if (journalSize == journalSlots.length)
+            growJournal();
+        int i = journalSize++;
+        journalSlots[i] = slot;
+        journalValues[i] = dictionary[slot];
+        journalLanes[i] = lanes[slot];
+        journalLongs[i] = longDictionary[slot];
+        journalExponents[i] = exponentDictionary[slot];
+        journalGenerations[i] = generations[slot];
+        if (lanes[slot] == ASCII_LANE || lanes[slot] == BYTES_LANE)
+            swapBytes(slot, i);
+    }
+    private void swapBytes(int slot, int journalIndex) {
+        byte[] bytes = byteDictionary[slot];
+        byteDictionary[slot] = journalBytes[journalIndex];
+        journalBytes[journalIndex] = bytes;
+    }
+    private void growJournal() {
+        int size = journalSlots.length * 2;
+        int[] grownSlots = new int[size];
+        System.arraycopy(journalSlots, 0, grownSlots, 0, journalSize);
+        ScalarValue[] grownValues = new ScalarValue[size];
+        System.arraycopy(journalValues, 0, grownValues, 0, journalSize);
+        byte[] grownLanes = new byte[size];
+        System.arraycopy(journalLanes, 0, grownLanes, 0, journalSize);
+        long[] grownLongs = new long[size];
+        System.arraycopy(journalLongs, 0, grownLongs, 0, journalSize);
+        int[] grownExponents = new int[size];
+        System.arraycopy(journalExponents, 0, grownExponents, 0, journalSize);
+        byte[][] grownBytes = new byte[size][];
+        System.arraycopy(journalBytes, 0, grownBytes, 0, journalBytes.length);
+        int[] grownGenerations = new int[size];
+        System.arraycopy(journalGenerations, 0, grownGenerations, 0, journalSize);
+        journalSlots = grownSlots;
+        journalValues = grownValues;
+        journalLanes = grownLanes;
+        journalLongs = grownLongs;
+        journalExponents = grownExponents;
+        journalBytes = grownBytes;
+        journalGenerations = grownGenerations;
+    }
+    /**
+     * @return the numbering of the dictionary entries of this context
+     */
+    public DictionarySlots getDictionarySlots() {
+        return slots;
+    }
+    /**
+     * Makes the entries of a compiled template available through {@link #slotOf(int)} while one of its messages is
+     * coded.
+     * 
+     * @return the binding to give back to {@link #restoreSlots(int[])} once the message is coded
+     */
+    public int[] bindSlots(SlotList list) {
+        int[] outer = boundSlots;
+        boundSlots = slots.getSlots(list);
+        return outer;
+    }
+    public void restoreSlots(int[] outer) {
+        boundSlots = outer;
+    }
+    /**
+     * @param entry
+     *            the number of an entry in the list of the compiled template being coded
+     * @return the slot of the entry in this context
+     */
+    public int slotOf(int entry) {
+        return boundSlots[entry];
+    }
+    /**
+     * Resets every dictionary to its initial state.  Each entry remembers the generation in which it was stored and
+     * entries from earlier generations read back as undefined, so a reset is a single increment however many entries
+     * there are, and the storage of the entries is kept for reuse.
+     */
     public void reset() {
-        for (Iterator iter = dictionaries.values().iterator(); iter.hasNext();) {
-            Dictionary dict = (Dictionary) iter.next();
-            dict.reset();
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(generations, 0);
+            generation = 1;
         }
     }
+    /**
+     * Resets the entries of the template dictionary of one template, leaving the global and application type
+     * dictionaries and the entries of other templates as they are.
+     * 
+     * @param template
+     *            the template whose entries are reset
+     */
+    public void reset(MessageTemplate template) {
+        int[] templateSlots = slots.getTemplateSlots(template);
+        for (int i = 0; i < templateSlots.length; i++)
+            if (templateSlots[i] < generations.length)
+                generations[templateSlots[i]] = 0;
+    }
     public void setErrorHandler(ErrorHandler errorHandler) {
         this.errorHandler = errorHandler;
     }
-    public void newMessage(MessageTemplate template) {
-        currentApplicationType = (template.hasTypeReference()) ? template.getTypeReference() : FastConstants.ANY_TYPE;
+    /**
+     * Takes a reusable reader for the presence map of a group that is about to
+     * be decoded. Each level of nesting has its own reader, which is reused by
+     * every group decoded at that level, so decoding allocates no presence
+     * maps. Every reader acquired must be given back with
+     * {@link #releasePresenceMapReader()} once its group has been decoded.
+     * 
+     * @return the reader for the next level of nesting
+     */
+    public BitVectorReader acquirePresenceMapReader() {
+        if (presenceMapDepth == presenceMapReaders.length) {
+            BitVectorReader[] grown = new BitVectorReader[presenceMapReaders.length * 2];
+            System.arraycopy(presenceMapReaders, 0, grown, 0, presenceMapReaders.length);
+            presenceMapReaders = grown;
+        }
+        BitVectorReader reader = presenceMapReaders[presenceMapDepth];
+        if (reader == null) {
+            reader = new BitVectorReader();
+            presenceMapReaders[presenceMapDepth] = reader;
+        }
+        presenceMapDepth++;
+        return reader;
+    }
+    public void releasePresenceMapReader() {
+        presenceMapDepth--;
+    }
+    /**
+     * Takes a reusable, cleared builder for the presence map of a group that is
+     * about to be encoded, the encoding counterpart of
+     * {@link #acquirePresenceMapReader()}. The builders hold up to
+     * {@link BitVectorReader#MAX_PACKED_BYTES} bytes of presence map; larger
+     * groups need a builder of their own. Every builder acquired must be given
+     * back with {@link #releasePresenceMapBuilder()}.
+     * 
+     * @return the builder for the next level of nesting
+     */
+    public BitVectorBuilder acquirePresenceMapBuilder() {
+        if (presenceMapBuilderDepth == presenceMapBuilders.length) {
+            BitVectorBuilder[] grown = new BitVectorBuilder[presenceMapBuilders.length * 2];
+            System.arraycopy(presenceMapBuilders, 0, grown, 0, presenceMapBuilders.length);
+            presenceMapBuilders = grown;
+        }
+        BitVectorBuilder builder = presenceMapBuilders[presenceMapBuilderDepth];
+        if (builder == null) {
+            builder = new BitVectorBuilder(BitVectorReader.MAX_PACKED_BYTES * 7);
+            presenceMapBuilders[presenceMapBuilderDepth] = builder;
+        } else {
+            builder.reset();
+        }
+        presenceMapBuilderDepth++;
+        return builder;
+    }
+    public void releasePresenceMapBuilder() {
+        presenceMapBuilderDepth--;
     }
-    public void setCurrentApplicationType(QName name) {
-        currentApplicationType = name;
+    /**
+     * @return a holder that decoders reuse for integers and decimals that are
+     *         read only to keep the dictionary up to date
+     */
+    public PrimitiveValue getScratchValue() {
+        return scratchValue;
+    }
+    /**
+     * @return a range that decoders reuse for strings and byte vectors that are
+     *         read only to keep the dictionary up to date
+     */
+    public ByteRange getScratchBytes() {
+        return scratchBytes;
     }
     public TemplateRegistry getTemplateRegistry() {
         return templateRegistry;
     }
     public void setTemplateRegistry(TemplateRegistry registry) {
         this.templateRegistry = registry;
+        MessageTemplate[] templates = registry.getTemplates();
+        for (int i = 0; i < templates.length; i++)
+            slots.allocate(templates[i]);
+    }
+    public ValidationLevel getValidationLevel() {
+        return validationLevel;
+    }
+    /**
+     * Chooses how thoroughly decoded messages are checked. Trusted feeds can
+     * skip the per field checks of strict validation.
+     */
+    public void setValidationLevel(ValidationLevel validationLevel) {
+        this.validationLevel = validationLevel;
+        this.strictValidation = validationLevel == ValidationLevel.STRICT;
+    }
+    /**
+     * @return true if each field and group is to be checked as it is decoded
+     */
+    public boolean isStrictValidation() {
+        return strictValidation;
     }
     public boolean isTraceEnabled() {
         return traceEnabled;
@@ -144,8 +601,23 @@ public class Context implements OpenFastContext {
             }
         }
     }
+    /**
+     * Chooses the tracer the interpreted codec reports to: {@link Tracer#NONE}
+     * or one that reports every group and field to the decode and encode
+     * traces. Compiled templates carry no tracing and are bypassed while it is
+     * enabled. Enabling tracing starts the traces once rather than for every
+     * message.
+     */
     public void setTraceEnabled(boolean enabled) {
         this.traceEnabled = enabled;
+        this.tracer = enabled ? Tracer.of(this) : Tracer.NONE;
+        startTrace();
+    }
+    /**
+     * @return the tracer chosen by {@link #setTraceEnabled(boolean)}
+     */
+    public Tracer getTracer() {
+        return tracer;
     }
     public void setEncodeTrace(BasicEncodeTrace encodeTrace) {
         this.encodeTrace = encodeTrace;
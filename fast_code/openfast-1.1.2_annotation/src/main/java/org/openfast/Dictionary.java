@@ -26,6 +26,7 @@ import org.openfast.template.Group;
 public interface Dictionary {
     public static final String TEMPLATE = "template";
 	public static final String GLOBAL = "global";
+	public static final String TYPE = "type";
 
     ScalarValue lookup(Group template, QName key, QName currentApplicationType);
 
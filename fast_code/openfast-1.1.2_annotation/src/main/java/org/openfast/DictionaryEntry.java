@@ -0,0 +1,76 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast;
+
+import org.openfast.template.Group;
+
+/**
+ * A (dictionary, scope, key) triple naming one dictionary entry.  The scope follows the dictionary's semantics: the
+ * template for the "template" dictionary, the application type for the "type" dictionary and nothing for "global" or
+ * any user defined dictionary.  Templates are compared by identity, so naming an entry never walks a template's fields.
+ */
+final class DictionaryEntry {
+    private static final Object NO_SCOPE = "";
+    final String dictionary;
+    final Object scope;
+    final QName key;
+
+    DictionaryEntry(String dictionary, Group group, QName key) {
+        this.dictionary = dictionary;
+        this.scope = scopeOf(dictionary, group);
+        this.key = key;
+    }
+
+    /**
+     * @return the template whose template dictionary holds the entry, or null for entries of other dictionaries
+     */
+    Group getTemplate() {
+        return (scope instanceof Group) ? (Group) scope : null;
+    }
+
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof DictionaryEntry))
+            return false;
+        DictionaryEntry other = (DictionaryEntry) obj;
+        if (!dictionary.equals(other.dictionary) || !key.equals(other.key))
+            return false;
+        return (scope instanceof Group) ? scope == other.scope : scope.equals(other.scope);
+    }
+
+    public int hashCode() {
+        int scopeHash = (scope instanceof Group) ? System.identityHashCode(scope) : scope.hashCode();
+        return (dictionary.hashCode() * 31 + scopeHash) * 31 + key.hashCode();
+    }
+
+    public String toString() {
+        return dictionary + ":" + key;
+    }
+
+    private static Object scopeOf(String dictionary, Group group) {
+        if (Dictionary.TEMPLATE.equals(dictionary))
+            return group;
+        if (Dictionary.TYPE.equals(dictionary) && group.getTypeReference() != null)
+            return group.getTypeReference();
+        return NO_SCOPE;
+    }
+}
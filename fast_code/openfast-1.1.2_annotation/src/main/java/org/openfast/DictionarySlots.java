@@ -0,0 +1,186 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.openfast.template.ComposedScalar;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+import org.openfast.template.Scalar;
+import org.openfast.template.Sequence;
+
+/**
+ * Assigns every dictionary entry of one {@link Context} a dense integer slot so that the context can hold all of its
+ * dictionaries in a single array.  Entries are numbered when their template is registered with the context, and any
+ * entry first met while coding is numbered then.  Each context has its own numbering, so slots go away with the
+ * context that uses them.
+ */
+public final class DictionarySlots {
+    private static final int[] NO_SLOTS = new int[0];
+    private Scalar[] scalars = new Scalar[0];
+    private Group[] scalarScopes = new Group[0];
+    private int[] scalarSlots = NO_SLOTS;
+    private final Map slots = new HashMap();
+    private final Map templateSlots = new IdentityHashMap();
+    private final Map resolved = new IdentityHashMap();
+    private SlotList lastList;
+    private int[] lastResolved;
+    private int size;
+
+    /**
+     * @param dictionary
+     *            the name of the dictionary
+     * @param group
+     *            the template the entry is being accessed from
+     * @param key
+     *            the dictionary key of the field
+     * @return the slot of the entry, allocating one the first time the entry is seen
+     */
+    public int getSlot(String dictionary, Group group, QName key) {
+        return getSlot(new DictionaryEntry(dictionary, group, key));
+    }
+
+    /**
+     * @param scalar
+     *            the field whose entry is being accessed
+     * @param group
+     *            the template the entry is being accessed from
+     * @return the slot of the entry, remembered by the scalar's {@link Scalar#getEntryIndex() entry index} so that later
+     *         accesses from the same template read it from an array
+     */
+    public int getSlot(Scalar scalar, Group group) {
+        int index = scalar.getEntryIndex();
+        if (index < scalars.length && scalars[index] == scalar && scalarScopes[index] == group)
+            return scalarSlots[index];
+        int slot = getSlot(scalar.getDictionary(), group, scalar.getKey());
+        if (index >= scalars.length)
+            growScalars(index);
+        scalars[index] = scalar;
+        scalarScopes[index] = group;
+        scalarSlots[index] = slot;
+        return slot;
+    }
+
+    /**
+     * Numbers the entries of every scalar of a template, so that coding its messages allocates nothing.
+     */
+    public void allocate(Group template) {
+        allocate(template, template);
+    }
+
+    /**
+     * @param list
+     *            the entries of a compiled template
+     * @return the slots of the entries in the order of the list, which must not be modified
+     */
+    public int[] getSlots(SlotList list) {
+        if (list == lastList && lastResolved.length == list.size())
+            return lastResolved;
+        int[] listSlots = (int[]) resolved.get(list);
+        if (listSlots == null || listSlots.length != list.size()) {
+            listSlots = new int[list.size()];
+            for (int i = 0; i < listSlots.length; i++)
+                listSlots[i] = getSlot(list.get(i));
+            resolved.put(list, listSlots);
+        }
+        lastList = list;
+        lastResolved = listSlots;
+        return listSlots;
+    }
+
+    /**
+     * @param template
+     *            the scope of the entries
+     * @return the slots allocated so far to entries of the template dictionary scoped to the template, which must not
+     *         be modified
+     */
+    public int[] getTemplateSlots(Group template) {
+        int[] listSlots = (int[]) templateSlots.get(template);
+        return (listSlots == null) ? NO_SLOTS : listSlots;
+    }
+
+    /**
+     * @return the number of slots allocated so far
+     */
+    public int size() {
+        return size;
+    }
+
+    private int getSlot(DictionaryEntry entry) {
+        Integer slot = (Integer) slots.get(entry);
+        if (slot == null) {
+            slot = new Integer(size++);
+            slots.put(entry, slot);
+            if (entry.getTemplate() != null)
+                addTemplateSlot(entry.getTemplate(), slot.intValue());
+        }
+        return slot.intValue();
+    }
+
+    private void addTemplateSlot(Group template, int slot) {
+        int[] listSlots = getTemplateSlots(template);
+        int[] grown = new int[listSlots.length + 1];
+        System.arraycopy(listSlots, 0, grown, 0, listSlots.length);
+        grown[listSlots.length] = slot;
+        templateSlots.put(template, grown);
+    }
+
+    private void allocate(Group group, Group scope) {
+        for (int i = 0; i < group.getFieldCount(); i++) {
+            Field field = group.getField(i);
+            Group fieldScope = (field.getTemplate() != null) ? field.getTemplate() : scope;
+            if (field instanceof Scalar) {
+                allocate((Scalar) field, fieldScope);
+            } else if (field instanceof ComposedScalar) {
+                Scalar[] fields = ((ComposedScalar) field).getFields();
+                for (int j = 0; j < fields.length; j++)
+                    allocate(fields[j], fieldScope);
+            } else if (field instanceof Sequence) {
+                Sequence sequence = (Sequence) field;
+                if (sequence.getLength() != null)
+                    allocate(sequence.getLength(), fieldScope);
+                allocate(sequence.getGroup(), fieldScope);
+            } else if (field instanceof Group) {
+                allocate((Group) field, fieldScope);
+            }
+        }
+    }
+
+    private void allocate(Scalar scalar, Group scope) {
+        getSlot(scalar, scope);
+    }
+
+    private void growScalars(int index) {
+        int length = Math.max(index + 1, scalars.length * 2);
+        Scalar[] grownScalars = new Scalar[length];
+        Group[] grownScopes = new Group[length];
+        int[] grownSlots = new int[length];
+        System.arraycopy(scalars, 0, grownScalars, 0, scalars.length);
+        System.arraycopy(scalarScopes, 0, grownScopes, 0, scalarScopes.length);
+        System.arraycopy(scalarSlots, 0, grownSlots, 0, scalarSlots.length);
+        scalars = grownScalars;
+        scalarScopes = grownScopes;
+        scalarSlots = grownSlots;
+    }
+}
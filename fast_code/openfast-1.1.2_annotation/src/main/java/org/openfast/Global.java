@@ -21,13 +21,14 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast;
 
 import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openfast.error.ErrorCode;
 import org.openfast.error.ErrorHandler;
 
 public final class Global {
-    private static ErrorHandler errorHandler = ErrorHandler.DEFAULT;
-    private static int currentImplicitId = (int) (System.currentTimeMillis() % 10000);
+    private static volatile ErrorHandler errorHandler = ErrorHandler.DEFAULT;
+    private static final AtomicInteger currentImplicitId = new AtomicInteger((int) (System.currentTimeMillis() % 10000));
     private static final ThreadLocal<ByteArrayOutputStream> buffers = new ThreadLocal<ByteArrayOutputStream>();
 
     public static void setErrorHandler(ErrorHandler handler) {
@@ -46,7 +47,7 @@ public final class Global {
     }
 
     public static QName createImplicitName(QName name) {
-        return new QName(name + "@" + currentImplicitId++, name.getNamespace());
+        return new QName(name + "@" + currentImplicitId.getAndIncrement(), name.getNamespace());
     }
 
     private Global() {}
@@ -30,6 +30,7 @@ import org.openfast.template.Scalar;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.type.Type;
 import org.openfast.util.ArrayIterator;
+import org.openfast.util.FixedPoint;
 
 public class GroupValue implements FieldValue {
     private static final long serialVersionUID = 1L;
@@ -139,6 +140,42 @@ public class GroupValue implements FieldValue {
         return getScalar(fieldName).toBigDecimal();
     }
 
+    /**
+     * Gets a decimal field, or an integer field with a precision, as a fixed
+     * point number without creating a BigDecimal or going through a double.
+     * 
+     * @param fieldIndex
+     *            the index of the field
+     * @param exponent
+     *            the exponent of the result, for instance -4 for a price in
+     *            ten thousandths
+     * @return the mantissa of the value of the field with the given exponent
+     * @throws ArithmeticException
+     *             if the value has more decimal places than the exponent
+     *             allows
+     * @see FixedPoint
+     */
+    public long getScaledLong(int fieldIndex, int exponent) {
+        ScalarValue value = getScalar(fieldIndex);
+        if (value instanceof DecimalValue) {
+            DecimalValue decimal = (DecimalValue) value;
+            return FixedPoint.rescale(decimal.mantissa, decimal.exponent, exponent);
+        }
+        return FixedPoint.rescale(value.toLong(), getIntegerExponent(group.getField(fieldIndex)), exponent);
+    }
+
+    public long getScaledLong(String fieldName, int exponent) {
+        return getScaledLong(group.getFieldIndex(fieldName), exponent);
+    }
+
+    /**
+     * @return the exponent of the values of an integer field, which is its
+     *         precision negated
+     */
+    public static int getIntegerExponent(Field field) {
+        return (field instanceof Scalar) ? -((Scalar) field).getPrecision() : 0;
+    }
+
     public byte[] getBytes(int fieldIndex) {
         return getScalar(fieldIndex).getBytes();
     }
@@ -176,10 +213,11 @@ public class GroupValue implements FieldValue {
     }
 
     public FieldValue getValue(String fieldName) {
-        if (!group.hasField(fieldName)) {
+        Field field = group.getField(fieldName);
+        if (field == null) {
             return null;
         }
-        return values[group.getFieldIndex(fieldName)];
+        return values[group.getFieldIndex(field)];
     }
 
     public Group getGroup() {
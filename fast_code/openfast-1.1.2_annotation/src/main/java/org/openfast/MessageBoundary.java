@@ -0,0 +1,35 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast;
+
+import java.io.IOException;
+
+/**
+ * Implemented by output streams that act on whole messages, for instance by sending them in batches.
+ * {@link MessageOutputStream} calls {@link #endMessage()} once it has written every byte of a message, its block
+ * length included, so a message that takes several writes still counts once.
+ */
+public interface MessageBoundary {
+    /**
+     * Marks the end of a message.
+     */
+    void endMessage() throws IOException;
+}
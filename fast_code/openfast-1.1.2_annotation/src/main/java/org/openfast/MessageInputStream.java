@@ -62,8 +62,6 @@ public class MessageInputStream implements MessageStream {
      * @return the next message in the stream or <code>null</code> if no more messages are encountered in the stream
      */
     public Message readMessage() {
-        if (context.isTraceEnabled())
-            context.startTrace();
         boolean keepReading = blockReader.readBlock(in);
         if (!keepReading)
             return null;
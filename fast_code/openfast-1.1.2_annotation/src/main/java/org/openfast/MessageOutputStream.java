@@ -35,6 +35,7 @@ import org.openfast.template.TemplateRegistry;
 
 public class MessageOutputStream implements MessageStream {
     private final OutputStream out;
+    private final MessageBoundary boundary;
     private final FastEncoder encoder;
     private final Context context;
     private List handlers = Collections.EMPTY_LIST;
@@ -47,6 +48,7 @@ public class MessageOutputStream implements MessageStream {
 
     public MessageOutputStream(OutputStream outputStream, Context context) {
         this.out = outputStream;
+        this.boundary = (outputStream instanceof MessageBoundary) ? (MessageBoundary) outputStream : null;
         this.encoder = new FastEncoder(context);
         this.context = context;
     }
@@ -63,6 +65,8 @@ public class MessageOutputStream implements MessageStream {
             }
             blockWriter.writeBlockLength(out, message, data);
             out.write(data);
+            if (boundary != null)
+                boundary.endMessage();
             if (flush)
                 out.flush();
             getContext().getLogger().log(message, data, Direction.OUTBOUND);
@@ -72,8 +76,6 @@ public class MessageOutputStream implements MessageStream {
     }
 
     private byte[] encodeMessage(Message message) {
-        if (context.isTraceEnabled())
-            context.startTrace();
         if (!handlers.isEmpty()) {
             for (int i = 0; i < handlers.size(); i++) {
                 ((MessageHandler) handlers.get(i)).handleMessage(message, context, encoder);
@@ -0,0 +1,67 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openfast.template.Group;
+
+/**
+ * The dictionary entries used by one compiled template, numbered in the order the compiled nodes first refer to them.
+ * The nodes keep only these numbers; each {@link Context} maps the list to slots of its own with
+ * {@link Context#bindSlots(SlotList)}, so compiled templates can be shared by contexts that number their entries
+ * differently.
+ */
+public final class SlotList {
+    private final List entries = new ArrayList();
+    private final Map indexes = new HashMap();
+
+    /**
+     * @param dictionary
+     *            the name of the dictionary
+     * @param group
+     *            the template the entry is accessed from
+     * @param key
+     *            the dictionary key of the field
+     * @return the number of the entry in this list, adding it the first time it is seen
+     */
+    public int add(String dictionary, Group group, QName key) {
+        DictionaryEntry entry = new DictionaryEntry(dictionary, group, key);
+        Integer index = (Integer) indexes.get(entry);
+        if (index == null) {
+            index = new Integer(entries.size());
+            indexes.put(entry, index);
+            entries.add(entry);
+        }
+        return index.intValue();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    DictionaryEntry get(int index) {
+        return (DictionaryEntry) entries.get(index);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast;
+
+/**
+ * How thoroughly a {@link Context} checks the messages it decodes.
+ */
+public enum ValidationLevel {
+    /**
+     * Every decoded value is checked against the range of its type, every
+     * previous value against the type of its field, and every presence map
+     * for bits left over once its group has been decoded.  This is the
+     * default, and is meant for certification and replay analysis.
+     */
+    STRICT,
+    /**
+     * For feeds from a certified source: the per field checks are left out,
+     * and only the presence map of each message is checked for leftover
+     * bits, which still catches a stream that has gone out of step with its
+     * templates.
+     */
+    TRUSTED
+}
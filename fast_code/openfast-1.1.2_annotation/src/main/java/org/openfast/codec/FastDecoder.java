@@ -22,15 +22,18 @@ package org.openfast.codec;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
-import org.openfast.BitVector;
 import org.openfast.BitVectorReader;
-import org.openfast.BitVectorValue;
 import org.openfast.Context;
 import org.openfast.Message;
 import org.openfast.error.FastException;
 import org.openfast.template.MessageTemplate;
+import org.openfast.template.compiler.FlyweightMessage;
+import org.openfast.template.compiler.MessageEvents;
+import org.openfast.template.type.codec.BitVectorType;
 import org.openfast.template.type.codec.TypeCodec;
+import org.openfast.util.ByteBufferInputStream;
 
 /**
  * A FastDecoder is the core class for reading and decoding FAST messages from any input stream.  This class can be used
@@ -43,6 +46,10 @@ public class FastDecoder implements Coder {
 
     private final Context context;
 
+    private Subscription subscription;
+
+    private boolean[] subscribedFields;
+
     /**
      * Construct a new FastDecoder with a context and input stream.
      * 
@@ -54,6 +61,57 @@ public class FastDecoder implements Coder {
         this.context = context;
     }
 
+    /**
+     * Construct a new FastDecoder that decodes messages directly from the bytes between the buffer's position and limit.
+     * Heap and direct buffers filled by NIO are decoded in place, and the buffer's position is advanced past each
+     * message read.
+     * 
+     * @param context The context containg templates to be used in decoding and where FAST dictionary data will be stored
+     * @param buffer The buffer to read messages from
+     */
+    public FastDecoder(Context context, ByteBuffer buffer) {
+        this(context, new ByteBufferInputStream(buffer));
+    }
+
+    /**
+     * Construct a new FastDecoder that decodes messages directly from a region of a byte array.
+     * 
+     * @param context The context containg templates to be used in decoding and where FAST dictionary data will be stored
+     * @param bytes The array to read messages from
+     * @param offset The index of the first byte to decode
+     * @param length The number of bytes available to decode
+     */
+    public FastDecoder(Context context, byte[] bytes, int offset, int length) {
+        this(context, new ByteBufferInputStream(bytes, offset, length));
+    }
+
+    /**
+     * Points a decoder that was constructed over a ByteBuffer at the next buffer to decode, for instance the next
+     * datagram received, so the decoder can be reused without allocating.
+     * 
+     * @param buffer The buffer to read messages from
+     * @throws IllegalStateException if this decoder reads from an ordinary input stream
+     */
+    public void setBuffer(ByteBuffer buffer) {
+        if (!(in instanceof ByteBufferInputStream))
+            throw new IllegalStateException("This decoder does not read from a ByteBuffer.");
+        ((ByteBufferInputStream) in).setBuffer(buffer);
+    }
+
+    /**
+     * Limits the messages and fields this decoder returns.  Messages of templates that are not subscribed to are read
+     * past, and unsubscribed fields are left empty.
+     * 
+     * @param subscription the templates and fields to decode, or null to decode everything
+     */
+    public void setSubscription(Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
     /**
      * Read the next FAST message from the input stream.
      * 
@@ -61,25 +119,95 @@ public class FastDecoder implements Coder {
      * @throws FastException if a decoding error occurs or the end of the input stream has been reached
      */
     public Message readMessage() throws FastException {
-        BitVectorValue bitVectorValue = (BitVectorValue) TypeCodec.BIT_VECTOR.decode(in);
-        if (bitVectorValue == null) {
-            return null;
+        BitVectorReader presenceMapReader = context.acquirePresenceMapReader();
+        try {
+            MessageTemplate template = readTemplate(presenceMapReader);
+            if (template == null)
+                return null;
+            if (subscribedFields == null)
+                return template.decode(in, context.getLastTemplateId(), presenceMapReader, context);
+            return template.decode(in, context.getLastTemplateId(), presenceMapReader, context, subscribedFields);
+        } finally {
+            context.releasePresenceMapReader();
         }
-        BitVector pmap = (bitVectorValue).value;
-        BitVectorReader presenceMapReader = new BitVectorReader(pmap);
+    }
 
-        // if template id is not present, use previous, else decode template id
-        int templateId = (presenceMapReader.read()) ? TypeCodec.UINT.decode(in).toInt() : context.getLastTemplateId();
-        MessageTemplate template = context.getTemplate(templateId);
+    /**
+     * Read the next FAST message from the input stream into a reusable flyweight instead of creating a new message.
+     * 
+     * @param message the flyweight to decode into, whose previous contents are discarded
+     * @return false if the end of the input stream has been reached or the template is unknown
+     * @throws FastException if a decoding error occurs
+     */
+    public boolean readMessage(FlyweightMessage message) throws FastException {
+        BitVectorReader presenceMapReader = context.acquirePresenceMapReader();
+        try {
+            MessageTemplate template = readTemplate(presenceMapReader);
+            if (template == null)
+                return false;
+            if (subscribedFields == null)
+                message.decode(in, context.getLastTemplateId(), template, presenceMapReader, context);
+            else
+                message.decode(in, context.getLastTemplateId(), template, presenceMapReader, context, subscribedFields);
+            return true;
+        } finally {
+            context.releasePresenceMapReader();
+        }
+    }
 
-        if (template == null) {
-            return null;
+    /**
+     * Read the next FAST message from the input stream, reporting its fields to a handler as they are decoded instead
+     * of creating a message.
+     * 
+     * @param handler the handler to report the message to
+     * @return false if the end of the input stream has been reached or the template is unknown
+     * @throws FastException if a decoding error occurs
+     */
+    public boolean readMessage(MessageEventHandler handler) throws FastException {
+        BitVectorReader presenceMapReader = context.acquirePresenceMapReader();
+        try {
+            MessageTemplate template = readTemplate(presenceMapReader);
+            if (template == null)
+                return false;
+            MessageEvents.decode(in, context.getLastTemplateId(), template, presenceMapReader, context, handler, subscribedFields);
+            return true;
+        } finally {
+            context.releasePresenceMapReader();
         }
-        context.newMessage(template);
+    }
 
-        context.setLastTemplateId(templateId);
+    /**
+     * Reads the presence map and template id of the next message to return, reading past the messages of templates
+     * that are not subscribed to.  The template id is left as the context's last template id and the fields to decode
+     * in {@link #subscribedFields}.
+     * 
+     * @return the template of the message, or null if the end of the input stream has been reached or the template is
+     *         unknown
+     */
+    private MessageTemplate readTemplate(BitVectorReader presenceMapReader) {
+        while (true) {
+            if (!BitVectorType.decodePresenceMap(in, presenceMapReader))
+                return null;
+            int templateId = readTemplateId(presenceMapReader);
+            MessageTemplate template = context.getTemplate(templateId);
+            if (template == null)
+                return null;
+            context.setLastTemplateId(templateId);
+            subscribedFields = null;
+            if (subscription == null)
+                return template;
+            Subscription.Entry entry = subscription.lookup(templateId);
+            if (entry != null) {
+                subscribedFields = entry.getSubscribedFields(template);
+                return template;
+            }
+            template.skip(in, templateId, presenceMapReader, context);
+        }
+    }
 
-        return template.decode(in, templateId, presenceMapReader, context);
+    private int readTemplateId(BitVectorReader presenceMapReader) {
+        // if template id is not present, use previous, else decode template id
+        return (presenceMapReader.read()) ? TypeCodec.UINT.decode(in).toInt() : context.getLastTemplateId();
     }
     
     /**
@@ -105,4 +233,11 @@ public class FastDecoder implements Coder {
     public void reset() {
         context.reset();
     }
+
+    /**
+     * Reset the template dictionary of one template.
+     */
+    public void reset(MessageTemplate template) {
+        context.reset(template);
+    }
 }
@@ -20,6 +20,8 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
  */
 package org.openfast.codec;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -28,6 +30,7 @@ import org.openfast.Context;
 import org.openfast.Message;
 import org.openfast.template.MessageTemplate;
 import org.openfast.template.TemplateRegisteredListener;
+import org.openfast.template.compiler.FlyweightMessage;
 
 public class FastEncoder implements Coder {
     private Context context;
@@ -44,12 +47,77 @@ public class FastEncoder implements Coder {
      */
     public byte[] encode(Message message) {
         MessageTemplate template = message.getTemplate();
-        context.newMessage(template);
         return template.encode(message, context);
     }
+    /**
+     * Writes the fast encoding of the message into the buffer, starting at its
+     * position. Templates compiled by
+     * {@link org.openfast.template.compiler.TemplateCompiler} are encoded in
+     * place without creating any objects; interpreted templates are encoded
+     * into an array that is then copied into the buffer.
+     * <p>
+     * If the message does not fit, the buffer's position and the dictionaries
+     * are restored and a {@link BufferOverflowException} is thrown, so the
+     * message can be encoded again into a buffer with more room.
+     * </p>
+     * WARNING: Not thread-safe.
+     * 
+     * @param message
+     * @param buffer
+     *            receives the encoding of the message
+     * @return the number of bytes written
+     */
+    public int encode(Message message, ByteBuffer buffer) {
+        MessageTemplate template = message.getTemplate();
+        int position = buffer.position();
+        context.startJournal();
+        try {
+            return template.encode(message, buffer, context);
+        } catch (BufferOverflowException e) {
+            buffer.position(position);
+            context.rollback();
+            throw e;
+        } finally {
+            context.endJournal();
+        }
+    }
+    /**
+     * Writes the fast encoding of a flyweight that has been
+     * {@link FlyweightMessage#reset(MessageTemplate) reset} and filled in,
+     * reading its integers, decimals and bytes without creating values. The
+     * flyweight can be refilled for the next message as soon as this returns.
+     * Overflow is handled as by {@link #encode(Message, ByteBuffer)}.
+     * <p>
+     * WARNING: Not thread-safe.
+     * </p>
+     * 
+     * @param message
+     * @param buffer
+     *            receives the encoding of the message
+     * @return the number of bytes written
+     */
+    public int encode(FlyweightMessage message, ByteBuffer buffer) {
+        int position = buffer.position();
+        context.startJournal();
+        try {
+            return message.encode(buffer, context);
+        } catch (BufferOverflowException e) {
+            buffer.position(position);
+            context.rollback();
+            throw e;
+        } finally {
+            context.endJournal();
+        }
+    }
     public void reset() {
         context.reset();
     }
+    /**
+     * Resets the template dictionary of one template.
+     */
+    public void reset(MessageTemplate template) {
+        context.reset(template);
+    }
     public void registerTemplate(int templateId, MessageTemplate template) {
         context.registerTemplate(templateId, template);
     }
@@ -0,0 +1,69 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.codec;
+
+import org.openfast.ScalarValue;
+import org.openfast.template.MessageTemplate;
+
+/**
+ * Receives the contents of a message as it is decoded by {@link FastDecoder#readMessage(MessageEventHandler)}, in the
+ * way a SAX content handler receives a document, so that order books and other structures can be built straight from
+ * the wire without an intermediate message.
+ * <p>
+ * Fields are identified by their index in the enclosing template, group or sequence entry; the template id is field 0
+ * of a message and is not reported again as a field.  Fields that are absent or null produce no event.  The bytes
+ * passed to {@link #onAscii} and {@link #onBytes} may be those of the input buffer or the dictionary and are only valid
+ * for the duration of the call.
+ * </p>
+ */
+public interface MessageEventHandler {
+    void onMessageStart(int templateId, MessageTemplate template);
+
+    void onMessageEnd();
+
+    /**
+     * Reports an integer field of any size.
+     */
+    void onLong(int fieldIndex, long value);
+
+    void onDecimal(int fieldIndex, long mantissa, int exponent);
+
+    void onAscii(int fieldIndex, byte[] buffer, int offset, int length);
+
+    void onBytes(int fieldIndex, byte[] buffer, int offset, int length);
+
+    /**
+     * Reports a field of any other type, such as a unicode string.
+     */
+    void onValue(int fieldIndex, ScalarValue value);
+
+    void onGroupStart(int fieldIndex);
+
+    void onGroupEnd();
+
+    void onSequenceStart(int fieldIndex, int length);
+
+    void onEntryStart(int entryIndex);
+
+    void onEntryEnd();
+
+    void onSequenceEnd();
+}
@@ -0,0 +1,301 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.codec;
+
+import org.openfast.ScalarValue;
+import org.openfast.template.ComposedScalar;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+import org.openfast.template.Scalar;
+import org.openfast.template.Sequence;
+import org.openfast.template.type.Type;
+
+/**
+ * The entries of a sequence stored column by column in primitive arrays, for instance the price levels of a book
+ * snapshot as a long[] of prices, a long[] of quantities and so on, so that whole sequences can be consumed in tight
+ * loops without an object per entry.  The arrays are reused from message to message and grow as needed.
+ * <p>
+ * Each field of the sequence group gets columns according to its type:
+ * <ul>
+ * <li>integers: {@link #getLongs(int)}</li>
+ * <li>decimals: the mantissas in {@link #getLongs(int)} and the exponents in {@link #getInts(int)}</li>
+ * <li>strings and byte vectors: the offset in {@link #getInts(int)} and length in {@link #getLengths(int)} of the
+ * bytes in {@link #getBytes()}</li>
+ * <li>nested sequences: the first row in the child columns in {@link #getInts(int)} and the number of rows in
+ * {@link #getLengths(int)}</li>
+ * <li>other types: the values in {@link #getValues(int)}</li>
+ * </ul>
+ * Nested groups are not stored.  Columns are filled by a {@link SequenceColumnsHandler}.
+ * </p>
+ */
+public final class SequenceColumns {
+    static final int NONE = 0;
+    static final int LONG = 1;
+    static final int DECIMAL = 2;
+    static final int BYTES = 3;
+    static final int SEQUENCE = 4;
+    static final int OBJECT = 5;
+
+    private static final int INITIAL_ROWS = 16;
+
+    private final Sequence sequence;
+    private final int[] kinds;
+    private final SequenceColumns[] children;
+    private final long[][] longs;
+    private final int[][] ints;
+    private final int[][] lengths;
+    private final ScalarValue[][] values;
+    private final boolean[][] present;
+    private byte[] bytes = new byte[256];
+    private int byteCount;
+    private int rowCount;
+    private int capacity = INITIAL_ROWS;
+
+    public SequenceColumns(Sequence sequence) {
+        this.sequence = sequence;
+        Group group = sequence.getGroup();
+        int fieldCount = group.getFieldCount();
+        this.kinds = new int[fieldCount];
+        this.children = new SequenceColumns[fieldCount];
+        this.longs = new long[fieldCount][];
+        this.ints = new int[fieldCount][];
+        this.lengths = new int[fieldCount][];
+        this.values = new ScalarValue[fieldCount][];
+        this.present = new boolean[fieldCount][];
+        for (int i = 0; i < fieldCount; i++) {
+            kinds[i] = kindOf(group.getField(i));
+            if (kinds[i] == SEQUENCE)
+                children[i] = new SequenceColumns((Sequence) group.getField(i));
+            if (kinds[i] != NONE)
+                present[i] = new boolean[capacity];
+            if (kinds[i] == LONG || kinds[i] == DECIMAL)
+                longs[i] = new long[capacity];
+            if (kinds[i] == DECIMAL || kinds[i] == BYTES || kinds[i] == SEQUENCE)
+                ints[i] = new int[capacity];
+            if (kinds[i] == BYTES || kinds[i] == SEQUENCE)
+                lengths[i] = new int[capacity];
+            if (kinds[i] == OBJECT)
+                values[i] = new ScalarValue[capacity];
+        }
+    }
+
+    private static int kindOf(Field field) {
+        if (field instanceof Sequence)
+            return SEQUENCE;
+        if (field instanceof Group)
+            return NONE;
+        Type type = (field instanceof Scalar) ? ((Scalar) field).getType() : ((field instanceof ComposedScalar) ? ((ComposedScalar) field).getType() : null);
+        if (type == Type.DECIMAL)
+            return DECIMAL;
+        if (type == Type.ASCII || type == Type.STRING || type == Type.BYTE_VECTOR)
+            return BYTES;
+        for (int i = 0; i < Type.INTEGER_TYPES.length; i++)
+            if (type == Type.INTEGER_TYPES[i])
+                return LONG;
+        return OBJECT;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the number of entries stored since the columns were last cleared
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isPresent(int fieldIndex, int row) {
+        return present[fieldIndex] != null && present[fieldIndex][row];
+    }
+
+    /**
+     * @return the column of integer values or decimal mantissas of a field, valid up to {@link #getRowCount()}
+     */
+    public long[] getLongs(int fieldIndex) {
+        return longs[fieldIndex];
+    }
+
+    /**
+     * @return the column of decimal exponents, byte offsets or child rows of a field
+     */
+    public int[] getInts(int fieldIndex) {
+        return ints[fieldIndex];
+    }
+
+    /**
+     * @return the column of byte lengths or numbers of child rows of a field
+     */
+    public int[] getLengths(int fieldIndex) {
+        return lengths[fieldIndex];
+    }
+
+    public ScalarValue[] getValues(int fieldIndex) {
+        return values[fieldIndex];
+    }
+
+    /**
+     * @return the bytes of the string and byte vector columns
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the columns of a nested sequence field, whose rows are shared by all entries of this sequence
+     */
+    public SequenceColumns getChild(int fieldIndex) {
+        return children[fieldIndex];
+    }
+
+    /**
+     * Creates a string from a string column, for display and tests.
+     */
+    public String getString(int fieldIndex, int row) {
+        if (!isPresent(fieldIndex, row))
+            return null;
+        if (kinds[fieldIndex] == OBJECT)
+            return values[fieldIndex][row].toString();
+        char[] chars = new char[lengths[fieldIndex][row]];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = (char) (bytes[ints[fieldIndex][row] + i] & 0xFF);
+        return new String(chars);
+    }
+
+    /**
+     * Empties these columns and those of the nested sequences, keeping the arrays for reuse.
+     */
+    public void clear() {
+        rowCount = 0;
+        byteCount = 0;
+        for (int i = 0; i < children.length; i++)
+            if (children[i] != null)
+                children[i].clear();
+    }
+
+    /**
+     * Starts a new entry with all its fields absent.
+     * 
+     * @return the row of the entry
+     */
+    int addRow() {
+        if (rowCount == capacity)
+            grow();
+        for (int i = 0; i < present.length; i++)
+            if (present[i] != null)
+                present[i][rowCount] = false;
+        return rowCount++;
+    }
+
+    int kind(int fieldIndex) {
+        return kinds[fieldIndex];
+    }
+
+    void setLong(int fieldIndex, int row, long value) {
+        if (kinds[fieldIndex] != LONG)
+            return;
+        longs[fieldIndex][row] = value;
+        present[fieldIndex][row] = true;
+    }
+
+    void setDecimal(int fieldIndex, int row, long mantissa, int exponent) {
+        if (kinds[fieldIndex] != DECIMAL)
+            return;
+        longs[fieldIndex][row] = mantissa;
+        ints[fieldIndex][row] = exponent;
+        present[fieldIndex][row] = true;
+    }
+
+    void setBytes(int fieldIndex, int row, byte[] buffer, int offset, int length) {
+        if (kinds[fieldIndex] != BYTES)
+            return;
+        if (byteCount + length > bytes.length) {
+            byte[] grown = new byte[Math.max(bytes.length * 2, byteCount + length)];
+            System.arraycopy(bytes, 0, grown, 0, byteCount);
+            bytes = grown;
+        }
+        System.arraycopy(buffer, offset, bytes, byteCount, length);
+        ints[fieldIndex][row] = byteCount;
+        lengths[fieldIndex][row] = length;
+        byteCount += length;
+        present[fieldIndex][row] = true;
+    }
+
+    void setValue(int fieldIndex, int row, ScalarValue value) {
+        if (kinds[fieldIndex] != OBJECT)
+            return;
+        values[fieldIndex][row] = value;
+        present[fieldIndex][row] = true;
+    }
+
+    /**
+     * Records where the entries of a nested sequence start in its child columns.
+     * 
+     * @return the child columns
+     */
+    SequenceColumns startChild(int fieldIndex, int row, int length) {
+        SequenceColumns child = children[fieldIndex];
+        ints[fieldIndex][row] = child.rowCount;
+        lengths[fieldIndex][row] = length;
+        present[fieldIndex][row] = true;
+        return child;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        for (int i = 0; i < kinds.length; i++) {
+            present[i] = grow(present[i]);
+            longs[i] = grow(longs[i]);
+            ints[i] = grow(ints[i]);
+            lengths[i] = grow(lengths[i]);
+            if (values[i] != null) {
+                ScalarValue[] grown = new ScalarValue[capacity];
+                System.arraycopy(values[i], 0, grown, 0, rowCount);
+                values[i] = grown;
+            }
+        }
+    }
+
+    private boolean[] grow(boolean[] column) {
+        if (column == null)
+            return null;
+        boolean[] grown = new boolean[capacity];
+        System.arraycopy(column, 0, grown, 0, rowCount);
+        return grown;
+    }
+
+    private long[] grow(long[] column) {
+        if (column == null)
+            return null;
+        long[] grown = new long[capacity];
+        System.arraycopy(column, 0, grown, 0, rowCount);
+        return grown;
+    }
+
+    private int[] grow(int[] column) {
+        if (column == null)
+            return null;
+        int[] grown = new int[capacity];
+        System.arraycopy(column, 0, grown, 0, rowCount);
+        return grown;
+    }
+}
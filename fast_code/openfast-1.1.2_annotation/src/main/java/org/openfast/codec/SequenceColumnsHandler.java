@@ -0,0 +1,202 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.codec;
+
+import org.openfast.ScalarValue;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Sequence;
+
+/**
+ * Decodes a sequence of a template, with its nested sequences, into {@link SequenceColumns} as the message is read by
+ * {@link FastDecoder#readMessage(MessageEventHandler)}.  The columns are cleared at the start of each message of the
+ * template.  All other events, such as the fields of the message itself, are passed on to a delegate handler if one is
+ * given.
+ * 
+ * <pre>
+ * SequenceColumnsHandler handler = new SequenceColumnsHandler(template, &quot;NoMDEntries&quot;, null);
+ * SequenceColumns levels = handler.getColumns();
+ * while (decoder.readMessage(handler)) {
+ *     long[] prices = levels.getLongs(pxIndex);
+ *     for (int row = 0; row &lt; levels.getRowCount(); row++)
+ *         book.update(prices[row], ...);
+ * }
+ * </pre>
+ */
+public class SequenceColumnsHandler implements MessageEventHandler {
+    private static final MessageEventHandler IGNORE = new MessageEventHandler() {
+        public void onMessageStart(int templateId, MessageTemplate template) {}
+        public void onMessageEnd() {}
+        public void onLong(int fieldIndex, long value) {}
+        public void onDecimal(int fieldIndex, long mantissa, int exponent) {}
+        public void onAscii(int fieldIndex, byte[] buffer, int offset, int length) {}
+        public void onBytes(int fieldIndex, byte[] buffer, int offset, int length) {}
+        public void onValue(int fieldIndex, ScalarValue value) {}
+        public void onGroupStart(int fieldIndex) {}
+        public void onGroupEnd() {}
+        public void onSequenceStart(int fieldIndex, int length) {}
+        public void onEntryStart(int entryIndex) {}
+        public void onEntryEnd() {}
+        public void onSequenceEnd() {}
+    };
+
+    private final MessageTemplate template;
+    private final int fieldIndex;
+    private final SequenceColumns columns;
+    private final MessageEventHandler delegate;
+    private SequenceColumns[] stack = new SequenceColumns[4];
+    private int depth;
+    private int ignoredDepth;
+    private boolean capturing;
+
+    /**
+     * @param template
+     *            the template of the messages whose sequence is stored
+     * @param sequenceName
+     *            the name of a sequence field of the template
+     * @param delegate
+     *            the handler to pass all other events to, or null to drop them
+     */
+    public SequenceColumnsHandler(MessageTemplate template, String sequenceName, MessageEventHandler delegate) {
+        Sequence sequence = template.getSequence(sequenceName);
+        if (sequence == null)
+            throw new IllegalArgumentException("The template " + template.getName() + " has no sequence named " + sequenceName);
+        this.template = template;
+        this.fieldIndex = template.getFieldIndex(sequence);
+        this.columns = new SequenceColumns(sequence);
+        this.delegate = (delegate == null) ? IGNORE : delegate;
+    }
+
+    /**
+     * @return the columns of the sequence of the last message of the template
+     */
+    public SequenceColumns getColumns() {
+        return columns;
+    }
+
+    public void onMessageStart(int templateId, MessageTemplate template) {
+        capturing = template == this.template;
+        if (capturing)
+            columns.clear();
+        depth = 0;
+        ignoredDepth = 0;
+        delegate.onMessageStart(templateId, template);
+    }
+
+    public void onMessageEnd() {
+        delegate.onMessageEnd();
+    }
+
+    public void onLong(int fieldIndex, long value) {
+        if (depth == 0)
+            delegate.onLong(fieldIndex, value);
+        else if (ignoredDepth == 0)
+            stack[depth - 1].setLong(fieldIndex, currentRow(), value);
+    }
+
+    public void onDecimal(int fieldIndex, long mantissa, int exponent) {
+        if (depth == 0)
+            delegate.onDecimal(fieldIndex, mantissa, exponent);
+        else if (ignoredDepth == 0)
+            stack[depth - 1].setDecimal(fieldIndex, currentRow(), mantissa, exponent);
+    }
+
+    public void onAscii(int fieldIndex, byte[] buffer, int offset, int length) {
+        if (depth == 0)
+            delegate.onAscii(fieldIndex, buffer, offset, length);
+        else if (ignoredDepth == 0)
+            stack[depth - 1].setBytes(fieldIndex, currentRow(), buffer, offset, length);
+    }
+
+    public void onBytes(int fieldIndex, byte[] buffer, int offset, int length) {
+        if (depth == 0)
+            delegate.onBytes(fieldIndex, buffer, offset, length);
+        else if (ignoredDepth == 0)
+            stack[depth - 1].setBytes(fieldIndex, currentRow(), buffer, offset, length);
+    }
+
+    public void onValue(int fieldIndex, ScalarValue value) {
+        if (depth == 0)
+            delegate.onValue(fieldIndex, value);
+        else if (ignoredDepth == 0)
+            stack[depth - 1].setValue(fieldIndex, currentRow(), value);
+    }
+
+    public void onGroupStart(int fieldIndex) {
+        if (depth == 0)
+            delegate.onGroupStart(fieldIndex);
+        else
+            ignoredDepth++;
+    }
+
+    public void onGroupEnd() {
+        if (depth == 0)
+            delegate.onGroupEnd();
+        else
+            ignoredDepth--;
+    }
+
+    public void onSequenceStart(int fieldIndex, int length) {
+        if (depth == 0) {
+            if (capturing && fieldIndex == this.fieldIndex)
+                push(columns);
+            else
+                delegate.onSequenceStart(fieldIndex, length);
+        } else if (ignoredDepth > 0 || stack[depth - 1].kind(fieldIndex) != SequenceColumns.SEQUENCE) {
+            ignoredDepth++;
+        } else {
+            push(stack[depth - 1].startChild(fieldIndex, currentRow(), length));
+        }
+    }
+
+    public void onEntryStart(int entryIndex) {
+        if (depth == 0)
+            delegate.onEntryStart(entryIndex);
+        else if (ignoredDepth == 0)
+            stack[depth - 1].addRow();
+    }
+
+    public void onEntryEnd() {
+        if (depth == 0)
+            delegate.onEntryEnd();
+    }
+
+    public void onSequenceEnd() {
+        if (depth == 0)
+            delegate.onSequenceEnd();
+        else if (ignoredDepth > 0)
+            ignoredDepth--;
+        else
+            depth--;
+    }
+
+    private int currentRow() {
+        return stack[depth - 1].getRowCount() - 1;
+    }
+
+    private void push(SequenceColumns sequenceColumns) {
+        if (depth == stack.length) {
+            SequenceColumns[] grown = new SequenceColumns[stack.length * 2];
+            System.arraycopy(stack, 0, grown, 0, depth);
+            stack = grown;
+        }
+        stack[depth++] = sequenceColumns;
+    }
+}
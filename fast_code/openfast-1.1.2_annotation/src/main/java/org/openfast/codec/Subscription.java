@@ -0,0 +1,140 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.codec;
+
+import org.openfast.template.MessageTemplate;
+
+/**
+ * The templates, and the fields of those templates, that a consumer of a {@link FastDecoder} wants to see.  A decoder
+ * with a subscription reads past the messages of every other template, and leaves unsubscribed fields of the messages
+ * it returns empty, without creating values for them.  Skipped messages and fields still update the dictionaries, so
+ * the messages that follow decode correctly.
+ * <p>
+ * Fields are named by the top level fields of a template; subscribing to a group or sequence subscribes to everything
+ * in it.  Field names are resolved against a template the first time one of its messages is read.
+ * </p>
+ */
+public final class Subscription {
+    private int[] templateIds = new int[16];
+    private Entry[] entries = new Entry[16];
+    private int size;
+
+    /**
+     * Subscribes to every field of a template.
+     */
+    public void subscribe(int templateId) {
+        put(templateId, new Entry(null));
+    }
+
+    /**
+     * Subscribes to some fields of a template.
+     * 
+     * @param fieldNames
+     *            the names of the top level fields to decode
+     */
+    public void subscribe(int templateId, String[] fieldNames) {
+        put(templateId, new Entry(fieldNames.clone()));
+    }
+
+    public boolean isSubscribed(int templateId) {
+        return lookup(templateId) != null;
+    }
+
+    /**
+     * @return the entry for a template, or null if the template is not subscribed to
+     */
+    Entry lookup(int templateId) {
+        int mask = entries.length - 1;
+        for (int i = hash(templateId) & mask;; i = (i + 1) & mask) {
+            Entry entry = entries[i];
+            if (entry == null || templateIds[i] == templateId)
+                return entry;
+        }
+    }
+
+    private void put(int templateId, Entry entry) {
+        if ((size + 1) * 2 > entries.length)
+            rehash(entries.length * 2);
+        if (insert(templateIds, entries, templateId, entry))
+            size++;
+    }
+
+    private void rehash(int capacity) {
+        int[] newTemplateIds = new int[capacity];
+        Entry[] newEntries = new Entry[capacity];
+        for (int i = 0; i < entries.length; i++)
+            if (entries[i] != null)
+                insert(newTemplateIds, newEntries, templateIds[i], entries[i]);
+        templateIds = newTemplateIds;
+        entries = newEntries;
+    }
+
+    private static boolean insert(int[] templateIds, Entry[] entries, int templateId, Entry entry) {
+        int mask = entries.length - 1;
+        int i = hash(templateId) & mask;
+        while (entries[i] != null) {
+            if (templateIds[i] == templateId) {
+                entries[i] = entry;
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        templateIds[i] = templateId;
+        entries[i] = entry;
+        return true;
+    }
+
+    private static int hash(int templateId) {
+        int h = templateId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static final class Entry {
+        private final String[] fieldNames;
+        private MessageTemplate template;
+        private boolean[] subscribedFields;
+
+        Entry(String[] fieldNames) {
+            this.fieldNames = fieldNames;
+        }
+
+        /**
+         * @return whether each field of the template, by field index, is to be decoded, or null if every field is
+         */
+        boolean[] getSubscribedFields(MessageTemplate template) {
+            if (fieldNames == null)
+                return null;
+            if (template != this.template) {
+                boolean[] subscribed = new boolean[template.getFieldCount()];
+                subscribed[0] = true;
+                for (int i = 0; i < fieldNames.length; i++) {
+                    if (!template.hasField(fieldNames[i]))
+                        throw new IllegalArgumentException("The template " + template.getName() + " has no field named "
+                                + fieldNames[i]);
+                    subscribed[template.getFieldIndex(fieldNames[i])] = true;
+                }
+                this.subscribedFields = subscribed;
+                this.template = template;
+            }
+            return subscribedFields;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.debug;
+
+import java.io.InputStream;
+import org.openfast.BitVectorBuilder;
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+import org.openfast.util.RecordingInputStream;
+
+/**
+ * The hooks through which the interpreted encoder and decoder report to a
+ * context's traces. A context holds {@link #NONE}, whose hooks do nothing,
+ * until tracing is enabled, so the coding paths themselves never check
+ * whether tracing is on.
+ */
+public abstract class Tracer {
+    public static final Tracer NONE = new Tracer() {
+        public InputStream startField(InputStream in) {
+            return in;
+        }
+        public void decodedField(Field field, FieldValue value, FieldValue decodedValue, InputStream fieldIn, int pmapIndex) {}
+        public void decodedPresenceMap(BitVectorReader pmapReader) {}
+        public void startDecodingGroup(Group group) {}
+        public void endDecodingGroup() {}
+        public void encodedField(Field field, FieldValue value, FieldValue encodedValue, byte[] encoding, int pmapIndex) {}
+        public void encodedPresenceMap(BitVectorBuilder pmapBuilder) {}
+        public void startEncodingGroup(Group group) {}
+        public void endEncodingGroup() {}
+    };
+
+    /**
+     * @return a tracer that reports to whichever encode and decode traces the
+     *         context holds at the time
+     */
+    public static Tracer of(final Context context) {
+        return new Tracer() {
+            public InputStream startField(InputStream in) {
+                return new RecordingInputStream(in);
+            }
+            public void decodedField(Field field, FieldValue value, FieldValue decodedValue, InputStream fieldIn, int pmapIndex) {
+                context.getDecodeTrace().field(field, value, decodedValue, ((RecordingInputStream) fieldIn).getBuffer(), pmapIndex);
+            }
+            public void decodedPresenceMap(BitVectorReader pmapReader) {
+                context.getDecodeTrace().pmap(pmapReader.getBitVector().getBytes());
+            }
+            public void startDecodingGroup(Group group) {
+                context.getDecodeTrace().groupStart(group);
+            }
+            public void endDecodingGroup() {
+                context.getDecodeTrace().groupEnd();
+            }
+            public void encodedField(Field field, FieldValue value, FieldValue encodedValue, byte[] encoding, int pmapIndex) {
+                if (encoding.length > 0)
+                    context.getEncodeTrace().field(field, value, encodedValue, encoding, pmapIndex);
+            }
+            public void encodedPresenceMap(BitVectorBuilder pmapBuilder) {
+                context.getEncodeTrace().pmap(pmapBuilder.getTruncatedBytes());
+            }
+            public void startEncodingGroup(Group group) {
+                context.getEncodeTrace().groupStart(group);
+            }
+            public void endEncodingGroup() {
+                context.getEncodeTrace().groupEnd();
+            }
+        };
+    }
+
+    /**
+     * @return the stream to read the encoding of a field from, which is
+     *         handed back to
+     *         {@link #decodedField(Field, FieldValue, FieldValue, InputStream, int)}
+     */
+    public abstract InputStream startField(InputStream in);
+    public abstract void decodedField(Field field, FieldValue value, FieldValue decodedValue, InputStream fieldIn, int pmapIndex);
+    public abstract void decodedPresenceMap(BitVectorReader pmapReader);
+    public abstract void startDecodingGroup(Group group);
+    public abstract void endDecodingGroup();
+    public abstract void encodedField(Field field, FieldValue value, FieldValue encodedValue, byte[] encoding, int pmapIndex);
+    public abstract void encodedPresenceMap(BitVectorBuilder pmapBuilder);
+    public abstract void startEncodingGroup(Group group);
+    public abstract void endEncodingGroup();
+}
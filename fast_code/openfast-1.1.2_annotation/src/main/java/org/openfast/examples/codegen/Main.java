@@ -0,0 +1,72 @@
+package org.openfast.examples.codegen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.openfast.examples.Assert;
+import org.openfast.examples.OpenFastExample;
+import org.openfast.template.codegen.MessageClassGenerator;
+import org.openfast.template.loader.XMLMessageTemplateLoader;
+
+public class Main extends OpenFastExample {
+    private static final String PACKAGE = "package";
+    private static final String OUTPUT = "output";
+    private static final String BINDING = "binding";
+    private static Options options = new Options();
+
+    static {
+        options.addOption("?", HELP, false, "Displays this message");
+        options.addOption("e", ERROR, false, "Show stacktrace information");
+        options.addOption("n", NAMESPACE_AWARENESS, false, "Enables namespace awareness");
+        options.addOption("t", MESSAGE_TEMPLATE_FILE, true, "Message template definition file");
+        options.addOption("p", PACKAGE, true, "Package of the generated classes, the default package if not specified");
+        options.addOption("o", OUTPUT, true, "Source directory to write the generated classes to");
+        options.addOption("b", BINDING, true, "Name of the class that dispatches decoded messages, default is Messages");
+    }
+
+    /**
+     * @param args
+     */
+    public static void main(String[] args) {
+        CommandLine cl = parseCommandLine("codegen", args, options);
+        if (cl.hasOption(HELP)) {
+            displayHelp("codegen", options);
+        }
+        File templatesFile = null;
+        File outputDirectory = null;
+        try {
+            templatesFile = getFile(cl, MESSAGE_TEMPLATE_FILE);
+            Assert.assertTrue(templatesFile.exists(), "The template definition file \"" + templatesFile.getAbsolutePath() + "\" does not exist.");
+            Assert.assertTrue(!templatesFile.isDirectory(), "The template definition file \"" + templatesFile.getAbsolutePath() + "\" is a directory.");
+            Assert.assertTrue(templatesFile.canRead(), "The template definition file \"" + templatesFile.getAbsolutePath() + "\" is not readable.");
+            outputDirectory = getFile(cl, OUTPUT);
+        } catch (AssertionError e) {
+            System.out.println(e.getMessage());
+            displayHelp("codegen", options);
+        }
+
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader(cl.hasOption(NAMESPACE_AWARENESS));
+        loader.setLoadTemplateIdFromAuxId(true);
+        MessageClassGenerator generator = new MessageClassGenerator(cl.getOptionValue(PACKAGE, ""));
+        if (cl.hasOption(BINDING))
+            generator.setBindingName(cl.getOptionValue(BINDING));
+        try {
+            InputStream in = new FileInputStream(templatesFile);
+            try {
+                loader.load(in);
+            } finally {
+                in.close();
+            }
+            File[] files = generator.generate(loader.getTemplateRegistry(), outputDirectory);
+            System.out.println("Generated " + files.length + " classes in " + outputDirectory.getAbsolutePath());
+        } catch (IOException e) {
+            if (cl.hasOption(ERROR))
+                e.printStackTrace();
+            System.out.println("An IO error occurred while generating classes: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
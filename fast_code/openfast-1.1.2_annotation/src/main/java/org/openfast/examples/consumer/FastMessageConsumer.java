@@ -13,6 +13,8 @@ import org.openfast.codec.FastDecoder;
 import org.openfast.session.Connection;
 import org.openfast.session.Endpoint;
 import org.openfast.session.FastConnectionException;
+import org.openfast.session.multicast.MulticastClientEndpoint;
+import org.openfast.session.multicast.MulticastReceiver;
 import org.openfast.template.TemplateRegistry;
 import org.openfast.template.loader.XMLMessageTemplateLoader;
 import org.openfast.examples.MessageBlockReaderFactory;
@@ -22,6 +24,7 @@ public class FastMessageConsumer {
     private final TemplateRegistry templateRegistry;
     protected final MessageBlockReaderFactory messageBlockReaderFactory;
     protected final boolean shouldResetOnEveryMessage;
+    private boolean packetAware;
 
     public FastMessageConsumer(Endpoint endpoint, File templatesFile) {
         this(endpoint, templatesFile, new MessageBlockReaderFactory(), false);
@@ -43,6 +46,10 @@ public class FastMessageConsumer {
     }
 
     public void start() throws FastConnectionException, IOException {
+        if (packetAware && (endpoint instanceof MulticastClientEndpoint)) {
+            startReceiver((MulticastClientEndpoint) endpoint);
+            return;
+        }
         final Connection connection = endpoint.connect();
         Context context = new Context();
         context.setTemplateRegistry(templateRegistry);
@@ -67,4 +74,30 @@ public class FastMessageConsumer {
             }
         }
     }
+
+    /**
+     * Decode a multicast feed a datagram at a time with a {@link MulticastReceiver} instead of as a stream.
+     */
+    public void setPacketAware(boolean packetAware) {
+        this.packetAware = packetAware;
+    }
+
+    private void startReceiver(MulticastClientEndpoint multicastEndpoint) throws FastConnectionException {
+        Context context = new Context();
+        context.setTemplateRegistry(templateRegistry);
+        final MulticastReceiver receiver = multicastEndpoint.createReceiver(context);
+        MessageBlockReader msgBlockReader = messageBlockReaderFactory.create();
+        receiver.setBlockReader(msgBlockReader);
+        receiver.setResetOnPacket(shouldResetOnEveryMessage);
+        receiver.open();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                receiver.close();
+                System.err.println(receiver.getCounters());
+            }
+        });
+        Message message;
+        while ((message = receiver.readMessage()) != null)
+            System.out.println(msgBlockReader.toString() + ' ' + message.toString());
+    }
 }
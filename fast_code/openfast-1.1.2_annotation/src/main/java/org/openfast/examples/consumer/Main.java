@@ -27,6 +27,7 @@ public class Main extends OpenFastExample {
         options.addOption("j", READ_OFFSET, true, READ_OFFSET_DESCRIPTION);
         options.addOption("z", VARIANT, true, VARIANT_DESCRIPTION);
         options.addOption("d", RESET, false, RESET_DESCRIPTION);
+        options.addOption("k", "packets", false, "Decode a multicast feed packet by packet instead of as a stream");
     }
     
     /**
@@ -67,6 +68,7 @@ public class Main extends OpenFastExample {
         final boolean shouldResetOnEveryMessage = (cl.hasOption(RESET) || (Variant.CME == variant));
 		final MessageBlockReaderFactory msgBlockReaderFactory = new MessageBlockReaderFactory(variant, readOffset, isMulticast(cl));
 		FastMessageConsumer consumer = new FastMessageConsumer(endpoint, templatesFile, msgBlockReaderFactory, shouldResetOnEveryMessage);
+        consumer.setPacketAware(cl.hasOption("packets"));
         
         try {
             consumer.start();
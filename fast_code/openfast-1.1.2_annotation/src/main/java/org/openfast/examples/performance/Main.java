@@ -3,6 +3,8 @@ package org.openfast.examples.performance;
 import java.io.File;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Options;
+import org.openfast.ValidationLevel;
+import org.openfast.codec.Subscription;
 import org.openfast.examples.Assert;
 import org.openfast.examples.OpenFastExample;
 
@@ -18,6 +20,12 @@ public class Main extends OpenFastExample {
         options.addOption("e", "error", false, "Show stacktrace information");
         options.addOption("r", "repeat", true, "Re process data file X number of times");
         options.addOption("f", "format", true, "Data format [hex|binary] default is binary");
+        options.addOption("b", "buffer", true, "Decode the preloaded data from a ByteBuffer [heap|direct] instead of an input stream");
+        options.addOption("C", "compile", false, "Decode with compiled templates instead of interpreting them");
+        options.addOption("F", "flyweight", false, "Decode into a reusable flyweight message instead of creating a message per message");
+        options.addOption("E", "encode", true, "Time re-encoding the decoded messages [bytes|buffer|direct] instead of decoding them");
+        options.addOption("V", "validation", true, "Validation level [strict|trusted] default is strict");
+        options.addOption("S", "subscribe", true, "Only decode the given templates, optionally only some of their fields [id[:field+field],...]");
         options.addOption("c", "continuous", false, "Keep repeating the test until the process is killed");
     }
 
@@ -41,6 +49,18 @@ public class Main extends OpenFastExample {
                 performanceRunner.setPreloadData(true);
             if (cl.hasOption("format"))
                 performanceRunner.setFormat(cl.getOptionValue("format"));
+            if (cl.hasOption("compile"))
+                performanceRunner.setCompileTemplates(true);
+            if (cl.hasOption("buffer"))
+                performanceRunner.setBufferType(cl.getOptionValue("buffer"));
+            if (cl.hasOption("flyweight"))
+                performanceRunner.setFlyweight(true);
+            if (cl.hasOption("encode"))
+                performanceRunner.setEncodeType(cl.getOptionValue("encode"));
+            if (cl.hasOption("validation"))
+                performanceRunner.setValidationLevel(ValidationLevel.valueOf(cl.getOptionValue("validation").toUpperCase()));
+            if (cl.hasOption("subscribe"))
+                performanceRunner.setSubscription(parseSubscription(cl.getOptionValue("subscribe")));
             
             if (cl.hasOption("continuous"))
                 runContinuous(performanceRunner);
@@ -60,6 +80,20 @@ public class Main extends OpenFastExample {
         }
     }
 
+    private static Subscription parseSubscription(String value) {
+        Subscription subscription = new Subscription();
+        String[] templates = value.split(",");
+        for (int i = 0; i < templates.length; i++) {
+            String[] parts = templates[i].split(":");
+            int templateId = Integer.parseInt(parts[0].trim());
+            if (parts.length == 1)
+                subscription.subscribe(templateId);
+            else
+                subscription.subscribe(templateId, parts[1].split("\\+"));
+        }
+        return subscription;
+    }
+
     private static void runRepeat(PerformanceRunner performanceRunner, int repeat) {
         for (int i=0; i<repeat; i++)
             run(performanceRunner);
@@ -75,8 +109,11 @@ public class Main extends OpenFastExample {
         PerformanceResult result = performanceRunner.run();
         if (result == null)
             return;
-        System.out.println("Decoded " + result.getMessageCount() + " messages in " + result.getTime() + " milliseconds.");
-        System.out.println("Average decode time per message: " + ((result.getTime() * 1000) / (result.getMessageCount())) + " microseconds");
+        String operation = performanceRunner.isEncoding() ? "encode" : "decode";
+        System.out.println((performanceRunner.isEncoding() ? "Encoded " : "Decoded ") + result.getMessageCount() + " messages in "
+                + result.getTime() + " milliseconds.");
+        System.out.println("Average " + operation + " time per message: " + ((result.getTime() * 1000) / (result.getMessageCount()))
+                + " microseconds");
     }
 
     private static String getString(CommandLine cl, String option) {
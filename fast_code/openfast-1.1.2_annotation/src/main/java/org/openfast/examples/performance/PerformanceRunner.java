@@ -10,13 +10,20 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import org.openfast.Context;
 import org.openfast.Message;
+import org.openfast.ValidationLevel;
 import org.openfast.codec.FastDecoder;
+import org.openfast.codec.FastEncoder;
+import org.openfast.codec.Subscription;
 import org.openfast.error.ErrorCode;
 import org.openfast.error.ErrorHandler;
 import org.openfast.examples.Assert;
 import org.openfast.template.TemplateRegistry;
+import org.openfast.template.compiler.FlyweightMessage;
 import org.openfast.template.loader.XMLMessageTemplateLoader;
 
 public class PerformanceRunner implements ErrorHandler {
@@ -26,8 +33,16 @@ public class PerformanceRunner implements ErrorHandler {
     private boolean showStacktrace;
     private boolean namespaceAware;
     private boolean preloadData;
+    private boolean compileTemplates;
+    private boolean flyweight;
+    private ValidationLevel validationLevel = ValidationLevel.STRICT;
+    private Subscription subscription;
     private String format;
+    private String bufferType;
+    private String encodeType;
+    private byte[] data;
     private ByteArrayInputStream byteIn;
+    private ByteBuffer dataBuffer;
     private TemplateRegistry templateRegistry;
     
     public PerformanceRunner(File templatesFile, File dataFile) {
@@ -38,14 +53,31 @@ public class PerformanceRunner implements ErrorHandler {
     public PerformanceResult run() {
         try {
             loadTemplates();
-            InputStream dataIn = getFastEncodedDataStream();
             Context context = new Context();
             context.setTemplateRegistry(templateRegistry);
             context.setErrorHandler(this);
-            FastDecoder decoder = new FastDecoder(context, dataIn);
+            context.setValidationLevel(validationLevel);
+            FastDecoder decoder;
+            if (bufferType != null)
+                decoder = new FastDecoder(context, getFastEncodedDataBuffer());
+            else
+                decoder = new FastDecoder(context, getFastEncodedDataStream());
+            decoder.setSubscription(subscription);
+            if (encodeType != null)
+                return encode(decoder);
             PerformanceResult result = new PerformanceResult();
             Message msg = null;
             result.start();
+            if (flyweight) {
+                FlyweightMessage message = new FlyweightMessage();
+                result.startMessage();
+                while (decoder.readMessage(message)) {
+                    result.finishMessage();
+                    result.startMessage();
+                }
+                result.stop();
+                return result;
+            }
             do {
                 result.startMessage();
                 msg = decoder.readMessage();
@@ -64,12 +96,46 @@ public class PerformanceRunner implements ErrorHandler {
         return null;
     }
 
+    /**
+     * Decodes every message up front, then times encoding them again with a fresh context.
+     */
+    private PerformanceResult encode(FastDecoder decoder) {
+        List messages = new ArrayList();
+        Message msg;
+        while ((msg = decoder.readMessage()) != null)
+            messages.add(msg);
+        Context context = new Context();
+        context.setTemplateRegistry(templateRegistry);
+        context.setErrorHandler(this);
+        FastEncoder encoder = new FastEncoder(context);
+        ByteBuffer buffer = null;
+        if ("buffer".equals(encodeType) || "direct".equals(encodeType)) {
+            int capacity = Math.max(65536, (int) dataFile.length());
+            buffer = "direct".equals(encodeType) ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+        PerformanceResult result = new PerformanceResult();
+        result.start();
+        for (int i = 0; i < messages.size(); i++) {
+            result.startMessage();
+            if (buffer == null) {
+                encoder.encode((Message) messages.get(i));
+            } else {
+                buffer.clear();
+                encoder.encode((Message) messages.get(i), buffer);
+            }
+            result.finishMessage();
+        }
+        result.stop();
+        return result;
+    }
+
     private void loadTemplates() throws FileNotFoundException {
         InputStream source = null;
         if (templateRegistry == null) {
             try {
                 XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader(namespaceAware);
                 loader.setLoadTemplateIdFromAuxId(true);
+                loader.setCompileTemplates(compileTemplates);
                 Assert.assertTrue(templatesFile.exists(), "The message template file \"" + templatesFile.getAbsolutePath() + "\" does not exist.");
                 source = new FileInputStream(templatesFile);
                 loader.load(source);
@@ -88,6 +154,55 @@ public class PerformanceRunner implements ErrorHandler {
         this.preloadData = preloadData;
     }
 
+    /**
+     * Decode the preloaded data straight from a ByteBuffer instead of an input stream.
+     * 
+     * @param bufferType "direct" for a direct buffer, anything else for a heap buffer
+     */
+    public void setBufferType(String bufferType) {
+        this.bufferType = bufferType;
+    }
+
+    /**
+     * Time encoding the messages in the data file instead of decoding them.
+     * 
+     * @param encodeType "bytes" to encode each message into a new array, "buffer" or "direct" to encode each message
+     *            into a reused heap or direct ByteBuffer
+     */
+    public void setEncodeType(String encodeType) {
+        this.encodeType = encodeType;
+    }
+
+    public boolean isEncoding() {
+        return encodeType != null;
+    }
+
+    public void setCompileTemplates(boolean compileTemplates) {
+        this.compileTemplates = compileTemplates;
+    }
+
+    /**
+     * Decode every message into a single reusable {@link FlyweightMessage} instead of creating a message for each.
+     */
+    public void setFlyweight(boolean flyweight) {
+        this.flyweight = flyweight;
+    }
+
+    /**
+     * Decode with the per field checks of the given level, to compare the cost of strict validation with that of a
+     * trusted feed.
+     */
+    public void setValidationLevel(ValidationLevel validationLevel) {
+        this.validationLevel = validationLevel;
+    }
+
+    /**
+     * Decode only the templates and fields of the subscription, to measure what skipping the rest saves.
+     */
+    public void setSubscription(Subscription subscription) {
+        this.subscription = subscription;
+    }
+
     public void setShowStacktrace(boolean showStacktrace) {
         this.showStacktrace = showStacktrace;
     }
@@ -112,8 +227,8 @@ public class PerformanceRunner implements ErrorHandler {
             if (preloadData) {
                 ByteArrayOutputStream byteOut = new ByteArrayOutputStream((int) dataFile.length());
                 copy(dataIn, byteOut, 1024);
-                byte[] buffer = byteOut.toByteArray();
-                byteIn = new ByteArrayInputStream(buffer);
+                data = byteOut.toByteArray();
+                byteIn = new ByteArrayInputStream(data);
                 return byteIn;
             }
             return new BufferedInputStream(dataIn);
@@ -126,6 +241,17 @@ public class PerformanceRunner implements ErrorHandler {
         return null;
     }
     
+    private ByteBuffer getFastEncodedDataBuffer() {
+        if (dataBuffer == null) {
+            preloadData = true;
+            getFastEncodedDataStream();
+            dataBuffer = "direct".equals(bufferType) ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+            dataBuffer.put(data);
+            dataBuffer.flip();
+        }
+        return dataBuffer.duplicate();
+    }
+
     public static void copy(InputStream in, OutputStream out, int bufferSize) throws IOException {
         BufferedOutputStream bOut = new BufferedOutputStream(out);
         BufferedInputStream bIn = new BufferedInputStream(in);
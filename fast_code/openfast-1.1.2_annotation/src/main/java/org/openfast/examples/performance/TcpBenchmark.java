@@ -0,0 +1,293 @@
+package org.openfast.examples.performance;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.openfast.Context;
+import org.openfast.Message;
+import org.openfast.MessageInputStream;
+import org.openfast.MessageOutputStream;
+import org.openfast.codec.FastDecoder;
+import org.openfast.examples.Assert;
+import org.openfast.examples.OpenFastExample;
+import org.openfast.session.Connection;
+import org.openfast.session.ConnectionListener;
+import org.openfast.session.FastConnectionException;
+import org.openfast.session.tcp.FlushPolicy;
+import org.openfast.session.tcp.TcpEndpoint;
+import org.openfast.template.TemplateRegistry;
+import org.openfast.template.loader.XMLMessageTemplateLoader;
+
+/**
+ * Sends the messages of a data file to a receiver in the same process over loopback TCP, either through plain socket
+ * streams or through the buffered SocketChannel connections of {@link TcpEndpoint}, and reports the time per message
+ * from the first write until the receiver has decoded the last message.
+ */
+public class TcpBenchmark extends OpenFastExample {
+    private static Options options = new Options();
+
+    static {
+        options.addOption("?", "help", false, "Displays this message.");
+        options.addOption("t", "template", true, "Message Template definition file");
+        options.addOption("d", "data", true, "FAST Encoded data");
+        options.addOption("p", "port", true, "Loopback port to use, default is 16001");
+        options.addOption("r", "repeat", true, "Send the data file's messages X times per run, default is 10");
+        options.addOption("m", "mode", true, "Transport [socket|channel] default is channel");
+        options.addOption("f", "flush", true, "Channel flush policy [message|batch:N|idle:MS] default is message");
+        options.addOption("R", "read", true, "Channel read buffer size, default is 65536");
+        options.addOption("W", "write", true, "Channel write buffer size, default is 65536");
+        options.addOption("D", "direct", false, "Allocate the channel buffers outside the heap");
+        options.addOption("S", "sockbuf", true, "SO_RCVBUF and SO_SNDBUF size, default is the OS default");
+        options.addOption("N", "nagle", false, "Leave Nagle's algorithm on (TCP_NODELAY off)");
+        options.addOption("e", "error", false, "Show stacktrace information");
+    }
+
+    private final TemplateRegistry templateRegistry;
+    private final List messages;
+    private int port = 16001;
+    private int repeat = 10;
+    private boolean channel = true;
+    private FlushPolicy flushPolicy = FlushPolicy.PER_MESSAGE;
+    private int readBufferSize = 65536;
+    private int writeBufferSize = 65536;
+    private boolean directBuffers;
+    private int socketBufferSize;
+    private boolean tcpNoDelay = true;
+
+    public TcpBenchmark(File templatesFile, File dataFile) throws IOException {
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader();
+        loader.setLoadTemplateIdFromAuxId(true);
+        Assert.assertTrue(templatesFile.exists(), "The message template file \"" + templatesFile.getAbsolutePath() + "\" does not exist.");
+        Assert.assertTrue(dataFile.exists(), "The file \"" + dataFile.getAbsolutePath() + "\" does not exist.");
+        InputStream in = new FileInputStream(templatesFile);
+        try {
+            loader.load(in);
+        } finally {
+            in.close();
+        }
+        templateRegistry = loader.getTemplateRegistry();
+        messages = new ArrayList();
+        in = new BufferedInputStream(new FileInputStream(dataFile));
+        try {
+            FastDecoder decoder = new FastDecoder(context(), in);
+            Message message;
+            while ((message = decoder.readMessage()) != null)
+                messages.add(message);
+        } finally {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        CommandLine cl = parseCommandLine("tcpperf", args, options);
+        if (cl.hasOption("help")) {
+            displayHelp("tcpperf", options);
+        }
+        try {
+            TcpBenchmark benchmark = new TcpBenchmark(getFile(cl, "template"), getFile(cl, "data"));
+            if (cl.hasOption("port"))
+                benchmark.port = getInteger(cl, "port");
+            if (cl.hasOption("repeat"))
+                benchmark.repeat = getInteger(cl, "repeat");
+            if (cl.hasOption("mode"))
+                benchmark.channel = !"socket".equals(cl.getOptionValue("mode"));
+            if (cl.hasOption("flush"))
+                benchmark.flushPolicy = parseFlushPolicy(cl.getOptionValue("flush"));
+            if (cl.hasOption("read"))
+                benchmark.readBufferSize = getInteger(cl, "read");
+            if (cl.hasOption("write"))
+                benchmark.writeBufferSize = getInteger(cl, "write");
+            if (cl.hasOption("sockbuf"))
+                benchmark.socketBufferSize = getInteger(cl, "sockbuf");
+            benchmark.directBuffers = cl.hasOption("direct");
+            benchmark.tcpNoDelay = !cl.hasOption("nagle");
+
+            for (int i = 0; i < 3; i++) {
+                PerformanceResult result = benchmark.run();
+                System.out.println("Sent " + result.getMessageCount() + " messages over " + benchmark.describe() + " in "
+                        + result.getTime() + " milliseconds.");
+                System.out.println("Average time per message: "
+                        + ((result.getTime() * 1000.0) / result.getMessageCount()) + " microseconds");
+            }
+        } catch (AssertionError ae) {
+            System.out.println(ae.getMessage());
+            displayHelp("tcpperf", options);
+        } catch (Exception e) {
+            if (cl.hasOption("error"))
+                e.printStackTrace();
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static FlushPolicy parseFlushPolicy(String policy) {
+        if (policy.startsWith("batch:"))
+            return FlushPolicy.perBatch(Integer.parseInt(policy.substring(6)));
+        if (policy.startsWith("idle:"))
+            return FlushPolicy.onIdle(Long.parseLong(policy.substring(5)));
+        Assert.assertTrue("message".equals(policy), "Unknown flush policy \"" + policy + "\".");
+        return FlushPolicy.PER_MESSAGE;
+    }
+
+    private String describe() {
+        if (!channel)
+            return "socket streams";
+        return "a channel (" + flushPolicy + ", " + (directBuffers ? "direct" : "heap") + " buffers)";
+    }
+
+    public PerformanceResult run() throws Exception {
+        Connection[] connections = channel ? connectChannels() : connectSockets();
+        Receiver receiver = new Receiver(connections[0].getInputStream());
+        receiver.start();
+        MessageOutputStream out = new MessageOutputStream(connections[1].getOutputStream(), context());
+        PerformanceResult result = new PerformanceResult();
+        result.start();
+        for (int r = 0; r < repeat; r++) {
+            out.reset();
+            for (int i = 0; i < messages.size(); i++) {
+                out.writeMessage((Message) messages.get(i));
+                result.finishMessage();
+            }
+        }
+        out.getUnderlyingStream().flush();
+        receiver.join();
+        result.stop();
+        connections[1].close();
+        connections[0].close();
+        if (receiver.received != result.getMessageCount())
+            throw new IOException("The receiver decoded " + receiver.received + " of " + result.getMessageCount() + " messages.");
+        return result;
+    }
+
+    /**
+     * @return the accepted connection followed by the connecting one
+     */
+    private Connection[] connectChannels() throws Exception {
+        final Connection[] connections = new Connection[2];
+        final TcpEndpoint server = new TcpEndpoint(port);
+        configure(server);
+        server.setConnectionListener(new ConnectionListener() {
+            public void onConnect(Connection connection) {
+                synchronized (connections) {
+                    connections[0] = connection;
+                    connections.notifyAll();
+                }
+                server.close();
+            }
+        });
+        Thread acceptor = new Thread("acceptor") {
+            public void run() {
+                try {
+                    server.accept();
+                } catch (FastConnectionException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+        TcpEndpoint client = new TcpEndpoint(null, port);
+        configure(client);
+        for (int attempt = 0; connections[1] == null; attempt++) {
+            try {
+                connections[1] = client.connect();
+            } catch (FastConnectionException e) {
+                if (attempt == 100)
+                    throw e;
+                Thread.sleep(10);
+            }
+        }
+        synchronized (connections) {
+            while (connections[0] == null)
+                connections.wait();
+        }
+        return connections;
+    }
+
+    private void configure(TcpEndpoint endpoint) {
+        endpoint.setTcpNoDelay(tcpNoDelay);
+        endpoint.setReceiveBufferSize(socketBufferSize);
+        endpoint.setSendBufferSize(socketBufferSize);
+        endpoint.setReadBufferSize(readBufferSize);
+        endpoint.setWriteBufferSize(writeBufferSize);
+        endpoint.setDirectBuffers(directBuffers);
+        endpoint.setFlushPolicy(flushPolicy);
+    }
+
+    /**
+     * The path sessions took before connections were built on channels: the socket's own unbuffered streams.
+     */
+    private Connection[] connectSockets() throws IOException {
+        ServerSocket server = new ServerSocket(port);
+        try {
+            Socket client = new Socket((String) null, port);
+            Socket accepted = server.accept();
+            return new Connection[] { new SocketConnection(accepted), new SocketConnection(client) };
+        } finally {
+            server.close();
+        }
+    }
+
+    private Context context() {
+        Context context = new Context();
+        context.setTemplateRegistry(templateRegistry);
+        return context;
+    }
+
+    private class SocketConnection implements Connection {
+        private final Socket socket;
+
+        SocketConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(tcpNoDelay);
+            if (socketBufferSize > 0) {
+                socket.setReceiveBufferSize(socketBufferSize);
+                socket.setSendBufferSize(socketBufferSize);
+            }
+        }
+
+        public InputStream getInputStream() throws IOException {
+            return socket.getInputStream();
+        }
+
+        public OutputStream getOutputStream() throws IOException {
+            return socket.getOutputStream();
+        }
+
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private class Receiver extends Thread {
+        private final MessageInputStream in;
+        private int received;
+
+        Receiver(InputStream in) {
+            super("receiver");
+            this.in = new MessageInputStream(in, context());
+        }
+
+        public void run() {
+            for (int r = 0; r < repeat; r++) {
+                in.reset();
+                for (int i = 0; i < messages.size(); i++) {
+                    if (in.readMessage() == null)
+                        return;
+                    received++;
+                }
+            }
+        }
+    }
+}
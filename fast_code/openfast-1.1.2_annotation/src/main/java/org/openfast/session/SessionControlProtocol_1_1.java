@@ -184,6 +184,8 @@ public class SessionControlProtocol_1_1 extends AbstractSessionControlProtocol {
         if (templateDef.isDefined("AuxId")) {
             group.setId(templateDef.getString("AuxId"));
         }
+        if (templateDef.isDefined("Reset") && templateDef.getInt("Reset") != 0)
+            group.setAttribute(RESET_PROPERTY, "yes");
         return group;
     }
 
@@ -25,6 +25,7 @@ import java.net.InetAddress;
 import java.net.MulticastSocket;
 import java.net.SocketException;
 
+import org.openfast.Context;
 import org.openfast.session.Connection;
 import org.openfast.session.ConnectionListener;
 import org.openfast.session.Endpoint;
@@ -51,6 +52,14 @@ public class MulticastClientEndpoint extends MulticastEndpoint {
         }
     }
 
+    /**
+     * Creates a receiver for this endpoint's group that decodes the feed a datagram at a time, as an alternative to
+     * reading the stream of a connection.  The receiver must be opened before it is read.
+     */
+    public MulticastReceiver createReceiver(Context context) {
+        return new MulticastReceiver(port, group, ifaddr, context);
+    }
+
     public void accept() throws FastConnectionException {
         throw new UnsupportedOperationException();
     }
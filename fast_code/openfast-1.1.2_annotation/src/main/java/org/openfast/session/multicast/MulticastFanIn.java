@@ -0,0 +1,266 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.multicast;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.openfast.Message;
+import org.openfast.error.ErrorHandler;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.session.FastConnectionException;
+
+/**
+ * Receives many multicast groups on a few threads.  Each group has its own {@link MulticastReceiver}, and so its own
+ * context, dictionaries, block reader and counters, and its channel is registered with one of a fixed pool of
+ * selectors, each served by a single thread.  Groups are spread over the selectors by load.  A thread serves each
+ * ready group at most {@link #setPacketsPerTurn(int) a few datagrams} at a time before moving on, so a busy group
+ * cannot starve the quiet ones that share its thread.
+ */
+public class MulticastFanIn {
+    private final Worker[] workers;
+    private final List receivers = new ArrayList();
+    private ErrorHandler errorHandler = ErrorHandler.NULL;
+    private int packetsPerTurn = 8;
+    private volatile boolean closed;
+
+    /**
+     * @param selectorCount
+     *            the number of selectors, and so of threads, to spread the groups over
+     */
+    public MulticastFanIn(int selectorCount) throws FastConnectionException {
+        if (selectorCount < 1)
+            throw new IllegalArgumentException("At least one selector is needed.");
+        workers = new Worker[selectorCount];
+        try {
+            for (int i = 0; i < selectorCount; i++)
+                workers[i] = new Worker(Selector.open(), "FAST Multicast Selector " + i);
+        } catch (IOException e) {
+            close();
+            throw new FastConnectionException(e);
+        }
+    }
+
+    /**
+     * Opens the receiver if it has not been opened and adds its group to the least loaded selector.  Groups may be
+     * added before or after {@link #start()}.
+     * 
+     * @param receiver
+     *            the receiver of the group, configured with the context and block reader of its feed
+     * @param listener
+     *            receives the messages of the group
+     */
+    public void add(MulticastReceiver receiver, MulticastListener listener) throws FastConnectionException {
+        if (closed)
+            throw new IllegalStateException("The fan-in has been closed.");
+        if (receiver.getChannel() == null)
+            receiver.open();
+        try {
+            receiver.getChannel().configureBlocking(false);
+        } catch (IOException e) {
+            throw new FastConnectionException(e);
+        }
+        Worker worker = workers[0];
+        for (int i = 1; i < workers.length; i++)
+            if (workers[i].load() < worker.load())
+                worker = workers[i];
+        synchronized (receivers) {
+            receivers.add(receiver);
+        }
+        worker.register(new Group(receiver, listener));
+    }
+
+    /**
+     * Starts a thread for each selector.
+     */
+    public void start() {
+        for (int i = 0; i < workers.length; i++)
+            if (!workers[i].thread.isAlive())
+                workers[i].thread.start();
+    }
+
+    /**
+     * Stops the selector threads and closes every group's receiver.
+     */
+    public void close() {
+        closed = true;
+        for (int i = 0; i < workers.length; i++)
+            if (workers[i] != null)
+                workers[i].selector.wakeup();
+        for (int i = 0; i < workers.length; i++) {
+            if ((workers[i] == null) || (workers[i].thread == Thread.currentThread()))
+                continue;
+            try {
+                workers[i].thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                workers[i].selector.close();
+            } catch (IOException e) {}
+        }
+        synchronized (receivers) {
+            for (int i = 0; i < receivers.size(); i++)
+                ((MulticastReceiver) receivers.get(i)).close();
+        }
+    }
+
+    /**
+     * @return the receivers of every group added, whose counters give the statistics of each group
+     */
+    public MulticastReceiver[] getReceivers() {
+        synchronized (receivers) {
+            return (MulticastReceiver[]) receivers.toArray(new MulticastReceiver[receivers.size()]);
+        }
+    }
+
+    /**
+     * Sets how many datagrams a thread receives from a ready group before it serves the next ready group.
+     */
+    public void setPacketsPerTurn(int packetsPerTurn) {
+        if (packetsPerTurn < 1)
+            throw new IllegalArgumentException("A group must be served at least one datagram per turn.");
+        this.packetsPerTurn = packetsPerTurn;
+    }
+
+    /**
+     * Sets the handler told of the errors of a group, such as an exception thrown by its listener.  By default errors
+     * are only counted by the group's {@link PacketCounters}.  An exception thrown by the handler is dropped so that
+     * the thread goes on serving the other groups.
+     */
+    public void setErrorHandler(ErrorHandler errorHandler) {
+        this.errorHandler = (errorHandler == null) ? ErrorHandler.NULL : errorHandler;
+    }
+
+    private void report(Exception e) {
+        try {
+            if (e instanceof FastException)
+                errorHandler.error(((FastException) e).getCode(), e.getMessage(), e);
+            else if (e instanceof IOException)
+                errorHandler.error(FastConstants.IO_ERROR, e.getMessage(), e);
+            else
+                errorHandler.error(FastConstants.GENERAL_ERROR, e.getMessage(), e);
+        } catch (RuntimeException thrown) {
+            // the handler's own failure must not stop the thread
+        }
+    }
+
+    private static final class Group {
+        final MulticastReceiver receiver;
+        final MulticastListener listener;
+
+        Group(MulticastReceiver receiver, MulticastListener listener) {
+            this.receiver = receiver;
+            this.listener = listener;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        private final List pending = new ArrayList();
+        private int groups;
+
+        Worker(Selector selector, String name) {
+            this.selector = selector;
+            this.thread = new Thread(this, name);
+        }
+
+        synchronized int load() {
+            return groups;
+        }
+
+        void register(Group group) {
+            synchronized (this) {
+                pending.add(group);
+                groups++;
+            }
+            // the selector's key set cannot be changed while its thread is blocked in select
+            selector.wakeup();
+        }
+
+        private synchronized void registerPending() {
+            for (int i = 0; i < pending.size(); i++) {
+                Group group = (Group) pending.get(i);
+                try {
+                    group.receiver.getChannel().register(selector, SelectionKey.OP_READ, group);
+                } catch (IOException e) {
+                    groups--;
+                    report(e);
+                }
+            }
+            pending.clear();
+        }
+
+        public void run() {
+            while (!closed) {
+                try {
+                    registerPending();
+                    if (selector.select() == 0)
+                        continue;
+                } catch (IOException e) {
+                    report(e);
+                    return;
+                }
+                for (Iterator keys = selector.selectedKeys().iterator(); keys.hasNext();) {
+                    SelectionKey key = (SelectionKey) keys.next();
+                    keys.remove();
+                    if (key.isValid())
+                        serve((Group) key.attachment());
+                }
+            }
+        }
+
+        /**
+         * Receives up to a turn's worth of datagrams from a group.  A group with datagrams left over stays ready and is
+         * served again after the other ready groups.  A datagram whose block reader throws is dropped as malformed, as
+         * one that fails to decode is.
+         */
+        private void serve(Group group) {
+            MulticastReceiver receiver = group.receiver;
+            try {
+                for (int i = 0; i < packetsPerTurn && receiver.receivePacket(); i++) {
+                    Message message;
+                    while ((message = receiver.nextMessage()) != null)
+                        deliver(group, message);
+                }
+            } catch (IOException e) {
+                report(e);
+            } catch (RuntimeException e) {
+                receiver.dropPacket();
+                report(e);
+            }
+        }
+
+        private void deliver(Group group, Message message) {
+            try {
+                group.listener.onMessage(group.receiver, message);
+            } catch (RuntimeException e) {
+                report(e);
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class MulticastInputStream extends InputStream {
     private static final int BUFFER_SIZE = 64 * 1024;
     private final MulticastSocket socket;
     private final ByteBuffer buffer;
+    private final DatagramPacket packet;
 
     public MulticastInputStream(MulticastSocket socket) {
         this(socket, BUFFER_SIZE);
@@ -38,6 +39,7 @@ public class MulticastInputStream extends InputStream {
     public MulticastInputStream(MulticastSocket socket, int bufferSize) {
         this.socket = socket;
         this.buffer = ByteBuffer.allocate(bufferSize);
+        this.packet = new DatagramPacket(buffer.array(), buffer.capacity());
         buffer.flip();
     }
 
@@ -46,7 +48,7 @@ public class MulticastInputStream extends InputStream {
         if (socket.isClosed()) return -1;
         if (!buffer.hasRemaining()) {
             buffer.clear();
-            DatagramPacket packet = new DatagramPacket(buffer.array(), buffer.capacity());
+            packet.setLength(buffer.capacity());
             socket.receive(packet);
             buffer.flip();
             buffer.limit(packet.getLength());
@@ -0,0 +1,36 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.multicast;
+
+import org.openfast.Message;
+
+public interface MulticastListener {
+    /**
+     * Called on a selector thread of a {@link MulticastFanIn} for each message decoded from a group.  The listener
+     * must not block, since the other groups served by the thread wait for it.
+     * 
+     * @param receiver
+     *            the receiver of the group the message was sent to
+     * @param message
+     *            the decoded message
+     */
+    void onMessage(MulticastReceiver receiver, Message message);
+}
@@ -0,0 +1,296 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.multicast;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Enumeration;
+
+import org.openfast.Context;
+import org.openfast.Global;
+import org.openfast.Message;
+import org.openfast.MessageBlockReader;
+import org.openfast.codec.FastDecoder;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.session.FastConnectionException;
+import org.openfast.util.ByteBufferInputStream;
+
+/**
+ * Receives a multicast feed on a DatagramChannel and decodes it a datagram at a time.  Each datagram is received into
+ * the same direct buffer and decoded in place.  Unlike {@link MulticastInputStream}, which presents the feed as one
+ * endless stream, the receiver knows where each packet ends: the block reader reads the header of each packet rather
+ * than of each message, and a packet that is truncated or fails to decode is dropped without disturbing the packets
+ * after it.
+ */
+public class MulticastReceiver {
+    /**
+     * The largest payload a UDP datagram over IPv4 can carry.
+     */
+    public static final int MAX_DATAGRAM_SIZE = 65507;
+    private final int port;
+    private final String group;
+    private final String ifaddr;
+    private final Context context;
+    private final PacketCounters counters = new PacketCounters();
+    private DatagramChannel channel;
+    private ByteBuffer buffer;
+    private ByteBufferInputStream packet;
+    private FastDecoder decoder;
+    private MessageBlockReader blockReader = MessageBlockReader.NULL;
+    private int receiveBufferSize;
+    private int packetBufferSize = MAX_DATAGRAM_SIZE + 1;
+    private boolean resetOnPacket;
+
+    public MulticastReceiver(int port, String group, String ifaddr, Context context) {
+        this.port = port;
+        this.group = group;
+        this.ifaddr = ifaddr;
+        this.context = context;
+    }
+
+    /**
+     * Creates a receiver over a channel that is already bound, and joined to its groups if it receives multicast.
+     */
+    MulticastReceiver(DatagramChannel channel, Context context) {
+        this(0, null, null, context);
+        this.channel = channel;
+    }
+
+    /**
+     * Binds to the port and joins the group on the configured interface.
+     */
+    public void open() throws FastConnectionException {
+        try {
+            InetAddress groupAddress = InetAddress.getByName(group);
+            NetworkInterface networkInterface = getNetworkInterface(ifaddr);
+            channel = DatagramChannel.open(groupAddress.getAddress().length == 4 ? StandardProtocolFamily.INET
+                    : StandardProtocolFamily.INET6);
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, Boolean.TRUE);
+            if (receiveBufferSize > 0)
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, Integer.valueOf(receiveBufferSize));
+            // bound to the group rather than the wildcard address, as MulticastEndpoint does, so that receivers of
+            // other groups on the same port do not see this group's datagrams
+            channel.bind(new InetSocketAddress(groupAddress, port));
+            channel.join(groupAddress, networkInterface);
+        } catch (IOException e) {
+            close();
+            throw new FastConnectionException(e);
+        }
+    }
+
+    private void allocate() {
+        buffer = ByteBuffer.allocateDirect(packetBufferSize);
+        buffer.limit(0);
+        packet = new ByteBufferInputStream(buffer);
+        decoder = new FastDecoder(context, packet);
+    }
+
+    /**
+     * @return the interface with the given address, or the first interface that is up and supports multicast,
+     *         preferring one that is not a loopback
+     */
+    static NetworkInterface getNetworkInterface(String ifaddr) throws IOException {
+        if (ifaddr != null) {
+            NetworkInterface networkInterface = NetworkInterface.getByInetAddress(InetAddress.getByName(ifaddr));
+            if (networkInterface == null)
+                throw new IOException("No network interface has the address " + ifaddr + ".");
+            return networkInterface;
+        }
+        NetworkInterface loopback = null;
+        for (Enumeration interfaces = NetworkInterface.getNetworkInterfaces(); interfaces.hasMoreElements();) {
+            NetworkInterface networkInterface = (NetworkInterface) interfaces.nextElement();
+            if (!networkInterface.isUp() || !networkInterface.supportsMulticast())
+                continue;
+            if (!networkInterface.isLoopback())
+                return networkInterface;
+            if (loopback == null)
+                loopback = networkInterface;
+        }
+        if (loopback == null)
+            throw new IOException("No network interface supports multicast.");
+        return loopback;
+    }
+
+    /**
+     * Returns the next message, receiving datagrams until one holds a message that decodes.
+     * 
+     * @return the next message, or null if the channel has been closed or is non-blocking and has no datagram waiting
+     */
+    public Message readMessage() {
+        try {
+            while (true) {
+                Message message = nextMessage();
+                if (message != null)
+                    return message;
+                if (!receivePacket())
+                    return null;
+            }
+        } catch (ClosedChannelException e) {
+            return null;
+        } catch (IOException e) {
+            Global.handleError(FastConstants.IO_ERROR, "An IO error occurred while receiving a datagram.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Receives the next datagram in place of whatever was left of the current one and reads its header.  A datagram
+     * that filled the packet buffer may have been cut short and is dropped, as is one whose header the block reader
+     * refuses.
+     * 
+     * @return false if the channel is non-blocking and no datagram was waiting
+     */
+    public boolean receivePacket() throws IOException {
+        if (buffer == null)
+            allocate();
+        buffer.clear();
+        if (channel.receive(buffer) == null) {
+            buffer.limit(0);
+            return false;
+        }
+        buffer.flip();
+        int length = buffer.remaining();
+        counters.packetReceived(length);
+        if (length == buffer.capacity() && length <= MAX_DATAGRAM_SIZE) {
+            counters.packetTruncated();
+            buffer.limit(0);
+            return true;
+        }
+        if (!blockReader.readBlock(packet)) {
+            counters.packetRejected();
+            buffer.limit(0);
+            return true;
+        }
+        if (resetOnPacket)
+            decoder.reset();
+        return true;
+    }
+
+    /**
+     * Decodes the next message of the current datagram.  If the datagram fails to decode, the rest of it is dropped
+     * and the decoder's dictionaries are reset, since the values they hold can no longer be trusted.  Besides malformed
+     * data, this covers an operator that needs a previous value which a dropped datagram would have set; some codecs
+     * report that with an unchecked exception other than {@link FastException}.
+     * 
+     * @return the next message, or null if the current datagram holds no more messages
+     */
+    public Message nextMessage() {
+        if ((buffer == null) || !buffer.hasRemaining())
+            return null;
+        Message message;
+        try {
+            message = decoder.readMessage();
+        } catch (RuntimeException e) {
+            message = null;
+        }
+        if (message == null) {
+            dropPacket();
+            return null;
+        }
+        counters.messageDecoded();
+        blockReader.messageRead(packet, message);
+        return message;
+    }
+
+    /**
+     * Drops the rest of the current datagram as malformed and resets the decoder's dictionaries.
+     */
+    void dropPacket() {
+        counters.packetMalformed();
+        if (buffer != null)
+            buffer.limit(0);
+        if (decoder != null)
+            decoder.reset();
+    }
+
+    public void close() {
+        if (channel != null)
+            try {
+                channel.close();
+            } catch (IOException e) {}
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public DatagramChannel getChannel() {
+        return channel;
+    }
+
+    public PacketCounters getCounters() {
+        return counters;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * Sets the reader applied to the start of each datagram, such as the CME preamble reader.
+     */
+    public void setBlockReader(MessageBlockReader blockReader) {
+        this.blockReader = blockReader;
+    }
+
+    /**
+     * Resets the decoder's dictionaries at the start of each datagram, for feeds whose packets are encoded
+     * independently of each other.
+     */
+    public void setResetOnPacket(boolean resetOnPacket) {
+        this.resetOnPacket = resetOnPacket;
+    }
+
+    /**
+     * Sets SO_RCVBUF before the channel is bound, or leaves the operating system's default if 0.  Bursts that overflow
+     * the socket's receive buffer are dropped by the kernel without a trace in the counters.
+     */
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    /**
+     * Sets the size of the buffer each datagram is received into, which is allocated when the first datagram is
+     * received.  By default it holds the largest possible datagram;
+     * a smaller buffer drops the datagrams that fill it, which may have been cut short.
+     */
+    public void setPacketBufferSize(int packetBufferSize) {
+        if (packetBufferSize < 1)
+            throw new IllegalArgumentException("The packet buffer size must be positive.");
+        this.packetBufferSize = packetBufferSize;
+    }
+
+    public String toString() {
+        return getClass().getName() + "[group=" + group + ",port=" + port + ",ifaddr=" + ifaddr + "]";
+    }
+}
@@ -0,0 +1,103 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.multicast;
+
+/**
+ * Running totals kept by a {@link MulticastReceiver}.  They are written only by the receiving thread and may be read
+ * from any other, for instance by a monitor that reports gaps in a feed.
+ */
+public final class PacketCounters {
+    private volatile long packets;
+    private volatile long bytes;
+    private volatile long messages;
+    private volatile long truncatedPackets;
+    private volatile long rejectedPackets;
+    private volatile long malformedPackets;
+
+    /**
+     * @return the number of datagrams received
+     */
+    public long getPackets() {
+        return packets;
+    }
+
+    /**
+     * @return the number of bytes received, counting every datagram in full
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of messages decoded
+     */
+    public long getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return the number of datagrams dropped because they were larger than the packet buffer
+     */
+    public long getTruncatedPackets() {
+        return truncatedPackets;
+    }
+
+    /**
+     * @return the number of datagrams whose header the block reader refused
+     */
+    public long getRejectedPackets() {
+        return rejectedPackets;
+    }
+
+    /**
+     * @return the number of datagrams that failed to decode; the messages decoded before the failure are counted in
+     *         {@link #getMessages()}, the rest of the datagram is dropped
+     */
+    public long getMalformedPackets() {
+        return malformedPackets;
+    }
+
+    void packetReceived(int length) {
+        packets++;
+        bytes += length;
+    }
+
+    void messageDecoded() {
+        messages++;
+    }
+
+    void packetTruncated() {
+        truncatedPackets++;
+    }
+
+    void packetRejected() {
+        rejectedPackets++;
+    }
+
+    void packetMalformed() {
+        malformedPackets++;
+    }
+
+    public String toString() {
+        return "packets=" + packets + ",bytes=" + bytes + ",messages=" + messages + ",truncated=" + truncatedPackets
+                + ",rejected=" + rejectedPackets + ",malformed=" + malformedPackets;
+    }
+}
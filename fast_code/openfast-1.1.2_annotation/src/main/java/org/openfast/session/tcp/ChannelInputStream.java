@@ -0,0 +1,97 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.tcp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * An unsynchronized InputStream that reads from a blocking channel through a buffer, so decoding a byte at a time
+ * costs a system call only when the buffer runs dry.  The buffer is kept in read mode: the bytes between its position
+ * and limit have been received but not yet read.
+ */
+final class ChannelInputStream extends InputStream {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    ChannelInputStream(ReadableByteChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.limit(0);
+    }
+
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer and reads from the channel into the space after them, blocking
+     * until at least one byte is received.
+     * 
+     * @return the number of bytes read, 0 if the buffer is full or -1 at the end of the stream
+     */
+    int fill() throws IOException {
+        buffer.compact();
+        try {
+            return channel.read(buffer);
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    public int read() throws IOException {
+        while (!buffer.hasRemaining())
+            if (fill() < 0)
+                return -1;
+        return buffer.get() & 0xff;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (!buffer.hasRemaining()) {
+            if (len >= buffer.capacity())
+                return channel.read(ByteBuffer.wrap(b, off, len));
+            if (fill() < 0)
+                return -1;
+        }
+        if (len > buffer.remaining())
+            len = buffer.remaining();
+        buffer.get(b, off, len);
+        return len;
+    }
+
+    public long skip(long n) throws IOException {
+        if (n <= 0)
+            return 0;
+        if (!buffer.hasRemaining() && fill() < 0)
+            return 0;
+        int skipped = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    public int available() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.tcp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import org.openfast.MessageBoundary;
+
+/**
+ * An OutputStream that collects writes in a buffer and sends them to a blocking channel as the {@link FlushPolicy}
+ * directs.  Messages are counted as {@link org.openfast.MessageOutputStream} marks their ends.  Writes and flushes are
+ * synchronized so that an idle flush can be made from a timer thread.
+ */
+final class ChannelOutputStream extends OutputStream implements MessageBoundary {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final int batchSize;
+    private int unsent;
+    private boolean idle;
+
+    ChannelOutputStream(WritableByteChannel channel, ByteBuffer buffer, FlushPolicy flushPolicy) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.batchSize = flushPolicy.getBatchSize();
+    }
+
+    public synchronized void write(int b) throws IOException {
+        if (!buffer.hasRemaining())
+            send();
+        buffer.put((byte) b);
+        idle = false;
+    }
+
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            send();
+            if (len > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(b, off, len));
+                return;
+            }
+        }
+        buffer.put(b, off, len);
+        idle = false;
+    }
+
+    /**
+     * Counts a message, sending the buffer once the batch of the flush policy is complete.
+     */
+    public synchronized void endMessage() throws IOException {
+        if (++unsent >= batchSize)
+            send();
+    }
+
+    public synchronized void flush() throws IOException {
+        send();
+    }
+
+    /**
+     * Sends the buffer if nothing has been written since the last call.
+     */
+    synchronized void flushIfIdle() throws IOException {
+        if (idle && buffer.position() > 0)
+            send();
+        idle = true;
+    }
+
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void send() throws IOException {
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        } finally {
+            buffer.clear();
+            unsent = 0;
+        }
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.tcp;
+
+/**
+ * Decides when a {@link TcpConnection} sends the bytes its output stream has buffered.  The buffer is always sent when
+ * it fills up, when the stream is flushed and when the connection is closed; the policy decides what else sends it.
+ * Messages are counted as {@link org.openfast.MessageOutputStream} ends them; bytes written to the stream directly
+ * are only sent by a full buffer, a flush or idleness.
+ */
+public final class FlushPolicy {
+    /**
+     * Sends each message as soon as it has been written, as an unbuffered socket stream does, but with the bytes of a
+     * message sent together.
+     */
+    public static final FlushPolicy PER_MESSAGE = new FlushPolicy(1, 0);
+
+    private final int batchSize;
+    private final long idleMillis;
+
+    private FlushPolicy(int batchSize, long idleMillis) {
+        this.batchSize = batchSize;
+        this.idleMillis = idleMillis;
+    }
+
+    /**
+     * @param messages
+     *            the number of messages to send together
+     * @return a policy that sends the buffered messages once the given number have been written
+     */
+    public static FlushPolicy perBatch(int messages) {
+        if (messages < 1)
+            throw new IllegalArgumentException("A batch must hold at least one message.");
+        return new FlushPolicy(messages, 0);
+    }
+
+    /**
+     * @param millis
+     *            how long the stream must go without writes before the buffer is sent
+     * @return a policy that sends the buffered messages once the writer has been idle for about the given time
+     */
+    public static FlushPolicy onIdle(long millis) {
+        if (millis < 1)
+            throw new IllegalArgumentException("The idle time must be at least one millisecond.");
+        return new FlushPolicy(Integer.MAX_VALUE, millis);
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the idle time after which the buffer is sent, or 0 if idleness does not send it
+     */
+    long getIdleMillis() {
+        return idleMillis;
+    }
+
+    public String toString() {
+        if (idleMillis > 0)
+            return "on idle " + idleMillis + "ms";
+        return (batchSize == 1) ? "per message" : "per batch of " + batchSize;
+    }
+}
@@ -23,27 +23,98 @@ package org.openfast.session.tcp;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import org.openfast.session.Connection;
 
-class TcpConnection implements Connection {
-    private final Socket socket;
+/**
+ * A connection over a blocking SocketChannel.  Reads are served from a read buffer that is refilled a socket read at a
+ * time, and writes are collected in a write buffer that is sent as the connection's {@link FlushPolicy} directs.
+ * Connections are created by {@link TcpEndpoint}, which sets their buffer sizes and flush policy.
+ */
+public class TcpConnection implements Connection {
+    private final SocketChannel channel;
+    private final ChannelInputStream in;
+    private final ChannelOutputStream out;
+    private Timer idleTimer;
 
-    public TcpConnection(Socket socket) {
-        if (socket == null)
+    TcpConnection(SocketChannel channel, int readBufferSize, int writeBufferSize, boolean direct,
+            FlushPolicy flushPolicy) {
+        if (channel == null)
             throw new NullPointerException();
-        this.socket = socket;
+        this.channel = channel;
+        this.in = new ChannelInputStream(channel, allocate(readBufferSize, direct));
+        this.out = new ChannelOutputStream(channel, allocate(writeBufferSize, direct), flushPolicy);
+        if (flushPolicy.getIdleMillis() > 0) {
+            idleTimer = new Timer("FAST idle flush " + channel.socket().getRemoteSocketAddress(), true);
+            idleTimer.schedule(new TimerTask() {
+                public void run() {
+                    try {
+                        out.flushIfIdle();
+                    } catch (IOException e) {
+                        cancel();
+                    }
+                }
+            }, flushPolicy.getIdleMillis(), flushPolicy.getIdleMillis());
+        }
+    }
+
+    private static ByteBuffer allocate(int size, boolean direct) {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
     }
+
     public InputStream getInputStream() throws IOException {
-        return socket.getInputStream();
+        return in;
     }
+
     public OutputStream getOutputStream() throws IOException {
-        return socket.getOutputStream();
+        return out;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns the read buffer shared with the input stream, so that messages can be decoded straight from the buffer,
+     * for example by wrapping it in a {@link org.openfast.util.ByteBufferInputStream}.  The bytes between the buffer's
+     * position and limit have been received but not yet read; decoding moves the position past them and
+     * {@link #fill()} receives more.
+     * 
+     * @return the read buffer
+     */
+    public ByteBuffer getReadBuffer() {
+        return in.getBuffer();
+    }
+
+    /**
+     * Moves the unread bytes of the read buffer to its start and blocks until more bytes are received after them.
+     * 
+     * @return the number of bytes received, 0 if the buffer is already full or -1 if the peer has closed the connection
+     */
+    public int fill() throws IOException {
+        return in.fill();
+    }
+
+    /**
+     * Sends whatever the write buffer holds regardless of the flush policy.
+     */
+    public void flush() throws IOException {
+        out.flush();
     }
+
     public void close() {
+        if (idleTimer != null)
+            idleTimer.cancel();
+        try {
+            if (channel.isOpen())
+                out.flush();
+        } catch (IOException e) {}
         try {
-            socket.close();
+            channel.close();
         } catch (IOException e) {}
     }
 }
@@ -21,9 +21,12 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast.session.tcp;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import org.openfast.session.Connection;
 import org.openfast.session.ConnectionListener;
@@ -31,11 +34,19 @@ import org.openfast.session.Endpoint;
 import org.openfast.session.FastConnectionException;
 
 public class TcpEndpoint implements Endpoint {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
     private final int port;
     private String host;
     private ConnectionListener connectionListener = ConnectionListener.NULL;
-    private ServerSocket serverSocket;
+    private ServerSocketChannel serverChannel;
     private boolean closed = true;
+    private boolean tcpNoDelay = true;
+    private int receiveBufferSize;
+    private int sendBufferSize;
+    private int readBufferSize = DEFAULT_BUFFER_SIZE;
+    private int writeBufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean directBuffers;
+    private FlushPolicy flushPolicy = FlushPolicy.PER_MESSAGE;
 
     public TcpEndpoint(int port) {
         this.port = port;
@@ -45,24 +56,33 @@ public class TcpEndpoint implements Endpoint {
         this.host = host;
     }
     public Connection connect() throws FastConnectionException {
+        SocketChannel channel = null;
         try {
-            Socket socket = new Socket(host, port);
-            Connection connection = new TcpConnection(socket);
-            return connection;
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getByName(host), port);
+            channel = SocketChannel.open();
+            configure(channel.socket());
+            channel.connect(address);
+            return createConnection(channel);
         } catch (UnknownHostException e) {
             throw new FastConnectionException(e);
         } catch (IOException e) {
+            close(channel);
             throw new FastConnectionException(e);
         }
     }
     public void accept() throws FastConnectionException {
         closed = false;
         try {
-            serverSocket = new ServerSocket(port);
+            serverChannel = ServerSocketChannel.open();
+            // accepted sockets inherit the receive buffer, which must be set before the window is negotiated
+            if (receiveBufferSize > 0)
+                serverChannel.socket().setReceiveBufferSize(receiveBufferSize);
+            serverChannel.socket().bind(new InetSocketAddress(port));
             while (!closed) {
-                Socket socket = serverSocket.accept();
+                SocketChannel channel = serverChannel.accept();
                 try {
-                    connectionListener.onConnect(new TcpConnection(socket));
+                    configure(channel.socket());
+                    connectionListener.onConnect(createConnection(channel));
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -72,14 +92,76 @@ public class TcpEndpoint implements Endpoint {
                 throw new FastConnectionException(e);
         }
     }
+    private void configure(Socket socket) throws IOException {
+        socket.setTcpNoDelay(tcpNoDelay);
+        if (receiveBufferSize > 0)
+            socket.setReceiveBufferSize(receiveBufferSize);
+        if (sendBufferSize > 0)
+            socket.setSendBufferSize(sendBufferSize);
+    }
+    private Connection createConnection(SocketChannel channel) {
+        return new TcpConnection(channel, readBufferSize, writeBufferSize, directBuffers, flushPolicy);
+    }
+    private static void close(SocketChannel channel) {
+        if (channel != null)
+            try {
+                channel.close();
+            } catch (IOException e) {}
+    }
     public void setConnectionListener(ConnectionListener listener) {
         this.connectionListener = listener;
     }
+    /**
+     * Sets TCP_NODELAY on new connections.  It is on by default, since FAST messages are small and Nagle's algorithm
+     * would hold them back; batching is left to the flush policy.
+     */
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+    /**
+     * Sets SO_RCVBUF on new connections, or leaves the operating system's default if 0.
+     */
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+    /**
+     * Sets SO_SNDBUF on new connections, or leaves the operating system's default if 0.
+     */
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+    /**
+     * Sets the size of the buffer each connection reads the socket into.
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        if (readBufferSize < 1)
+            throw new IllegalArgumentException("The read buffer size must be positive.");
+        this.readBufferSize = readBufferSize;
+    }
+    /**
+     * Sets the size of the buffer each connection collects writes in.
+     */
+    public void setWriteBufferSize(int writeBufferSize) {
+        if (writeBufferSize < 1)
+            throw new IllegalArgumentException("The write buffer size must be positive.");
+        this.writeBufferSize = writeBufferSize;
+    }
+    /**
+     * Allocates the read and write buffers of new connections outside the heap, which saves the channel a copy.
+     */
+    public void setDirectBuffers(boolean directBuffers) {
+        this.directBuffers = directBuffers;
+    }
+    public void setFlushPolicy(FlushPolicy flushPolicy) {
+        if (flushPolicy == null)
+            throw new NullPointerException();
+        this.flushPolicy = flushPolicy;
+    }
     public void close() {
         closed = true;
-        if (serverSocket != null)
+        if (serverChannel != null)
             try {
-                serverSocket.close();
+                serverChannel.close();
             } catch (IOException e) {}
     }
     
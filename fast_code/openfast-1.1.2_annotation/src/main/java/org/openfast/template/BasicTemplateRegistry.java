@@ -22,6 +22,7 @@ package org.openfast.template;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -29,26 +30,42 @@ import org.openfast.QName;
 import org.openfast.util.IntegerMap;
 import org.openfast.util.SimpleIntegerMap;
 
+/**
+ * Holds templates by id in a dense table and finds the id of a template by identity, so that resolving the template of
+ * a message being encoded or decoded never hashes a template.  A template that is only equal to a registered one is
+ * still found, by the slower lookup on equality.
+ */
 public class BasicTemplateRegistry extends AbstractTemplateRegistry {
     private final Map nameMap = new HashMap();
     private final IntegerMap idMap = new SimpleIntegerMap();
     private final Map templateMap = new HashMap();
+    private final Map identityMap = new IdentityHashMap();
     private final List templates = new ArrayList();
 
+    /**
+     * @throws IllegalArgumentException
+     *             if the id is negative
+     */
     public void register(int id, MessageTemplate template) {
+        checkId(id);
         define(template);
-        Integer tid = new Integer(id);
-        idMap.put(id, template);
-        templateMap.put(template, tid);
-        notifyTemplateRegistered(template, id);
+        put(id, template);
     }
     public void register(int id, QName name) {
         if (!nameMap.containsKey(name))
             throw new IllegalArgumentException("The template named " + name + " is not defined.");
+        checkId(id);
+        put(id, (MessageTemplate) nameMap.get(name));
+    }
+    private static void checkId(int id) {
+        if (id < 0)
+            throw new IllegalArgumentException("The template id " + id + " is negative.");
+    }
+    private void put(int id, MessageTemplate template) {
         Integer tid = new Integer(id);
-        MessageTemplate template = (MessageTemplate) nameMap.get(name);
-        templateMap.put(template, tid);
         idMap.put(id, template);
+        templateMap.put(template, tid);
+        identityMap.put(template, tid);
         notifyTemplateRegistered(template, id);
     }
     public void define(MessageTemplate template) {
@@ -70,9 +87,13 @@ public class BasicTemplateRegistry extends AbstractTemplateRegistry {
         return (MessageTemplate) nameMap.get(name);
     }
     public int getId(MessageTemplate template) {
-        if (!isRegistered(template))
-            return -1;
-        return ((Integer) templateMap.get(template)).intValue();
+        Integer id = (Integer) identityMap.get(template);
+        if (id == null) {
+            id = (Integer) templateMap.get(template);
+            if (id == null)
+                return -1;
+        }
+        return id.intValue();
     }
     public boolean isRegistered(QName name) {
         return nameMap.containsKey(name);
@@ -81,7 +102,7 @@ public class BasicTemplateRegistry extends AbstractTemplateRegistry {
         return idMap.containsKey(templateId);
     }
     public boolean isRegistered(MessageTemplate template) {
-        return templateMap.containsKey(template);
+        return identityMap.containsKey(template) || templateMap.containsKey(template);
     }
     public boolean isDefined(QName name) {
         return nameMap.containsKey(name);
@@ -92,18 +113,20 @@ public class BasicTemplateRegistry extends AbstractTemplateRegistry {
     public void remove(QName name) {
         MessageTemplate template = (MessageTemplate) nameMap.remove(name);
         Object id = templateMap.remove(template);
+        identityMap.remove(template);
         idMap.remove(((Integer) id).intValue());
         templates.remove(template);
     }
     public void remove(MessageTemplate template) {
         Object id = templateMap.remove(template);
-        nameMap.remove(template.getName());
-        idMap.remove(((Integer)id).intValue());
+        nameMap.remove(template.getQName());
+        identityMap.remove(idMap.remove(((Integer)id).intValue()));
     }
     public void remove(int id) {
         MessageTemplate template = (MessageTemplate) idMap.remove(id);
         templateMap.remove(template);
-        nameMap.remove(template.getName());
+        identityMap.remove(template);
+        nameMap.remove(template.getQName());
     }
     public void registerAll(TemplateRegistry registry) {
         if (registry == null) return;
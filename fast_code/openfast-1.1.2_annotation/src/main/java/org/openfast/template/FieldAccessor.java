@@ -0,0 +1,250 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template;
+
+import org.openfast.FieldValue;
+import org.openfast.GroupValue;
+import org.openfast.ScalarValue;
+import org.openfast.SequenceValue;
+import org.openfast.template.type.Type;
+
+/**
+ * A field of a group resolved once by name, so that reading it from many values is an array access instead of a
+ * name lookup.  The field can be nested in groups and sequences, named by a path such as "NoMDEntries/MDEntryPx";
+ * the entries of the sequences on the path are then chosen by passing their indexes.
+ * 
+ * <pre>
+ * FieldAccessor volume = template.accessor(&quot;TotalVolumeTrade&quot;);
+ * FieldAccessor price = template.accessor(&quot;NoMDEntries/MDEntryPx&quot;);
+ * long volumeTraded = volume.getLong(message);
+ * long notional = 0;
+ * int[] entry = new int[1];
+ * for (entry[0] = 0; entry[0] &lt; message.getSequence(&quot;NoMDEntries&quot;).getLength(); entry[0]++)
+ *     notional += price.getLong(message, entry);
+ * </pre>
+ * 
+ * @see Group#accessor(String)
+ */
+public final class FieldAccessor {
+    private final Group group;
+    private final String path;
+    private final Field field;
+    private final int[] indexes;
+    private final boolean[] sequences;
+    private final int sequenceCount;
+
+    FieldAccessor(Group group, String path) {
+        String[] names = path.split("/");
+        this.group = group;
+        this.path = path;
+        this.indexes = new int[names.length];
+        this.sequences = new boolean[names.length];
+        Group scope = group;
+        Field resolved = null;
+        int sequenceCount = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (scope == null)
+                throw new IllegalArgumentException("The field " + names[i - 1] + " in the path " + path + " is not a group or sequence.");
+            resolved = scope.getField(names[i]);
+            if (resolved == null)
+                throw new IllegalArgumentException("The group " + scope.getName() + " has no field named " + names[i] + ".");
+            indexes[i] = scope.getFieldIndex(resolved);
+            if (resolved instanceof Sequence) {
+                sequences[i] = i < names.length - 1;
+                scope = ((Sequence) resolved).getGroup();
+            } else if (resolved instanceof Group) {
+                scope = (Group) resolved;
+            } else {
+                scope = null;
+            }
+            if (sequences[i])
+                sequenceCount++;
+        }
+        this.field = resolved;
+        this.sequenceCount = sequenceCount;
+    }
+
+    /**
+     * @return the group the path starts from
+     */
+    public Group getGroup() {
+        return group;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * @return the type of the field, or null if it is not a scalar
+     */
+    public Type getType() {
+        if (field instanceof Scalar)
+            return ((Scalar) field).getType();
+        if (field instanceof ComposedScalar)
+            return ((ComposedScalar) field).getType();
+        return null;
+    }
+
+    /**
+     * @return the index of the field in the group that contains it
+     */
+    public int getIndex() {
+        return indexes[indexes.length - 1];
+    }
+
+    /**
+     * @return the number of sequences on the path, which is the number of entry indexes the accessors need
+     */
+    public int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    public boolean isDefined(GroupValue value) {
+        return getValue(value) != null;
+    }
+
+    public boolean isDefined(GroupValue value, int[] entries) {
+        return getValue(value, entries) != null;
+    }
+
+    /**
+     * @return the value of the field, or null if it or a group containing it is absent
+     */
+    public FieldValue getValue(GroupValue value) {
+        return getValue(value, null);
+    }
+
+    /**
+     * @param entries
+     *            the index of the entry of each sequence on the path, outermost first
+     * @return the value of the field, or null if it or a group containing it is absent
+     */
+    public FieldValue getValue(GroupValue value, int[] entries) {
+        GroupValue parent = getParent(value, entries);
+        return (parent == null) ? null : parent.getValue(getIndex());
+    }
+
+    public ScalarValue getScalar(GroupValue value) {
+        return (ScalarValue) getValue(value, null);
+    }
+
+    public ScalarValue getScalar(GroupValue value, int[] entries) {
+        return (ScalarValue) getValue(value, entries);
+    }
+
+    public int getInt(GroupValue value) {
+        return getScalar(value, null).toInt();
+    }
+
+    public int getInt(GroupValue value, int[] entries) {
+        return getScalar(value, entries).toInt();
+    }
+
+    public long getLong(GroupValue value) {
+        return getScalar(value, null).toLong();
+    }
+
+    public long getLong(GroupValue value, int[] entries) {
+        return getScalar(value, entries).toLong();
+    }
+
+    public double getDouble(GroupValue value) {
+        return getScalar(value, null).toDouble();
+    }
+
+    public double getDouble(GroupValue value, int[] entries) {
+        return getScalar(value, entries).toDouble();
+    }
+
+    /**
+     * @see GroupValue#getScaledLong(int, int)
+     */
+    public long getScaledLong(GroupValue value, int exponent) {
+        return getScaledLong(value, null, exponent);
+    }
+
+    public long getScaledLong(GroupValue value, int[] entries, int exponent) {
+        return getParent(value, entries).getScaledLong(getIndex(), exponent);
+    }
+
+    /**
+     * @return the value as a string, or null if it is absent
+     */
+    public String getString(GroupValue value) {
+        return getString(value, null);
+    }
+
+    public String getString(GroupValue value, int[] entries) {
+        FieldValue fieldValue = getValue(value, entries);
+        return (fieldValue == null) ? null : fieldValue.toString();
+    }
+
+    public byte[] getBytes(GroupValue value) {
+        return getScalar(value, null).getBytes();
+    }
+
+    public byte[] getBytes(GroupValue value, int[] entries) {
+        return getScalar(value, entries).getBytes();
+    }
+
+    public GroupValue getGroup(GroupValue value) {
+        return (GroupValue) getValue(value, null);
+    }
+
+    public GroupValue getGroup(GroupValue value, int[] entries) {
+        return (GroupValue) getValue(value, entries);
+    }
+
+    public SequenceValue getSequence(GroupValue value) {
+        return (SequenceValue) getValue(value, null);
+    }
+
+    public SequenceValue getSequence(GroupValue value, int[] entries) {
+        return (SequenceValue) getValue(value, entries);
+    }
+
+    /**
+     * @return the group value that holds the field, or null if a group on the path is absent
+     */
+    private GroupValue getParent(GroupValue value, int[] entries) {
+        if (value.getGroup() != group && !value.getGroup().equals(group))
+            throw new IllegalArgumentException("The accessor " + path + " of " + group.getName() + " cannot read a value of " + value.getGroup().getName() + ".");
+        if (sequenceCount > 0 && (entries == null || entries.length < sequenceCount))
+            throw new IllegalArgumentException("The path " + path + " passes through " + sequenceCount + " sequences and needs an entry index for each.");
+        int entry = 0;
+        for (int i = 0; i < indexes.length - 1; i++) {
+            FieldValue child = value.getValue(indexes[i]);
+            if (child == null)
+                return null;
+            value = sequences[i] ? ((SequenceValue) child).get(entries[entry++]) : (GroupValue) child;
+        }
+        return value;
+    }
+
+    public String toString() {
+        return group.getName() + "/" + path;
+    }
+}
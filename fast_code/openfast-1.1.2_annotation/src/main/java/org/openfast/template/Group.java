@@ -28,10 +28,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.openfast.BitVector;
 import org.openfast.BitVectorBuilder;
 import org.openfast.BitVectorReader;
-import org.openfast.BitVectorValue;
 import org.openfast.Context;
 import org.openfast.FieldValue;
 import org.openfast.Global;
@@ -40,7 +38,7 @@ import org.openfast.Node;
 import org.openfast.QName;
 import org.openfast.error.FastConstants;
 import org.openfast.error.FastException;
-import org.openfast.template.type.codec.TypeCodec;
+import org.openfast.template.type.codec.BitVectorType;
 
 public class Group extends Field {
     private static final long serialVersionUID = 1L;
@@ -162,9 +160,7 @@ public class Group extends Field {
             return new byte[] {};
         }
         GroupValue groupValue = (GroupValue) value;
-        if (context.isTraceEnabled()) {
-            context.getEncodeTrace().groupStart(this);
-        }
+        context.getTracer().startEncodingGroup(this);
         BitVectorBuilder presenceMapBuilder = new BitVectorBuilder(groupValue.getGroup().getMaxPresenceMapSize());
         try {
             byte[][] fieldEncodings = new byte[fields.length][];
@@ -181,18 +177,15 @@ public class Group extends Field {
             }
             ByteArrayOutputStream buffer = new ByteArrayOutputStream();
             if (usesPresenceMap()) {
-                byte[] pmap = presenceMapBuilder.getBitVector().getTruncatedBytes();
-                if (context.isTraceEnabled())
-                    context.getEncodeTrace().pmap(pmap);
-                buffer.write(pmap);
+                context.getTracer().encodedPresenceMap(presenceMapBuilder);
+                presenceMapBuilder.writeTruncatedBytes(buffer);
             }
             for (int i = 0; i < fieldEncodings.length; i++) {
                 if (fieldEncodings[i] != null) {
                     buffer.write(fieldEncodings[i]);
                 }
             }
-            if (context.isTraceEnabled())
-                context.getEncodeTrace().groupEnd();
+            context.getTracer().endEncodingGroup();
             return buffer.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -217,12 +210,9 @@ public class Group extends Field {
     public FieldValue decode(InputStream in, Group group, Context context, BitVectorReader pmapReader) {
         try {
             if (!usesPresenceMapBit() || pmapReader.read()) {
-                if (context.isTraceEnabled()) {
-                    context.getDecodeTrace().groupStart(this);
-                }
+                context.getTracer().startDecodingGroup(this);
                 GroupValue groupValue = new GroupValue(this, decodeFieldValues(in, group, context));
-                if (context.isTraceEnabled())
-                    context.getDecodeTrace().groupEnd();
+                context.getTracer().endDecodingGroup();
                 return groupValue;
             } else
                 return null;
@@ -247,13 +237,18 @@ public class Group extends Field {
      */
     protected FieldValue[] decodeFieldValues(InputStream in, Group template, Context context) {
         if (usesPresenceMap()) {
-            BitVector pmap = ((BitVectorValue) TypeCodec.BIT_VECTOR.decode(in)).value;
-            if (context.isTraceEnabled())
-                context.getDecodeTrace().pmap(pmap.getBytes());
-            if (pmap.isOverlong())
-                Global.handleError(FastConstants.R7_PMAP_OVERLONG, "The presence map " + pmap + " for the group " + this
-                        + " is overlong.");
-            return decodeFieldValues(in, template, new BitVectorReader(pmap), context);
+            BitVectorReader pmapReader = context.acquirePresenceMapReader();
+            try {
+                if (!BitVectorType.decodePresenceMap(in, pmapReader))
+                    Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                context.getTracer().decodedPresenceMap(pmapReader);
+                if (pmapReader.isOverlong())
+                    Global.handleError(FastConstants.R7_PMAP_OVERLONG, "The presence map " + pmapReader + " for the group " + this
+                            + " is overlong.");
+                return decodeFieldValues(in, template, pmapReader, context);
+            } finally {
+                context.releasePresenceMapReader();
+            }
         } else {
             return decodeFieldValues(in, template, BitVectorReader.NULL, context);
         }
@@ -292,11 +287,24 @@ public class Group extends Field {
                 fieldTmpl = field.getTemplate();
             values[fieldIndex] = field.decode(in, fieldTmpl, context, pmapReader);
         }
-        if (pmapReader.hasMoreBitsSet())
+        if (checksTrailingPresenceBits(context) && pmapReader.hasMoreBitsSet())
             Global.handleError(FastConstants.R8_PMAP_TOO_MANY_BITS, "The presence map " + pmapReader + " has too many bits for the group " + this);
         return values;
     }
 
+    /**
+     * Whether decoders check that no presence map bits are set past the last
+     * field of this group, which the compiled decoders ask as well. A group is
+     * checked only under strict validation.
+     * 
+     * @param context
+     *            the context the group is being decoded with
+     * @return true if trailing presence map bits are an error
+     */
+    public boolean checksTrailingPresenceBits(Context context) {
+        return context.isStrictValidation();
+    }
+
     /**
      * Determine if there is a Map of the passed byte array and fieldValue
      * 
@@ -380,6 +388,19 @@ public class Group extends Field {
         return (Field) fieldNameMap.get(name);
     }
 
+    /**
+     * Resolves a field once for repeated reads from values of this group.
+     * 
+     * @param path
+     *            the name of a field of this group, or the names of nested groups and sequences and the field separated
+     *            by slashes, such as "NoMDEntries/MDEntryPx"
+     * @throws IllegalArgumentException
+     *             if a name on the path is not a field of its group
+     */
+    public FieldAccessor accessor(String path) {
+        return new FieldAccessor(this, path);
+    }
+
     /**
      * Creates a map of the passed field array by the field name and the field
      * index number
@@ -21,6 +21,7 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast.template;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import org.openfast.BitVectorReader;
 import org.openfast.Context;
 import org.openfast.FieldValue;
@@ -33,8 +34,10 @@ import org.openfast.error.FastException;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.type.Type;
 
-public class MessageTemplate extends Group implements FieldSet {
+public class MessageTemplate extends Group implements FieldSet, TemplateDecoder, TemplateEncoder {
     private static final long serialVersionUID = 1L;
+    private transient volatile TemplateDecoder compiledDecoder;
+    private transient volatile TemplateEncoder compiledEncoder;
 
     public MessageTemplate(QName name, Field[] fields) {
         super(name, addTemplateIdField(fields), false);
@@ -52,6 +55,14 @@ public class MessageTemplate extends Group implements FieldSet {
         return true;
     }
 
+    /**
+     * A message's presence map is always checked, whatever the validation
+     * level, as stray bits past the last field mean the stream is out of step.
+     */
+    public boolean checksTrailingPresenceBits(Context context) {
+        return true;
+    }
+
     public MessageTemplate(String name, Field[] fields) {
         this(new QName(name), fields);
     }
@@ -98,16 +109,36 @@ public class MessageTemplate extends Group implements FieldSet {
      * @return Returns a byte array of the encoded message
      */
     public byte[] encode(Message message, Context context) {
-        if (!context.getTemplateRegistry().isRegistered(message.getTemplate()))
+        int templateId = context.getTemplateRegistry().getId(message.getTemplate());
+        if (templateId == -1)
             throw new FastException("Cannot encode message: The template " + message.getTemplate() + " has not been registered.",
                     FastConstants.D9_TEMPLATE_NOT_REGISTERED);
-        message.setInteger(0, context.getTemplateId(message.getTemplate()));
+        message.setInteger(0, templateId);
         return super.encode(message, this, context);
     }
 
+    /**
+     * Writes the encoding of the message into the buffer, with the compiled
+     * encoder if one is installed and tracing is off. Only a compiled encoder
+     * writes straight into the buffer: an interpreted template builds the
+     * encoding as an array, as {@link #encode(Message, Context)} does, and
+     * then copies it into the buffer.
+     * 
+     * @return the number of bytes written
+     */
+    public int encode(Message message, ByteBuffer buffer, Context context) {
+        TemplateEncoder encoder = compiledEncoder;
+        if (encoder != null && !context.isTraceEnabled())
+            return encoder.encode(message, buffer, context);
+        byte[] encoding = encode(message, context);
+        buffer.put(encoding);
+        return encoding.length;
+    }
+
     /**
      * Decodes the inputStream and creates a new message that contains this
-     * information
+     * information. Compiled decoders carry no tracing, so they are bypassed
+     * while tracing is enabled.
      * 
      * @param in
      *            The inputStream to be decoded
@@ -120,20 +151,95 @@ public class MessageTemplate extends Group implements FieldSet {
      * @return Returns a new message object with the newly decoded fieldValue
      */
     public Message decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context) {
+        TemplateDecoder decoder = compiledDecoder;
+        if (decoder != null && !context.isTraceEnabled())
+            return decoder.decode(in, templateId, presenceMapReader, context);
         try {
-            if (context.isTraceEnabled())
-                context.getDecodeTrace().groupStart(this);
+            context.getTracer().startDecodingGroup(this);
             FieldValue[] fieldValues = super.decodeFieldValues(in, this, presenceMapReader, context);
             fieldValues[0] = new IntegerValue(templateId);
             Message message = new Message(this, fieldValues);
-            if (context.isTraceEnabled())
-                context.getDecodeTrace().groupEnd();
+            context.getTracer().endDecodingGroup();
             return message;
         } catch (FastException e) {
             throw new FastException("An error occurred while decoding " + this, e.getCode(), e);
         }
     }
 
+    /**
+     * Decodes a message of which only some fields are wanted. When the
+     * compiled decoder is a {@link SelectiveTemplateDecoder} the other fields
+     * are skipped without creating values; otherwise the whole message is
+     * decoded and the other fields are cleared.
+     * 
+     * @param subscribedFields
+     *            whether each field, by field index, is to be decoded
+     * @return Returns a new message with the unsubscribed fields set to null
+     */
+    public Message decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context,
+            boolean[] subscribedFields) {
+        TemplateDecoder decoder = compiledDecoder;
+        if (decoder instanceof SelectiveTemplateDecoder && !context.isTraceEnabled())
+            return ((SelectiveTemplateDecoder) decoder).decode(in, templateId, presenceMapReader, context, subscribedFields);
+        Message message = decode(in, templateId, presenceMapReader, context);
+        for (int i = 1; i < fields.length; i++)
+            if (!subscribedFields[i])
+                message.setFieldValue(i, (FieldValue) null);
+        return message;
+    }
+
+    /**
+     * Reads past a message that nobody is interested in, only updating the
+     * dictionaries.
+     */
+    public void skip(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context) {
+        TemplateDecoder decoder = compiledDecoder;
+        if (decoder instanceof SelectiveTemplateDecoder && !context.isTraceEnabled())
+            ((SelectiveTemplateDecoder) decoder).skip(in, templateId, presenceMapReader, context);
+        else
+            decode(in, templateId, presenceMapReader, context);
+    }
+
+    /**
+     * Installs a specialized decoder for this template, such as one built by
+     * {@link org.openfast.template.compiler.TemplateCompiler}. Passing null falls
+     * back to interpreting the template's fields.
+     * 
+     * @param decoder
+     *            The decoder to use when tracing is disabled, or null
+     */
+    public void setCompiledDecoder(TemplateDecoder decoder) {
+        this.compiledDecoder = decoder;
+    }
+
+    /**
+     * @return Returns the specialized decoder for this template, or null if
+     *         the template is interpreted
+     */
+    public TemplateDecoder getCompiledDecoder() {
+        return compiledDecoder;
+    }
+
+    /**
+     * Installs a specialized encoder for this template, such as one built by
+     * {@link org.openfast.template.compiler.TemplateCompiler}. Passing null falls
+     * back to interpreting the template's fields.
+     * 
+     * @param encoder
+     *            The encoder to use when tracing is disabled, or null
+     */
+    public void setCompiledEncoder(TemplateEncoder encoder) {
+        this.compiledEncoder = encoder;
+    }
+
+    /**
+     * @return Returns the specialized encoder for this template, or null if
+     *         the template is interpreted
+     */
+    public TemplateEncoder getCompiledEncoder() {
+        return compiledEncoder;
+    }
+
     /**
      * @return Returns the class of the message
      */
@@ -108,11 +108,11 @@ final class NullTemplateRegistry implements TemplateRegistry {
     }
 
     public int getId(String name) {
-        return 0;
+        return -1;
     }
 
     public int getId(MessageTemplate template) {
-        return 0;
+        return -1;
     }
 
     public boolean isDefined(QName name) {
@@ -130,7 +130,7 @@ final class NullTemplateRegistry implements TemplateRegistry {
     public void removeTemplateRegisteredListener(TemplateRegisteredListener templateRegisteredListener) {}
 
     public int getId(QName name) {
-        return 0;
+        return -1;
     }
 
     public boolean isRegistered(QName name) {
@@ -21,6 +21,7 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast.template;
 
 import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openfast.BitVectorBuilder;
 import org.openfast.BitVectorReader;
@@ -30,23 +31,30 @@ import org.openfast.FieldValue;
 import org.openfast.Global;
 import org.openfast.QName;
 import org.openfast.ScalarValue;
+import org.openfast.debug.Tracer;
 import org.openfast.error.FastConstants;
 import org.openfast.error.FastException;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.operator.OperatorCodec;
+import org.openfast.template.type.IntegerType;
 import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.InternedString;
+import org.openfast.template.type.codec.SymbolCache;
 import org.openfast.template.type.codec.TypeCodec;
-import org.openfast.util.RecordingInputStream;
 
 public class Scalar extends Field {
     private static final long serialVersionUID = 1L;
+    private static final AtomicInteger entryIndices = new AtomicInteger();
     private final Operator operator;
     private final OperatorCodec operatorCodec;
     private final Type type;
-    private final TypeCodec typeCodec;
+    private TypeCodec typeCodec;
     private String dictionary;
     private ScalarValue defaultValue = ScalarValue.UNDEFINED;
     private final ScalarValue initialValue;
+    private SymbolCache symbolCache;
+    private int precision;
+    private int entryIndex = entryIndices.getAndIncrement();
 
     /**
      * Scalar constructor - sets the dictionary as global and validates the
@@ -139,21 +147,20 @@ public class Scalar extends Field {
      *             console the name of the scalar to fail
      */
     public byte[] encode(FieldValue fieldValue, Group template, Context context, BitVectorBuilder presenceMapBuilder) {
-        ScalarValue priorValue = (ScalarValue) context.lookup(getDictionary(), template, getKey());
+        int slot = getSlot(template, context);
+        ScalarValue priorValue = context.lookup(slot);
         ScalarValue value = (ScalarValue) fieldValue;
         if (!operatorCodec.canEncode(value, this))
             Global.handleError(FastConstants.D3_CANT_ENCODE_VALUE, "The scalar " + this + " cannot encode the value " + value);
         ScalarValue valueToEncode = operatorCodec.getValueToEncode((ScalarValue) value, priorValue, this, presenceMapBuilder);
         if (operator.shouldStoreValue(value)) {
-            context.store(getDictionary(), template, getKey(), (ScalarValue) value);
+            context.store(slot, (ScalarValue) value);
         }
         if (valueToEncode == null) {
             return new byte[0];
         }
         byte[] encoding = typeCodec.encode(valueToEncode);
-        if (context.isTraceEnabled() && encoding.length > 0) {
-            context.getEncodeTrace().field(this, fieldValue, valueToEncode, encoding, presenceMapBuilder.getIndex());
-        }
+        context.getTracer().encodedField(this, fieldValue, valueToEncode, encoding, presenceMapBuilder.getIndex());
         return encoding;
     }
     /**
@@ -218,28 +225,30 @@ public class Scalar extends Field {
     public FieldValue decode(InputStream in, Group template, Context context, BitVectorReader presenceMapReader) {
         try {
             ScalarValue previousValue = null;
+            int slot = getSlot(template, context);
             if (operator.usesDictionary()) {
-                previousValue = context.lookup(getDictionary(), template, getKey());
-                validateDictionaryTypeAgainstFieldType(previousValue, this.type);
+                previousValue = context.lookup(slot);
+                if (context.isStrictValidation())
+                    validateDictionaryTypeAgainstFieldType(previousValue, this.type);
             }
             ScalarValue value;
             int pmapIndex = presenceMapReader.getIndex();
             if (isPresent(presenceMapReader)) {
-                if (context.isTraceEnabled())
-                    in = new RecordingInputStream(in);
                 if (!operatorCodec.shouldDecodeType()) {
                     return operatorCodec.decodeValue(null, null, this);
                 }
-                ScalarValue decodedValue = typeCodec.decode(in);
+                Tracer tracer = context.getTracer();
+                InputStream fieldIn = tracer.startField(in);
+                ScalarValue decodedValue = typeCodec.decode(fieldIn);
                 value = decodeValue(decodedValue, previousValue);
-                if (context.isTraceEnabled())
-                    context.getDecodeTrace().field(this, value, decodedValue, ((RecordingInputStream) in).getBuffer(), pmapIndex);
+                tracer.decodedField(this, value, decodedValue, fieldIn, pmapIndex);
             } else {
                 value = decode(previousValue);
             }
-            validateDecodedValueIsCorrectForType(value, type);
+            if (context.isStrictValidation())
+                validateDecodedValueIsCorrectForType(value, type);
             if (!((getOperator() == Operator.DELTA) && (value == null))) {
-                context.store(getDictionary(), template, getKey(), value);
+                context.store(slot, value);
             }
             return value;
         } catch (FastException e) {
@@ -282,6 +291,35 @@ public class Scalar extends Field {
         if (dictionary == null)
             throw new NullPointerException();
         this.dictionary = dictionary;
+        this.entryIndex = entryIndices.getAndIncrement();
+    }
+    public void setKey(QName key) {
+        super.setKey(key);
+        this.entryIndex = entryIndices.getAndIncrement();
+    }
+    /**
+     * Dense index under which each {@link org.openfast.DictionarySlots} remembers the slot
+     * of this scalar's dictionary entry. The index changes whenever the
+     * dictionary or key does, so a slot resolved for the old entry is never
+     * reused.
+     * 
+     * @return the entry index of this scalar
+     */
+    public int getEntryIndex() {
+        return entryIndex;
+    }
+    /**
+     * Resolves the dictionary slot of this scalar when accessed from the given
+     * template in the given context.
+     * 
+     * @param template
+     *            The template whose scope the dictionary entry belongs to
+     * @param context
+     *            The context whose numbering of entries is used
+     * @return the slot of the dictionary entry
+     */
+    public int getSlot(Group template, Context context) {
+        return context.getDictionarySlots().getSlot(this, template);
     }
     /**
      * @return Returns the string 'Scalar [name=X, operator=X, dictionary=X]'
@@ -316,6 +354,47 @@ public class Scalar extends Field {
     public ScalarValue getBaseValue() {
         return initialValue;
     }
+    /**
+     * Decodes the values of this field through the given cache, so that a repeated string is decoded without creating
+     * a new value and equal strings are the same instance.  Only ASCII strings that are not delta encoded can be
+     * interned, and the cache must be set before the template is compiled.
+     * 
+     * @param symbolCache
+     *            the cache to decode through, or null to stop interning
+     */
+    public void setSymbolCache(SymbolCache symbolCache) {
+        TypeCodec codec = getBaseTypeCodec();
+        if (symbolCache != null && !InternedString.canIntern(codec))
+            throw new IllegalArgumentException("The field " + name + " is not an ASCII string and cannot be interned.");
+        this.symbolCache = symbolCache;
+        this.typeCodec = (symbolCache == null) ? codec : new InternedString(codec, symbolCache);
+    }
+    public SymbolCache getSymbolCache() {
+        return symbolCache;
+    }
+    /**
+     * Declares an integer field to hold a fixed point number with the given
+     * number of decimal places, as exchanges such as SZSE send prices. The
+     * precision does not change how the field is encoded; it is the exponent,
+     * negated, used by accessors such as
+     * {@link org.openfast.GroupValue#getScaledLong(int, int)}.
+     * 
+     * @param precision
+     *            the number of decimal places, zero for a plain integer
+     */
+    public void setPrecision(int precision) {
+        if (precision < 0 || (precision > 0 && !(type instanceof IntegerType)))
+            throw new IllegalArgumentException("The field " + name + " cannot have a precision of " + precision + ".");
+        this.precision = precision;
+    }
+    public int getPrecision() {
+        return precision;
+    }
+    private TypeCodec getBaseTypeCodec() {
+        if (typeCodec instanceof InternedString)
+            return ((InternedString) typeCodec).getCodec();
+        return typeCodec;
+    }
     /**
      * 
      * @return Returns the type of the Codec
@@ -336,7 +415,7 @@ public class Scalar extends Field {
     private boolean equals(Scalar other) {
         boolean equals = equals(name, other.name);
         equals = equals && equals(type, other.type);
-        equals = equals && equals(typeCodec, other.typeCodec);
+        equals = equals && equals(getBaseTypeCodec(), other.getBaseTypeCodec());
         equals = equals && equals(operator, other.operator);
         equals = equals && equals(operatorCodec, other.operatorCodec);
         equals = equals && equals(initialValue, other.initialValue);
@@ -353,7 +432,7 @@ public class Scalar extends Field {
         return o.equals(o2);
     }
     public int hashCode() {
-        return name.hashCode() + type.hashCode() + typeCodec.hashCode() + operator.hashCode() + operatorCodec.hashCode()
+        return name.hashCode() + type.hashCode() + getBaseTypeCodec().hashCode() + operator.hashCode() + operatorCodec.hashCode()
                 + initialValue.hashCode() + dictionary.hashCode();
     }
 }
@@ -0,0 +1,46 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.Message;
+
+/**
+ * A {@link TemplateDecoder} that can also read past the fields of a message nobody is interested in.  Skipped fields
+ * still update the dictionaries, as the messages that follow depend on them, but no values are created for them.
+ */
+public interface SelectiveTemplateDecoder extends TemplateDecoder {
+    /**
+     * Decodes a message, leaving the fields that are not subscribed to null.
+     * 
+     * @param subscribedFields
+     *            whether each field of the template, by field index, is to be decoded
+     */
+    Message decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context, boolean[] subscribedFields);
+
+    /**
+     * Reads past a message, only updating the dictionaries.
+     */
+    void skip(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context);
+}
@@ -162,8 +162,6 @@ public class Sequence extends Field implements FieldSet {
      * @return Returns the buffer of the byte array
      */
     public byte[] encode(FieldValue value, Group template, Context context, BitVectorBuilder presenceMapBuilder) {
-        if (hasTypeReference())
-            context.setCurrentApplicationType(getTypeReference());
         if (value == null) {
             return length.encode(null, template, context, presenceMapBuilder);
         }
@@ -0,0 +1,36 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.Message;
+
+/**
+ * Decodes the fields of a message once its presence map and template id have been read.  Every
+ * {@link MessageTemplate} can interpret itself; a specialized decoder installed with
+ * {@link MessageTemplate#setCompiledDecoder(TemplateDecoder)} takes its place whenever tracing is off.
+ */
+public interface TemplateDecoder {
+    Message decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context);
+}
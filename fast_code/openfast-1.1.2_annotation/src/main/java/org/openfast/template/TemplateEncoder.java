@@ -0,0 +1,40 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.Context;
+import org.openfast.Message;
+
+/**
+ * Writes the encoding of a message, presence map and template id included, straight into a buffer.  Every
+ * {@link MessageTemplate} can interpret itself; a specialized encoder installed with
+ * {@link MessageTemplate#setCompiledEncoder(TemplateEncoder)} takes its place whenever tracing is off.
+ */
+public interface TemplateEncoder {
+    /**
+     * @return the number of bytes written, starting at the buffer's position, which is left just past the message
+     * @throws java.nio.BufferOverflowException
+     *             if the message does not fit in the buffer
+     */
+    int encode(Message message, ByteBuffer buffer, Context context);
+}
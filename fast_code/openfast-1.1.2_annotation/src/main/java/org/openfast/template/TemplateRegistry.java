@@ -40,8 +40,16 @@ public interface TemplateRegistry {
     MessageTemplate get(String name);
     MessageTemplate get(QName name);
     MessageTemplate[] getTemplates();
+    /**
+     * @return the id the named template is registered with, or -1 if it is not registered
+     */
     int getId(String name);
     int getId(QName name);
+    /**
+     * Called for every message encoded, so implementations should not hash or compare the whole template.
+     * 
+     * @return the id the template is registered with, or -1 if it is not registered
+     */
     int getId(MessageTemplate template);
     boolean isRegistered(String name);
     boolean isRegistered(QName name);
@@ -0,0 +1,547 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.codegen;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openfast.template.ComposedScalar;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Scalar;
+import org.openfast.template.Sequence;
+import org.openfast.template.TemplateRegistry;
+import org.openfast.template.type.Type;
+
+/**
+ * Generates a typed class for each template of a registry, with a getter and setter per field that goes straight to
+ * the index of the field instead of looking it up by name.  A generated class is a view that wraps either a
+ * {@link org.openfast.template.compiler.FlyweightGroup} filled by the decoder or a {@link org.openfast.GroupValue}
+ * such as a message being built for encoding; nested groups and sequence entries get nested view classes.  A binding
+ * class is generated alongside them that reads messages from a {@link org.openfast.codec.FastDecoder} and dispatches
+ * each one to a handler method for its template.
+ * 
+ * <pre>
+ * MessageClassGenerator generator = new MessageClassGenerator(&quot;com.example.md&quot;);
+ * generator.generate(loader.getTemplateRegistry(), new File(&quot;target/generated-sources&quot;));
+ * </pre>
+ */
+public class MessageClassGenerator {
+    private static final String[] RESERVED_CONSTANTS = { "TEMPLATE_ID", "TEMPLATE_NAME" };
+    /**
+     * The library classes used by the generated code, which a generated class must not hide.
+     */
+    private static final String[] RESERVED_CLASS_NAMES = { "DecimalValue", "GroupValue", "SequenceValue", "Sequence",
+            "FlyweightGroup", "FlyweightMessage", "FastDecoder", "Handler", "Object", "String" };
+    /**
+     * Java keywords and the names the generated code uses for its own fields and parameters.
+     */
+    private static final Set RESERVED_NAMES = new HashSet(Arrays.asList(new String[] { "abstract", "assert", "boolean",
+            "break", "byte", "case", "catch", "char", "class", "const", "continue", "default", "do", "double", "else", "enum",
+            "extends", "false", "final", "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
+            "interface", "long", "native", "new", "null", "package", "private", "protected", "public", "return", "short",
+            "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "true", "try",
+            "void", "volatile", "while", "group", "value", "index", "exponent", "mantissa", "sequence", "entry", "nested",
+            "message", "decoder", "handler" }));
+
+    private final String packageName;
+    private String bindingName = "Messages";
+
+    /**
+     * @param packageName
+     *            the package of the generated classes, or an empty string for the default package
+     */
+    public MessageClassGenerator(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Sets the name of the class that binds the generated classes to a decoder, "Messages" by default.
+     */
+    public void setBindingName(String bindingName) {
+        this.bindingName = bindingName;
+    }
+
+    public String getBindingName() {
+        return bindingName;
+    }
+
+    /**
+     * Writes the generated sources below the given directory, in the subdirectory of the package.
+     * 
+     * @return the files written
+     */
+    public File[] generate(TemplateRegistry registry, File directory) throws IOException {
+        File packageDirectory = (packageName.length() == 0) ? directory : new File(directory, packageName.replace('.', File.separatorChar));
+        if (!packageDirectory.isDirectory() && !packageDirectory.mkdirs())
+            throw new IOException("Unable to create the directory " + packageDirectory);
+        Map sources = generateSources(registry);
+        File[] files = new File[sources.size()];
+        int i = 0;
+        for (Iterator iter = sources.entrySet().iterator(); iter.hasNext(); i++) {
+            Map.Entry entry = (Map.Entry) iter.next();
+            files[i] = new File(packageDirectory, entry.getKey() + ".java");
+            Writer writer = new FileWriter(files[i]);
+            try {
+                writer.write((String) entry.getValue());
+            } finally {
+                writer.close();
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return the source of each generated class keyed by its simple name, the binding class last
+     */
+    public Map/* <String, String> */generateSources(TemplateRegistry registry) {
+        MessageTemplate[] templates = registry.getTemplates();
+        Map sources = new LinkedHashMap();
+        Set classNames = new HashSet(Arrays.asList(RESERVED_CLASS_NAMES));
+        classNames.add(bindingName);
+        String[] names = new String[templates.length];
+        for (int i = 0; i < templates.length; i++) {
+            names[i] = uniqueName(toClassName(templates[i].getName()), classNames);
+            int id = registry.isRegistered(templates[i]) ? registry.getId(templates[i]) : -1;
+            sources.put(names[i], generateClass(templates[i], names[i], id));
+        }
+        sources.put(bindingName, generateBinding(registry, templates, names));
+        return sources;
+    }
+
+    String generateClass(MessageTemplate template, String className, int id) {
+        SourceWriter out = new SourceWriter();
+        writeHeader(out, template.getName());
+        out.line("import org.openfast.DecimalValue;");
+        out.line("import org.openfast.GroupValue;");
+        out.line("import org.openfast.SequenceValue;");
+        out.line("import org.openfast.template.Sequence;");
+        out.line("import org.openfast.template.compiler.FlyweightGroup;");
+        out.line();
+        out.line("/**");
+        out.line(" * The " + template.getName() + " template.");
+        out.line(" */");
+        List constants = new ArrayList();
+        if (id != -1)
+            constants.add("public static final int TEMPLATE_ID = " + id + ";");
+        constants.add("public static final String TEMPLATE_NAME = " + quote(template.getName()) + ";");
+        Set enclosing = new HashSet();
+        writeView(out, template, className, "public class", constants, enclosing);
+        return out.toString();
+    }
+
+    private void writeView(SourceWriter out, Group group, String className, String modifiers, List constants, Set enclosing) {
+        enclosing.add(className);
+        Field[] fields = group.getFields();
+        String[] properties = new String[fields.length];
+        String[] indexes = new String[fields.length];
+        String[] nested = new String[fields.length];
+        Set propertyNames = new HashSet();
+        propertyNames.add("Class");
+        Set constantNames = new HashSet();
+        for (int i = 0; i < RESERVED_CONSTANTS.length; i++)
+            constantNames.add(RESERVED_CONSTANTS[i]);
+        Set nestedNames = new HashSet(enclosing);
+        nestedNames.addAll(Arrays.asList(RESERVED_CLASS_NAMES));
+        for (int i = 0; i < fields.length; i++) {
+            properties[i] = uniqueName(toClassName(fields[i].getName()), propertyNames);
+            indexes[i] = toConstantName(properties[i]);
+            if (constantNames.contains(indexes[i]))
+                indexes[i] += "_FIELD";
+            indexes[i] = uniqueName(indexes[i], constantNames);
+            if (fields[i] instanceof Group || fields[i] instanceof Sequence)
+                nested[i] = uniqueName(properties[i], nestedNames);
+        }
+
+        out.open(modifiers + " " + className + " {");
+        for (int i = 0; i < constants.size(); i++)
+            out.line((String) constants.get(i));
+        for (int i = 0; i < fields.length; i++)
+            out.line("public static final int " + indexes[i] + " = " + i + ";");
+        out.line();
+        out.line("private FlyweightGroup group;");
+        out.line("private GroupValue value;");
+        for (int i = 0; i < fields.length; i++) {
+            if (nested[i] != null) {
+                out.line("private final " + nested[i] + " " + variable(nested[i]) + " = new " + nested[i] + "();");
+                out.line("private final FlyweightGroup " + variable(nested[i]) + "Group = new FlyweightGroup();");
+            }
+        }
+        out.line();
+        out.line("/**");
+        out.line(" * Views a decoded flyweight, which stays valid until the next message is decoded into it.");
+        out.line(" */");
+        out.open("public " + className + " wrap(FlyweightGroup group) {");
+        out.line("this.group = group;");
+        out.line("this.value = null;");
+        out.line("return this;");
+        out.close();
+        out.line();
+        out.line("/**");
+        out.line(" * Views a group value, for instance a message to be encoded, which the setters write to.");
+        out.line(" */");
+        out.open("public " + className + " wrap(GroupValue value) {");
+        out.line("this.group = null;");
+        out.line("this.value = value;");
+        out.line("return this;");
+        out.close();
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].isOptional()) {
+                out.line();
+                out.open("public boolean has" + properties[i] + "() {");
+                out.line("return (group != null) ? group.isPresent(" + indexes[i] + ") : value.isDefined(" + indexes[i] + ");");
+                out.close();
+            }
+            writeAccessors(out, fields[i], properties[i], indexes[i], nested[i], className);
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (nested[i] == null)
+                continue;
+            out.line();
+            Group nestedGroup = (fields[i] instanceof Sequence) ? ((Sequence) fields[i]).getGroup() : (Group) fields[i];
+            writeView(out, nestedGroup, nested[i], "public static final class", new ArrayList(), new HashSet(enclosing));
+        }
+        out.close();
+    }
+
+    private void writeAccessors(SourceWriter out, Field field, String property, String index, String nested, String className) {
+        String parameter = variable(property);
+        if (field instanceof Scalar && isInteger(((Scalar) field).getType())) {
+            boolean isLong = isLong(((Scalar) field).getType());
+            String type = isLong ? "long" : "int";
+            String accessor = isLong ? "Long" : "Int";
+            out.line();
+            if (((Scalar) field).getPrecision() > 0) {
+                out.line("/**");
+                out.line(" * @return the value with " + ((Scalar) field).getPrecision() + " implied decimal places");
+                out.line(" */");
+            }
+            out.open("public " + type + " get" + property + "() {");
+            out.line("return (group != null) ? group.get" + accessor + "(" + index + ") : value.get" + accessor + "(" + index + ");");
+            out.close();
+            out.line();
+            out.open("public " + className + " set" + property + "(" + type + " " + parameter + ") {");
+            out.line("value.set" + (isLong ? "Long" : "Integer") + "(" + index + ", " + parameter + ");");
+            out.line("return this;");
+            out.close();
+        } else if ((field instanceof Scalar || field instanceof ComposedScalar) && getType(field) == Type.DECIMAL) {
+            out.line();
+            out.open("public long get" + property + "Mantissa() {");
+            out.line("return (group != null) ? group.getMantissa(" + index + ") : ((DecimalValue) value.getScalar(" + index + ")).mantissa;");
+            out.close();
+            out.line();
+            out.open("public int get" + property + "Exponent() {");
+            out.line("return (group != null) ? group.getExponent(" + index + ") : ((DecimalValue) value.getScalar(" + index + ")).exponent;");
+            out.close();
+            out.line();
+            out.line("/**");
+            out.line(" * @return the mantissa of the value with the given exponent");
+            out.line(" */");
+            out.open("public long get" + property + "(int exponent) {");
+            out.line("return (group != null) ? group.getScaledLong(" + index + ", exponent) : value.getScaledLong(" + index + ", exponent);");
+            out.close();
+            out.line();
+            out.open("public double get" + property + "() {");
+            out.line("return (group != null) ? group.getDouble(" + index + ") : value.getDouble(" + index + ");");
+            out.close();
+            out.line();
+            out.open("public " + className + " set" + property + "(long mantissa, int exponent) {");
+            out.line("value.setFieldValue(" + index + ", new DecimalValue(mantissa, exponent));");
+            out.line("return this;");
+            out.close();
+        } else if (field instanceof Scalar && getType(field) == Type.BYTE_VECTOR) {
+            out.line();
+            out.open("public byte[] get" + property + "() {");
+            out.line("return (group != null) ? group.getScalar(" + index + ").getBytes() : value.getBytes(" + index + ");");
+            out.close();
+            out.line();
+            out.open("public " + className + " set" + property + "(byte[] " + parameter + ") {");
+            out.line("value.setByteVector(" + index + ", " + parameter + ");");
+            out.line("return this;");
+            out.close();
+        } else if (field instanceof Scalar) {
+            out.line();
+            out.open("public String get" + property + "() {");
+            out.line("return (group != null) ? group.getString(" + index + ") : value.getString(" + index + ");");
+            out.close();
+            out.line();
+            out.open("public " + className + " set" + property + "(String " + parameter + ") {");
+            out.line("value.setString(" + index + ", " + parameter + ");");
+            out.line("return this;");
+            out.close();
+        } else if (field instanceof Sequence) {
+            String view = variable(nested);
+            out.line();
+            out.open("public int get" + property + "Length() {");
+            out.open("if (group != null)");
+            out.line("return group.isPresent(" + index + ") ? group.sequenceLength(" + index + ") : 0;");
+            out.unindent();
+            out.line("SequenceValue sequence = value.getSequence(" + index + ");");
+            out.line("return (sequence == null) ? 0 : sequence.getLength();");
+            out.close();
+            out.line();
+            out.line("/**");
+            out.line(" * @return a view of the entry, which is reused by the next call");
+            out.line(" */");
+            out.open("public " + nested + " get" + property + "(int index) {");
+            out.open("if (group != null)");
+            out.line("return " + view + ".wrap(group.entry(" + index + ", index, " + view + "Group));");
+            out.unindent();
+            out.line("return " + view + ".wrap(value.getSequence(" + index + ").get(index));");
+            out.close();
+            out.line();
+            out.line("/**");
+            out.line(" * Appends an entry to the sequence.");
+            out.line(" * ");
+            out.line(" * @return a view of the new entry, which is reused by the next call");
+            out.line(" */");
+            out.open("public " + nested + " add" + property + "() {");
+            out.line("SequenceValue sequence = value.getSequence(" + index + ");");
+            out.open("if (sequence == null) {");
+            out.line("sequence = new SequenceValue((Sequence) value.getGroup().getField(" + index + "));");
+            out.line("value.setFieldValue(" + index + ", sequence);");
+            out.close();
+            out.line("GroupValue entry = new GroupValue(sequence.getSequence().getGroup());");
+            out.line("sequence.add(entry);");
+            out.line("return " + view + ".wrap(entry);");
+            out.close();
+        } else if (field instanceof Group) {
+            String view = variable(nested);
+            out.line();
+            out.line("/**");
+            out.line(" * @return a view of the group, which is reused by the next call");
+            out.line(" */");
+            out.open("public " + nested + " get" + property + "() {");
+            out.open("if (group != null)");
+            out.line("return " + view + ".wrap(group.group(" + index + ", " + view + "Group));");
+            out.unindent();
+            out.line("return " + view + ".wrap(value.getGroup(" + index + "));");
+            out.close();
+            out.line();
+            out.line("/**");
+            out.line(" * Sets the group to a new empty value.");
+            out.line(" * ");
+            out.line(" * @return a view of the new group, which is reused by the next call");
+            out.line(" */");
+            out.open("public " + nested + " add" + property + "() {");
+            out.line("GroupValue nested = new GroupValue((org.openfast.template.Group) value.getGroup().getField(" + index + "));");
+            out.line("value.setFieldValue(" + index + ", nested);");
+            out.line("return " + view + ".wrap(nested);");
+            out.close();
+        }
+    }
+
+    String generateBinding(TemplateRegistry registry, MessageTemplate[] templates, String[] classNames) {
+        SourceWriter out = new SourceWriter();
+        writeHeader(out, null);
+        out.line("import org.openfast.codec.FastDecoder;");
+        out.line("import org.openfast.template.compiler.FlyweightMessage;");
+        out.line();
+        out.line("/**");
+        out.line(" * Reads messages into a flyweight and dispatches each one to the handler method of its template.");
+        out.line(" */");
+        out.open("public class " + bindingName + " {");
+        out.open("public interface Handler {");
+        List dispatched = new ArrayList();
+        Set ids = new HashSet();
+        for (int i = 0; i < templates.length; i++) {
+            if (!registry.isRegistered(templates[i]) || !ids.add(new Integer(registry.getId(templates[i]))))
+                continue;
+            dispatched.add(new Integer(i));
+            out.line("void on" + classNames[i] + "(" + classNames[i] + " message);");
+            out.line();
+        }
+        out.line("/**");
+        out.line(" * Called for a message of a template that no class was generated for.");
+        out.line(" */");
+        out.line("void onMessage(FlyweightMessage message);");
+        out.close();
+        out.line();
+        out.line("private final FlyweightMessage message = new FlyweightMessage();");
+        for (int d = 0; d < dispatched.size(); d++) {
+            int i = ((Integer) dispatched.get(d)).intValue();
+            out.line("private final " + classNames[i] + " " + variable(classNames[i]) + " = new " + classNames[i] + "();");
+        }
+        out.line();
+        out.line("/**");
+        out.line(" * @return false if there are no more messages");
+        out.line(" */");
+        out.open("public boolean readMessage(FastDecoder decoder, Handler handler) {");
+        out.open("if (!decoder.readMessage(message))");
+        out.line("return false;");
+        out.unindent();
+        out.open("switch (message.getTemplateId()) {");
+        for (int d = 0; d < dispatched.size(); d++) {
+            int i = ((Integer) dispatched.get(d)).intValue();
+            out.line("case " + classNames[i] + ".TEMPLATE_ID:");
+            out.indent();
+            out.line("handler.on" + classNames[i] + "(" + variable(classNames[i]) + ".wrap(message));");
+            out.line("break;");
+            out.unindent();
+        }
+        out.line("default:");
+        out.indent();
+        out.line("handler.onMessage(message);");
+        out.unindent();
+        out.close();
+        out.line("return true;");
+        out.close();
+        out.close();
+        return out.toString();
+    }
+
+    private void writeHeader(SourceWriter out, String templateName) {
+        out.line("// Generated by " + MessageClassGenerator.class.getName() + ((templateName == null) ? "" : " from the template " + templateName) + ", do not edit.");
+        if (packageName.length() > 0) {
+            out.line("package " + packageName + ";");
+            out.line();
+        }
+    }
+
+    private static Type getType(Field field) {
+        return (field instanceof Scalar) ? ((Scalar) field).getType() : ((ComposedScalar) field).getType();
+    }
+
+    private static boolean isInteger(Type type) {
+        for (int i = 0; i < Type.INTEGER_TYPES.length; i++)
+            if (Type.INTEGER_TYPES[i] == type)
+                return true;
+        return false;
+    }
+
+    private static boolean isLong(Type type) {
+        return type == Type.U32 || type == Type.U64 || type == Type.I64;
+    }
+
+    static String toClassName(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 1);
+        boolean upper = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) || c == '$') {
+                upper = true;
+                continue;
+            }
+            builder.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        if (builder.length() == 0 || !Character.isJavaIdentifierStart(builder.charAt(0)))
+            builder.insert(0, '_');
+        return builder.toString();
+    }
+
+    /**
+     * Converts a class name such as "MDEntries" to a constant name such as "MD_ENTRIES".
+     */
+    static String toConstantName(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (i > 0 && Character.isUpperCase(c) && builder.charAt(builder.length() - 1) != '_') {
+                char previous = name.charAt(i - 1);
+                boolean nextIsLower = i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1));
+                if (!Character.isUpperCase(previous) || nextIsLower)
+                    builder.append('_');
+            }
+            builder.append(Character.toUpperCase(c));
+        }
+        return builder.toString();
+    }
+
+    private static String variable(String className) {
+        int upper = 0;
+        while (upper < className.length() && Character.isUpperCase(className.charAt(upper)))
+            upper++;
+        if (upper > 1 && upper < className.length())
+            upper--;
+        String name = className.substring(0, upper).toLowerCase() + className.substring(upper);
+        return (name.equals(className) || RESERVED_NAMES.contains(name)) ? "_" + name : name;
+    }
+
+    private static String uniqueName(String name, Set used) {
+        String unique = name;
+        for (int i = 2; !used.add(unique); i++)
+            unique = name + i;
+        return unique;
+    }
+
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                builder.append('\\');
+            builder.append(c);
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Writes lines of source indented by four spaces per level.
+     */
+    private static final class SourceWriter {
+        private final StringBuilder builder = new StringBuilder();
+        private int depth;
+
+        void line(String line) {
+            for (int i = 0; i < depth; i++)
+                builder.append("    ");
+            builder.append(line).append('\n');
+        }
+
+        void line() {
+            builder.append('\n');
+        }
+
+        void open(String line) {
+            line(line);
+            depth++;
+        }
+
+        void close() {
+            depth--;
+            line("}");
+        }
+
+        void indent() {
+            depth++;
+        }
+
+        void unindent() {
+            depth--;
+        }
+
+        public String toString() {
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.ScalarValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastException;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Decodes an ASCII string or byte vector with no operator, copy or default into a flyweight without creating Strings
+ * or values.  The bytes are read into the flyweight's range, straight from the array of a heap buffer when possible,
+ * and copied into the flyweight.  As with {@link IntegerDecoder}, a previous value that is not held as bytes is handled
+ * by the value based node.
+ */
+final class BytesDecoder extends FieldDecoder {
+    private final ScalarDecoder fallback;
+    private final Scalar scalar;
+    private final TypeCodec typeCodec;
+    private final boolean usesPresenceMapBit;
+    private final boolean ascii;
+    private final boolean isCopy;
+    private final boolean storesValue;
+    private final ByteRange initialValue;
+    private final int entry;
+
+    BytesDecoder(ScalarDecoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.typeCodec = fallback.typeCodec;
+        this.usesPresenceMapBit = fallback.usesPresenceMapBit;
+        this.entry = fallback.entry;
+        this.ascii = typeCodec == TypeCodec.ASCII || typeCodec == TypeCodec.NULLABLE_ASCII;
+        this.isCopy = scalar.getOperator() == Operator.COPY;
+        this.storesValue = scalar.getOperator() != Operator.NONE;
+        if (scalar.getDefaultValue().isUndefined()) {
+            this.initialValue = null;
+        } else {
+            byte[] bytes = scalar.getDefaultValue().getBytes();
+            this.initialValue = new ByteRange(bytes.length);
+            this.initialValue.copy(bytes, 0, bytes.length);
+        }
+    }
+
+    static boolean accepts(Scalar scalar) {
+        Operator operator = scalar.getOperator();
+        TypeCodec codec = scalar.getTypeCodec();
+        return (operator == Operator.NONE || operator == Operator.COPY || operator == Operator.DEFAULT)
+                && (codec == TypeCodec.ASCII || codec == TypeCodec.NULLABLE_ASCII || codec == TypeCodec.BYTE_VECTOR
+                        || codec == TypeCodec.NULLABLE_BYTE_VECTOR_TYPE);
+    }
+
+    FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        return fallback.decode(in, presenceMapReader, context);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        if (isCopy && !context.hasBytes(context.slotOf(entry))) {
+            message.putScalar(index, (ScalarValue) fallback.decode(in, presenceMapReader, context));
+            return;
+        }
+        ByteRange value = decode(in, presenceMapReader, context, message.range);
+        if (value != null)
+            message.putBytes(index, value, ascii);
+        else
+            message.putAbsent(index);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        if (isCopy && !context.hasBytes(context.slotOf(entry))) {
+            MessageEvents.emit(handler, index, scalar.getType(), (ScalarValue) fallback.decode(in, presenceMapReader, context));
+            return;
+        }
+        ByteRange value = decode(in, presenceMapReader, context, context.getScratchBytes());
+        if (value == null)
+            return;
+        if (ascii) {
+            value.unmask();
+            handler.onAscii(index, value.getArray(), value.getOffset(), value.length());
+        } else {
+            handler.onBytes(index, value.getArray(), value.getOffset(), value.length());
+        }
+    }
+
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        if (isCopy && !context.hasBytes(context.slotOf(entry)))
+            fallback.decode(in, presenceMapReader, context);
+        else
+            decode(in, presenceMapReader, context, context.getScratchBytes());
+    }
+
+    /**
+     * @return the range holding the value, which is the initial value when the default is used, or null if the field
+     *         is null
+     */
+    private ByteRange decode(InputStream in, BitVectorReader presenceMapReader, Context context, ByteRange value) {
+        try {
+            if (!usesPresenceMapBit || presenceMapReader.read()) {
+                if (!typeCodec.decodeBytes(in, value)) {
+                    if (isCopy)
+                        context.store(context.slotOf(entry), (ScalarValue) null);
+                    return null;
+                }
+            } else if (isCopy) {
+                context.lookupBytes(context.slotOf(entry), value);
+                return value;
+            } else if (initialValue == null) {
+                return null;
+            } else {
+                value = initialValue;
+            }
+            if (storesValue) {
+                if (ascii)
+                    context.storeAscii(context.slotOf(entry), value);
+                else
+                    context.storeBytes(context.slotOf(entry), value);
+            }
+            return value;
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + scalar, e.getCode(), e);
+        }
+    }
+}
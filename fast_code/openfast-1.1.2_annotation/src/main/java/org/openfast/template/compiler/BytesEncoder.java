@@ -0,0 +1,166 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.template.type.codec.InternedString;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Encodes an ASCII string or byte vector with no operator, copy or default from the bytes of a flyweight, keeping the
+ * previous value in the bytes lane of the dictionary, the encoding counterpart of {@link BytesDecoder}.  Values, and
+ * previous values that are not held as bytes, undefined or empty, are handled by the value based node.
+ */
+final class BytesEncoder extends FieldEncoder {
+    private final ScalarEncoder fallback;
+    private final Scalar scalar;
+    private final TypeCodec typeCodec;
+    private final Operator operator;
+    private final boolean ascii;
+    private final boolean optional;
+    private final byte[] defaultValue;
+    private final int entry;
+
+    BytesEncoder(ScalarEncoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.typeCodec = plain(fallback.typeCodec);
+        this.entry = fallback.entry;
+        this.operator = scalar.getOperator();
+        this.ascii = typeCodec == TypeCodec.ASCII || typeCodec == TypeCodec.NULLABLE_ASCII;
+        this.optional = scalar.isOptional();
+        this.defaultValue = scalar.getDefaultValue().isUndefined() ? null : scalar.getDefaultValue().getBytes();
+    }
+
+    static boolean accepts(Scalar scalar) {
+        Operator operator = scalar.getOperator();
+        TypeCodec codec = plain(scalar.getTypeCodec());
+        return (operator == Operator.NONE || operator == Operator.COPY || operator == Operator.DEFAULT)
+                && (codec == TypeCodec.ASCII || codec == TypeCodec.NULLABLE_ASCII || codec == TypeCodec.BYTE_VECTOR
+                        || codec == TypeCodec.NULLABLE_BYTE_VECTOR_TYPE);
+    }
+
+    /**
+     * Interning only matters when decoding, so interned strings are encoded by the codec they wrap.
+     */
+    static TypeCodec plain(TypeCodec codec) {
+        return (codec instanceof InternedString) ? ((InternedString) codec).getCodec() : codec;
+    }
+
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        fallback.encode(value, buffer, presenceMapBuilder, context);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        byte kind = message.kinds[index];
+        boolean isNull = kind == FlyweightMessage.ABSENT;
+        if ((!isNull && kind != FlyweightMessage.ASCII && kind != FlyweightMessage.BYTES)
+                || (operator == Operator.COPY && !hasBytesPrior(context))) {
+            fallback.encode(message.getValue(index, scalar), buffer, presenceMapBuilder, context);
+            return;
+        }
+        ByteRange value = message.range;
+        if (!isNull)
+            value.wrap(message.slab, message.ints[index], (int) message.longs[index]);
+        if (operator == Operator.NONE) {
+            write(value, isNull, buffer);
+        } else if (operator == Operator.DEFAULT) {
+            if (isNull ? defaultValue == null : isDefault(value)) {
+                presenceMapBuilder.skip();
+            } else {
+                presenceMapBuilder.set();
+                write(value, isNull, buffer);
+            }
+            if (!isNull)
+                store(value, context);
+        } else {
+            encodeCopy(value, isNull, buffer, presenceMapBuilder, context);
+        }
+    }
+
+    private void encodeCopy(ByteRange value, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        boolean assigned = context.hasBytes(context.slotOf(entry));
+        boolean undefined = !assigned && context.lookup(context.slotOf(entry)) == ScalarValue.UNDEFINED;
+        if (isNull) {
+            if (!optional)
+                Global.handleError(FastConstants.D6_MNDTRY_FIELD_NOT_PRESENT, "The field \"" + scalar + " is not present.");
+            if (optional && (undefined ? defaultValue != null : assigned)) {
+                presenceMapBuilder.set();
+                typeCodec.encodeNull(buffer);
+            } else {
+                presenceMapBuilder.skip();
+            }
+            context.store(context.slotOf(entry), (ScalarValue) null);
+            return;
+        }
+        if ((undefined && isDefault(value)) || (assigned && isPrior(value, context))) {
+            presenceMapBuilder.skip();
+        } else {
+            presenceMapBuilder.set();
+            typeCodec.encodeBytes(value, buffer);
+        }
+        store(value, context);
+    }
+
+    private boolean isDefault(ByteRange value) {
+        return defaultValue != null && value.contentEquals(defaultValue, 0, defaultValue.length);
+    }
+
+    private boolean isPrior(ByteRange value, Context context) {
+        ByteRange priorValue = context.getScratchBytes();
+        context.lookupBytes(context.slotOf(entry), priorValue);
+        return value.contentEquals(priorValue.getArray(), priorValue.getOffset(), priorValue.length());
+    }
+
+    private void store(ByteRange value, Context context) {
+        if (ascii)
+            context.storeAscii(context.slotOf(entry), value);
+        else
+            context.storeBytes(context.slotOf(entry), value);
+    }
+
+    private void write(ByteRange value, boolean isNull, ByteBuffer buffer) {
+        if (isNull)
+            typeCodec.encodeNull(buffer);
+        else
+            typeCodec.encodeBytes(value, buffer);
+    }
+
+    /**
+     * @return true unless the previous value is something other than bytes, undefined or empty
+     */
+    private boolean hasBytesPrior(Context context) {
+        if (context.hasBytes(context.slotOf(entry)))
+            return true;
+        ScalarValue priorValue = context.lookup(context.slotOf(entry));
+        return priorValue == null || priorValue == ScalarValue.UNDEFINED;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.IntegerValue;
+import org.openfast.Message;
+import org.openfast.SlotList;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.SelectiveTemplateDecoder;
+
+final class CompiledTemplate implements SelectiveTemplateDecoder {
+    private final MessageTemplate template;
+    private final SlotList entries;
+    private final FieldDecoder[] fields;
+
+    CompiledTemplate(MessageTemplate template, SlotList entries, FieldDecoder[] fields) {
+        this.template = template;
+        this.entries = entries;
+        this.fields = fields;
+    }
+
+    public Message decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context) {
+        int[] outer = context.bindSlots(entries);
+        try {
+            FieldValue[] values = new FieldValue[fields.length + 1];
+            values[0] = new IntegerValue(templateId);
+            for (int i = 0; i < fields.length; i++)
+                values[i + 1] = fields[i].decode(in, presenceMapReader, context);
+            checkPresenceMap(presenceMapReader, context);
+            return new Message(template, values);
+        } catch (FastException e) {
+            throw new FastException("An error occurred while decoding " + template, e.getCode(), e);
+        } finally {
+            context.restoreSlots(outer);
+        }
+    }
+
+    public Message decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context,
+            boolean[] subscribedFields) {
+        int[] outer = context.bindSlots(entries);
+        try {
+            FieldValue[] values = new FieldValue[fields.length + 1];
+            values[0] = new IntegerValue(templateId);
+            for (int i = 0; i < fields.length; i++) {
+                if (subscribedFields[i + 1])
+                    values[i + 1] = fields[i].decode(in, presenceMapReader, context);
+                else
+                    fields[i].skip(in, presenceMapReader, context);
+            }
+            checkPresenceMap(presenceMapReader, context);
+            return new Message(template, values);
+        } catch (FastException e) {
+            throw new FastException("An error occurred while decoding " + template, e.getCode(), e);
+        } finally {
+            context.restoreSlots(outer);
+        }
+    }
+
+    public void skip(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context) {
+        int[] outer = context.bindSlots(entries);
+        try {
+            for (int i = 0; i < fields.length; i++)
+                fields[i].skip(in, presenceMapReader, context);
+            checkPresenceMap(presenceMapReader, context);
+        } catch (FastException e) {
+            throw new FastException("An error occurred while decoding " + template, e.getCode(), e);
+        } finally {
+            context.restoreSlots(outer);
+        }
+    }
+
+    void decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context, FlyweightMessage message,
+            boolean[] subscribedFields) {
+        int[] outer = context.bindSlots(entries);
+        try {
+            message.start(template, templateId);
+            for (int i = 0; i < fields.length; i++) {
+                if (subscribedFields[i + 1]) {
+                    fields[i].decode(in, presenceMapReader, context, message, i + 1);
+                } else {
+                    fields[i].skip(in, presenceMapReader, context);
+                    message.putAbsent(i + 1);
+                }
+            }
+            checkPresenceMap(presenceMapReader, context);
+        } catch (FastException e) {
+            throw new FastException("An error occurred while decoding " + template, e.getCode(), e);
+        } finally {
+            context.restoreSlots(outer);
+        }
+    }
+
+    void decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context, FlyweightMessage message) {
+        int[] outer = context.bindSlots(entries);
+        try {
+            message.start(template, templateId);
+            for (int i = 0; i < fields.length; i++)
+                fields[i].decode(in, presenceMapReader, context, message, i + 1);
+            checkPresenceMap(presenceMapReader, context);
+        } catch (FastException e) {
+            throw new FastException("An error occurred while decoding " + template, e.getCode(), e);
+        } finally {
+            context.restoreSlots(outer);
+        }
+    }
+
+    /**
+     * Decodes the message, reporting each field to the handler as it is decoded.
+     * 
+     * @param subscribedFields whether each field, by field index, is to be decoded, or null for all
+     */
+    void decode(InputStream in, int templateId, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler,
+            boolean[] subscribedFields) {
+        int[] outer = context.bindSlots(entries);
+        try {
+            handler.onMessageStart(templateId, template);
+            for (int i = 0; i < fields.length; i++) {
+                if (subscribedFields == null || subscribedFields[i + 1])
+                    fields[i].decode(in, presenceMapReader, context, handler, i + 1);
+                else
+                    fields[i].skip(in, presenceMapReader, context);
+            }
+            checkPresenceMap(presenceMapReader, context);
+            handler.onMessageEnd();
+        } catch (FastException e) {
+            throw new FastException("An error occurred while decoding " + template, e.getCode(), e);
+        } finally {
+            context.restoreSlots(outer);
+        }
+    }
+
+    private void checkPresenceMap(BitVectorReader presenceMapReader, Context context) {
+        if (template.checksTrailingPresenceBits(context) && presenceMapReader.hasMoreBitsSet())
+            Global.handleError(FastConstants.R8_PMAP_TOO_MANY_BITS, "The presence map " + presenceMapReader
+                    + " has too many bits for the group " + template);
+    }
+
+    MessageTemplate getTemplate() {
+        return template;
+    }
+
+    public String toString() {
+        return "compiled " + template;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.Context;
+import org.openfast.Message;
+import org.openfast.SlotList;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.TemplateEncoder;
+
+final class CompiledTemplateEncoder implements TemplateEncoder {
+    private final MessageTemplate template;
+    private final SlotList entries;
+    private final GroupEncoder fields;
+
+    CompiledTemplateEncoder(MessageTemplate template, SlotList entries, GroupEncoder fields) {
+        this.template = template;
+        this.entries = entries;
+        this.fields = fields;
+    }
+
+    /**
+     * The template id is taken from the registry rather than from the first field of the message, which is left
+     * untouched.
+     */
+    public int encode(Message message, ByteBuffer buffer, Context context) {
+        int templateId = getTemplateId(context);
+        int start = buffer.position();
+        int[] outer = context.bindSlots(entries);
+        try {
+            fields.encodeEntry(message, templateId, buffer, context);
+        } finally {
+            context.restoreSlots(outer);
+        }
+        return buffer.position() - start;
+    }
+
+    int encode(FlyweightMessage message, ByteBuffer buffer, Context context) {
+        int templateId = getTemplateId(context);
+        int start = buffer.position();
+        int[] outer = context.bindSlots(entries);
+        try {
+            fields.encodeEntry(message, message.base, templateId, buffer, context);
+        } finally {
+            context.restoreSlots(outer);
+        }
+        return buffer.position() - start;
+    }
+
+    private int getTemplateId(Context context) {
+        int templateId = context.getTemplateRegistry().getId(template);
+        if (templateId == -1)
+            throw new FastException("Cannot encode message: The template " + template + " has not been registered.",
+                    FastConstants.D9_TEMPLATE_NOT_REGISTERED);
+        return templateId;
+    }
+
+    public String toString() {
+        return "compiled " + template;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.FieldValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.template.ComposedScalar;
+import org.openfast.template.Scalar;
+import org.openfast.template.type.DecimalConverter;
+import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.PrimitiveValue;
+
+/**
+ * Decodes a decimal with individual exponent and mantissa operators through two {@link IntegerDecoder}s, so that the
+ * flyweight and event paths never create values and the value path does not lock the composed field.
+ */
+final class ComposedDecimalDecoder extends FieldDecoder {
+    private final IntegerDecoder exponent;
+    private final IntegerDecoder mantissa;
+
+    ComposedDecimalDecoder(IntegerDecoder exponent, IntegerDecoder mantissa) {
+        this.exponent = exponent;
+        this.mantissa = mantissa;
+    }
+
+    static boolean accepts(ComposedScalar field) {
+        Scalar[] fields = field.getFields();
+        return field.getType() == Type.DECIMAL && fields.length == 2 && field.getValueConverter() instanceof DecimalConverter
+                && IntegerDecoder.accepts(fields[0]) && IntegerDecoder.accepts(fields[1]);
+    }
+
+    FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        PrimitiveValue value = context.getScratchValue();
+        if (!decode(in, presenceMapReader, context, value))
+            return null;
+        return new DecimalValue(value.value, value.exponent);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        PrimitiveValue value = message.primitive;
+        if (decode(in, presenceMapReader, context, value))
+            message.putDecimal(index, value.value, value.exponent);
+        else
+            message.putAbsent(index);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        PrimitiveValue value = context.getScratchValue();
+        if (decode(in, presenceMapReader, context, value))
+            handler.onDecimal(index, value.value, value.exponent);
+    }
+
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        decode(in, presenceMapReader, context, context.getScratchValue());
+    }
+
+    /**
+     * The mantissa is only present when the exponent is.
+     * 
+     * @return false if the field is null
+     */
+    private boolean decode(InputStream in, BitVectorReader presenceMapReader, Context context, PrimitiveValue value) {
+        if (!exponent.decode(in, presenceMapReader, context, value))
+            return false;
+        int decodedExponent = (int) value.value;
+        if (!mantissa.decode(in, presenceMapReader, context, value))
+            return false;
+        value.exponent = decodedExponent;
+        return true;
+    }
+}
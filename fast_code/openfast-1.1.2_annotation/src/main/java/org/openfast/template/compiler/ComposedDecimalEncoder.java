@@ -0,0 +1,76 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.FieldValue;
+import org.openfast.template.ComposedScalar;
+import org.openfast.template.Scalar;
+import org.openfast.template.type.DecimalConverter;
+import org.openfast.template.type.Type;
+
+/**
+ * A decimal made of an exponent and a mantissa field.  As with {@link org.openfast.template.ComposedScalar}, only the
+ * exponent is encoded when the decimal is null.
+ */
+final class ComposedDecimalEncoder extends FieldEncoder {
+    private final IntegerEncoder exponent;
+    private final IntegerEncoder mantissa;
+
+    ComposedDecimalEncoder(IntegerEncoder exponent, IntegerEncoder mantissa) {
+        this.exponent = exponent;
+        this.mantissa = mantissa;
+    }
+
+    static boolean accepts(ComposedScalar field) {
+        Scalar[] fields = field.getFields();
+        return field.getType() == Type.DECIMAL && fields.length == 2 && field.getValueConverter() instanceof DecimalConverter
+                && IntegerEncoder.accepts(fields[0]) && IntegerEncoder.accepts(fields[1]);
+    }
+
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        if (value == null) {
+            exponent.encode(0, true, buffer, presenceMapBuilder, context);
+            return;
+        }
+        DecimalValue decimal = (DecimalValue) value;
+        exponent.encode(decimal.exponent, false, buffer, presenceMapBuilder, context);
+        mantissa.encode(decimal.mantissa, false, buffer, presenceMapBuilder, context);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        switch (message.kinds[index]) {
+        case FlyweightMessage.DECIMAL:
+            exponent.encode(message.ints[index], false, buffer, presenceMapBuilder, context);
+            mantissa.encode(message.longs[index], false, buffer, presenceMapBuilder, context);
+            return;
+        case FlyweightMessage.ABSENT:
+            exponent.encode(0, true, buffer, presenceMapBuilder, context);
+            return;
+        default:
+            encode(message.getValue(index, null), buffer, presenceMapBuilder, context);
+        }
+    }
+}
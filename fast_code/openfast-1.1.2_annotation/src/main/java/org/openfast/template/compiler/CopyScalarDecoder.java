@@ -0,0 +1,60 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.Global;
+import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
+import org.openfast.template.Scalar;
+
+/**
+ * A copy field takes the previous value when absent, or its initial value if the previous value is undefined.
+ */
+final class CopyScalarDecoder extends ScalarDecoder {
+    private final ScalarValue initialValue;
+    private final boolean hasInitialValue;
+
+    CopyScalarDecoder(Scalar scalar, int entry) {
+        super(scalar, entry);
+        this.hasInitialValue = !scalar.getDefaultValue().isUndefined() || scalar.isOptional();
+        this.initialValue = scalar.getDefaultValue().isUndefined() ? null : scalar.getDefaultValue();
+    }
+
+    protected ScalarValue decodeValue(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        ScalarValue previousValue = lookup(context);
+        ScalarValue value;
+        if (isPresent(presenceMapReader)) {
+            value = typeCodec.decode(in);
+        } else if (previousValue == ScalarValue.UNDEFINED) {
+            if (!hasInitialValue)
+                Global.handleError(FastConstants.D5_NO_DEFAULT_VALUE, "No default value for " + scalar);
+            value = initialValue;
+        } else {
+            value = previousValue;
+        }
+        store(context, value);
+        return value;
+    }
+}
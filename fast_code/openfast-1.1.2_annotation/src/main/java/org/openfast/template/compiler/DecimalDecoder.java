@@ -0,0 +1,135 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.FieldValue;
+import org.openfast.ScalarValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastException;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.PrimitiveValue;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Decodes a single field decimal with no operator, copy, default or delta into a flyweight without creating values.  As
+ * with {@link IntegerDecoder}, a previous value that is not an assigned decimal is handled by the value based node.
+ */
+final class DecimalDecoder extends FieldDecoder {
+    private final ScalarDecoder fallback;
+    private final Scalar scalar;
+    private final TypeCodec typeCodec;
+    private final boolean usesPresenceMapBit;
+    private final boolean isCopy;
+    private final boolean isDelta;
+    private final boolean usesPriorValue;
+    private final boolean storesValue;
+    private final DecimalValue initialValue;
+    private final int entry;
+
+    DecimalDecoder(ScalarDecoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.typeCodec = fallback.typeCodec;
+        this.usesPresenceMapBit = fallback.usesPresenceMapBit;
+        this.entry = fallback.entry;
+        this.isCopy = scalar.getOperator() == Operator.COPY;
+        this.isDelta = scalar.getOperator() == Operator.DELTA;
+        this.usesPriorValue = isCopy || isDelta;
+        this.storesValue = scalar.getOperator() != Operator.NONE;
+        this.initialValue = scalar.getDefaultValue().isUndefined() ? null : (DecimalValue) scalar.getDefaultValue();
+    }
+
+    static boolean accepts(Scalar scalar) {
+        Operator operator = scalar.getOperator();
+        TypeCodec codec = scalar.getTypeCodec();
+        return scalar.getType() == Type.DECIMAL
+                && (operator == Operator.NONE || operator == Operator.COPY || operator == Operator.DEFAULT || operator == Operator.DELTA)
+                && (codec == TypeCodec.SF_SCALED_NUMBER || codec == TypeCodec.NULLABLE_SF_SCALED_NUMBER);
+    }
+
+    FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        return fallback.decode(in, presenceMapReader, context);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        if (usesPriorValue && !context.hasDecimal(context.slotOf(entry))) {
+            message.putScalar(index, (ScalarValue) fallback.decode(in, presenceMapReader, context));
+            return;
+        }
+        PrimitiveValue value = message.primitive;
+        if (decode(in, presenceMapReader, context, value))
+            message.putDecimal(index, value.value, value.exponent);
+        else
+            message.putAbsent(index);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        if (usesPriorValue && !context.hasDecimal(context.slotOf(entry))) {
+            MessageEvents.emit(handler, index, Type.DECIMAL, (ScalarValue) fallback.decode(in, presenceMapReader, context));
+            return;
+        }
+        PrimitiveValue value = context.getScratchValue();
+        if (decode(in, presenceMapReader, context, value))
+            handler.onDecimal(index, value.value, value.exponent);
+    }
+
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        if (usesPriorValue && !context.hasDecimal(context.slotOf(entry)))
+            fallback.decode(in, presenceMapReader, context);
+        else
+            decode(in, presenceMapReader, context, context.getScratchValue());
+    }
+
+    /**
+     * @return false if the field is null
+     */
+    private boolean decode(InputStream in, BitVectorReader presenceMapReader, Context context, PrimitiveValue value) {
+        try {
+            if (!usesPresenceMapBit || presenceMapReader.read()) {
+                if (!typeCodec.decodeDecimal(in, value)) {
+                    if (isCopy)
+                        context.store(context.slotOf(entry), (ScalarValue) null);
+                    return false;
+                }
+                if (isDelta)
+                    value.set(context.lookupMantissa(context.slotOf(entry)) + value.value, context.lookupExponent(context.slotOf(entry)) + value.exponent);
+            } else if (isCopy) {
+                value.set(context.lookupMantissa(context.slotOf(entry)), context.lookupExponent(context.slotOf(entry)));
+            } else if (initialValue == null) {
+                return false;
+            } else {
+                value.set(initialValue.mantissa, initialValue.exponent);
+            }
+            if (storesValue)
+                context.store(context.slotOf(entry), value.value, value.exponent);
+            return true;
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + scalar, e.getCode(), e);
+        }
+    }
+}
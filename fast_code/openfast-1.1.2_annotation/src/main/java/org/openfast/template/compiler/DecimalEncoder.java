@@ -0,0 +1,194 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Encodes a single field decimal with no operator, constant, default, copy or delta without creating values, keeping
+ * the previous value in the decimal lane of the dictionary.  As with {@link IntegerEncoder}, a previous value that is
+ * not an assigned decimal, undefined or empty is handled by the value based node.
+ */
+final class DecimalEncoder extends FieldEncoder {
+    private final ScalarEncoder fallback;
+    private final Scalar scalar;
+    private final TypeCodec typeCodec;
+    private final Operator operator;
+    private final boolean optional;
+    private final boolean usesPriorValue;
+    private final boolean hasDefaultValue;
+    private final long defaultMantissa;
+    private final int defaultExponent;
+    private final int entry;
+
+    DecimalEncoder(ScalarEncoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.typeCodec = fallback.typeCodec;
+        this.entry = fallback.entry;
+        this.operator = scalar.getOperator();
+        this.optional = scalar.isOptional();
+        this.usesPriorValue = operator == Operator.COPY || operator == Operator.DELTA;
+        this.hasDefaultValue = !scalar.getDefaultValue().isUndefined();
+        DecimalValue defaultValue = hasDefaultValue ? (DecimalValue) scalar.getDefaultValue() : null;
+        this.defaultMantissa = hasDefaultValue ? defaultValue.mantissa : 0;
+        this.defaultExponent = hasDefaultValue ? defaultValue.exponent : 0;
+    }
+
+    static boolean accepts(Scalar scalar) {
+        Operator operator = scalar.getOperator();
+        TypeCodec codec = scalar.getTypeCodec();
+        return scalar.getType() == Type.DECIMAL
+                && (operator == Operator.NONE || operator == Operator.CONSTANT || operator == Operator.COPY
+                        || operator == Operator.DEFAULT || operator == Operator.DELTA)
+                && (codec == TypeCodec.SF_SCALED_NUMBER || codec == TypeCodec.NULLABLE_SF_SCALED_NUMBER);
+    }
+
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        if ((value != null && !(value instanceof DecimalValue)) || (usesPriorValue && !hasPrimitivePrior(context))) {
+            fallback.encode(value, buffer, presenceMapBuilder, context);
+            return;
+        }
+        if (value == null)
+            encode(0, 0, true, buffer, presenceMapBuilder, context);
+        else
+            encode(((DecimalValue) value).mantissa, ((DecimalValue) value).exponent, false, buffer, presenceMapBuilder, context);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        byte kind = message.kinds[index];
+        if ((kind != FlyweightMessage.DECIMAL && kind != FlyweightMessage.ABSENT) || (usesPriorValue && !hasPrimitivePrior(context)))
+            fallback.encode(message.getValue(index, scalar), buffer, presenceMapBuilder, context);
+        else if (kind == FlyweightMessage.ABSENT)
+            encode(0, 0, true, buffer, presenceMapBuilder, context);
+        else
+            encode(message.longs[index], message.ints[index], false, buffer, presenceMapBuilder, context);
+    }
+
+    private void encode(long mantissa, int exponent, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder,
+            Context context) {
+        if (operator == Operator.NONE) {
+            write(mantissa, exponent, isNull, buffer);
+        } else if (operator == Operator.CONSTANT) {
+            if (isNull ? !optional : !isDefault(mantissa, exponent))
+                Global.handleError(FastConstants.D3_CANT_ENCODE_VALUE, "The scalar " + scalar + " cannot encode the value "
+                        + (isNull ? null : new DecimalValue(mantissa, exponent)));
+            if (optional) {
+                if (isNull)
+                    presenceMapBuilder.skip();
+                else
+                    presenceMapBuilder.set();
+            }
+        } else if (operator == Operator.DEFAULT) {
+            if (isNull ? !hasDefaultValue : isDefault(mantissa, exponent)) {
+                presenceMapBuilder.skip();
+            } else {
+                presenceMapBuilder.set();
+                write(mantissa, exponent, isNull, buffer);
+            }
+            if (!isNull)
+                context.store(context.slotOf(entry), mantissa, exponent);
+        } else if (operator == Operator.COPY) {
+            encodeCopy(mantissa, exponent, isNull, buffer, presenceMapBuilder, context);
+        } else {
+            encodeDelta(mantissa, exponent, isNull, buffer, context);
+        }
+    }
+
+    private void encodeCopy(long mantissa, int exponent, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder,
+            Context context) {
+        boolean assigned = context.hasDecimal(context.slotOf(entry));
+        boolean undefined = !assigned && context.lookup(context.slotOf(entry)) == ScalarValue.UNDEFINED;
+        if (isNull) {
+            if (!optional)
+                Global.handleError(FastConstants.D6_MNDTRY_FIELD_NOT_PRESENT, "The field \"" + scalar + " is not present.");
+            if (optional && (undefined ? hasDefaultValue : assigned)) {
+                presenceMapBuilder.set();
+                typeCodec.encodeNull(buffer);
+            } else {
+                presenceMapBuilder.skip();
+            }
+            context.store(context.slotOf(entry), (ScalarValue) null);
+            return;
+        }
+        if ((undefined && isDefault(mantissa, exponent))
+                || (assigned && mantissa == context.lookupMantissa(context.slotOf(entry)) && exponent == context.lookupExponent(context.slotOf(entry)))) {
+            presenceMapBuilder.skip();
+        } else {
+            presenceMapBuilder.set();
+            typeCodec.encodeDecimal(mantissa, exponent, buffer);
+        }
+        context.store(context.slotOf(entry), mantissa, exponent);
+    }
+
+    private void encodeDelta(long mantissa, int exponent, boolean isNull, ByteBuffer buffer, Context context) {
+        boolean assigned = context.hasDecimal(context.slotOf(entry));
+        if (!assigned && context.lookup(context.slotOf(entry)) == null) {
+            Global.handleError(FastConstants.D6_MNDTRY_FIELD_NOT_PRESENT, "The field " + scalar + " must have a priorValue defined.");
+        } else if (isNull) {
+            if (optional)
+                typeCodec.encodeNull(buffer);
+            else
+                Global.handleError(FastConstants.D6_MNDTRY_FIELD_NOT_PRESENT, "");
+        } else if (assigned) {
+            typeCodec.encodeDecimal(mantissa - context.lookupMantissa(context.slotOf(entry)), exponent - context.lookupExponent(context.slotOf(entry)), buffer);
+        } else if (hasDefaultValue) {
+            typeCodec.encodeDecimal(mantissa - defaultMantissa, exponent - defaultExponent, buffer);
+        } else {
+            typeCodec.encodeDecimal(mantissa, exponent, buffer);
+        }
+        if (!isNull)
+            context.store(context.slotOf(entry), mantissa, exponent);
+    }
+
+    private boolean isDefault(long mantissa, int exponent) {
+        return hasDefaultValue && mantissa == defaultMantissa && exponent == defaultExponent;
+    }
+
+    private void write(long mantissa, int exponent, boolean isNull, ByteBuffer buffer) {
+        if (isNull)
+            typeCodec.encodeNull(buffer);
+        else
+            typeCodec.encodeDecimal(mantissa, exponent, buffer);
+    }
+
+    /**
+     * @return true unless the previous value is something other than a decimal, undefined or empty
+     */
+    private boolean hasPrimitivePrior(Context context) {
+        if (context.hasDecimal(context.slotOf(entry)))
+            return true;
+        ScalarValue priorValue = context.lookup(context.slotOf(entry));
+        return priorValue == null || priorValue == ScalarValue.UNDEFINED;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.ScalarValue;
+import org.openfast.template.Scalar;
+
+/**
+ * A default field takes its initial value when absent from the stream.  The previous value is never consulted, so
+ * nothing is looked up.
+ */
+final class DefaultScalarDecoder extends ScalarDecoder {
+    private final ScalarValue emptyValue;
+
+    DefaultScalarDecoder(Scalar scalar, int entry) {
+        super(scalar, entry);
+        this.emptyValue = scalar.getDefaultValue().isUndefined() ? null : scalar.getDefaultValue();
+    }
+
+    protected ScalarValue decodeValue(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        ScalarValue value = isPresent(presenceMapReader) ? typeCodec.decode(in) : emptyValue;
+        if (value != null)
+            store(context, value);
+        return value;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.codec.MessageEventHandler;
+
+/**
+ * A field of a compiled template.  Everything that can be known from the template alone - operator, type codec,
+ * nullability, presence map usage and dictionary scope - is resolved when the node is built, so decoding only touches
+ * the stream, the presence map and the dictionaries.
+ */
+abstract class FieldDecoder {
+    abstract FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context);
+
+    /**
+     * Decodes the field into the field value of the flyweight at the given index.
+     */
+    abstract void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index);
+
+    /**
+     * Decodes the field and reports it to the handler as the field with the given index.
+     */
+    abstract void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index);
+
+    /**
+     * Reads past the field, keeping the dictionary up to date, for a field that nobody is going to read.  Nodes that
+     * can do so without creating values override this; the default decodes the value and drops it.
+     */
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        decode(in, presenceMapReader, context);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+
+/**
+ * A field of a compiled template encoder, the encoding counterpart of {@link FieldDecoder}.  Each node writes its field
+ * straight into the buffer and sets or skips its bits in the presence map of the enclosing group, keeping the
+ * dictionaries in step with the interpreted encoder.
+ */
+abstract class FieldEncoder {
+    /**
+     * @param value
+     *            the value of the field, or null if it is absent
+     */
+    abstract void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context);
+
+    /**
+     * Encodes the field from a flyweight that has been filled in for encoding, reading primitives where the node can.
+     * 
+     * @param index
+     *            the index of the field value in the flyweight
+     */
+    abstract void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder,
+            Context context);
+}
@@ -0,0 +1,359 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import org.openfast.DecimalValue;
+import org.openfast.FieldValue;
+import org.openfast.GroupValue;
+import org.openfast.ScalarValue;
+import org.openfast.template.Group;
+import org.openfast.template.Sequence;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.util.FixedPoint;
+
+/**
+ * A view of one group - the message itself, a nested group or a sequence entry - within a {@link FlyweightMessage}.
+ * Field indexes are the same as those of the corresponding {@link GroupValue}.  A view is only valid until the message
+ * it belongs to is decoded into again; use {@link #toGroupValue()} to keep a copy.
+ * <p>
+ * The setters fill in a message that has been {@link FlyweightMessage#reset(org.openfast.template.MessageTemplate) reset}
+ * for encoding.  Nested groups and sequence entries are made present with {@link #addGroup(int, FlyweightGroup)} and
+ * {@link #addSequence(int, int)} before their fields are set.
+ * </p>
+ */
+public class FlyweightGroup {
+    FlyweightMessage message;
+    Group group;
+    int base;
+
+    FlyweightGroup(FlyweightMessage message) {
+        this.message = message;
+    }
+
+    /**
+     * Creates an unpositioned view to be passed to {@link #group(int, FlyweightGroup)} or
+     * {@link #entry(int, int, FlyweightGroup)}.
+     */
+    public FlyweightGroup() {
+    }
+
+    public Group getGroup() {
+        return group;
+    }
+
+    public int getFieldCount() {
+        return group.getFieldCount();
+    }
+
+    public boolean isPresent(int fieldIndex) {
+        return message.kinds[base + fieldIndex] != FlyweightMessage.ABSENT;
+    }
+
+    public long getLong(int fieldIndex) {
+        int index = base + fieldIndex;
+        if (message.kinds[index] == FlyweightMessage.LONG)
+            return message.longs[index];
+        return getScalar(fieldIndex).toLong();
+    }
+
+    public int getInt(int fieldIndex) {
+        int index = base + fieldIndex;
+        if (message.kinds[index] == FlyweightMessage.LONG)
+            return (int) message.longs[index];
+        return getScalar(fieldIndex).toInt();
+    }
+
+    public double getDouble(int fieldIndex) {
+        int index = base + fieldIndex;
+        switch (message.kinds[index]) {
+        case FlyweightMessage.LONG:
+            return message.longs[index];
+        case FlyweightMessage.DECIMAL:
+            return message.longs[index] * Math.pow(10.0, message.ints[index]);
+        default:
+            return getScalar(fieldIndex).toDouble();
+        }
+    }
+
+    /**
+     * @return the mantissa of a decimal field
+     */
+    public long getMantissa(int fieldIndex) {
+        int index = base + fieldIndex;
+        if (message.kinds[index] == FlyweightMessage.DECIMAL)
+            return message.longs[index];
+        return ((DecimalValue) getScalar(fieldIndex)).mantissa;
+    }
+
+    /**
+     * @return the exponent of a decimal field
+     */
+    public int getExponent(int fieldIndex) {
+        int index = base + fieldIndex;
+        if (message.kinds[index] == FlyweightMessage.DECIMAL)
+            return message.ints[index];
+        return ((DecimalValue) getScalar(fieldIndex)).exponent;
+    }
+
+    /**
+     * Gets a decimal field, or an integer field with a precision, as a mantissa with the given exponent.
+     * 
+     * @see GroupValue#getScaledLong(int, int)
+     */
+    public long getScaledLong(int fieldIndex, int exponent) {
+        int index = base + fieldIndex;
+        switch (message.kinds[index]) {
+        case FlyweightMessage.DECIMAL:
+            return FixedPoint.rescale(message.longs[index], message.ints[index], exponent);
+        case FlyweightMessage.LONG:
+            return FixedPoint.rescale(message.longs[index], GroupValue.getIntegerExponent(group.getField(fieldIndex)), exponent);
+        default:
+            ScalarValue value = getScalar(fieldIndex);
+            if (value instanceof DecimalValue)
+                return FixedPoint.rescale(((DecimalValue) value).mantissa, ((DecimalValue) value).exponent, exponent);
+            return FixedPoint.rescale(value.toLong(), GroupValue.getIntegerExponent(group.getField(fieldIndex)), exponent);
+        }
+    }
+
+    public String getString(int fieldIndex) {
+        int index = base + fieldIndex;
+        if (message.kinds[index] == FlyweightMessage.ASCII)
+            return new String(message.slab, message.ints[index], (int) message.longs[index]);
+        return getValue(fieldIndex).toString();
+    }
+
+    /**
+     * Copies the bytes of a string or byte vector field into the destination array.
+     * 
+     * @return the number of bytes copied, or -1 if the field is absent
+     */
+    public int getAsciiBytes(int fieldIndex, byte[] destination, int offset) {
+        int index = base + fieldIndex;
+        if (message.kinds[index] == FlyweightMessage.ABSENT)
+            return -1;
+        if (isBytes(index)) {
+            int length = (int) message.longs[index];
+            System.arraycopy(message.slab, message.ints[index], destination, offset, length);
+            return length;
+        }
+        byte[] bytes = getScalar(fieldIndex).getBytes();
+        System.arraycopy(bytes, 0, destination, offset, bytes.length);
+        return bytes.length;
+    }
+
+    /**
+     * Points the range at the bytes of a string or byte vector field without copying them.  The range is only valid
+     * until the message is decoded into again.
+     * 
+     * @return the range, or null if the field is absent
+     */
+    public ByteRange getBytes(int fieldIndex, ByteRange target) {
+        int index = base + fieldIndex;
+        if (message.kinds[index] == FlyweightMessage.ABSENT)
+            return null;
+        if (isBytes(index)) {
+            target.wrap(message.slab, message.ints[index], (int) message.longs[index]);
+        } else {
+            byte[] bytes = getScalar(fieldIndex).getBytes();
+            target.copy(bytes, 0, bytes.length);
+        }
+        return target;
+    }
+
+    public int sequenceLength(int fieldIndex) {
+        int index = base + fieldIndex;
+        checkKind(index, FlyweightMessage.SEQUENCE);
+        return (int) message.longs[index];
+    }
+
+    /**
+     * Positions the view on an entry of a sequence field.
+     * 
+     * @param fieldIndex
+     *            the index of the sequence field
+     * @param entryIndex
+     *            the index of the entry, less than {@link #sequenceLength(int)}
+     * @param target
+     *            the view to position, which is returned
+     */
+    public FlyweightGroup entry(int fieldIndex, int entryIndex, FlyweightGroup target) {
+        int index = base + fieldIndex;
+        checkKind(index, FlyweightMessage.SEQUENCE);
+        if (entryIndex < 0 || entryIndex >= message.longs[index])
+            throw new IndexOutOfBoundsException("Entry " + entryIndex + " of a sequence of length " + message.longs[index]);
+        target.message = message;
+        target.group = ((Sequence) group.getField(fieldIndex)).getGroup();
+        target.base = message.entries[message.ints[index] + entryIndex];
+        return target;
+    }
+
+    public FlyweightGroup entry(int fieldIndex, int entryIndex) {
+        return entry(fieldIndex, entryIndex, new FlyweightGroup());
+    }
+
+    /**
+     * Positions the view on a nested group field, which must be present.
+     * 
+     * @param fieldIndex
+     *            the index of the group field
+     * @param target
+     *            the view to position, which is returned
+     */
+    public FlyweightGroup group(int fieldIndex, FlyweightGroup target) {
+        int index = base + fieldIndex;
+        checkKind(index, FlyweightMessage.GROUP);
+        target.message = message;
+        target.group = (Group) group.getField(fieldIndex);
+        target.base = message.ints[index];
+        return target;
+    }
+
+    public FlyweightGroup group(int fieldIndex) {
+        return group(fieldIndex, new FlyweightGroup());
+    }
+
+    public ScalarValue getScalar(int fieldIndex) {
+        return (ScalarValue) getValue(fieldIndex);
+    }
+
+    /**
+     * Materializes the value of a field.
+     * 
+     * @return the value of the field, or null if the field is absent
+     */
+    public FieldValue getValue(int fieldIndex) {
+        return message.getValue(base + fieldIndex, group.getField(fieldIndex));
+    }
+
+    public void setLong(int fieldIndex, long value) {
+        message.putLong(base + fieldIndex, value);
+    }
+
+    public void setInteger(int fieldIndex, int value) {
+        message.putLong(base + fieldIndex, value);
+    }
+
+    public void setBool(int fieldIndex, boolean value) {
+        message.putLong(base + fieldIndex, value ? 1 : 0);
+    }
+
+    /**
+     * Sets a decimal field to mantissa * 10 ^ exponent.
+     */
+    public void setDecimal(int fieldIndex, long mantissa, int exponent) {
+        message.putDecimal(base + fieldIndex, mantissa, exponent);
+    }
+
+    /**
+     * Copies the characters of a string field into the message.  Strings with characters outside of ASCII are kept as
+     * a value.
+     */
+    public void setString(int fieldIndex, CharSequence value) {
+        message.putString(base + fieldIndex, value);
+    }
+
+    /**
+     * Copies the bytes of an ASCII string field into the message.
+     */
+    public void setAscii(int fieldIndex, byte[] value, int offset, int length) {
+        message.putBytes(base + fieldIndex, value, offset, length, true);
+    }
+
+    /**
+     * Copies the bytes of a byte vector field into the message.
+     */
+    public void setByteVector(int fieldIndex, byte[] value, int offset, int length) {
+        message.putBytes(base + fieldIndex, value, offset, length, false);
+    }
+
+    /**
+     * Sets a field to a value, which is copied into the message's arrays when it is an integer or decimal.
+     */
+    public void setFieldValue(int fieldIndex, FieldValue value) {
+        message.load(base + fieldIndex, group.getField(fieldIndex), value);
+    }
+
+    /**
+     * Makes a field absent.
+     */
+    public void clear(int fieldIndex) {
+        message.putAbsent(base + fieldIndex);
+    }
+
+    /**
+     * Makes a nested group field present and positions the view on its fields, which are all absent except mandatory
+     * constants.
+     * 
+     * @param fieldIndex
+     *            the index of the group field
+     * @param target
+     *            the view to position, which is returned
+     */
+    public FlyweightGroup addGroup(int fieldIndex, FlyweightGroup target) {
+        Group nested = (Group) group.getField(fieldIndex);
+        int groupBase = message.allocate(nested.getFieldCount());
+        message.putGroup(base + fieldIndex, groupBase);
+        message.clear(groupBase, nested, 0);
+        target.message = message;
+        target.group = nested;
+        target.base = groupBase;
+        return target;
+    }
+
+    /**
+     * Makes a sequence field present with the given number of entries, whose fields are all absent except mandatory
+     * constants.  The entries are filled in through views positioned with {@link #entry(int, int, FlyweightGroup)}.
+     */
+    public void addSequence(int fieldIndex, int length) {
+        Group entryGroup = ((Sequence) group.getField(fieldIndex)).getGroup();
+        int firstEntry = message.allocateEntries(length);
+        message.putSequence(base + fieldIndex, firstEntry, length);
+        for (int i = 0; i < length; i++) {
+            int entryBase = message.allocate(entryGroup.getFieldCount());
+            message.putEntry(firstEntry + i, entryBase);
+            message.clear(entryBase, entryGroup, 0);
+        }
+    }
+
+    /**
+     * Materializes this group and everything nested in it.
+     */
+    public GroupValue toGroupValue() {
+        return new GroupValue(group, getValues());
+    }
+
+    FieldValue[] getValues() {
+        FieldValue[] values = new FieldValue[group.getFieldCount()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = getValue(i);
+        return values;
+    }
+
+    private boolean isBytes(int index) {
+        return message.kinds[index] == FlyweightMessage.ASCII || message.kinds[index] == FlyweightMessage.BYTES;
+    }
+
+    private void checkKind(int index, byte kind) {
+        if (message.kinds[index] != kind)
+            throw new IllegalStateException("The field " + group.getField(index - base).getName() + " of " + group.getName()
+                    + " is not a present " + (kind == FlyweightMessage.GROUP ? "group" : "sequence") + ".");
+    }
+}
@@ -0,0 +1,430 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.openfast.BitVectorReader;
+import org.openfast.ByteVectorValue;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.FieldValue;
+import org.openfast.GroupValue;
+import org.openfast.IntegerValue;
+import org.openfast.Message;
+import org.openfast.ScalarValue;
+import org.openfast.SequenceValue;
+import org.openfast.StringValue;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+import org.openfast.template.LongValue;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Scalar;
+import org.openfast.template.Sequence;
+import org.openfast.template.TemplateDecoder;
+import org.openfast.template.TemplateEncoder;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.template.type.codec.PrimitiveValue;
+import org.openfast.util.Util;
+
+/**
+ * A reusable message that compiled templates decode into without creating a {@link Message}.  Integers and decimals
+ * are kept in primitive arrays, strings and byte vectors are copied into one reusable byte array, and nested groups and sequence entries are laid out one after the other in the same
+ * arrays, so decoding into a flyweight that has grown to the size of the largest message allocates no value objects for
+ * them.  The field values are read through the typed accessors of {@link FlyweightGroup}; {@link #toMessage()} builds
+ * the equivalent {@link Message} when one is needed.
+ * <p>
+ * Use {@link org.openfast.codec.FastDecoder#readMessage(FlyweightMessage)} to decode into a flyweight.  Templates that
+ * have no compiled decoder are decoded by the template and copied in.
+ * </p>
+ * <p>
+ * A flyweight can also be reused for outbound messages: {@link #reset(MessageTemplate)} it, fill it in with the
+ * setters of {@link FlyweightGroup} and pass it to {@link org.openfast.codec.FastEncoder#encode(FlyweightMessage,
+ * ByteBuffer)}, which reads the integers, decimals and bytes straight out of the arrays.
+ * </p>
+ */
+public final class FlyweightMessage extends FlyweightGroup {
+    static final byte ABSENT = 0;
+    static final byte LONG = 1;
+    static final byte DECIMAL = 2;
+    static final byte OBJECT = 3;
+    static final byte GROUP = 4;
+    static final byte SEQUENCE = 5;
+    static final byte ASCII = 6;
+    static final byte BYTES = 7;
+
+    byte[] kinds;
+    long[] longs;
+    int[] ints;
+    Object[] objects;
+    int[] entries;
+    byte[] slab;
+    final PrimitiveValue primitive = new PrimitiveValue();
+    final ByteRange range = new ByteRange();
+    private int slabSize;
+    private int size;
+    private int objectLimit;
+    private int entryCount;
+    private int templateId;
+
+    public FlyweightMessage() {
+        this(64);
+    }
+
+    /**
+     * @param capacity
+     *            the number of field values, counting those of every group and sequence entry, to allocate room for
+     */
+    public FlyweightMessage(int capacity) {
+        this.message = this;
+        this.kinds = new byte[capacity];
+        this.longs = new long[capacity];
+        this.ints = new int[capacity];
+        this.objects = new Object[capacity];
+        this.entries = new int[16];
+        this.slab = new byte[capacity * 8];
+    }
+
+    public MessageTemplate getTemplate() {
+        return (MessageTemplate) group;
+    }
+
+    public int getTemplateId() {
+        return templateId;
+    }
+
+    /**
+     * Decodes the fields of a message whose presence map and template id have already been read.  This is called by
+     * {@link org.openfast.codec.FastDecoder#readMessage(FlyweightMessage)}.
+     */
+    public void decode(InputStream in, int templateId, MessageTemplate template, BitVectorReader presenceMapReader,
+            Context context) {
+        TemplateDecoder decoder = template.getCompiledDecoder();
+        if (decoder instanceof CompiledTemplate && !context.isTraceEnabled()) {
+            ((CompiledTemplate) decoder).decode(in, templateId, presenceMapReader, context, this);
+        } else {
+            Message decoded = template.decode(in, templateId, presenceMapReader, context);
+            start(template, templateId);
+            for (int i = 1; i < template.getFieldCount(); i++)
+                load(base + i, template.getField(i), decoded.getValue(i));
+        }
+    }
+
+    /**
+     * Decodes only the subscribed fields of a message; the others are skipped and read as absent.
+     * 
+     * @param subscribedFields whether each field of the template, by field index, is to be decoded
+     */
+    public void decode(InputStream in, int templateId, MessageTemplate template, BitVectorReader presenceMapReader,
+            Context context, boolean[] subscribedFields) {
+        TemplateDecoder decoder = template.getCompiledDecoder();
+        if (decoder instanceof CompiledTemplate && !context.isTraceEnabled()) {
+            ((CompiledTemplate) decoder).decode(in, templateId, presenceMapReader, context, this, subscribedFields);
+        } else {
+            Message decoded = template.decode(in, templateId, presenceMapReader, context);
+            start(template, templateId);
+            for (int i = 1; i < template.getFieldCount(); i++)
+                load(base + i, template.getField(i), subscribedFields[i] ? decoded.getValue(i) : null);
+        }
+    }
+
+    /**
+     * Empties the flyweight so that an outbound message of the given template can be filled in through the setters of
+     * {@link FlyweightGroup} and encoded with {@link org.openfast.codec.FastEncoder#encode(FlyweightMessage, ByteBuffer)}.
+     * Every field is absent afterwards except mandatory constants, which hold their value as in a new {@link Message}.
+     * Nothing is allocated once the flyweight has grown to the size of the largest message.
+     */
+    public void reset(MessageTemplate template) {
+        start(template, -1);
+        putAbsent(base);
+        clear(base, template, 1);
+    }
+
+    /**
+     * Encodes the message for {@link org.openfast.codec.FastEncoder#encode(FlyweightMessage, ByteBuffer)}.  Templates
+     * without a compiled encoder, or encoded while tracing, are materialized with {@link #toMessage()} and encoded by
+     * the template.
+     * 
+     * @return the number of bytes written
+     */
+    public int encode(ByteBuffer buffer, Context context) {
+        MessageTemplate template = getTemplate();
+        TemplateEncoder encoder = template.getCompiledEncoder();
+        if (encoder instanceof CompiledTemplateEncoder && !context.isTraceEnabled())
+            return ((CompiledTemplateEncoder) encoder).encode(this, buffer, context);
+        return template.encode(toMessage(), buffer, context);
+    }
+
+    /**
+     * Materializes the message.
+     */
+    public Message toMessage() {
+        return new Message(getTemplate(), getValues());
+    }
+
+    void start(MessageTemplate template, int templateId) {
+        if (objectLimit > 0) {
+            Arrays.fill(objects, 0, objectLimit, null);
+            objectLimit = 0;
+        }
+        this.group = template;
+        this.templateId = templateId;
+        this.size = 0;
+        this.entryCount = 0;
+        this.slabSize = 0;
+        this.base = allocate(template.getFieldCount());
+        putLong(base, templateId);
+    }
+
+    /**
+     * Reserves consecutive field values for a group.
+     * 
+     * @return the index of the first field value
+     */
+    int allocate(int count) {
+        int start = size;
+        size += count;
+        if (size > kinds.length) {
+            int capacity = Math.max(size, kinds.length * 2);
+            byte[] newKinds = new byte[capacity];
+            long[] newLongs = new long[capacity];
+            int[] newInts = new int[capacity];
+            Object[] newObjects = new Object[capacity];
+            System.arraycopy(kinds, 0, newKinds, 0, start);
+            System.arraycopy(longs, 0, newLongs, 0, start);
+            System.arraycopy(ints, 0, newInts, 0, start);
+            System.arraycopy(objects, 0, newObjects, 0, start);
+            kinds = newKinds;
+            longs = newLongs;
+            ints = newInts;
+            objects = newObjects;
+        }
+        return start;
+    }
+
+    /**
+     * Reserves room for the positions of a sequence's entries.
+     * 
+     * @return the index in {@link #entries} of the first entry
+     */
+    int allocateEntries(int count) {
+        if (count < 0 || count > Integer.MAX_VALUE - entryCount)
+            throw new FastException("Cannot hold " + count + " more sequence entries in a message holding " + entryCount + ".",
+                    FastConstants.D2_INT_OUT_OF_RANGE);
+        int start = entryCount;
+        entryCount += count;
+        if (entryCount > entries.length) {
+            int[] newEntries = new int[Math.max(entryCount, entries.length * 2)];
+            System.arraycopy(entries, 0, newEntries, 0, start);
+            entries = newEntries;
+        }
+        return start;
+    }
+
+    void putAbsent(int index) {
+        kinds[index] = ABSENT;
+    }
+
+    void putLong(int index, long value) {
+        kinds[index] = LONG;
+        longs[index] = value;
+    }
+
+    void putDecimal(int index, long mantissa, int exponent) {
+        kinds[index] = DECIMAL;
+        longs[index] = mantissa;
+        ints[index] = exponent;
+    }
+
+    void putBytes(int index, ByteRange value, boolean ascii) {
+        value.copyTo(reserveBytes(index, value.length(), ascii), ints[index]);
+    }
+
+    void putBytes(int index, byte[] value, int offset, int length, boolean ascii) {
+        System.arraycopy(value, offset, reserveBytes(index, length, ascii), ints[index], length);
+    }
+
+    /**
+     * Stores a string as ASCII bytes, or as a value if it has other characters.
+     */
+    void putString(int index, CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) > 0x7f) {
+                putObject(index, new StringValue(value.toString()));
+                return;
+            }
+        }
+        byte[] bytes = reserveBytes(index, length, true);
+        int offset = ints[index];
+        for (int i = 0; i < length; i++)
+            bytes[offset + i] = (byte) value.charAt(i);
+    }
+
+    /**
+     * Makes room in the slab for the bytes of a field value.
+     * 
+     * @return the slab, into which the caller copies the bytes at the offset held in {@link #ints}
+     */
+    private byte[] reserveBytes(int index, int length, boolean ascii) {
+        if (slabSize + length > slab.length) {
+            byte[] grown = new byte[Math.max(slabSize + length, slab.length * 2)];
+            System.arraycopy(slab, 0, grown, 0, slabSize);
+            slab = grown;
+        }
+        kinds[index] = ascii ? ASCII : BYTES;
+        ints[index] = slabSize;
+        longs[index] = length;
+        slabSize += length;
+        return slab;
+    }
+
+    /**
+     * Empties the field values of a group, starting from the given field, except for mandatory constants.
+     */
+    void clear(int groupBase, Group group, int start) {
+        for (int i = start; i < group.getFieldCount(); i++) {
+            Field field = group.getField(i);
+            if (field instanceof Scalar && ((Scalar) field).getOperator() == Operator.CONSTANT && !field.isOptional())
+                putScalar(groupBase + i, ((Scalar) field).getDefaultValue());
+            else
+                putAbsent(groupBase + i);
+        }
+    }
+
+    /**
+     * Materializes a field value.
+     * 
+     * @param field
+     *            the field the value belongs to, which is needed for groups and sequences
+     * @return the value, or null if the field is absent
+     */
+    FieldValue getValue(int index, Field field) {
+        switch (kinds[index]) {
+        case ABSENT:
+            return null;
+        case LONG:
+            if (Util.isBiggerThanInt(longs[index]))
+                return new LongValue(longs[index]);
+            return new IntegerValue((int) longs[index]);
+        case DECIMAL:
+            return new DecimalValue(longs[index], ints[index]);
+        case ASCII:
+            return new StringValue(new String(slab, ints[index], (int) longs[index]));
+        case BYTES:
+            byte[] bytes = new byte[(int) longs[index]];
+            System.arraycopy(slab, ints[index], bytes, 0, bytes.length);
+            return new ByteVectorValue(bytes);
+        case GROUP:
+            return view((Group) field, ints[index]).toGroupValue();
+        case SEQUENCE:
+            Sequence sequence = (Sequence) field;
+            SequenceValue sequenceValue = new SequenceValue(sequence);
+            for (int i = 0; i < longs[index]; i++)
+                sequenceValue.add(view(sequence.getGroup(), entries[ints[index] + i]).toGroupValue());
+            return sequenceValue;
+        default:
+            return (FieldValue) objects[index];
+        }
+    }
+
+    private FlyweightGroup view(Group group, int groupBase) {
+        FlyweightGroup view = new FlyweightGroup(this);
+        view.group = group;
+        view.base = groupBase;
+        return view;
+    }
+
+    void putObject(int index, Object value) {
+        kinds[index] = OBJECT;
+        objects[index] = value;
+        if (index >= objectLimit)
+            objectLimit = index + 1;
+    }
+
+    void putGroup(int index, int groupBase) {
+        kinds[index] = GROUP;
+        ints[index] = groupBase;
+    }
+
+    void putSequence(int index, int firstEntry, int length) {
+        kinds[index] = SEQUENCE;
+        ints[index] = firstEntry;
+        longs[index] = length;
+    }
+
+    void putEntry(int entry, int entryBase) {
+        entries[entry] = entryBase;
+    }
+
+    void putScalar(int index, ScalarValue value) {
+        if (value == null)
+            kinds[index] = ABSENT;
+        else if (value instanceof IntegerValue)
+            putLong(index, ((IntegerValue) value).value);
+        else if (value instanceof LongValue)
+            putLong(index, ((LongValue) value).value);
+        else if (value instanceof DecimalValue)
+            putDecimal(index, ((DecimalValue) value).mantissa, ((DecimalValue) value).exponent);
+        else
+            putObject(index, value);
+    }
+
+    /**
+     * Copies a value decoded by a field that has no compiled node.
+     */
+    void load(int index, Field field, FieldValue value) {
+        if (value == null) {
+            putAbsent(index);
+        } else if (value instanceof ScalarValue) {
+            putScalar(index, (ScalarValue) value);
+        } else if (field instanceof Group && value instanceof GroupValue) {
+            GroupValue groupValue = (GroupValue) value;
+            Group nested = (Group) field;
+            int groupBase = allocate(nested.getFieldCount());
+            putGroup(index, groupBase);
+            loadFields(groupBase, nested, groupValue);
+        } else if (field instanceof Sequence && value instanceof SequenceValue) {
+            SequenceValue sequenceValue = (SequenceValue) value;
+            Group entryGroup = ((Sequence) field).getGroup();
+            int length = sequenceValue.getLength();
+            int firstEntry = allocateEntries(length);
+            putSequence(index, firstEntry, length);
+            for (int i = 0; i < length; i++) {
+                int entryBase = allocate(entryGroup.getFieldCount());
+                putEntry(firstEntry + i, entryBase);
+                loadFields(entryBase, entryGroup, sequenceValue.get(i));
+            }
+        } else {
+            putObject(index, value);
+        }
+    }
+
+    private void loadFields(int groupBase, Group group, GroupValue value) {
+        for (int i = 0; i < group.getFieldCount(); i++)
+            load(groupBase + i, group.getField(i), value.getValue(i));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.GroupValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.Group;
+import org.openfast.template.type.codec.BitVectorType;
+
+/**
+ * A nested group, or the entry of a sequence.  Whether the group reads its own presence map and whether it occupies a
+ * bit in its parent's presence map are both fixed when the node is built.
+ */
+final class GroupDecoder extends FieldDecoder {
+    private final Group group;
+    private final boolean usesPresenceMapBit;
+    private final boolean usesPresenceMap;
+    private final FieldDecoder[] fields;
+
+    GroupDecoder(Group group, boolean usesPresenceMapBit, FieldDecoder[] fields) {
+        this.group = group;
+        this.usesPresenceMapBit = usesPresenceMapBit;
+        this.usesPresenceMap = group.usesPresenceMap();
+        this.fields = fields;
+    }
+
+    FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        if (usesPresenceMapBit && !presenceMapReader.read())
+            return null;
+        try {
+            return new GroupValue(group, decodeFieldValues(in, context));
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + group, e.getCode(), e);
+        }
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        if (usesPresenceMapBit && !presenceMapReader.read()) {
+            message.putAbsent(index);
+            return;
+        }
+        message.putGroup(index, decodeEntry(in, context, message));
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        if (usesPresenceMapBit && !presenceMapReader.read())
+            return;
+        handler.onGroupStart(index);
+        decodeEntry(in, context, handler);
+        handler.onGroupEnd();
+    }
+
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        if (usesPresenceMapBit && !presenceMapReader.read())
+            return;
+        skipEntry(in, context);
+    }
+
+    /**
+     * Reads past the fields of the group, keeping the dictionary up to date.
+     */
+    void skipEntry(InputStream in, Context context) {
+        try {
+            try {
+                BitVectorReader pmapReader = readPresenceMap(in, context);
+                for (int i = 0; i < fields.length; i++)
+                    fields[i].skip(in, pmapReader, context);
+                checkPresenceMap(pmapReader, context);
+            } finally {
+                releasePresenceMap(context);
+            }
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + group, e.getCode(), e);
+        }
+    }
+
+    /**
+     * Decodes the fields of the group, reporting each to the handler.
+     */
+    void decodeEntry(InputStream in, Context context, MessageEventHandler handler) {
+        try {
+            try {
+                BitVectorReader pmapReader = readPresenceMap(in, context);
+                for (int i = 0; i < fields.length; i++)
+                    fields[i].decode(in, pmapReader, context, handler, i);
+                checkPresenceMap(pmapReader, context);
+            } finally {
+                releasePresenceMap(context);
+            }
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + group, e.getCode(), e);
+        }
+    }
+
+    /**
+     * Decodes the fields of the group into newly reserved field values of the flyweight.
+     * 
+     * @return the index of the first field value
+     */
+    int decodeEntry(InputStream in, Context context, FlyweightMessage message) {
+        int groupBase = message.allocate(fields.length);
+        try {
+            try {
+                BitVectorReader pmapReader = readPresenceMap(in, context);
+                for (int i = 0; i < fields.length; i++)
+                    fields[i].decode(in, pmapReader, context, message, groupBase + i);
+                checkPresenceMap(pmapReader, context);
+            } finally {
+                releasePresenceMap(context);
+            }
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + group, e.getCode(), e);
+        }
+        return groupBase;
+    }
+
+    private FieldValue[] decodeFieldValues(InputStream in, Context context) {
+        try {
+            BitVectorReader pmapReader = readPresenceMap(in, context);
+            FieldValue[] values = new FieldValue[fields.length];
+            for (int i = 0; i < fields.length; i++)
+                values[i] = fields[i].decode(in, pmapReader, context);
+            checkPresenceMap(pmapReader, context);
+            return values;
+        } finally {
+            releasePresenceMap(context);
+        }
+    }
+
+    /**
+     * Acquires a reader for the presence map of the group and reads the map into it.  The reader is acquired before
+     * anything can fail, so it must be called inside the try whose finally calls {@link #releasePresenceMap(Context)}.
+     */
+    private BitVectorReader readPresenceMap(InputStream in, Context context) {
+        if (!usesPresenceMap)
+            return BitVectorReader.NULL;
+        BitVectorReader pmapReader = context.acquirePresenceMapReader();
+        if (!BitVectorType.decodePresenceMap(in, pmapReader)) {
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return BitVectorReader.NULL;
+        }
+        if (pmapReader.isOverlong())
+            Global.handleError(FastConstants.R7_PMAP_OVERLONG, "The presence map " + pmapReader + " for the group " + group
+                    + " is overlong.");
+        return pmapReader;
+    }
+
+    private void releasePresenceMap(Context context) {
+        if (usesPresenceMap)
+            context.releasePresenceMapReader();
+    }
+
+    private void checkPresenceMap(BitVectorReader pmapReader, Context context) {
+        if (group.checksTrailingPresenceBits(context) && pmapReader.hasMoreBitsSet())
+            Global.handleError(FastConstants.R8_PMAP_TOO_MANY_BITS, "The presence map " + pmapReader + " has too many bits for the group " + group);
+    }
+}
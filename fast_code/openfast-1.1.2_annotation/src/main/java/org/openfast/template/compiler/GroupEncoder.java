@@ -0,0 +1,195 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.GroupValue;
+import org.openfast.error.FastConstants;
+import org.openfast.template.Group;
+
+/**
+ * A nested group, the entry of a sequence or the fields of a message.  The presence map precedes the fields but is only
+ * known once they have been encoded, so the encoder reserves the bytes the presence map can take, writes the fields
+ * after them and then moves the fields back over the part of the reservation the truncated presence map does not need.
+ */
+final class GroupEncoder extends FieldEncoder {
+    private static final int MAX_PACKED_BITS = BitVectorReader.MAX_PACKED_BYTES * 7;
+    private final Group group;
+    private final boolean usesPresenceMapBit;
+    private final boolean usesPresenceMap;
+    private final int presenceMapBits;
+    private final int reservedBytes;
+    private final FieldEncoder[] fields;
+    private final boolean[] optional;
+
+    /**
+     * @param presenceMapBits
+     *            the most bits the fields can take in the presence map, which sizes the reservation
+     */
+    GroupEncoder(Group group, boolean usesPresenceMapBit, int presenceMapBits, FieldEncoder[] fields) {
+        this.group = group;
+        this.usesPresenceMapBit = usesPresenceMapBit;
+        this.usesPresenceMap = group.usesPresenceMap();
+        this.presenceMapBits = presenceMapBits;
+        this.reservedBytes = usesPresenceMap ? Math.max(1, (presenceMapBits + 6) / 7) : 0;
+        this.fields = fields;
+        this.optional = new boolean[fields.length];
+        for (int i = 0; i < fields.length; i++)
+            optional[i] = group.getField(i).isOptional();
+    }
+
+    /**
+     * An optional group takes a bit in its parent's presence map, set only if the group's encoding is not empty.
+     */
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        if (value == null) {
+            if (usesPresenceMapBit)
+                presenceMapBuilder.skip();
+            return;
+        }
+        int start = buffer.position();
+        encodeEntry((GroupValue) value, -1, buffer, context);
+        if (usesPresenceMapBit) {
+            if (buffer.position() != start)
+                presenceMapBuilder.set();
+            else
+                presenceMapBuilder.skip();
+        }
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        switch (message.kinds[index]) {
+        case FlyweightMessage.GROUP:
+            int start = buffer.position();
+            encodeEntry(message, message.ints[index], -1, buffer, context);
+            if (usesPresenceMapBit) {
+                if (buffer.position() != start)
+                    presenceMapBuilder.set();
+                else
+                    presenceMapBuilder.skip();
+            }
+            return;
+        case FlyweightMessage.ABSENT:
+            encode((FieldValue) null, buffer, presenceMapBuilder, context);
+            return;
+        default:
+            encode((FieldValue) message.objects[index], buffer, presenceMapBuilder, context);
+        }
+    }
+
+    void encodeEntry(GroupValue value, ByteBuffer buffer, Context context) {
+        encodeEntry(value, -1, buffer, context);
+    }
+
+    void encodeEntry(GroupValue value, int templateId, ByteBuffer buffer, Context context) {
+        encodeEntry(value, null, 0, templateId, buffer, context);
+    }
+
+    /**
+     * Encodes the fields of a group held in a flyweight.
+     * 
+     * @param groupBase
+     *            the index of the group's first field value in the flyweight
+     */
+    void encodeEntry(FlyweightMessage message, int groupBase, int templateId, ByteBuffer buffer, Context context) {
+        encodeEntry(null, message, groupBase, templateId, buffer, context);
+    }
+
+    /**
+     * Encodes the presence map and the fields of the group, taken from the value or, if it is null, from the flyweight.
+     * 
+     * @param templateId
+     *            the id to encode as the first field, the template id of a message, or -1 to take every field from the
+     *            value
+     */
+    private void encodeEntry(GroupValue value, FlyweightMessage message, int groupBase, int templateId, ByteBuffer buffer,
+            Context context) {
+        BitVectorBuilder presenceMapBuilder = (presenceMapBits > MAX_PACKED_BITS) ? new BitVectorBuilder(presenceMapBits) : context
+                .acquirePresenceMapBuilder();
+        try {
+            int presenceMapIndex = buffer.position();
+            if (usesPresenceMap) {
+                if (buffer.remaining() < reservedBytes)
+                    throw new BufferOverflowException();
+                buffer.position(presenceMapIndex + reservedBytes);
+            }
+            int i = 0;
+            if (templateId >= 0) {
+                ((IntegerEncoder) fields[0]).encode(templateId, false, buffer, presenceMapBuilder, context);
+                i = 1;
+            }
+            for (; i < fields.length; i++) {
+                if (value == null) {
+                    if (!optional[i] && message.kinds[groupBase + i] == FlyweightMessage.ABSENT)
+                        Global.handleError(FastConstants.GENERAL_ERROR, "Mandatory field " + group.getField(i) + " is null");
+                    fields[i].encode(message, groupBase + i, buffer, presenceMapBuilder, context);
+                } else {
+                    FieldValue fieldValue = value.getValue(i);
+                    if (fieldValue == null && !optional[i])
+                        Global.handleError(FastConstants.GENERAL_ERROR, "Mandatory field " + group.getField(i) + " is null");
+                    fields[i].encode(fieldValue, buffer, presenceMapBuilder, context);
+                }
+            }
+            if (usesPresenceMap)
+                writePresenceMap(presenceMapBuilder, presenceMapIndex, buffer);
+        } finally {
+            if (presenceMapBits <= MAX_PACKED_BITS)
+                context.releasePresenceMapBuilder();
+        }
+    }
+
+    private void writePresenceMap(BitVectorBuilder presenceMapBuilder, int presenceMapIndex, ByteBuffer buffer) {
+        int length = presenceMapBuilder.getTruncatedLength();
+        if (length != reservedBytes) {
+            int fieldsIndex = presenceMapIndex + reservedBytes;
+            int end = buffer.position();
+            int shift = length - reservedBytes;
+            if (end + shift > buffer.limit())
+                throw new BufferOverflowException();
+            move(buffer, fieldsIndex, fieldsIndex + shift, end - fieldsIndex);
+            buffer.position(end + shift);
+        }
+        presenceMapBuilder.writeTruncatedBytes(buffer, presenceMapIndex);
+    }
+
+    /**
+     * Moves bytes within the buffer, which may overlap, without touching its position.
+     */
+    private static void move(ByteBuffer buffer, int from, int to, int length) {
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            System.arraycopy(array, buffer.arrayOffset() + from, array, buffer.arrayOffset() + to, length);
+        } else if (to < from) {
+            for (int i = 0; i < length; i++)
+                buffer.put(to + i, buffer.get(from + i));
+        } else {
+            for (int i = length - 1; i >= 0; i--)
+                buffer.put(to + i, buffer.get(from + i));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.ScalarValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastException;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.operator.OperatorCodec;
+import org.openfast.template.type.IntegerType;
+import org.openfast.template.type.codec.PrimitiveValue;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Decodes an integer into a flyweight without creating values, using the primitive counterparts of the type and
+ * operator codecs and the integer lane of the dictionary.  A previous value that is undefined, null or not an integer
+ * is handled by the value based node, so the primitive path only has to deal with assigned integers.
+ */
+final class IntegerDecoder extends FieldDecoder {
+    private final ScalarDecoder fallback;
+    private final Scalar scalar;
+    private final IntegerType type;
+    private final TypeCodec typeCodec;
+    private final OperatorCodec operatorCodec;
+    private final boolean usesPresenceMapBit;
+    private final boolean nullable;
+    private final boolean usesPriorValue;
+    private final boolean storesValue;
+    private final boolean storesNull;
+    private final boolean emptyIsNull;
+    private final int entry;
+
+    IntegerDecoder(ScalarDecoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.type = (IntegerType) fallback.type;
+        this.typeCodec = fallback.typeCodec;
+        this.operatorCodec = scalar.getOperatorCodec();
+        this.usesPresenceMapBit = fallback.usesPresenceMapBit;
+        this.nullable = typeCodec.isNullable();
+        this.entry = fallback.entry;
+        Operator operator = scalar.getOperator();
+        this.usesPriorValue = operator != Operator.NONE && operator != Operator.DEFAULT;
+        this.storesValue = operator != Operator.NONE;
+        this.storesNull = storesValue && operator.shouldStoreValue(null);
+        this.emptyIsNull = operator == Operator.DEFAULT && scalar.getDefaultValue().isUndefined();
+    }
+
+    static boolean accepts(Scalar scalar) {
+        TypeCodec codec = scalar.getTypeCodec();
+        return scalar.getType() instanceof IntegerType
+                && scalar.getOperatorCodec().hasPrimitiveCounterparts()
+                && (codec == TypeCodec.UINT || codec == TypeCodec.INTEGER || codec == TypeCodec.NULLABLE_UNSIGNED_INTEGER
+                        || codec == TypeCodec.NULLABLE_INTEGER);
+    }
+
+    FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        return fallback.decode(in, presenceMapReader, context);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        PrimitiveValue value = message.primitive;
+        if (decode(in, presenceMapReader, context, value))
+            message.putLong(index, value.value);
+        else
+            message.putAbsent(index);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        PrimitiveValue value = context.getScratchValue();
+        if (decode(in, presenceMapReader, context, value))
+            handler.onLong(index, value.value);
+    }
+
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        decode(in, presenceMapReader, context, context.getScratchValue());
+    }
+
+    /**
+     * @return false if the field is null
+     */
+    boolean decode(InputStream in, BitVectorReader presenceMapReader, Context context, PrimitiveValue value) {
+        if (usesPriorValue && !context.hasLong(context.slotOf(entry))) {
+            ScalarValue decoded = (ScalarValue) fallback.decode(in, presenceMapReader, context);
+            if (decoded == null || decoded.isNull() || decoded.isUndefined())
+                return false;
+            value.set(decoded.toLong());
+            return true;
+        }
+        try {
+            long priorValue = usesPriorValue ? context.lookupLong(context.slotOf(entry)) : 0;
+            if (!usesPresenceMapBit || presenceMapReader.read()) {
+                if (!nullable)
+                    value.set(typeCodec.decodeLong(in));
+                else if (!typeCodec.decodeNullableLong(in, value)) {
+                    if (storesNull)
+                        context.store(context.slotOf(entry), (ScalarValue) null);
+                    return false;
+                }
+                value.set(operatorCodec.decodeValue(value.value, priorValue, scalar));
+            } else {
+                if (emptyIsNull)
+                    return false;
+                value.set(operatorCodec.decodeEmptyValue(priorValue, scalar));
+            }
+            if (storesValue)
+                context.store(context.slotOf(entry), value.value);
+            if (context.isStrictValidation())
+                type.validateValue(value.value);
+            return true;
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + scalar, e.getCode(), e);
+        }
+    }
+}
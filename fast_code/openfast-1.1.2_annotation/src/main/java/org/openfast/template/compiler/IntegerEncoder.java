@@ -0,0 +1,255 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.IntegerValue;
+import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
+import org.openfast.template.LongValue;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.IntegerType;
+import org.openfast.template.type.codec.TypeCodec;
+import org.openfast.util.Util;
+
+/**
+ * Encodes an integer without creating values, following the rules of the operator codecs on primitives and keeping the
+ * previous value in the integer lane of the dictionary.  A previous value that is neither undefined, empty nor an
+ * integer is handled by the value based node.
+ */
+final class IntegerEncoder extends FieldEncoder {
+    private static final int NONE = 0;
+    private static final int CONSTANT = 1;
+    private static final int DEFAULT = 2;
+    private static final int COPY = 3;
+    private static final int INCREMENT = 4;
+    private static final int DELTA = 5;
+
+    private final ScalarEncoder fallback;
+    private final Scalar scalar;
+    private final TypeCodec typeCodec;
+    private final int operator;
+    private final boolean optional;
+    private final boolean usesPriorValue;
+    private final boolean hasDefaultValue;
+    private final long defaultValue;
+    private final long baseValue;
+    private final int entry;
+
+    IntegerEncoder(ScalarEncoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.typeCodec = fallback.typeCodec;
+        this.entry = fallback.entry;
+        this.operator = kindOf(scalar.getOperator());
+        this.optional = scalar.isOptional();
+        this.usesPriorValue = operator == COPY || operator == INCREMENT || operator == DELTA;
+        this.hasDefaultValue = !scalar.getDefaultValue().isUndefined();
+        this.defaultValue = hasDefaultValue ? scalar.getDefaultValue().toLong() : 0;
+        this.baseValue = (operator == DELTA) ? scalar.getBaseValue().toLong() : 0;
+    }
+
+    private static int kindOf(Operator operator) {
+        if (operator == Operator.NONE)
+            return NONE;
+        if (operator == Operator.CONSTANT)
+            return CONSTANT;
+        if (operator == Operator.DEFAULT)
+            return DEFAULT;
+        if (operator == Operator.COPY)
+            return COPY;
+        if (operator == Operator.INCREMENT)
+            return INCREMENT;
+        if (operator == Operator.DELTA)
+            return DELTA;
+        return -1;
+    }
+
+    static boolean accepts(Scalar scalar) {
+        TypeCodec codec = scalar.getTypeCodec();
+        return scalar.getType() instanceof IntegerType && kindOf(scalar.getOperator()) >= 0
+                && (codec == TypeCodec.UINT || codec == TypeCodec.INTEGER || codec == TypeCodec.NULLABLE_UNSIGNED_INTEGER
+                        || codec == TypeCodec.NULLABLE_INTEGER);
+    }
+
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        if (usesPriorValue && !hasPrimitivePrior(context))
+            fallback.encode(value, buffer, presenceMapBuilder, context);
+        else if (value == null)
+            encodePrimitive(0, true, buffer, presenceMapBuilder, context);
+        else
+            encodePrimitive(((ScalarValue) value).toLong(), false, buffer, presenceMapBuilder, context);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        switch (message.kinds[index]) {
+        case FlyweightMessage.LONG:
+            encode(message.longs[index], false, buffer, presenceMapBuilder, context);
+            return;
+        case FlyweightMessage.ABSENT:
+            encode(0, true, buffer, presenceMapBuilder, context);
+            return;
+        default:
+            encode(message.getValue(index, scalar), buffer, presenceMapBuilder, context);
+        }
+    }
+
+    /**
+     * Encodes the integer, or null, of a composed field or a sequence length.
+     */
+    void encode(long value, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        if (usesPriorValue && !hasPrimitivePrior(context)) {
+            ScalarValue scalarValue = null;
+            if (!isNull)
+                scalarValue = Util.isBiggerThanInt(value) ? (ScalarValue) new LongValue(value) : new IntegerValue((int) value);
+            fallback.encode(scalarValue, buffer, presenceMapBuilder, context);
+        } else {
+            encodePrimitive(value, isNull, buffer, presenceMapBuilder, context);
+        }
+    }
+
+    private void encodePrimitive(long value, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        switch (operator) {
+        case NONE:
+            write(value, isNull, buffer);
+            return;
+        case CONSTANT:
+            if (isNull ? !optional : value != defaultValue)
+                Global.handleError(FastConstants.D3_CANT_ENCODE_VALUE, "The scalar " + scalar + " cannot encode the value " + value);
+            if (optional)
+                setOnValueSkipOnNull(presenceMapBuilder, isNull);
+            return;
+        case DEFAULT:
+            if (isNull ? !hasDefaultValue : hasDefaultValue && value == defaultValue) {
+                presenceMapBuilder.skip();
+            } else {
+                presenceMapBuilder.set();
+                write(value, isNull, buffer);
+            }
+            if (!isNull)
+                context.store(context.slotOf(entry), value);
+            return;
+        case COPY:
+            encodeCopy(value, isNull, buffer, presenceMapBuilder, context);
+            return;
+        case INCREMENT:
+            encodeIncrement(value, isNull, buffer, presenceMapBuilder, context);
+            return;
+        default:
+            encodeDelta(value, isNull, buffer, context);
+        }
+    }
+
+    private void encodeCopy(long value, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        boolean assigned = context.hasLong(context.slotOf(entry));
+        boolean undefined = !assigned && context.lookup(context.slotOf(entry)) == ScalarValue.UNDEFINED;
+        if (isNull) {
+            if (!optional)
+                Global.handleError(FastConstants.D6_MNDTRY_FIELD_NOT_PRESENT, "The field \"" + scalar + " is not present.");
+            if (optional && (undefined ? hasDefaultValue : assigned)) {
+                presenceMapBuilder.set();
+                typeCodec.encodeNull(buffer);
+            } else {
+                presenceMapBuilder.skip();
+            }
+            context.store(context.slotOf(entry), (ScalarValue) null);
+            return;
+        }
+        if ((undefined && hasDefaultValue && value == defaultValue) || (assigned && value == context.lookupLong(context.slotOf(entry)))) {
+            presenceMapBuilder.skip();
+        } else {
+            presenceMapBuilder.set();
+            typeCodec.encodeLong(value, buffer);
+        }
+        context.store(context.slotOf(entry), value);
+    }
+
+    private void encodeIncrement(long value, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        boolean assigned = context.hasLong(context.slotOf(entry));
+        boolean undefined = !assigned && context.lookup(context.slotOf(entry)) == ScalarValue.UNDEFINED;
+        boolean present;
+        if (!assigned && !undefined)
+            present = !isNull;
+        else if (isNull) {
+            if (!optional)
+                throw new IllegalArgumentException();
+            present = !undefined || hasDefaultValue;
+        } else if (undefined)
+            present = !hasDefaultValue || value != defaultValue;
+        else
+            present = value != context.lookupLong(context.slotOf(entry)) + 1;
+        if (present) {
+            presenceMapBuilder.set();
+            write(value, isNull, buffer);
+        } else {
+            presenceMapBuilder.skip();
+        }
+        if (isNull)
+            context.store(context.slotOf(entry), (ScalarValue) null);
+        else
+            context.store(context.slotOf(entry), value);
+    }
+
+    private void encodeDelta(long value, boolean isNull, ByteBuffer buffer, Context context) {
+        boolean assigned = context.hasLong(context.slotOf(entry));
+        if (!assigned && context.lookup(context.slotOf(entry)) == null) {
+            Global.handleError(FastConstants.D6_MNDTRY_FIELD_NOT_PRESENT, "The field " + scalar + " must have a priorValue defined.");
+        } else if (isNull) {
+            if (!optional)
+                throw new IllegalArgumentException("Mandatory fields can't be null.");
+            typeCodec.encodeNull(buffer);
+        } else {
+            typeCodec.encodeLong(value - (assigned ? context.lookupLong(context.slotOf(entry)) : baseValue), buffer);
+        }
+        if (!isNull)
+            context.store(context.slotOf(entry), value);
+    }
+
+    private void write(long value, boolean isNull, ByteBuffer buffer) {
+        if (isNull)
+            typeCodec.encodeNull(buffer);
+        else
+            typeCodec.encodeLong(value, buffer);
+    }
+
+    private static void setOnValueSkipOnNull(BitVectorBuilder presenceMapBuilder, boolean isNull) {
+        if (isNull)
+            presenceMapBuilder.skip();
+        else
+            presenceMapBuilder.set();
+    }
+
+    /**
+     * @return true unless the previous value is something other than an integer, undefined or empty
+     */
+    private boolean hasPrimitivePrior(Context context) {
+        if (context.hasLong(context.slotOf(entry)))
+            return true;
+        ScalarValue priorValue = context.lookup(context.slotOf(entry));
+        return priorValue == null || priorValue == ScalarValue.UNDEFINED;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+
+/**
+ * Falls back to the field's own encode method for fields the compiler has no specialized node for, such as dynamic
+ * template references, and copies the encoding into the buffer.
+ */
+final class InterpretedFieldEncoder extends FieldEncoder {
+    private final Field field;
+    private final Group scope;
+
+    InterpretedFieldEncoder(Field field, Group scope) {
+        this.field = field;
+        this.scope = scope;
+    }
+
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        byte[] encoding = field.encode(value, scope, context, presenceMapBuilder);
+        if (encoding != null)
+            buffer.put(encoding);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        encode(message.getValue(index, field), buffer, presenceMapBuilder, context);
+    }
+}
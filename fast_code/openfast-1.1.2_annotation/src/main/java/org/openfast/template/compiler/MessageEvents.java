@@ -0,0 +1,126 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.ByteVectorValue;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.FieldValue;
+import org.openfast.GroupValue;
+import org.openfast.IntegerValue;
+import org.openfast.Message;
+import org.openfast.ScalarValue;
+import org.openfast.SequenceValue;
+import org.openfast.StringValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+import org.openfast.template.LongValue;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Scalar;
+import org.openfast.template.TemplateDecoder;
+import org.openfast.template.type.Type;
+
+/**
+ * Streams the fields of messages to a {@link MessageEventHandler}.  Compiled templates report each field as it is
+ * decoded; other templates, and any traced decoding, decode the message as usual and then report its values.
+ */
+public final class MessageEvents {
+    private MessageEvents() {
+    }
+
+    /**
+     * Decodes the fields of a message whose presence map and template id have already been read.  This is called by
+     * {@link org.openfast.codec.FastDecoder#readMessage(MessageEventHandler)}.
+     * 
+     * @param subscribedFields whether each field of the template, by field index, is to be decoded, or null for all
+     */
+    public static void decode(InputStream in, int templateId, MessageTemplate template, BitVectorReader presenceMapReader,
+            Context context, MessageEventHandler handler, boolean[] subscribedFields) {
+        TemplateDecoder decoder = template.getCompiledDecoder();
+        if (decoder instanceof CompiledTemplate && !context.isTraceEnabled()) {
+            ((CompiledTemplate) decoder).decode(in, templateId, presenceMapReader, context, handler, subscribedFields);
+            return;
+        }
+        Message message = template.decode(in, templateId, presenceMapReader, context);
+        handler.onMessageStart(templateId, template);
+        for (int i = 1; i < template.getFieldCount(); i++)
+            if (subscribedFields == null || subscribedFields[i])
+                emit(handler, i, template.getField(i), message.getValue(i));
+        handler.onMessageEnd();
+    }
+
+    /**
+     * Reports a decoded value, and the contents of a group or sequence value.
+     */
+    static void emit(MessageEventHandler handler, int fieldIndex, Field field, FieldValue value) {
+        if (value == null)
+            return;
+        if (value instanceof ScalarValue) {
+            emit(handler, fieldIndex, field instanceof Scalar ? ((Scalar) field).getType() : null, (ScalarValue) value);
+        } else if (value instanceof SequenceValue) {
+            SequenceValue sequence = (SequenceValue) value;
+            handler.onSequenceStart(fieldIndex, sequence.getLength());
+            for (int i = 0; i < sequence.getLength(); i++) {
+                handler.onEntryStart(i);
+                emitFields(handler, sequence.get(i));
+                handler.onEntryEnd();
+            }
+            handler.onSequenceEnd();
+        } else if (value instanceof GroupValue) {
+            handler.onGroupStart(fieldIndex);
+            emitFields(handler, (GroupValue) value);
+            handler.onGroupEnd();
+        }
+    }
+
+    private static void emitFields(MessageEventHandler handler, GroupValue value) {
+        Group group = value.getGroup();
+        for (int i = 0; i < group.getFieldCount(); i++)
+            emit(handler, i, group.getField(i), value.getValue(i));
+    }
+
+    /**
+     * Reports a scalar value by the primitive event matching its value, or as a value for types without one.
+     */
+    static void emit(MessageEventHandler handler, int fieldIndex, Type type, ScalarValue value) {
+        if (value == null || value.isNull() || value.isUndefined())
+            return;
+        if (value instanceof IntegerValue) {
+            handler.onLong(fieldIndex, ((IntegerValue) value).value);
+        } else if (value instanceof LongValue) {
+            handler.onLong(fieldIndex, ((LongValue) value).value);
+        } else if (value instanceof DecimalValue) {
+            handler.onDecimal(fieldIndex, ((DecimalValue) value).mantissa, ((DecimalValue) value).exponent);
+        } else if (value instanceof ByteVectorValue) {
+            byte[] bytes = ((ByteVectorValue) value).value;
+            handler.onBytes(fieldIndex, bytes, 0, bytes.length);
+        } else if (value instanceof StringValue && (type == Type.ASCII || type == Type.STRING)) {
+            byte[] bytes = value.getBytes();
+            handler.onAscii(fieldIndex, bytes, 0, bytes.length);
+        } else {
+            handler.onValue(fieldIndex, value);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.ScalarValue;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.operator.OperatorCodec;
+
+/**
+ * Increment, delta, tail and any user defined operator: the operator codec combines the previous value with the
+ * value read from the stream.
+ */
+final class OperatorScalarDecoder extends ScalarDecoder {
+    private final Operator operator;
+    private final OperatorCodec operatorCodec;
+    private final boolean usesDictionary;
+    private final boolean decodesType;
+
+    OperatorScalarDecoder(Scalar scalar, int entry) {
+        super(scalar, entry);
+        this.operator = scalar.getOperator();
+        this.operatorCodec = scalar.getOperatorCodec();
+        this.usesDictionary = operator.usesDictionary();
+        this.decodesType = operatorCodec.shouldDecodeType();
+    }
+
+    protected ScalarValue decodeValue(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        ScalarValue previousValue = usesDictionary ? lookup(context) : null;
+        ScalarValue value;
+        if (isPresent(presenceMapReader)) {
+            if (!decodesType)
+                return operatorCodec.decodeValue(null, null, scalar);
+            value = operatorCodec.decodeValue(typeCodec.decode(in), previousValue, scalar);
+        } else {
+            value = operatorCodec.decodeEmptyValue(previousValue, scalar);
+        }
+        if (operator.shouldStoreValue(value))
+            store(context, value);
+        return value;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.ScalarValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Base class for compiled scalars, one subclass per operator.  Dictionary values are stored following the same rules
+ * the encoder uses ({@link Operator#shouldStoreValue(ScalarValue)}) so that compiled decoders stay in step with
+ * encoders sharing the same templates.
+ */
+abstract class ScalarDecoder extends FieldDecoder {
+    protected final Scalar scalar;
+    protected final Type type;
+    protected final TypeCodec typeCodec;
+    protected final boolean usesPresenceMapBit;
+    protected final int entry;
+
+    protected ScalarDecoder(Scalar scalar, int entry) {
+        this.scalar = scalar;
+        this.type = scalar.getType();
+        this.typeCodec = scalar.getTypeCodec();
+        this.usesPresenceMapBit = scalar.usesPresenceMapBit();
+        this.entry = entry;
+    }
+
+    static ScalarDecoder create(Scalar scalar, int entry) {
+        Operator operator = scalar.getOperator();
+        if (operator == Operator.NONE)
+            return new NoneScalarDecoder(scalar, entry);
+        if (operator == Operator.CONSTANT)
+            return new ConstantScalarDecoder(scalar, entry);
+        if (operator == Operator.DEFAULT)
+            return new DefaultScalarDecoder(scalar, entry);
+        if (operator == Operator.COPY)
+            return new CopyScalarDecoder(scalar, entry);
+        return new OperatorScalarDecoder(scalar, entry);
+    }
+
+    final FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        try {
+            ScalarValue value = decodeValue(in, presenceMapReader, context);
+            if (value != null && context.isStrictValidation())
+                type.validateValue(value);
+            return value;
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + scalar, e.getCode(), e);
+        }
+    }
+
+    final void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        message.putScalar(index, (ScalarValue) decode(in, presenceMapReader, context));
+    }
+
+    final void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        MessageEvents.emit(handler, index, type, (ScalarValue) decode(in, presenceMapReader, context));
+    }
+
+    protected abstract ScalarValue decodeValue(InputStream in, BitVectorReader presenceMapReader, Context context);
+
+    protected final boolean isPresent(BitVectorReader presenceMapReader) {
+        return !usesPresenceMapBit || presenceMapReader.read();
+    }
+
+    protected final ScalarValue lookup(Context context) {
+        ScalarValue previousValue = context.lookup(context.slotOf(entry));
+        if (context.isStrictValidation() && previousValue != null && !previousValue.isUndefined() && !type.isValueOf(previousValue)) {
+            Global.handleError(FastConstants.D4_INVALID_TYPE, "The value \"" + previousValue + "\" is not valid for the type " + type);
+        }
+        return previousValue;
+    }
+
+    protected final void store(Context context, ScalarValue value) {
+        context.store(context.slotOf(entry), value);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.operator.OperatorCodec;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Encodes any scalar the way {@link Scalar#encode} does, but with the dictionary entry numbered up front and the value
+ * written into the buffer by the type codec.  No value is created unless the operator has to compute one, as delta and
+ * tail do for strings.
+ */
+final class ScalarEncoder extends FieldEncoder {
+    final Scalar scalar;
+    final TypeCodec typeCodec;
+    final int entry;
+    private final Operator operator;
+    private final OperatorCodec operatorCodec;
+    private final boolean usesDictionary;
+
+    ScalarEncoder(Scalar scalar, int entry) {
+        this.scalar = scalar;
+        this.typeCodec = scalar.getTypeCodec();
+        this.entry = entry;
+        this.operator = scalar.getOperator();
+        this.operatorCodec = scalar.getOperatorCodec();
+        this.usesDictionary = operator.usesDictionary();
+    }
+
+    void encode(FieldValue fieldValue, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        ScalarValue value = (ScalarValue) fieldValue;
+        ScalarValue priorValue = usesDictionary ? context.lookup(context.slotOf(entry)) : null;
+        if (!operatorCodec.canEncode(value, scalar))
+            Global.handleError(FastConstants.D3_CANT_ENCODE_VALUE, "The scalar " + scalar + " cannot encode the value " + value);
+        ScalarValue valueToEncode = operatorCodec.getValueToEncode(value, priorValue, scalar, presenceMapBuilder);
+        if (operator.shouldStoreValue(value))
+            context.store(context.slotOf(entry), value);
+        if (valueToEncode != null)
+            typeCodec.encode(valueToEncode, buffer);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        encode(message.getValue(index, scalar), buffer, presenceMapBuilder, context);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.GroupValue;
+import org.openfast.ScalarValue;
+import org.openfast.SequenceValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.Sequence;
+import org.openfast.template.type.codec.PrimitiveValue;
+
+final class SequenceDecoder extends FieldDecoder {
+    private final Sequence sequence;
+    private final FieldDecoder length;
+    private final GroupDecoder entry;
+    private final IntegerDecoder primitiveLength;
+
+    SequenceDecoder(Sequence sequence, FieldDecoder length, GroupDecoder entry) {
+        this.sequence = sequence;
+        this.length = length;
+        this.entry = entry;
+        this.primitiveLength = (length instanceof IntegerDecoder) ? (IntegerDecoder) length : null;
+    }
+
+    FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        int len = decodeLength(in, presenceMapReader, context, context.getScratchValue());
+        if (len < 0)
+            return null;
+        SequenceValue sequenceValue = new SequenceValue(sequence);
+        for (int i = 0; i < len; i++)
+            sequenceValue.add((GroupValue) entry.decode(in, BitVectorReader.INFINITE_TRUE, context));
+        return sequenceValue;
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        int len = decodeLength(in, presenceMapReader, context, message.primitive);
+        if (len < 0) {
+            message.putAbsent(index);
+            return;
+        }
+        int firstEntry = message.allocateEntries(len);
+        message.putSequence(index, firstEntry, len);
+        for (int i = 0; i < len; i++)
+            message.putEntry(firstEntry + i, entry.decodeEntry(in, context, message));
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        int len = decodeLength(in, presenceMapReader, context, context.getScratchValue());
+        if (len < 0)
+            return;
+        handler.onSequenceStart(index, len);
+        for (int i = 0; i < len; i++) {
+            handler.onEntryStart(i);
+            entry.decodeEntry(in, context, handler);
+            handler.onEntryEnd();
+        }
+        handler.onSequenceEnd();
+    }
+
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        int len = decodeLength(in, presenceMapReader, context, context.getScratchValue());
+        for (int i = 0; i < len; i++)
+            entry.skipEntry(in, context);
+    }
+
+    /**
+     * @return the number of entries, or -1 if the sequence is absent
+     */
+    private int decodeLength(InputStream in, BitVectorReader presenceMapReader, Context context, PrimitiveValue value) {
+        if (primitiveLength != null) {
+            if (!primitiveLength.decode(in, presenceMapReader, context, value))
+                return -1;
+            return checkLength(value.value);
+        }
+        ScalarValue lengthValue = (ScalarValue) length.decode(in, presenceMapReader, context);
+        if ((lengthValue == ScalarValue.NULL) || (lengthValue == null))
+            return -1;
+        return checkLength(lengthValue.toLong());
+    }
+
+    private int checkLength(long len) {
+        if (len < 0 || len > Integer.MAX_VALUE)
+            throw new FastException("The length " + len + " of the sequence " + sequence.getName() + " is out of range.",
+                    FastConstants.D2_INT_OUT_OF_RANGE);
+        return (int) len;
+    }
+}
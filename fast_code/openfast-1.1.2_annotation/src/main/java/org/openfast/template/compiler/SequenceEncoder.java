@@ -0,0 +1,76 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.IntegerValue;
+import org.openfast.SequenceValue;
+
+final class SequenceEncoder extends FieldEncoder {
+    private final FieldEncoder length;
+    private final GroupEncoder entry;
+    private final IntegerEncoder primitiveLength;
+
+    SequenceEncoder(FieldEncoder length, GroupEncoder entry) {
+        this.length = length;
+        this.entry = entry;
+        this.primitiveLength = (length instanceof IntegerEncoder) ? (IntegerEncoder) length : null;
+    }
+
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        if (value == null) {
+            length.encode(null, buffer, presenceMapBuilder, context);
+            return;
+        }
+        SequenceValue sequenceValue = (SequenceValue) value;
+        int len = sequenceValue.getLength();
+        if (primitiveLength != null)
+            primitiveLength.encode(len, false, buffer, presenceMapBuilder, context);
+        else
+            length.encode(new IntegerValue(len), buffer, presenceMapBuilder, context);
+        for (int i = 0; i < len; i++)
+            entry.encodeEntry(sequenceValue.get(i), buffer, context);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        switch (message.kinds[index]) {
+        case FlyweightMessage.SEQUENCE:
+            int len = (int) message.longs[index];
+            int firstEntry = message.ints[index];
+            if (primitiveLength != null)
+                primitiveLength.encode(len, false, buffer, presenceMapBuilder, context);
+            else
+                length.encode(new IntegerValue(len), buffer, presenceMapBuilder, context);
+            for (int i = 0; i < len; i++)
+                entry.encodeEntry(message, message.entries[firstEntry + i], -1, buffer, context);
+            return;
+        case FlyweightMessage.ABSENT:
+            length.encode(null, buffer, presenceMapBuilder, context);
+            return;
+        default:
+            encode((FieldValue) message.objects[index], buffer, presenceMapBuilder, context);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.InputStream;
+
+import org.openfast.BitVectorReader;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.ScalarValue;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.template.type.codec.PrimitiveValue;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Decodes an ASCII string with the delta or tail operator into a flyweight without creating Strings or values.  The
+ * previous value is kept in the bytes lane of the dictionary and the difference read from the stream is applied to it
+ * in place with {@link Context#applyDifference(int, int, ByteRange)}, so a string that changes at one end costs a move
+ * of the bytes it keeps.  A previous value that is held as anything but bytes, other than undefined and, for an
+ * optional tail, null, is handled by the value based node.
+ */
+final class StringDeltaDecoder extends FieldDecoder {
+    private final ScalarDecoder fallback;
+    private final Scalar scalar;
+    private final TypeCodec typeCodec;
+    private final boolean usesPresenceMapBit;
+    private final boolean optional;
+    private final boolean isTail;
+    private final ByteRange baseValue;
+    private final ByteRange defaultValue;
+    private final int entry;
+
+    StringDeltaDecoder(ScalarDecoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.typeCodec = fallback.typeCodec;
+        this.usesPresenceMapBit = fallback.usesPresenceMapBit;
+        this.entry = fallback.entry;
+        this.optional = scalar.isOptional();
+        this.isTail = scalar.getOperator() == Operator.TAIL;
+        this.baseValue = range(scalar.getBaseValue());
+        this.defaultValue = scalar.getDefaultValue().isUndefined() ? null : range(scalar.getDefaultValue());
+    }
+
+    static boolean accepts(Scalar scalar) {
+        Operator operator = scalar.getOperator();
+        TypeCodec codec = scalar.getTypeCodec();
+        return (scalar.getType() == Type.ASCII || scalar.getType() == Type.STRING)
+                && ((operator == Operator.DELTA && (codec == TypeCodec.STRING_DELTA || codec == TypeCodec.NULLABLE_STRING_DELTA))
+                        || (operator == Operator.TAIL && (codec == TypeCodec.ASCII || codec == TypeCodec.NULLABLE_ASCII)));
+    }
+
+    private static ByteRange range(ScalarValue value) {
+        byte[] bytes = value.getBytes();
+        ByteRange range = new ByteRange(bytes.length);
+        range.copy(bytes, 0, bytes.length);
+        return range;
+    }
+
+    FieldValue decode(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        return fallback.decode(in, presenceMapReader, context);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, FlyweightMessage message, int index) {
+        if (!hasBytesPrior(context)) {
+            message.putScalar(index, (ScalarValue) fallback.decode(in, presenceMapReader, context));
+            return;
+        }
+        ByteRange value = decode(in, presenceMapReader, context, message.range);
+        if (value != null)
+            message.putBytes(index, value, true);
+        else
+            message.putAbsent(index);
+    }
+
+    void decode(InputStream in, BitVectorReader presenceMapReader, Context context, MessageEventHandler handler, int index) {
+        if (!hasBytesPrior(context)) {
+            MessageEvents.emit(handler, index, scalar.getType(), (ScalarValue) fallback.decode(in, presenceMapReader, context));
+            return;
+        }
+        ByteRange value = decode(in, presenceMapReader, context, context.getScratchBytes());
+        if (value != null)
+            handler.onAscii(index, value.getArray(), value.getOffset(), value.length());
+    }
+
+    void skip(InputStream in, BitVectorReader presenceMapReader, Context context) {
+        if (!hasBytesPrior(context))
+            fallback.decode(in, presenceMapReader, context);
+        else
+            decode(in, presenceMapReader, context, context.getScratchBytes());
+    }
+
+    /**
+     * @return true if the previous value is held as bytes, is undefined or, for an optional tail, is null
+     */
+    private boolean hasBytesPrior(Context context) {
+        if (context.hasBytes(context.slotOf(entry)))
+            return true;
+        ScalarValue priorValue = context.lookup(context.slotOf(entry));
+        return priorValue == ScalarValue.UNDEFINED || (priorValue == null && isTail && optional);
+    }
+
+    /**
+     * @return the range holding the value, which points at the dictionary entry, or null if the field is null
+     */
+    private ByteRange decode(InputStream in, BitVectorReader presenceMapReader, Context context, ByteRange value) {
+        try {
+            if (isTail ? !decodeTail(in, presenceMapReader, context, value) : !decodeDelta(in, context, value))
+                return null;
+            context.lookupBytes(context.slotOf(entry), value);
+            return value;
+        } catch (FastException e) {
+            throw new FastException("Error occurred while decoding " + scalar, e.getCode(), e);
+        }
+    }
+
+    private boolean decodeDelta(InputStream in, Context context, ByteRange difference) {
+        int subtraction;
+        if (optional) {
+            PrimitiveValue length = context.getScratchValue();
+            if (!TypeCodec.NULLABLE_INTEGER.decodeNullableLong(in, length))
+                return false;
+            subtraction = (int) length.value;
+        } else {
+            subtraction = TypeCodec.INTEGER.decodeInt(in);
+        }
+        if (!TypeCodec.ASCII.decodeBytes(in, difference))
+            return false;
+        if (!context.hasBytes(context.slotOf(entry)))
+            context.storeAscii(context.slotOf(entry), baseValue);
+        int length = context.lookupLength(context.slotOf(entry));
+        if (subtraction > length || -subtraction - 1 > length) {
+            ByteRange base = new ByteRange();
+            context.lookupBytes(context.slotOf(entry), base);
+            Global.handleError(FastConstants.D7_SUBTRCTN_LEN_LONG, "The string diff <" + subtraction + ", " + difference
+                    + "> cannot be applied to the base value \"" + base + "\" because the subtraction length is too long.");
+            return false;
+        }
+        context.applyDifference(context.slotOf(entry), subtraction, difference);
+        return true;
+    }
+
+    private boolean decodeTail(InputStream in, BitVectorReader presenceMapReader, Context context, ByteRange tail) {
+        boolean assigned = context.hasBytes(context.slotOf(entry));
+        if (!usesPresenceMapBit || presenceMapReader.read()) {
+            if (!typeCodec.decodeBytes(in, tail)) {
+                context.store(context.slotOf(entry), (ScalarValue) null);
+                return false;
+            }
+            if (!assigned)
+                context.storeAscii(context.slotOf(entry), baseValue);
+            context.applyDifference(context.slotOf(entry), Math.min(tail.length(), context.lookupLength(context.slotOf(entry))), tail);
+        } else if (!assigned) {
+            if (defaultValue == null || context.lookup(context.slotOf(entry)) == null) {
+                if (!optional)
+                    Global.handleError(FastConstants.D6_MNDTRY_FIELD_NOT_PRESENT, "The field " + scalar + " was not present.");
+                context.store(context.slotOf(entry), (ScalarValue) null);
+                return false;
+            }
+            context.storeAscii(context.slotOf(entry), defaultValue);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.openfast.BitVectorBuilder;
+import org.openfast.Context;
+import org.openfast.FieldValue;
+import org.openfast.Global;
+import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.template.type.codec.TypeCodec;
+
+/**
+ * Encodes an ASCII string with the delta or tail operator from the bytes of a flyweight, the encoding counterpart of
+ * {@link StringDeltaDecoder}.  The difference against the previous value in the bytes lane of the dictionary is found
+ * by comparing the bytes in place and written as a range of the flyweight's bytes, so no difference value is created.
+ * Values, and previous values that the decoder would not handle as bytes, are handled by the value based node.
+ */
+final class StringDeltaEncoder extends FieldEncoder {
+    private final ScalarEncoder fallback;
+    private final Scalar scalar;
+    private final TypeCodec typeCodec;
+    private final boolean optional;
+    private final boolean isTail;
+    private final byte[] baseValue;
+    private final byte[] defaultValue;
+    private final int entry;
+
+    StringDeltaEncoder(ScalarEncoder fallback) {
+        this.fallback = fallback;
+        this.scalar = fallback.scalar;
+        this.typeCodec = BytesEncoder.plain(fallback.typeCodec);
+        this.entry = fallback.entry;
+        this.optional = scalar.isOptional();
+        this.isTail = scalar.getOperator() == Operator.TAIL;
+        this.baseValue = scalar.getBaseValue().getBytes();
+        this.defaultValue = scalar.getDefaultValue().isUndefined() ? null : scalar.getDefaultValue().getBytes();
+    }
+
+    static boolean accepts(Scalar scalar) {
+        Operator operator = scalar.getOperator();
+        TypeCodec codec = BytesEncoder.plain(scalar.getTypeCodec());
+        return (scalar.getType() == Type.ASCII || scalar.getType() == Type.STRING)
+                && ((operator == Operator.DELTA && (codec == TypeCodec.STRING_DELTA || codec == TypeCodec.NULLABLE_STRING_DELTA))
+                        || (operator == Operator.TAIL && (codec == TypeCodec.ASCII || codec == TypeCodec.NULLABLE_ASCII)));
+    }
+
+    void encode(FieldValue value, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        fallback.encode(value, buffer, presenceMapBuilder, context);
+    }
+
+    void encode(FlyweightMessage message, int index, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        byte kind = message.kinds[index];
+        boolean isNull = kind == FlyweightMessage.ABSENT;
+        if ((isNull ? !optional : kind != FlyweightMessage.ASCII) || !hasBytesPrior(context)) {
+            fallback.encode(message.getValue(index, scalar), buffer, presenceMapBuilder, context);
+            return;
+        }
+        ByteRange value = message.range;
+        if (!isNull)
+            value.wrap(message.slab, message.ints[index], (int) message.longs[index]);
+        if (isTail)
+            encodeTail(value, isNull, buffer, presenceMapBuilder, context);
+        else if (isNull)
+            typeCodec.encodeNull(buffer);
+        else
+            encodeDelta(value, buffer, context);
+    }
+
+    /**
+     * Finds the difference the way {@link org.openfast.util.Util#getDifference(byte[], byte[])} does: the shorter of
+     * the bytes after the longest common prefix and the bytes before the longest common suffix.
+     */
+    private void encodeDelta(ByteRange value, ByteBuffer buffer, Context context) {
+        ByteRange base = base(context);
+        int valueLength = value.length();
+        int baseLength = base.length();
+        int appendIndex = 0;
+        while (appendIndex < baseLength && appendIndex < valueLength && value.byteAt(appendIndex) == base.byteAt(appendIndex))
+            appendIndex++;
+        int prependIndex = 1;
+        while (prependIndex <= valueLength && prependIndex <= baseLength
+                && value.byteAt(valueLength - prependIndex) == base.byteAt(baseLength - prependIndex))
+            prependIndex++;
+        int prependLength = valueLength - prependIndex + 1;
+        int appendLength = valueLength - appendIndex;
+        int subtraction;
+        int start;
+        int length;
+        if (prependLength < appendLength) {
+            subtraction = prependIndex - baseLength - 2;
+            start = 0;
+            length = prependLength;
+        } else {
+            subtraction = baseLength - appendIndex;
+            start = appendIndex;
+            length = appendLength;
+        }
+        context.storeAscii(context.slotOf(entry), value);
+        if (optional)
+            TypeCodec.NULLABLE_INTEGER.encodeLong(subtraction, buffer);
+        else
+            TypeCodec.INTEGER.encodeLong(subtraction, buffer);
+        value.wrap(value.getArray(), value.getOffset() + start, length);
+        TypeCodec.ASCII.encodeBytes(value, buffer);
+    }
+
+    private void encodeTail(ByteRange value, boolean isNull, ByteBuffer buffer, BitVectorBuilder presenceMapBuilder, Context context) {
+        boolean assigned = context.hasBytes(context.slotOf(entry));
+        boolean priorNull = !assigned && context.lookup(context.slotOf(entry)) == null;
+        if (isNull) {
+            if (priorNull || (!assigned && defaultValue == null)) {
+                presenceMapBuilder.skip();
+            } else {
+                presenceMapBuilder.set();
+                typeCodec.encodeNull(buffer);
+            }
+            context.store(context.slotOf(entry), (ScalarValue) null);
+            return;
+        }
+        int start = 0;
+        if (!priorNull) {
+            ByteRange base = base(context);
+            if (value.length() < base.length())
+                Global.handleError(FastConstants.D3_CANT_ENCODE_VALUE, "The value " + value
+                        + " cannot be encoded by a tail operator with previous value " + base);
+            if (value.length() <= base.length()) {
+                while (start < value.length() && value.byteAt(start) == base.byteAt(start))
+                    start++;
+            }
+        }
+        context.storeAscii(context.slotOf(entry), value);
+        if (!priorNull && start == value.length()) {
+            presenceMapBuilder.skip();
+        } else {
+            presenceMapBuilder.set();
+            value.wrap(value.getArray(), value.getOffset() + start, value.length() - start);
+            typeCodec.encodeBytes(value, buffer);
+        }
+    }
+
+    /**
+     * @return the previous value, or the base value of the field when there is none
+     */
+    private ByteRange base(Context context) {
+        ByteRange base = context.getScratchBytes();
+        if (context.hasBytes(context.slotOf(entry)))
+            context.lookupBytes(context.slotOf(entry), base);
+        else
+            base.wrap(baseValue, 0, baseValue.length);
+        return base;
+    }
+
+    /**
+     * @return true if the previous value is held as bytes, is undefined or, for a tail, is null
+     */
+    private boolean hasBytesPrior(Context context) {
+        if (context.hasBytes(context.slotOf(entry)))
+            return true;
+        ScalarValue priorValue = context.lookup(context.slotOf(entry));
+        return priorValue == ScalarValue.UNDEFINED || (priorValue == null && isTail);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import org.openfast.SlotList;
+import org.openfast.template.ComposedScalar;
+import org.openfast.template.Field;
+import org.openfast.template.Group;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Scalar;
+import org.openfast.template.Sequence;
+import org.openfast.template.TemplateDecoder;
+import org.openfast.template.TemplateEncoder;
+import org.openfast.template.TemplateRegisteredListener;
+import org.openfast.template.TemplateRegistry;
+
+/**
+ * Builds a specialized decoder for each message template.  Nested groups, sequences and the fields of static template
+ * references are flattened into a tree of nodes in which operators, nullability, presence map usage and dictionary
+ * scope are resolved once, up front, instead of for every field of every message.  Fields without a specialized node
+ * are delegated to the field itself, so any template can be compiled.
+ * <p>
+ * Compiled decoders are installed on the template with {@link MessageTemplate#setCompiledDecoder(TemplateDecoder)} and
+ * are used by {@link org.openfast.codec.FastDecoder} whenever tracing is disabled.  Register a compiler as a listener on
+ * a {@link TemplateRegistry} to compile templates as they are registered, or call {@link #compile(TemplateRegistry)}.
+ * </p>
+ * <p>
+ * Templates are compiled for encoding in the same way.  The compiled encoder, installed with
+ * {@link MessageTemplate#setCompiledEncoder(TemplateEncoder)}, writes messages straight into a
+ * {@link java.nio.ByteBuffer} for {@link org.openfast.codec.FastEncoder#encode(org.openfast.Message, java.nio.ByteBuffer)},
+ * and reads the primitives of a {@link FlyweightMessage} directly for
+ * {@link org.openfast.codec.FastEncoder#encode(FlyweightMessage, java.nio.ByteBuffer)}.
+ * </p>
+ */
+public class TemplateCompiler implements TemplateRegisteredListener {
+    public static final TemplateCompiler DEFAULT = new TemplateCompiler();
+
+    /**
+     * Builds a decoder for the template without installing it.
+     * 
+     * @param template
+     *            the template to compile
+     * @return a decoder equivalent to {@link MessageTemplate#decode}
+     */
+    public TemplateDecoder compile(MessageTemplate template) {
+        SlotList entries = new SlotList();
+        return new CompiledTemplate(template, entries, compileFields(template, 1, template, entries));
+    }
+
+    /**
+     * Builds an encoder for the template without installing it.
+     * 
+     * @param template
+     *            the template to compile
+     * @return an encoder equivalent to {@link MessageTemplate#encode(org.openfast.Message, org.openfast.Context)}
+     */
+    public TemplateEncoder compileEncoder(MessageTemplate template) {
+        SlotList entries = new SlotList();
+        return new CompiledTemplateEncoder(template, entries, compileGroupEncoder(template, false, template, entries));
+    }
+
+    /**
+     * Compiles and installs decoders and encoders for every template registered with the registry.
+     * 
+     * @param registry
+     *            the registry containing the templates to compile
+     */
+    public void compile(TemplateRegistry registry) {
+        MessageTemplate[] templates = registry.getTemplates();
+        for (int i = 0; i < templates.length; i++) {
+            templates[i].setCompiledDecoder(compile(templates[i]));
+            templates[i].setCompiledEncoder(compileEncoder(templates[i]));
+        }
+    }
+
+    public void templateRegistered(MessageTemplate template, int templateId) {
+        if (template.getCompiledDecoder() == null)
+            template.setCompiledDecoder(compile(template));
+        if (template.getCompiledEncoder() == null)
+            template.setCompiledEncoder(compileEncoder(template));
+    }
+
+    private FieldDecoder[] compileFields(Group group, int start, Group scope, SlotList entries) {
+        FieldDecoder[] decoders = new FieldDecoder[group.getFieldCount() - start];
+        for (int i = start; i < group.getFieldCount(); i++) {
+            Field field = group.getField(i);
+            decoders[i - start] = compileField(field, (field.getTemplate() != null) ? field.getTemplate() : scope, entries);
+        }
+        return decoders;
+    }
+
+    /**
+     * Only the exact library classes are specialized since subclasses may override decode.
+     */
+    private FieldDecoder compileField(Field field, Group scope, SlotList entries) {
+        Class fieldClass = field.getClass();
+        if (fieldClass == Scalar.class) {
+            ScalarDecoder decoder = ScalarDecoder.create((Scalar) field, entry((Scalar) field, scope, entries));
+            if (IntegerDecoder.accepts((Scalar) field))
+                return new IntegerDecoder(decoder);
+            if (DecimalDecoder.accepts((Scalar) field))
+                return new DecimalDecoder(decoder);
+            if (BytesDecoder.accepts((Scalar) field))
+                return new BytesDecoder(decoder);
+            if (StringDeltaDecoder.accepts((Scalar) field))
+                return new StringDeltaDecoder(decoder);
+            return decoder;
+        }
+        if (fieldClass == ComposedScalar.class && ComposedDecimalDecoder.accepts((ComposedScalar) field)) {
+            Scalar[] fields = ((ComposedScalar) field).getFields();
+            return new ComposedDecimalDecoder(new IntegerDecoder(ScalarDecoder.create(fields[0], entry(fields[0], scope, entries))),
+                    new IntegerDecoder(ScalarDecoder.create(fields[1], entry(fields[1], scope, entries))));
+        }
+        if (fieldClass == Group.class) {
+            Group group = (Group) field;
+            return new GroupDecoder(group, group.usesPresenceMapBit(), compileFields(group, 0, scope, entries));
+        }
+        if (fieldClass == Sequence.class) {
+            Sequence sequence = (Sequence) field;
+            Group group = sequence.getGroup();
+            FieldDecoder length = compileField(sequence.getLength(), scope, entries);
+            return new SequenceDecoder(sequence, length, new GroupDecoder(group, false, compileFields(group, 0, scope, entries)));
+        }
+        return new InterpretedFieldDecoder(field, scope);
+    }
+
+    private GroupEncoder compileGroupEncoder(Group group, boolean usesPresenceMapBit, Group scope, SlotList entries) {
+        FieldEncoder[] encoders = new FieldEncoder[group.getFieldCount()];
+        int presenceMapBits = 0;
+        for (int i = 0; i < group.getFieldCount(); i++) {
+            Field field = group.getField(i);
+            encoders[i] = compileEncoderField(field, (field.getTemplate() != null) ? field.getTemplate() : scope, entries);
+            presenceMapBits += presenceMapBits(field);
+        }
+        return new GroupEncoder(group, usesPresenceMapBit, presenceMapBits, encoders);
+    }
+
+    private FieldEncoder compileEncoderField(Field field, Group scope, SlotList entries) {
+        Class fieldClass = field.getClass();
+        if (fieldClass == Scalar.class) {
+            ScalarEncoder encoder = new ScalarEncoder((Scalar) field, entry((Scalar) field, scope, entries));
+            if (IntegerEncoder.accepts((Scalar) field))
+                return new IntegerEncoder(encoder);
+            if (DecimalEncoder.accepts((Scalar) field))
+                return new DecimalEncoder(encoder);
+            if (BytesEncoder.accepts((Scalar) field))
+                return new BytesEncoder(encoder);
+            if (StringDeltaEncoder.accepts((Scalar) field))
+                return new StringDeltaEncoder(encoder);
+            return encoder;
+        }
+        if (fieldClass == ComposedScalar.class && ComposedDecimalEncoder.accepts((ComposedScalar) field)) {
+            Scalar[] fields = ((ComposedScalar) field).getFields();
+            return new ComposedDecimalEncoder(new IntegerEncoder(new ScalarEncoder(fields[0], entry(fields[0], scope, entries))), new IntegerEncoder(
+                    new ScalarEncoder(fields[1], entry(fields[1], scope, entries))));
+        }
+        if (fieldClass == Group.class) {
+            Group group = (Group) field;
+            return compileGroupEncoder(group, group.usesPresenceMapBit(), scope, entries);
+        }
+        if (fieldClass == Sequence.class) {
+            Sequence sequence = (Sequence) field;
+            return new SequenceEncoder(compileEncoderField(sequence.getLength(), scope, entries), compileGroupEncoder(sequence.getGroup(),
+                    false, scope, entries));
+        }
+        return new InterpretedFieldEncoder(field, scope);
+    }
+
+    private static int entry(Scalar scalar, Group scope, SlotList entries) {
+        return entries.add(scalar.getDictionary(), scope, scalar.getKey());
+    }
+
+    /**
+     * @return the most bits the field can take in the presence map of its group
+     */
+    private static int presenceMapBits(Field field) {
+        if (field instanceof ComposedScalar) {
+            Scalar[] fields = ((ComposedScalar) field).getFields();
+            int bits = 0;
+            for (int i = 0; i < fields.length; i++)
+                if (fields[i].usesPresenceMapBit())
+                    bits++;
+            return bits;
+        }
+        return field.usesPresenceMapBit() ? 1 : 0;
+    }
+}
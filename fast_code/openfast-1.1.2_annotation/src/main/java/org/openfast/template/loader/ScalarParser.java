@@ -21,10 +21,13 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast.template.loader;
 
 import org.openfast.QName;
+import org.openfast.error.FastConstants;
 import org.openfast.template.Field;
 import org.openfast.template.Scalar;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.InternedString;
+import org.openfast.template.type.codec.SymbolCache;
 import org.openfast.util.Util;
 import org.w3c.dom.Element;
 
@@ -73,10 +76,51 @@ public class ScalarParser extends AbstractFieldParser {
         if (key != null)
             scalar.setKey(new QName(key, ns));
         scalar.setDictionary(context.getDictionary());
+        if (fieldNode.hasAttribute("intern"))
+            parseSymbolCache(fieldNode.getAttribute("intern"), scalar, context);
+        if (fieldNode.hasAttribute("precision"))
+            parsePrecision(fieldNode.getAttribute("precision"), scalar, context);
         parseExternalAttributes(fieldNode, scalar);
         return scalar;
     }
 
+    /**
+     * Parses the intern attribute, which is either "true", "false" or the
+     * number of symbols to cache.
+     */
+    protected void parseSymbolCache(String intern, Scalar scalar, ParsingContext context) {
+        if ("false".equals(intern))
+            return;
+        if (!InternedString.canIntern(scalar.getTypeCodec())) {
+            context.getErrorHandler().error(FastConstants.PARSE_ERROR,
+                    "The field " + scalar.getName() + " is not an ASCII string and cannot be interned.");
+            return;
+        }
+        if ("true".equals(intern)) {
+            scalar.setSymbolCache(new SymbolCache());
+            return;
+        }
+        try {
+            scalar.setSymbolCache(new SymbolCache(Integer.parseInt(intern)));
+        } catch (IllegalArgumentException e) {
+            context.getErrorHandler().error(FastConstants.PARSE_ERROR,
+                    "The intern attribute of " + scalar.getName() + " must be true, false or a capacity of at least 2: " + intern);
+        }
+    }
+
+    /**
+     * Parses the precision attribute of an integer field, the number of
+     * decimal places of the fixed point number it holds.
+     */
+    protected void parsePrecision(String precision, Scalar scalar, ParsingContext context) {
+        try {
+            scalar.setPrecision(Integer.parseInt(precision));
+        } catch (IllegalArgumentException e) {
+            context.getErrorHandler().error(FastConstants.PARSE_ERROR,
+                    "The precision of " + scalar.getName() + " must be a number of decimal places of an integer field: " + precision);
+        }
+    }
+
     protected QName getName(Element fieldNode, ParsingContext context) {
         return context.getName();
     }
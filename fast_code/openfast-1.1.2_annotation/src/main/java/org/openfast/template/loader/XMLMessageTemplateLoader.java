@@ -36,6 +36,7 @@ import org.openfast.error.FastException;
 import org.openfast.template.BasicTemplateRegistry;
 import org.openfast.template.MessageTemplate;
 import org.openfast.template.TemplateRegistry;
+import org.openfast.template.compiler.TemplateCompiler;
 import org.openfast.template.type.Type;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -62,6 +63,8 @@ public class XMLMessageTemplateLoader implements MessageTemplateLoader {
 
     private boolean loadTemplateIdFromAuxId;
 
+    private boolean compileTemplates;
+
     public XMLMessageTemplateLoader() {
         this(false);
     }
@@ -109,7 +112,7 @@ public class XMLMessageTemplateLoader implements MessageTemplateLoader {
         TemplateParser templateParser = new TemplateParser(loadTemplateIdFromAuxId);
 
         if (root.getNodeName().equals("template")) {
-            return new MessageTemplate[] { (MessageTemplate) templateParser.parse(root, initialContext) };
+            return compile(new MessageTemplate[] { (MessageTemplate) templateParser.parse(root, initialContext) });
         } else if (root.getNodeName().equals("templates")) {
             ParsingContext context = new ParsingContext(root, initialContext);
 
@@ -133,7 +136,7 @@ public class XMLMessageTemplateLoader implements MessageTemplateLoader {
                 }
                 previousNumberOfTemplatesLeft = templatesToLoad;
             }
-            return templates;
+            return compile(templates);
         } else {
             initialContext.getErrorHandler().error(FastConstants.S1_INVALID_XML,
                     "Invalid root node " + root.getNodeName() + ", \"template\" or \"templates\" expected.");
@@ -141,6 +144,17 @@ public class XMLMessageTemplateLoader implements MessageTemplateLoader {
         }
     }
 
+    private MessageTemplate[] compile(MessageTemplate[] templates) {
+        if (compileTemplates) {
+            for (int i = 0; i < templates.length; i++)
+                if (templates[i] != null) {
+                    templates[i].setCompiledDecoder(TemplateCompiler.DEFAULT.compile(templates[i]));
+                    templates[i].setCompiledEncoder(TemplateCompiler.DEFAULT.compileEncoder(templates[i]));
+                }
+        }
+        return templates;
+    }
+
     /**
      * Parse an XML file from an inputStream, returns a DOM org.w3c.dom.Document
      * object.
@@ -209,4 +223,16 @@ public class XMLMessageTemplateLoader implements MessageTemplateLoader {
     public void setLoadTemplateIdFromAuxId(boolean loadTempalteIdFromAuxId) {
         this.loadTemplateIdFromAuxId = loadTempalteIdFromAuxId;
     }
+
+    /**
+     * When enabled, each loaded template gets a specialized decoder and encoder
+     * built by {@link TemplateCompiler} instead of being interpreted field by
+     * field.
+     * 
+     * @param compileTemplates
+     *            true to compile templates as they are loaded
+     */
+    public void setCompileTemplates(boolean compileTemplates) {
+        this.compileTemplates = compileTemplates;
+    }
 }
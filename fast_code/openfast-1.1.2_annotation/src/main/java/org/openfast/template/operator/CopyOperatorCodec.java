@@ -95,6 +95,18 @@ public class CopyOperatorCodec extends OptionallyPresentOperatorCodec {
         return newValue;
     }
 
+    public boolean hasPrimitiveCounterparts() {
+        return true;
+    }
+
+    public long decodeValue(long newValue, long priorValue, Scalar field) {
+        return newValue;
+    }
+
+    public long decodeEmptyValue(long priorValue, Scalar field) {
+        return priorValue;
+    }
+
     public boolean equals(Object obj) {
         return obj != null && obj.getClass() == getClass();
     }
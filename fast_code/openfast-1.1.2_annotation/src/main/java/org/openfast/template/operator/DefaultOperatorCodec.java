@@ -59,6 +59,21 @@ final class DefaultOperatorCodec extends OperatorCodec {
         return field.getDefaultValue();
     }
 
+    public boolean hasPrimitiveCounterparts() {
+        return true;
+    }
+
+    public long decodeValue(long newValue, long priorValue, Scalar field) {
+        return newValue;
+    }
+
+    /**
+     * Only called for fields with an initial value; an absent field without one is null.
+     */
+    public long decodeEmptyValue(long priorValue, Scalar field) {
+        return field.getDefaultValue().toLong();
+    }
+
     public boolean equals(Object obj) {
         return obj != null && obj.getClass() == getClass();
     }
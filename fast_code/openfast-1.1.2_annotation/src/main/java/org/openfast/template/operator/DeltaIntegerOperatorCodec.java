@@ -95,6 +95,18 @@ final class DeltaIntegerOperatorCodec extends AlwaysPresentOperatorCodec {
         return previousValue;
     }
 
+    public boolean hasPrimitiveCounterparts() {
+        return true;
+    }
+
+    public long decodeValue(long newValue, long priorValue, Scalar field) {
+        return newValue + priorValue;
+    }
+
+    public long decodeEmptyValue(long priorValue, Scalar field) {
+        return priorValue;
+    }
+
     public boolean equals(Object obj) {
         return obj != null && obj.getClass() == getClass();
     }
@@ -70,11 +70,12 @@ final class DeltaStringOperatorCodec extends AlwaysPresentOperatorCodec {
         }
         TwinValue diffValue = (TwinValue) newValue;
         ScalarValue base = (previousValue.isUndefined()) ? field.getBaseValue() : previousValue;
-        if (diffValue.first.toInt() > base.toString().length()) {
+        byte[] baseBytes = base.getBytes();
+        if (diffValue.first.toInt() > baseBytes.length) {
             Global.handleError(FastConstants.D7_SUBTRCTN_LEN_LONG, "The string diff <" + diffValue
                     + "> cannot be applied to the base value \"" + base + "\" because the subtraction length is too long.");
         }
-        byte[] bytes = Util.applyDifference(base, diffValue);
+        byte[] bytes = Util.applyDifference(baseBytes, diffValue);
         return field.getType().getValue(bytes);
     }
 
@@ -89,6 +89,15 @@ final class IncrementIntegerOperatorCodec extends OperatorCodec {
         //前值不为空且不是未定义,字段值为前值加1
         return ((NumericValue) previousValue).increment();
     }
+    public boolean hasPrimitiveCounterparts() {
+        return true;
+    }
+    public long decodeValue(long newValue, long priorValue, Scalar field) {
+        return newValue;
+    }
+    public long decodeEmptyValue(long priorValue, Scalar field) {
+        return priorValue + 1;
+    }
     public boolean equals(Object obj) {
         return obj != null && obj.getClass() == getClass();
     }
@@ -50,6 +50,14 @@ final class NoneOperatorCodec extends AlwaysPresentOperatorCodec {
         throw new IllegalStateException("This method should never be called.");
     }
 
+    public boolean hasPrimitiveCounterparts() {
+        return true;
+    }
+
+    public long decodeValue(long newValue, long priorValue, Scalar field) {
+        return newValue;
+    }
+
     public boolean equals(Object obj) {
         return obj != null && obj.getClass() == getClass();
     }
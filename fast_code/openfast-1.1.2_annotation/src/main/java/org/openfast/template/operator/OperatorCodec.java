@@ -132,6 +132,31 @@ public abstract class OperatorCodec implements Serializable {
         return valueToEncode;
     }
 
+    /**
+     * Whether integer fields using this operator can be decoded with the primitive counterparts of
+     * {@link #decodeValue(ScalarValue, ScalarValue, Scalar)} and {@link #decodeEmptyValue(ScalarValue, Scalar)}.
+     */
+    public boolean hasPrimitiveCounterparts() {
+        return false;
+    }
+
+    /**
+     * Primitive counterpart of {@link #decodeValue(ScalarValue, ScalarValue, Scalar)} for integer fields.  It is only
+     * called when the value read from the stream is not null and the previous value, for operators that use one, is an
+     * assigned integer; every other case goes through the value based methods.
+     */
+    public long decodeValue(long newValue, long priorValue, Scalar field) {
+        throw new UnsupportedOperationException("The operator " + operator + " has no primitive counterpart.");
+    }
+
+    /**
+     * Primitive counterpart of {@link #decodeEmptyValue(ScalarValue, Scalar)} for integer fields, under the same
+     * conditions as {@link #decodeValue(long, long, Scalar)}.
+     */
+    public long decodeEmptyValue(long priorValue, Scalar field) {
+        throw new UnsupportedOperationException("The operator " + operator + " has no primitive counterpart.");
+    }
+
     public Operator getOperator() {
         return operator;
     }
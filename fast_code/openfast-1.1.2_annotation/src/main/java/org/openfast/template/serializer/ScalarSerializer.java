@@ -29,6 +29,10 @@ public class ScalarSerializer extends AbstractFieldSerializer implements FieldSe
         String nodeName = getNodeName(scalar);
         writer.start(nodeName);
         writeCommonAttributes(writer, field, context);
+        if (scalar.getSymbolCache() != null)
+            writer.addAttribute("intern", String.valueOf(scalar.getSymbolCache().getCapacity()));
+        if (scalar.getPrecision() > 0)
+            writer.addAttribute("precision", String.valueOf(scalar.getPrecision()));
         return scalar;
     }
 
@@ -84,7 +84,13 @@ public abstract class IntegerType extends SimpleType {
     public void validateValue(ScalarValue value) {
         if (value == null || value.isUndefined())
             return;
-        if (value.toLong() > maxValue || value.toLong() < minValue) {
+        validateValue(value.toLong());
+    }
+    /**
+     * Validates a value decoded without creating a ScalarValue.
+     */
+    public void validateValue(long value) {
+        if (value > maxValue || value < minValue) {
             Global.handleError(FastConstants.D2_INT_OUT_OF_RANGE, "The value " + value + " is out of range for type " + this);
         }
     }
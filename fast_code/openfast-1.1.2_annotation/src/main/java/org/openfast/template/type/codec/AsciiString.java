@@ -26,12 +26,14 @@ package org.openfast.template.type.codec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.openfast.ByteUtil;
 import org.openfast.Global;
 import org.openfast.ScalarValue;
 import org.openfast.StringValue;
 import org.openfast.error.FastConstants;
+import org.openfast.util.ByteBufferInputStream;
 
 final class AsciiString extends TypeCodec {
     private static final long serialVersionUID = 1L;
@@ -61,6 +63,60 @@ final class AsciiString extends TypeCodec {
         return string.getBytes();
     }
 
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        if ((value == null) || value.isNull()) {
+            throw new IllegalStateException("Only nullable strings can represent null values.");
+        }
+        String string = value.toString();
+        if (string.length() == 0) {
+            buffer.put(STOP_BIT);
+        } else if (string.charAt(0) == 0) {
+            buffer.put((byte) 0);
+            buffer.put(STOP_BIT);
+        } else if (!putAscii(string, buffer)) {
+            super.encode(value, buffer);
+        }
+    }
+
+    public void encodeBytes(ByteRange value, ByteBuffer buffer) {
+        if (value.length() == 0) {
+            buffer.put(STOP_BIT);
+        } else if (value.byteAt(0) == 0) {
+            buffer.put((byte) 0);
+            buffer.put(STOP_BIT);
+        } else {
+            putAscii(value, buffer);
+        }
+    }
+
+    /**
+     * Writes the characters of a non empty range, setting the stop bit on the
+     * last one.
+     */
+    static void putAscii(ByteRange value, ByteBuffer buffer) {
+        int last = value.length() - 1;
+        buffer.put(value.getArray(), value.getOffset(), last);
+        buffer.put((byte) (value.byteAt(last) | 0x80));
+    }
+
+    /**
+     * Writes the characters of a non empty string, setting the stop bit on the
+     * last one.
+     * 
+     * @return false, leaving the buffer untouched, if the string has characters
+     *         outside of ASCII
+     */
+    static boolean putAscii(String string, ByteBuffer buffer) {
+        int length = string.length();
+        for (int i = 0; i < length; i++)
+            if (string.charAt(i) > 0x7f)
+                return false;
+        for (int i = 0; i < length - 1; i++)
+            buffer.put((byte) string.charAt(i));
+        buffer.put((byte) (string.charAt(length - 1) | 0x80));
+        return true;
+    }
+
     /**
      * Reads in a stream of data and stores it to a StringValue object
      * 
@@ -69,6 +125,8 @@ final class AsciiString extends TypeCodec {
      * @return Returns a new StringValue object with the data stream as a String
      */
     public ScalarValue decode(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decode(((ByteBufferInputStream) in).getBuffer());
         int byt;
         ByteArrayOutputStream buffer = Global.getBuffer();
         try {
@@ -86,6 +144,31 @@ final class AsciiString extends TypeCodec {
         }
         byte[] bytes = buffer.toByteArray();
         bytes[bytes.length - 1] &= 0x7f;
+        return toStringValue(bytes);
+    }
+
+    /**
+     * Reads a string directly from the buffer, copying the encoded bytes
+     * once into the new String
+     * 
+     * @param buffer
+     *            The ByteBuffer to be decoded
+     * @return Returns a new StringValue object with the encoded bytes as a String
+     */
+    public ScalarValue decode(ByteBuffer buffer) {
+        int length = TypeCodec.stopBitEncodedLength(buffer);
+        if (length < 0) {
+            buffer.position(buffer.limit());
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return null; // short circuit if global error handler does not throw exception
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        bytes[length - 1] &= 0x7f;
+        return toStringValue(bytes);
+    }
+
+    private static ScalarValue toStringValue(byte[] bytes) {
         if (bytes[0] == 0) {
             if (!ByteUtil.isEmpty(bytes))
                 Global.handleError(FastConstants.R9_STRING_OVERLONG, null);
@@ -96,6 +179,28 @@ final class AsciiString extends TypeCodec {
         return new StringValue(new String(bytes));
     }
 
+    /**
+     * Decodes the string without creating a String; an empty string leaves an
+     * empty range.
+     */
+    public boolean decodeBytes(InputStream in, ByteRange range) {
+        if (!TypeCodec.readStopBitEncoded(in, range))
+            return false;
+        if (range.byteAt(0) == 0) {
+            checkEmpty(range);
+            range.truncate(0, (range.length() > 1) ? 1 : 0);
+        }
+        return true;
+    }
+
+    static void checkEmpty(ByteRange range) {
+        for (int i = 0; i < range.length(); i++)
+            if (range.byteAt(i) != 0) {
+                Global.handleError(FastConstants.R9_STRING_OVERLONG, null);
+                return;
+            }
+    }
+
     /**
      * @return Returns a new StringValue object with the passed value
      */
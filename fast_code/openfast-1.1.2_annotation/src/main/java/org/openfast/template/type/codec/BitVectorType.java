@@ -26,12 +26,15 @@ package org.openfast.template.type.codec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.openfast.BitVector;
+import org.openfast.BitVectorReader;
 import org.openfast.BitVectorValue;
 import org.openfast.Global;
 import org.openfast.ScalarValue;
 import org.openfast.error.FastConstants;
+import org.openfast.util.ByteBufferInputStream;
 
 public final class BitVectorType extends TypeCodec {
     private static final long serialVersionUID = 1L;
@@ -59,6 +62,8 @@ public final class BitVectorType extends TypeCodec {
      */
     @Override
     public ScalarValue decode(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decode(((ByteBufferInputStream) in).getBuffer());
         int byt;
         ByteArrayOutputStream buffer = Global.getBuffer();
         do {
@@ -81,6 +86,117 @@ public final class BitVectorType extends TypeCodec {
         return new BitVectorValue(new BitVector(buffer.toByteArray()));
     }
 
+    /**
+     * Reads a BitVector directly from the buffer
+     * 
+     * @param buffer
+     *            The ByteBuffer to be decoded
+     * @return Returns a new BitVector object, or null if the buffer has no
+     *         bytes remaining
+     */
+    @Override
+    public ScalarValue decode(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            // No more bytes encountered, assume this is the end of the message stream.
+            return null;
+        }
+        int length = TypeCodec.stopBitEncodedLength(buffer);
+        if (length < 0) {
+            buffer.position(buffer.limit());
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return null; // short circuit if global error handler does not throw exception
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new BitVectorValue(new BitVector(bytes));
+    }
+
+    /**
+     * Reads a presence map into a reusable reader without creating a
+     * BitVector, unless the presence map is longer than
+     * {@link BitVectorReader#MAX_PACKED_BYTES}.
+     * 
+     * @param in
+     *            The InputStream to be decoded
+     * @param reader
+     *            The reader to start on the presence map
+     * @return false if the end of the input was reached, in which case the
+     *         reader is left unchanged
+     */
+    public static boolean decodePresenceMap(InputStream in, BitVectorReader reader) {
+        if (in instanceof ByteBufferInputStream)
+            return decodePresenceMap(((ByteBufferInputStream) in).getBuffer(), reader);
+        long bits = 0;
+        int count = 0;
+        int byt;
+        do {
+            try {
+                byt = in.read();
+            } catch (IOException e) {
+                Global.handleError(FastConstants.IO_ERROR, "A IO error has been encountered while decoding.", e);
+                return false;
+            }
+            if (byt < 0) {
+                if (count == 0)
+                    return false;
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return false;
+            }
+            if (count == BitVectorReader.MAX_PACKED_BYTES)
+                return decodeLongPresenceMap(in, bits, byt, reader);
+            bits |= BitVectorReader.pack(byt, count++);
+        } while ((byt & 0x80) == 0);
+        reader.reset(bits, count, (count > 1) && ((byt & 0x7f) == 0));
+        return true;
+    }
+
+    private static boolean decodePresenceMap(ByteBuffer buffer, BitVectorReader reader) {
+        if (!buffer.hasRemaining())
+            return false;
+        int position = buffer.position();
+        long bits = 0;
+        int count = 0;
+        int byt;
+        do {
+            if (position + count == buffer.limit()) {
+                buffer.position(buffer.limit());
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return false;
+            }
+            byt = buffer.get(position + count);
+            if (count == BitVectorReader.MAX_PACKED_BYTES) {
+                reader.reset(((BitVectorValue) BIT_VECTOR.decode(buffer)).value);
+                return true;
+            }
+            bits |= BitVectorReader.pack(byt, count++);
+        } while ((byt & 0x80) == 0);
+        buffer.position(position + count);
+        reader.reset(bits, count, (count > 1) && ((byt & 0x7f) == 0));
+        return true;
+    }
+
+    private static boolean decodeLongPresenceMap(InputStream in, long bits, int byt, BitVectorReader reader) {
+        ByteArrayOutputStream buffer = Global.getBuffer();
+        for (int i = 0; i < BitVectorReader.MAX_PACKED_BYTES; i++)
+            buffer.write((int) (bits >>> (57 - 7 * i)) & 0x7f);
+        buffer.write(byt);
+        while ((byt & 0x80) == 0) {
+            try {
+                byt = in.read();
+            } catch (IOException e) {
+                Global.handleError(FastConstants.IO_ERROR, "A IO error has been encountered while decoding.", e);
+                return false;
+            }
+            if (byt < 0) {
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return false;
+            }
+            buffer.write(byt);
+        }
+        reader.reset(new BitVector(buffer.toByteArray()));
+        return true;
+    }
+
     /**
      * 
      * @return Returns null
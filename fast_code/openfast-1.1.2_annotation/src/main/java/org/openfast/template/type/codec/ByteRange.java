@@ -0,0 +1,195 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.type.codec;
+
+/**
+ * A reusable view of the bytes of a decoded string or byte vector.  When decoding from a heap ByteBuffer the range
+ * points straight into the buffer's array and is only valid until that array is reused; otherwise the bytes are copied
+ * into storage owned by the range, which grows to the longest value seen and is then reused.  Creating a String is an
+ * explicit step, {@link #toString()}.
+ * <p>
+ * ASCII strings are decoded in place, so the last byte still carries the stop bit; every accessor masks it off.
+ * </p>
+ */
+public final class ByteRange implements CharSequence {
+    private byte[] array;
+    private int offset;
+    private int length;
+    private int mask = 0xff;
+    private byte[] storage;
+
+    public ByteRange() {
+        this(32);
+    }
+
+    public ByteRange(int capacity) {
+        this.storage = new byte[capacity];
+        this.array = storage;
+    }
+
+    /**
+     * Points the range at a region of an array.
+     */
+    public void wrap(byte[] array, int offset, int length) {
+        wrap(array, offset, length, 0xff);
+    }
+
+    /**
+     * Points the range at stop bit encoded ASCII characters.
+     */
+    void wrapAscii(byte[] array, int offset, int length) {
+        wrap(array, offset, length, 0x7f);
+    }
+
+    private void wrap(byte[] array, int offset, int length, int mask) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+        this.mask = mask;
+    }
+
+    /**
+     * Points the range at its own storage, grown to at least the given length while keeping its contents, to be filled
+     * by the caller.
+     * 
+     * @return the storage
+     */
+    byte[] reserve(int length) {
+        if (storage.length < length) {
+            byte[] grown = new byte[Math.max(length, storage.length * 2)];
+            System.arraycopy(storage, 0, grown, 0, storage.length);
+            storage = grown;
+        }
+        wrap(storage, 0, length, 0xff);
+        return storage;
+    }
+
+    /**
+     * Copies the bytes into storage owned by the range.
+     */
+    public void copy(byte[] bytes, int offset, int length) {
+        System.arraycopy(bytes, offset, reserve(length), 0, length);
+    }
+
+    /**
+     * Drops leading bytes, for instance the zero byte that prefixes an empty ASCII string.
+     */
+    void truncate(int start, int newLength) {
+        this.offset += start;
+        this.length = newLength;
+    }
+
+    /**
+     * Makes {@link #getArray()} hold the bytes as they are read through {@link #byteAt(int)}.  A range over stop bit
+     * encoded characters still in the input has the stop bit set on its last byte, so its bytes are copied into storage
+     * owned by the range and the stop bit is cleared there, leaving the input untouched.
+     */
+    public void unmask() {
+        if (mask == 0xff)
+            return;
+        byte[] source = array;
+        int sourceOffset = offset;
+        int sourceLength = length;
+        byte[] bytes = reserve(sourceLength);
+        System.arraycopy(source, sourceOffset, bytes, 0, sourceLength);
+        if (sourceLength > 0)
+            bytes[sourceLength - 1] &= 0x7f;
+    }
+
+    public byte[] getArray() {
+        return array;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int byteAt(int index) {
+        return array[offset + index] & mask;
+    }
+
+    public char charAt(int index) {
+        return (char) byteAt(index);
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /**
+     * Copies the bytes of the range into the destination array.
+     * 
+     * @return the number of bytes copied
+     */
+    public int copyTo(byte[] destination, int destinationOffset) {
+        System.arraycopy(array, offset, destination, destinationOffset, length);
+        if (mask != 0xff && length > 0)
+            destination[destinationOffset + length - 1] &= mask;
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * @return true if the range holds exactly the given bytes
+     */
+    public boolean contentEquals(byte[] bytes, int bytesOffset, int bytesLength) {
+        if (bytesLength != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if ((bytes[bytesOffset + i] & 0xff) != byteAt(i))
+                return false;
+        return true;
+    }
+
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + byteAt(i);
+        return hash;
+    }
+
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+        if (!(obj instanceof ByteRange))
+            return false;
+        ByteRange other = (ByteRange) obj;
+        if (other.length != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (other.byteAt(i) != byteAt(i))
+                return false;
+        return true;
+    }
+
+    public String toString() {
+        return new String(toByteArray());
+    }
+}
@@ -25,6 +25,7 @@ package org.openfast.template.type.codec;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.openfast.ByteVectorValue;
 import org.openfast.Global;
@@ -32,6 +33,7 @@ import org.openfast.IntegerValue;
 import org.openfast.ScalarValue;
 import org.openfast.error.FastConstants;
 import org.openfast.error.FastException;
+import org.openfast.util.ByteBufferInputStream;
 
 final class ByteVectorType extends TypeCodec {
     private static final long serialVersionUID = 1L;
@@ -53,6 +55,17 @@ final class ByteVectorType extends TypeCodec {
         System.arraycopy(bytes, 0, encoding, lengthSize, bytes.length);
         return encoding;
     }
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        byte[] bytes = value.getBytes();
+        IntegerCodec.putUnsigned(bytes.length, buffer);
+        buffer.put(bytes);
+    }
+
+    public void encodeBytes(ByteRange value, ByteBuffer buffer) {
+        IntegerCodec.putUnsigned(value.length(), buffer);
+        buffer.put(value.getArray(), value.getOffset(), value.length());
+    }
+
     /**
      * Reads in a stream of data and stores it to a ByteVectorValue object
      * 
@@ -62,6 +75,8 @@ final class ByteVectorType extends TypeCodec {
      *         array
      */
     public ScalarValue decode(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decode(((ByteBufferInputStream) in).getBuffer());
         int length = ((IntegerValue) TypeCodec.UINT.decode(in)).value;
         byte[] encoding = new byte[length];
         for (int i = 0; i < length; i++)
@@ -78,6 +93,30 @@ final class ByteVectorType extends TypeCodec {
             }
         return new ByteVectorValue(encoding);
     }
+    /**
+     * Reads a byte vector directly from the buffer with a single bulk copy
+     * 
+     * @param buffer
+     *            The ByteBuffer to be decoded
+     * @return Returns a new ByteVectorValue object with the encoded bytes
+     */
+    public ScalarValue decode(ByteBuffer buffer) {
+        int length = ((IntegerValue) TypeCodec.UINT.decode(buffer)).value;
+        if (buffer.remaining() < length) {
+            buffer.position(buffer.limit());
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return null; // short circuit if global error handler does not throw exception
+        }
+        byte[] encoding = new byte[length];
+        buffer.get(encoding);
+        return new ByteVectorValue(encoding);
+    }
+    /**
+     * Decodes the byte vector without creating a value object.
+     */
+    public boolean decodeBytes(InputStream in, ByteRange range) {
+        return TypeCodec.readBytes(in, (int) TypeCodec.UINT.decodeLong(in), range);
+    }
     public byte[] encodeValue(ScalarValue value) {
         throw new UnsupportedOperationException();
     }
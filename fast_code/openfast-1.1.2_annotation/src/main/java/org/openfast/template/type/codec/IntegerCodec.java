@@ -20,6 +20,8 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
  */
 package org.openfast.template.type.codec;
 
+import java.nio.ByteBuffer;
+
 import org.openfast.IntegerValue;
 import org.openfast.ScalarValue;
 import org.openfast.template.LongValue;
@@ -56,25 +58,25 @@ public abstract class IntegerCodec extends TypeCodec {
         if (value < 128) {
             return 1; // 2 ^ 7
         }
-        if (value <= 16384) {
+        if (value < 16384) {
             return 2; // 2 ^ 14
         }
-        if (value <= 2097152) {
+        if (value < 2097152) {
             return 3; // 2 ^ 21
         }
-        if (value <= 268435456) {
+        if (value < 268435456) {
             return 4; // 2 ^ 28
         }
-        if (value <= 34359738368L) {
+        if (value < 34359738368L) {
             return 5; // 2 ^ 35
         }
-        if (value <= 4398046511104L) {
+        if (value < 4398046511104L) {
             return 6; // 2 ^ 42
         }
-        if (value <= 562949953421312L) {
+        if (value < 562949953421312L) {
             return 7; // 2 ^ 49
         }
-        if (value <= 72057594037927936L) {
+        if (value < 72057594037927936L) {
             return 8; // 2 ^ 56
         }
         return 9;
@@ -118,6 +120,34 @@ public abstract class IntegerCodec extends TypeCodec {
         return 10;
     }
 
+    /**
+     * Writes the stop bit encoding of an unsigned integer at the buffer's
+     * position.
+     */
+    static void putUnsigned(long value, ByteBuffer buffer) {
+        for (int shift = 7 * (getUnsignedIntegerSize(value) - 1); shift > 0; shift -= 7)
+            buffer.put((byte) ((value >> shift) & 0x7f));
+        buffer.put((byte) ((value & 0x7f) | 0x80));
+    }
+
+    /**
+     * Writes the stop bit encoding of a signed integer at the buffer's
+     * position.
+     */
+    static void putSigned(long value, ByteBuffer buffer) {
+        int shift = 7 * (getSignedIntegerSize(value) - 1);
+        // the first byte carries the sign bit, 01000000
+        int first = (int) (((value >> shift) & 0x3f) | (0x40 & (value >> 57)));
+        if (shift == 0) {
+            buffer.put((byte) (first | 0x80));
+            return;
+        }
+        buffer.put((byte) first);
+        for (shift -= 7; shift > 0; shift -= 7)
+            buffer.put((byte) ((value >> shift) & 0x7f));
+        buffer.put((byte) ((value & 0x7f) | 0x80));
+    }
+
     public boolean equals(Object obj) {
         return obj != null && obj.getClass() == getClass();
     }
@@ -0,0 +1,101 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.type.codec;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.openfast.ScalarValue;
+
+/**
+ * Decodes ASCII strings through a {@link SymbolCache}.  The bytes are read into a per thread {@link ByteRange}, so a
+ * symbol that is already cached is decoded without creating anything; encoding is left to the wrapped codec.
+ */
+public final class InternedString extends TypeCodec {
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal RANGES = new ThreadLocal() {
+        protected Object initialValue() {
+            return new ByteRange();
+        }
+    };
+
+    private final TypeCodec codec;
+    private final SymbolCache cache;
+
+    /**
+     * @param codec
+     *            {@link TypeCodec#ASCII} or {@link TypeCodec#NULLABLE_ASCII}
+     */
+    public InternedString(TypeCodec codec, SymbolCache cache) {
+        if (!canIntern(codec))
+            throw new IllegalArgumentException("Only ASCII strings can be interned.");
+        this.codec = codec;
+        this.cache = cache;
+    }
+
+    public static boolean canIntern(TypeCodec codec) {
+        return codec == TypeCodec.ASCII || codec == TypeCodec.NULLABLE_ASCII;
+    }
+
+    public TypeCodec getCodec() {
+        return codec;
+    }
+
+    public SymbolCache getCache() {
+        return cache;
+    }
+
+    public ScalarValue decode(InputStream in) {
+        ByteRange range = (ByteRange) RANGES.get();
+        if (!codec.decodeBytes(in, range))
+            return null;
+        return cache.intern(range);
+    }
+
+    public boolean decodeBytes(InputStream in, ByteRange range) {
+        return codec.decodeBytes(in, range);
+    }
+
+    public byte[] encodeValue(ScalarValue value) {
+        return codec.encodeValue(value);
+    }
+
+    public byte[] encode(ScalarValue value) {
+        return codec.encode(value);
+    }
+
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        codec.encode(value, buffer);
+    }
+
+    public void encodeBytes(ByteRange value, ByteBuffer buffer) {
+        codec.encodeBytes(value, buffer);
+    }
+
+    public void encodeNull(ByteBuffer buffer) {
+        codec.encodeNull(buffer);
+    }
+
+    public boolean isNullable() {
+        return codec.isNullable();
+    }
+}
@@ -29,10 +29,12 @@ import org.openfast.ScalarValue;
 import org.openfast.StringValue;
 import org.openfast.error.FastConstants;
 import org.openfast.error.FastException;
+import org.openfast.util.ByteBufferInputStream;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 final class NullableAsciiString extends TypeCodec {
     private static final long serialVersionUID = 1L;
@@ -61,6 +63,41 @@ final class NullableAsciiString extends TypeCodec {
         return string.getBytes();
     }
 
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        if (value.isNull()) {
+            buffer.put(STOP_BIT);
+            return;
+        }
+        String string = ((StringValue) value).value;
+        if (string.length() == 0) {
+            buffer.put((byte) 0);
+            buffer.put(STOP_BIT);
+        } else if (string.charAt(0) == 0) {
+            buffer.put((byte) 0);
+            buffer.put((byte) 0);
+            buffer.put(STOP_BIT);
+        } else if (!AsciiString.putAscii(string, buffer)) {
+            super.encode(value, buffer);
+        }
+    }
+
+    public void encodeBytes(ByteRange value, ByteBuffer buffer) {
+        if (value.length() == 0) {
+            buffer.put((byte) 0);
+            buffer.put(STOP_BIT);
+        } else if (value.byteAt(0) == 0) {
+            buffer.put((byte) 0);
+            buffer.put((byte) 0);
+            buffer.put(STOP_BIT);
+        } else {
+            AsciiString.putAscii(value, buffer);
+        }
+    }
+
+    public void encodeNull(ByteBuffer buffer) {
+        buffer.put(STOP_BIT);
+    }
+
     /**
      * Reads in a stream of data and stores it to a StringValue object
      * 
@@ -69,6 +106,8 @@ final class NullableAsciiString extends TypeCodec {
      * @return Returns a new StringValue object with the data stream as a String
      */
     public ScalarValue decode(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decode(((ByteBufferInputStream) in).getBuffer());
         int byt;
         ByteArrayOutputStream buffer = Global.getBuffer();
         try {
@@ -86,6 +125,31 @@ final class NullableAsciiString extends TypeCodec {
         }
         byte[] bytes = buffer.toByteArray();
         bytes[bytes.length - 1] &= 0x7f;
+        return toStringValue(bytes);
+    }
+
+    /**
+     * Reads a nullable string directly from the buffer, copying the encoded
+     * bytes once into the new String
+     * 
+     * @param buffer
+     *            The ByteBuffer to be decoded
+     * @return Returns a new StringValue object, or null for the null encoding
+     */
+    public ScalarValue decode(ByteBuffer buffer) {
+        int length = TypeCodec.stopBitEncodedLength(buffer);
+        if (length < 0) {
+            buffer.position(buffer.limit());
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return null; // short circuit if global error handler does not throw exception
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        bytes[length - 1] &= 0x7f;
+        return toStringValue(bytes);
+    }
+
+    private static ScalarValue toStringValue(byte[] bytes) {
         if (bytes[0] == 0) {
             if (!ByteUtil.isEmpty(bytes))
                 Global.handleError(FastConstants.R9_STRING_OVERLONG, null);
@@ -100,6 +164,26 @@ final class NullableAsciiString extends TypeCodec {
         return new StringValue(new String(bytes));
     }
 
+    /**
+     * Decodes the string without creating a String; an empty string leaves an
+     * empty range.
+     */
+    public boolean decodeBytes(InputStream in, ByteRange range) {
+        if (!TypeCodec.readStopBitEncoded(in, range))
+            return false;
+        if (range.byteAt(0) == 0) {
+            AsciiString.checkEmpty(range);
+            int length = range.length();
+            if (length == 1)
+                return false;
+            else if (length == 2 && range.byteAt(1) == 0)
+                range.truncate(0, 0);
+            else if (length == 3 && range.byteAt(2) == 0)
+                range.truncate(0, 1);
+        }
+        return true;
+    }
+
     /**
      * Creates a new StringValue object
      * 
@@ -22,11 +22,13 @@ package org.openfast.template.type.codec;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import org.openfast.ByteVectorValue;
 import org.openfast.Global;
 import org.openfast.IntegerValue;
 import org.openfast.ScalarValue;
 import org.openfast.error.FastConstants;
+import org.openfast.util.ByteBufferInputStream;
 
 public class NullableByteVector extends NotStopBitEncodedTypeCodec {
     private static final long serialVersionUID = 1L;
@@ -40,6 +42,8 @@ public class NullableByteVector extends NotStopBitEncodedTypeCodec {
      *         array
      */
     public ScalarValue decode(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decode(((ByteBufferInputStream) in).getBuffer());
         ScalarValue decode = TypeCodec.NULLABLE_UNSIGNED_INTEGER.decode(in);
         if (decode == null)
             return null;
@@ -60,6 +64,30 @@ public class NullableByteVector extends NotStopBitEncodedTypeCodec {
         return new ByteVectorValue(encoding);
     }
 
+    /**
+     * Reads a nullable byte vector directly from the buffer with a single bulk
+     * copy
+     * 
+     * @param buffer
+     *            The ByteBuffer to be decoded
+     * @return Returns a new ByteVectorValue object, or null for the null
+     *         encoding
+     */
+    public ScalarValue decode(ByteBuffer buffer) {
+        ScalarValue decode = TypeCodec.NULLABLE_UNSIGNED_INTEGER.decode(buffer);
+        if (decode == null)
+            return null;
+        int length = decode.toInt();
+        if (buffer.remaining() < length) {
+            buffer.position(buffer.limit());
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return null; // short circuit if global error handler does not throw exception
+        }
+        byte[] encoding = new byte[length];
+        buffer.get(encoding);
+        return new ByteVectorValue(encoding);
+    }
+
     /**
      * Takes a ScalarValue object, and converts it to a byte array
      * 
@@ -79,6 +107,25 @@ public class NullableByteVector extends NotStopBitEncodedTypeCodec {
         return encoding;
     }
 
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        if (value.isNull()) {
+            buffer.put(STOP_BIT);
+            return;
+        }
+        byte[] bytes = value.getBytes();
+        IntegerCodec.putUnsigned(bytes.length + 1, buffer);
+        buffer.put(bytes);
+    }
+
+    public void encodeBytes(ByteRange value, ByteBuffer buffer) {
+        IntegerCodec.putUnsigned(value.length() + 1, buffer);
+        buffer.put(value.getArray(), value.getOffset(), value.length());
+    }
+
+    public void encodeNull(ByteBuffer buffer) {
+        buffer.put(STOP_BIT);
+    }
+
     /**
      * 
      * @return Returns a default ByteVectorValue object
@@ -87,6 +134,16 @@ public class NullableByteVector extends NotStopBitEncodedTypeCodec {
         return new ByteVectorValue(new byte[] {});
     }
 
+    /**
+     * Decodes the byte vector without creating a value object.
+     */
+    public boolean decodeBytes(InputStream in, ByteRange range) {
+        long length = TypeCodec.UINT.decodeLong(in);
+        if (length == 0)
+            return false;
+        return TypeCodec.readBytes(in, (int) (length - 1), range);
+    }
+
     /**
      * @return Returns a new ByteVectorValue object with the passed value
      */
@@ -24,6 +24,7 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast.template.type.codec;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import org.openfast.NumericValue;
 import org.openfast.ScalarValue;
 
@@ -51,6 +52,24 @@ public final class NullableSignedInteger extends IntegerCodec {
         }
     }
 
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        if (value.isNull())
+            buffer.put(STOP_BIT);
+        else
+            encodeLong(((NumericValue) value).toLong(), buffer);
+    }
+
+    /**
+     * Writes the integer without creating a value object; every positive value is encoded as one more than itself.
+     */
+    public void encodeLong(long value, ByteBuffer buffer) {
+        putSigned((value >= 0) ? value + 1 : value, buffer);
+    }
+
+    public void encodeNull(ByteBuffer buffer) {
+        buffer.put(STOP_BIT);
+    }
+
     /**
      * Reads in a stream of data and stores it to a numericValue object - type
      * integer
@@ -60,7 +79,14 @@ public final class NullableSignedInteger extends IntegerCodec {
      * @return Returns a new numericValue object
      */
     public ScalarValue decode(InputStream in) {
-        NumericValue numericValue = ((NumericValue) TypeCodec.INTEGER.decode(in));
+        return fromSigned((NumericValue) TypeCodec.INTEGER.decode(in));
+    }
+
+    public ScalarValue decode(ByteBuffer buffer) {
+        return fromSigned((NumericValue) TypeCodec.INTEGER.decode(buffer));
+    }
+
+    private static ScalarValue fromSigned(NumericValue numericValue) {
         long value = numericValue.toLong();
         if (value == 0) {
             return null;
@@ -71,6 +97,18 @@ public final class NullableSignedInteger extends IntegerCodec {
         return numericValue;
     }
 
+    /**
+     * Decodes the integer without creating a value object; zero encodes null and every positive value is one more than
+     * the value it represents.
+     */
+    public boolean decodeNullableLong(InputStream in, PrimitiveValue value) {
+        long encoded = TypeCodec.INTEGER.decodeLong(in);
+        if (encoded == 0)
+            return false;
+        value.set((encoded > 0) ? encoded - 1 : encoded);
+        return true;
+    }
+
     /**
      * @return Returns true
      */
@@ -26,6 +26,7 @@ package org.openfast.template.type.codec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import org.openfast.DecimalValue;
 import org.openfast.Global;
 import org.openfast.IntegerValue;
@@ -64,6 +65,27 @@ final class NullableSingleFieldDecimal extends TypeCodec {
         return buffer.toByteArray();
     }
 
+    public void encode(ScalarValue v, ByteBuffer buffer) {
+        if (v == ScalarValue.NULL) {
+            buffer.put(STOP_BIT);
+            return;
+        }
+        DecimalValue value = (DecimalValue) v;
+        encodeDecimal(value.mantissa, value.exponent, buffer);
+    }
+
+    public void encodeDecimal(long mantissa, int exponent, ByteBuffer buffer) {
+        if (Math.abs(exponent) > 63) {
+            Global.handleError(FastConstants.R1_LARGE_DECIMAL, "");
+        }
+        TypeCodec.NULLABLE_INTEGER.encodeLong(exponent, buffer);
+        IntegerCodec.putSigned(mantissa, buffer);
+    }
+
+    public void encodeNull(ByteBuffer buffer) {
+        buffer.put(STOP_BIT);
+    }
+
     /**
      * Reads in a stream of data and stores it to a decimalValue object
      * 
@@ -82,6 +104,25 @@ final class NullableSingleFieldDecimal extends TypeCodec {
         return decimalValue;
     }
 
+    public ScalarValue decode(ByteBuffer buffer) {
+        ScalarValue exp = TypeCodec.NULLABLE_INTEGER.decode(buffer);
+        if ((exp == null) || exp.isNull()) {
+            return null;
+        }
+        int exponent = ((NumericValue) exp).toInt();
+        long mantissa = ((NumericValue) TypeCodec.INTEGER.decode(buffer)).toLong();
+        return new DecimalValue(mantissa, exponent);
+    }
+
+    public boolean decodeDecimal(InputStream in, PrimitiveValue value) {
+        if (!TypeCodec.NULLABLE_INTEGER.decodeNullableLong(in, value)) {
+            return false;
+        }
+        int exponent = (int) value.value;
+        value.set(TypeCodec.INTEGER.decodeLong(in), exponent);
+        return true;
+    }
+
     /**
      * Convert a string to a DecimalValue object with the string as the passed
      * value
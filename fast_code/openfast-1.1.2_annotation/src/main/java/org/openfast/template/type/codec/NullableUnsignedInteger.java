@@ -24,6 +24,7 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast.template.type.codec;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import org.openfast.NumericValue;
 import org.openfast.ScalarValue;
 
@@ -46,6 +47,24 @@ public final class NullableUnsignedInteger extends IntegerCodec {
         return TypeCodec.UINT.encodeValue(((NumericValue) v).increment());
     }
 
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        if (value.isNull())
+            buffer.put(STOP_BIT);
+        else
+            encodeLong(((NumericValue) value).toLong(), buffer);
+    }
+
+    /**
+     * Writes the integer without creating a value object, as one more than itself.
+     */
+    public void encodeLong(long value, ByteBuffer buffer) {
+        putUnsigned(value + 1, buffer);
+    }
+
+    public void encodeNull(ByteBuffer buffer) {
+        buffer.put(STOP_BIT);
+    }
+
     /**
      * Reads in a stream of data and stores it to a NumericValue object
      * 
@@ -54,13 +73,32 @@ public final class NullableUnsignedInteger extends IntegerCodec {
      * @return Returns a NumericValue object
      */
     public ScalarValue decode(InputStream in) {
-        NumericValue value = (NumericValue) TypeCodec.UINT.decode(in);
+        return fromUnsigned((NumericValue) TypeCodec.UINT.decode(in));
+    }
+
+    public ScalarValue decode(ByteBuffer buffer) {
+        return fromUnsigned((NumericValue) TypeCodec.UINT.decode(buffer));
+    }
+
+    private static ScalarValue fromUnsigned(NumericValue value) {
         if (value.equals(0)) {
             return null;
         }
         return value.decrement();
     }
 
+    /**
+     * Decodes the integer without creating a value object; zero encodes null and every other value is one more than
+     * the value it represents.
+     */
+    public boolean decodeNullableLong(InputStream in, PrimitiveValue value) {
+        long encoded = TypeCodec.UINT.decodeLong(in);
+        if (encoded == 0)
+            return false;
+        value.set(encoded - 1);
+        return true;
+    }
+
     /**
      * @return Returns true
      */
@@ -0,0 +1,43 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.type.codec;
+
+/**
+ * A reusable holder for values decoded without creating a {@link org.openfast.ScalarValue}.  An integer is held in
+ * {@link #value}; a decimal holds its mantissa in {@link #value} and its exponent in {@link #exponent}.
+ */
+public final class PrimitiveValue {
+    public long value;
+    public int exponent;
+
+    public void set(long value) {
+        this.value = value;
+    }
+
+    public void set(long mantissa, int exponent) {
+        this.value = mantissa;
+        this.exponent = exponent;
+    }
+
+    public String toString() {
+        return (exponent == 0) ? String.valueOf(value) : value + "E" + exponent;
+    }
+}
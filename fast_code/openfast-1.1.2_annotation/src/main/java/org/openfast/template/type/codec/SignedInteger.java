@@ -25,11 +25,13 @@ package org.openfast.template.type.codec;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.openfast.Global;
 import org.openfast.NumericValue;
 import org.openfast.ScalarValue;
 import org.openfast.error.FastConstants;
+import org.openfast.util.ByteBufferInputStream;
 
 public final class SignedInteger extends IntegerCodec {
     private static final long serialVersionUID = 1L;
@@ -58,6 +60,14 @@ public final class SignedInteger extends IntegerCodec {
         return encoding;
     }
 
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        putSigned(((NumericValue) value).toLong(), buffer);
+    }
+
+    public void encodeLong(long value, ByteBuffer buffer) {
+        putSigned(value, buffer);
+    }
+
     /**
      * 
      * @param in
@@ -65,6 +75,8 @@ public final class SignedInteger extends IntegerCodec {
      * @return the decoded value from the fast input stream
      */
     public ScalarValue decode(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decode(((ByteBufferInputStream) in).getBuffer());
         long value = 0;
         try {
             int byt = in.read();
@@ -91,6 +103,88 @@ public final class SignedInteger extends IntegerCodec {
         return createValue(value);
     }
 
+    /**
+     * 
+     * @param buffer
+     *            The ByteBuffer to be decoded
+     * @return the decoded value from the buffer
+     */
+    public ScalarValue decode(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return null; // short circuit if global error handler does not throw exception
+        }
+        int byt = buffer.get();
+        long value = ((byt & 0x40) > 0) ? -1 : 0;
+        value = (value << 7) | (byt & 0x7f);
+        while ((byt & 0x80) == 0) {
+            if (!buffer.hasRemaining()) {
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return null; // short circuit if global error handler does not throw exception
+            }
+            byt = buffer.get();
+            value = (value << 7) | (byt & 0x7f);
+        }
+        return createValue(value);
+    }
+
+    /**
+     * Decodes the integer without creating a value object.
+     * 
+     * @param in
+     *            The InputStream to be decoded
+     * @return the decoded integer
+     */
+    public long decodeLong(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decodeLong(((ByteBufferInputStream) in).getBuffer());
+        try {
+            int byt = in.read();
+            if (byt < 0) {
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return 0; // short circuit if global error handler does not throw exception
+            }
+            long value = ((byt & 0x40) > 0) ? -1 : 0;
+            value = (value << 7) | (byt & 0x7f);
+            while ((byt & 0x80) == 0) {
+                byt = in.read();
+                if (byt < 0) {
+                    Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                    return 0; // short circuit if global error handler does not throw exception
+                }
+                value = (value << 7) | (byt & 0x7f);
+            }
+            return value;
+        } catch (IOException e) {
+            Global.handleError(FastConstants.IO_ERROR, "A IO error has been encountered while decoding.", e);
+            return 0; // short circuit if global error handler does not throw exception
+        }
+    }
+
+    private static long decodeLong(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+            return 0; // short circuit if global error handler does not throw exception
+        }
+        int byt = buffer.get();
+        long value = ((byt & 0x40) > 0) ? -1 : 0;
+        value = (value << 7) | (byt & 0x7f);
+        while ((byt & 0x80) == 0) {
+            if (!buffer.hasRemaining()) {
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return 0; // short circuit if global error handler does not throw exception
+            }
+            byt = buffer.get();
+            value = (value << 7) | (byt & 0x7f);
+        }
+        return value;
+    }
+
+    public boolean decodeNullableLong(InputStream in, PrimitiveValue value) {
+        value.set(decodeLong(in));
+        return true;
+    }
+
     public boolean equals(Object obj) {
         return obj != null && obj.getClass() == getClass();
     }
@@ -26,6 +26,7 @@ package org.openfast.template.type.codec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import org.openfast.DecimalValue;
 import org.openfast.Global;
 import org.openfast.IntegerValue;
@@ -63,6 +64,23 @@ final class SingleFieldDecimal extends TypeCodec {
         return buffer.toByteArray();
     }
 
+    public void encode(ScalarValue v, ByteBuffer buffer) {
+        if (v == ScalarValue.NULL) {
+            buffer.put(STOP_BIT);
+            return;
+        }
+        DecimalValue value = (DecimalValue) v;
+        encodeDecimal(value.mantissa, value.exponent, buffer);
+    }
+
+    public void encodeDecimal(long mantissa, int exponent, ByteBuffer buffer) {
+        if (Math.abs(exponent) > 63) {
+            Global.handleError(FastConstants.R1_LARGE_DECIMAL, "Encountered exponent of size " + exponent);
+        }
+        IntegerCodec.putSigned(exponent, buffer);
+        IntegerCodec.putSigned(mantissa, buffer);
+    }
+
     /**
      * Reads in a stream of data and stores it to a decimalValue object
      * 
@@ -80,6 +98,24 @@ final class SingleFieldDecimal extends TypeCodec {
         return decimalValue;
     }
 
+    public ScalarValue decode(ByteBuffer buffer) {
+        int exponent = TypeCodec.INTEGER.decode(buffer).toInt();
+        if (Math.abs(exponent) > 63) {
+            Global.handleError(FastConstants.R1_LARGE_DECIMAL, "Encountered exponent of size " + exponent);
+        }
+        long mantissa = TypeCodec.INTEGER.decode(buffer).toLong();
+        return new DecimalValue(mantissa, exponent);
+    }
+
+    public boolean decodeDecimal(InputStream in, PrimitiveValue value) {
+        int exponent = (int) TypeCodec.INTEGER.decodeLong(in);
+        if (Math.abs(exponent) > 63) {
+            Global.handleError(FastConstants.R1_LARGE_DECIMAL, "Encountered exponent of size " + exponent);
+        }
+        value.set(TypeCodec.INTEGER.decodeLong(in), exponent);
+        return true;
+    }
+
     /**
      * Convert a string to a DecimalValue object with the string as the passed
      * value
@@ -0,0 +1,114 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.type.codec;
+
+import java.io.Serializable;
+
+import org.openfast.StringValue;
+
+/**
+ * A bounded cache that maps the bytes of decoded strings to canonical {@link StringValue} instances.  Fields such as
+ * security ids repeat across a great many messages while taking only a few thousand distinct values; decoding them
+ * through a cache creates no String or value for a repeated symbol, and equal symbols are the same instance.
+ * <p>
+ * The cache is two way set associative on a hash of the bytes: a symbol is looked for in two entries, and a new symbol
+ * replaces the older of the two, so the least recently added symbols are evicted once the cache is full.  Entries are
+ * immutable and replaced whole, so a cache may be shared by decoders running in different threads; a racing update can
+ * at worst lose an entry, which is decoded again the next time it is seen.
+ * </p>
+ */
+public final class SymbolCache implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    public SymbolCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity
+     *            the number of symbols to keep, rounded up to a power of two
+     */
+    public SymbolCache(int capacity) {
+        if (capacity < 2)
+            throw new IllegalArgumentException("The capacity of a symbol cache must be at least 2, was " + capacity);
+        int size = 2;
+        while (size < capacity)
+            size <<= 1;
+        this.entries = new Entry[size];
+        this.mask = size - 2;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    /**
+     * Finds the canonical value for the given bytes, creating and caching one if the bytes have not been seen recently.
+     * 
+     * @param bytes
+     *            the bytes of a decoded string
+     * @return the value of the string
+     */
+    public StringValue intern(ByteRange bytes) {
+        int hash = bytes.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        Entry first = entries[index];
+        if (first != null && first.matches(hash, bytes))
+            return first.value;
+        Entry second = entries[index + 1];
+        if (second != null && second.matches(hash, bytes))
+            return second.value;
+        Entry entry = new Entry(hash, bytes.toByteArray());
+        entries[index + 1] = first;
+        entries[index] = entry;
+        return entry.value;
+    }
+
+    /**
+     * Forgets every symbol.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length; i++)
+            entries[i] = null;
+    }
+
+    private static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int hash;
+        final byte[] bytes;
+        final StringValue value;
+
+        Entry(int hash, byte[] bytes) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = new StringValue(new String(bytes));
+        }
+
+        boolean matches(int hash, ByteRange bytes) {
+            return this.hash == hash && bytes.contentEquals(this.bytes, 0, this.bytes.length);
+        }
+    }
+}
@@ -20,9 +20,16 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
  */
 package org.openfast.template.type.codec;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import org.openfast.DecimalValue;
+import org.openfast.Global;
 import org.openfast.ScalarValue;
+import org.openfast.StringValue;
+import org.openfast.error.FastConstants;
+import org.openfast.util.ByteBufferInputStream;
 
 public abstract class TypeCodec implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -58,6 +65,201 @@ public abstract class TypeCodec implements Serializable {
 
     public abstract ScalarValue decode(InputStream in);
 
+    /**
+     * Decodes a value directly from the bytes between the buffer's position and
+     * limit, leaving the position just past the encoded value. Codecs that read
+     * byte by byte override this so that heap or direct buffers are decoded
+     * without going through an InputStream; the default wraps the buffer.
+     * 
+     * @param buffer
+     *            The buffer to be decoded
+     * @return the decoded value
+     */
+    public ScalarValue decode(ByteBuffer buffer) {
+        return decode(new ByteBufferInputStream(buffer));
+    }
+
+    /**
+     * Decodes a mandatory integer without creating a value object.  Integer
+     * codecs override this; the default decodes a value and converts it.
+     * Nullable codecs must be read with
+     * {@link #decodeNullableLong(InputStream, PrimitiveValue)} instead.
+     * 
+     * @param in
+     *            The InputStream to be decoded
+     * @return the decoded integer
+     */
+    public long decodeLong(InputStream in) {
+        return decode(in).toLong();
+    }
+
+    public int decodeInt(InputStream in) {
+        return (int) decodeLong(in);
+    }
+
+    /**
+     * Decodes an integer that may be null without creating a value object.
+     * 
+     * @param in
+     *            The InputStream to be decoded
+     * @param value
+     *            receives the decoded integer
+     * @return false if the encoded value was null, in which case the holder is
+     *         left unchanged
+     */
+    public boolean decodeNullableLong(InputStream in, PrimitiveValue value) {
+        ScalarValue decoded = decode(in);
+        if ((decoded == null) || decoded.isNull())
+            return false;
+        value.set(decoded.toLong());
+        return true;
+    }
+
+    /**
+     * Decodes a decimal without creating a value object.
+     * 
+     * @param in
+     *            The InputStream to be decoded
+     * @param value
+     *            receives the mantissa and exponent of the decoded decimal
+     * @return false if the encoded value was null, in which case the holder is
+     *         left unchanged
+     */
+    public boolean decodeDecimal(InputStream in, PrimitiveValue value) {
+        ScalarValue decoded = decode(in);
+        if ((decoded == null) || decoded.isNull())
+            return false;
+        DecimalValue decimal = (DecimalValue) decoded;
+        value.set(decimal.mantissa, decimal.exponent);
+        return true;
+    }
+
+    /**
+     * Decodes a string or byte vector without creating a value object or a
+     * String.  The ASCII and byte vector codecs override this to point the
+     * range into the array of a heap ByteBuffer, or to copy the bytes into the
+     * range's own storage; the default decodes a value and copies its bytes.
+     * 
+     * @param in
+     *            The InputStream to be decoded
+     * @param range
+     *            receives the decoded bytes
+     * @return false if the encoded value was null
+     */
+    public boolean decodeBytes(InputStream in, ByteRange range) {
+        ScalarValue decoded = decode(in);
+        if ((decoded == null) || decoded.isNull())
+            return false;
+        byte[] bytes = decoded.getBytes();
+        range.copy(bytes, 0, bytes.length);
+        return true;
+    }
+
+    /**
+     * Reads a stop bit encoded entity into the range.  The stop bit is left on
+     * the last byte when the range points into a buffer's array and is masked
+     * off by the range.
+     * 
+     * @return false if the end of the input has been reached
+     */
+    static boolean readStopBitEncoded(InputStream in, ByteRange range) {
+        if (in instanceof ByteBufferInputStream) {
+            ByteBuffer buffer = ((ByteBufferInputStream) in).getBuffer();
+            int length = stopBitEncodedLength(buffer);
+            if (length < 0) {
+                buffer.position(buffer.limit());
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return false;
+            }
+            if (buffer.hasArray()) {
+                range.wrapAscii(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                buffer.position(buffer.position() + length);
+            } else {
+                buffer.get(range.reserve(length), 0, length);
+                range.getArray()[length - 1] &= 0x7f;
+            }
+            return true;
+        }
+        byte[] bytes = range.reserve(0);
+        int length = 0;
+        int byt;
+        try {
+            do {
+                byt = in.read();
+                if (byt < 0) {
+                    Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                    return false;
+                }
+                if (length == bytes.length)
+                    bytes = range.reserve(length + 1);
+                bytes[length++] = (byte) byt;
+            } while ((byt & 0x80) == 0);
+        } catch (IOException e) {
+            Global.handleError(FastConstants.IO_ERROR, "A IO error has been encountered while decoding.", e);
+            return false;
+        }
+        bytes[length - 1] &= 0x7f;
+        range.reserve(length);
+        return true;
+    }
+
+    /**
+     * Reads a given number of bytes into the range.
+     * 
+     * @return false if the end of the input has been reached
+     */
+    static boolean readBytes(InputStream in, int length, ByteRange range) {
+        if (in instanceof ByteBufferInputStream) {
+            ByteBuffer buffer = ((ByteBufferInputStream) in).getBuffer();
+            if (buffer.remaining() < length) {
+                buffer.position(buffer.limit());
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return false;
+            }
+            if (buffer.hasArray()) {
+                range.wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                buffer.position(buffer.position() + length);
+            } else {
+                buffer.get(range.reserve(length), 0, length);
+            }
+            return true;
+        }
+        byte[] bytes = range.reserve(length);
+        try {
+            for (int i = 0; i < length; i++) {
+                int nextByte = in.read();
+                if (nextByte < 0) {
+                    Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                    return false;
+                }
+                bytes[i] = (byte) nextByte;
+            }
+        } catch (IOException e) {
+            Global.handleError(FastConstants.IO_ERROR, "A IO error has been encountered while decoding.", e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the length of the stop bit encoded entity starting at the buffer's
+     * position without moving the position.
+     * 
+     * @param buffer
+     *            The buffer to be scanned
+     * @return the number of bytes up to and including the byte with the stop
+     *         bit set, or -1 if the limit is reached first
+     */
+    static int stopBitEncodedLength(ByteBuffer buffer) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if ((buffer.get(i) & 0x80) != 0)
+                return i - start + 1;
+        }
+        return -1;
+    }
+
     /**
      * Template Method to encode the passed object, the actual encoding is done
      * in the encodeValue() method overridden in sub-classes.
@@ -75,6 +277,75 @@ public abstract class TypeCodec implements Serializable {
         return encoding;
     }
 
+    /**
+     * Writes the encoding of the value, stop bit included, at the buffer's
+     * position. The integer, decimal, ASCII string and byte vector codecs
+     * override this to write the bytes in place; the default encodes the value
+     * into a new array and copies it.
+     *
+     * @param value
+     *            The ScalarValue object to be encoded
+     * @param buffer
+     *            receives the encoding
+     * @throws java.nio.BufferOverflowException
+     *             if the encoding does not fit in the buffer
+     */
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        buffer.put(encode(value));
+    }
+
+    /**
+     * Writes an integer without creating a value object. Integer codecs
+     * override this; the default creates a value and encodes it.
+     *
+     * @param value
+     *            the integer to be encoded, which must not be null
+     * @param buffer
+     *            receives the encoding
+     */
+    public void encodeLong(long value, ByteBuffer buffer) {
+        encode(IntegerCodec.createValue(value), buffer);
+    }
+
+    /**
+     * Writes a decimal without creating a value object. The decimal codecs
+     * override this; the default creates a value and encodes it.
+     *
+     * @param mantissa
+     *            the mantissa of the decimal to be encoded
+     * @param exponent
+     *            the exponent of the decimal to be encoded
+     * @param buffer
+     *            receives the encoding
+     */
+    public void encodeDecimal(long mantissa, int exponent, ByteBuffer buffer) {
+        encode(new DecimalValue(mantissa, exponent), buffer);
+    }
+
+    /**
+     * Writes a string or byte vector held in a range without creating a value.
+     * The ASCII string and byte vector codecs override this; the default
+     * creates a string value from the bytes and encodes it.
+     *
+     * @param value
+     *            the bytes to be encoded
+     * @param buffer
+     *            receives the encoding
+     */
+    public void encodeBytes(ByteRange value, ByteBuffer buffer) {
+        encode(new StringValue(value.toString()), buffer);
+    }
+
+    /**
+     * Writes the null value of a nullable codec.
+     *
+     * @param buffer
+     *            receives the encoding
+     */
+    public void encodeNull(ByteBuffer buffer) {
+        encode(ScalarValue.NULL, buffer);
+    }
+
     /**
      * 
      * @return Returns false
@@ -25,10 +25,12 @@ package org.openfast.template.type.codec;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.openfast.Global;
 import org.openfast.ScalarValue;
 import org.openfast.error.FastConstants;
+import org.openfast.util.ByteBufferInputStream;
 
 public final class UnsignedInteger extends IntegerCodec {
     private static final long serialVersionUID = 1L;
@@ -52,6 +54,14 @@ public final class UnsignedInteger extends IntegerCodec {
         return encoded;
     }
 
+    public void encode(ScalarValue value, ByteBuffer buffer) {
+        putUnsigned(value.toLong(), buffer);
+    }
+
+    public void encodeLong(long value, ByteBuffer buffer) {
+        putUnsigned(value, buffer);
+    }
+
     /**
      * 
      * @param in
@@ -59,6 +69,8 @@ public final class UnsignedInteger extends IntegerCodec {
      * @return the decoded value from the fast input stream
      */
     public ScalarValue decode(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decode(((ByteBufferInputStream) in).getBuffer());
         long value = 0;
         int byt;
         try {
@@ -77,6 +89,73 @@ public final class UnsignedInteger extends IntegerCodec {
         return createValue(value);
     }
 
+    /**
+     * 
+     * @param buffer
+     *            The ByteBuffer to be decoded
+     * @return the decoded value from the buffer
+     */
+    public ScalarValue decode(ByteBuffer buffer) {
+        long value = 0;
+        int byt;
+        do {
+            if (!buffer.hasRemaining()) {
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return null; // short circuit if global error handler does not throw exception
+            }
+            byt = buffer.get();
+            value = (value << 7) | (byt & 0x7f);
+        } while ((byt & 0x80) == 0);
+        return createValue(value);
+    }
+
+    /**
+     * Decodes the integer without creating a value object.
+     * 
+     * @param in
+     *            The InputStream to be decoded
+     * @return the decoded integer
+     */
+    public long decodeLong(InputStream in) {
+        if (in instanceof ByteBufferInputStream)
+            return decodeLong(((ByteBufferInputStream) in).getBuffer());
+        long value = 0;
+        int byt;
+        try {
+            do {
+                byt = in.read();
+                if (byt < 0) {
+                    Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                    return 0; // short circuit if global error handler does not throw exception
+                }
+                value = (value << 7) | (byt & 0x7f);
+            } while ((byt & 0x80) == 0);
+        } catch (IOException e) {
+            Global.handleError(FastConstants.IO_ERROR, "A IO error has been encountered while decoding.", e);
+            return 0; // short circuit if global error handler does not throw exception
+        }
+        return value;
+    }
+
+    private static long decodeLong(ByteBuffer buffer) {
+        long value = 0;
+        int byt;
+        do {
+            if (!buffer.hasRemaining()) {
+                Global.handleError(FastConstants.END_OF_STREAM, "The end of the input stream has been reached.");
+                return 0; // short circuit if global error handler does not throw exception
+            }
+            byt = buffer.get();
+            value = (value << 7) | (byt & 0x7f);
+        } while ((byt & 0x80) == 0);
+        return value;
+    }
+
+    public boolean decodeNullableLong(InputStream in, PrimitiveValue value) {
+        value.set(decodeLong(in));
+        return true;
+    }
+
     public boolean equals(Object obj) {
         return obj != null && getClass() == obj.getClass();
     }
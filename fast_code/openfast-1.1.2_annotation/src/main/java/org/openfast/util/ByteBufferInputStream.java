@@ -0,0 +1,102 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+*/
+package org.openfast.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An unsynchronized InputStream over the bytes between a ByteBuffer's position and limit.  Reading advances the
+ * buffer's position, so heap or direct buffers filled by NIO can be decoded in place without copying.  The type
+ * codecs recognize this stream and decode straight from the underlying buffer.
+ */
+public final class ByteBufferInputStream extends InputStream {
+    private ByteBuffer buffer;
+    private int mark;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        setBuffer(buffer);
+    }
+
+    public ByteBufferInputStream(byte[] bytes, int offset, int length) {
+        this(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Points this stream at a new buffer so a single stream (and the decoder reading from it) can be reused for each
+     * packet received.
+     *
+     * @param buffer
+     *            the buffer to read from, positioned at the first byte to decode
+     */
+    public void setBuffer(ByteBuffer buffer) {
+        if (buffer == null)
+            throw new NullPointerException("buffer");
+        this.buffer = buffer;
+        this.mark = buffer.position();
+    }
+
+    public int read() {
+        if (!buffer.hasRemaining())
+            return -1;
+        return buffer.get() & 0xff;
+    }
+
+    public int read(byte[] b, int off, int len) {
+        if (len == 0)
+            return 0;
+        int remaining = buffer.remaining();
+        if (remaining == 0)
+            return -1;
+        if (len > remaining)
+            len = remaining;
+        buffer.get(b, off, len);
+        return len;
+    }
+
+    public long skip(long n) {
+        if (n <= 0)
+            return 0;
+        int skipped = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    public int available() {
+        return buffer.remaining();
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public void mark(int readlimit) {
+        mark = buffer.position();
+    }
+
+    public void reset() {
+        buffer.position(mark);
+    }
+}
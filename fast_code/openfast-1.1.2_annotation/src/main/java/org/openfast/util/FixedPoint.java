@@ -0,0 +1,190 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.util;
+
+/**
+ * Arithmetic on decimals held as a scaled long: a mantissa and a base ten exponent, the way FAST encodes decimals and
+ * the way integer prices with a precision are sent, so that prices can be compared and combined without creating
+ * {@link java.math.BigDecimal}s or losing precision to doubles.
+ * <p>
+ * Methods that change the exponent of a value either do so exactly, throwing an {@link ArithmeticException} if digits
+ * would be lost, or round half away from zero, as named.  All methods throw an {@link ArithmeticException} if the
+ * result does not fit in a long.
+ * </p>
+ */
+public final class FixedPoint {
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Expresses a decimal as a mantissa with the given exponent.
+     * 
+     * @throws ArithmeticException
+     *             if digits of the value would be lost or the mantissa does not fit in a long
+     */
+    public static long rescale(long mantissa, int exponent, int targetExponent) {
+        if (exponent == targetExponent || mantissa == 0)
+            return mantissa;
+        if (exponent > targetExponent)
+            return multiplyByPowerOfTen(mantissa, exponent - targetExponent);
+        int digits = targetExponent - exponent;
+        if (digits >= POWERS_OF_TEN.length || mantissa % POWERS_OF_TEN[digits] != 0)
+            throw new ArithmeticException(toString(mantissa, exponent) + " cannot be expressed with exponent " + targetExponent);
+        return mantissa / POWERS_OF_TEN[digits];
+    }
+
+    /**
+     * Expresses a decimal as a mantissa with the given exponent, rounding half away from zero if digits are dropped.
+     * 
+     * @throws ArithmeticException
+     *             if the mantissa does not fit in a long
+     */
+    public static long round(long mantissa, int exponent, int targetExponent) {
+        if (exponent >= targetExponent)
+            return rescale(mantissa, exponent, targetExponent);
+        int digits = targetExponent - exponent;
+        if (digits > POWERS_OF_TEN.length)
+            return 0;
+        if (digits == POWERS_OF_TEN.length)
+            return (mantissa >= 5000000000000000000L) ? 1 : ((mantissa <= -5000000000000000000L) ? -1 : 0);
+        long divisor = POWERS_OF_TEN[digits];
+        long quotient = mantissa / divisor;
+        long remainder = mantissa % divisor;
+        if (Math.abs(remainder) >= divisor - Math.abs(remainder))
+            quotient += (mantissa < 0) ? -1 : 1;
+        return quotient;
+    }
+
+    public static long add(long augend, long addend) {
+        long sum = augend + addend;
+        if (((augend ^ sum) & (addend ^ sum)) < 0)
+            throw new ArithmeticException("Overflow adding " + augend + " and " + addend);
+        return sum;
+    }
+
+    public static long subtract(long minuend, long subtrahend) {
+        long difference = minuend - subtrahend;
+        if (((minuend ^ subtrahend) & (minuend ^ difference)) < 0)
+            throw new ArithmeticException("Overflow subtracting " + subtrahend + " from " + minuend);
+        return difference;
+    }
+
+    /**
+     * Multiplies two decimals, such as a price and a quantity, giving the product as a mantissa with the target
+     * exponent rounded half away from zero.
+     */
+    public static long multiply(long mantissa, int exponent, long multiplier, int multiplierExponent, int targetExponent) {
+        long product = mantissa * multiplier;
+        if (mantissa != 0 && (product / mantissa != multiplier || (mantissa == -1 && multiplier == Long.MIN_VALUE)))
+            throw new ArithmeticException("Overflow multiplying " + mantissa + " by " + multiplier);
+        return round(product, exponent + multiplierExponent, targetExponent);
+    }
+
+    /**
+     * Compares two decimals by value, regardless of their exponents.
+     * 
+     * @return a negative number, zero or a positive number as the first decimal is less than, equal to or greater than
+     *         the second
+     */
+    public static int compare(long mantissa, int exponent, long otherMantissa, int otherExponent) {
+        if (exponent > otherExponent)
+            return -compare(otherMantissa, otherExponent, mantissa, exponent);
+        if (exponent < otherExponent) {
+            try {
+                otherMantissa = rescale(otherMantissa, otherExponent, exponent);
+            } catch (ArithmeticException e) {
+                // the other decimal is further from zero than any mantissa with this exponent
+                return (otherMantissa < 0) ? 1 : -1;
+            }
+        }
+        return (mantissa < otherMantissa) ? -1 : ((mantissa == otherMantissa) ? 0 : 1);
+    }
+
+    /**
+     * Parses a plain decimal string such as "-12.5" into a mantissa with the given exponent.
+     * 
+     * @throws NumberFormatException
+     *             if the string is not a plain decimal
+     * @throws ArithmeticException
+     *             if the value has more digits than the exponent allows or does not fit in a long
+     */
+    public static long parse(String value, int exponent) {
+        int point = value.indexOf('.');
+        if (point < 0)
+            return rescale(Long.parseLong(value), 0, exponent);
+        String fraction = value.substring(point + 1);
+        if (fraction.length() == 0 || fraction.charAt(0) == '-' || fraction.charAt(0) == '+')
+            throw new NumberFormatException("Invalid decimal: " + value);
+        String integer = value.substring(0, point);
+        String digits = integer + fraction;
+        if (integer.length() == 0 || integer.equals("-") || integer.equals("+"))
+            digits = integer + "0" + fraction;
+        return rescale(Long.parseLong(digits), -fraction.length(), exponent);
+    }
+
+    /**
+     * @return the decimal written out in full without an exponent, for instance "0.0125" or "1200"
+     */
+    public static String toString(long mantissa, int exponent) {
+        String digits = String.valueOf(mantissa);
+        boolean negative = mantissa < 0;
+        if (negative)
+            digits = digits.substring(1);
+        StringBuilder builder = new StringBuilder(digits.length() + Math.abs(exponent) + 3);
+        if (negative)
+            builder.append('-');
+        if (exponent >= 0) {
+            builder.append(digits);
+            if (mantissa != 0)
+                for (int i = 0; i < exponent; i++)
+                    builder.append('0');
+        } else {
+            int point = digits.length() + exponent;
+            if (point <= 0) {
+                builder.append("0.");
+                for (int i = point; i < 0; i++)
+                    builder.append('0');
+                builder.append(digits);
+            } else {
+                builder.append(digits, 0, point).append('.').append(digits, point, digits.length());
+            }
+        }
+        return builder.toString();
+    }
+
+    private static long multiplyByPowerOfTen(long mantissa, int digits) {
+        if (digits >= POWERS_OF_TEN.length)
+            throw new ArithmeticException("Overflow scaling " + mantissa + " by 10^" + digits);
+        long factor = POWERS_OF_TEN[digits];
+        long result = mantissa * factor;
+        if (result / factor != mantissa)
+            throw new ArithmeticException("Overflow scaling " + mantissa + " by 10^" + digits);
+        return result;
+    }
+}
@@ -74,8 +74,11 @@ public class Util {
     }
 
     public static byte[] applyDifference(ScalarValue baseValue, TwinValue diffValue) {
+        return applyDifference(baseValue.getBytes(), diffValue);
+    }
+
+    public static byte[] applyDifference(byte[] base, TwinValue diffValue) {
         int subtraction = ((IntegerValue) diffValue.first).value;
-        byte[] base = baseValue.getBytes();
         byte[] diff = diffValue.second.getBytes();
         if (subtraction < 0) {
             subtraction = (-1 * subtraction) - 1;
@@ -0,0 +1,70 @@
+package org.openfast;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.openfast.test.OpenFastTestCase;
+
+public class BitVectorBuilderTest extends OpenFastTestCase {
+
+    public void testTruncatedBytes() throws IOException {
+        BitVectorBuilder builder = new BitVectorBuilder(20);
+        assertEquals("10000000", builder.getTruncatedBytes());
+        builder.set();
+        builder.skip();
+        builder.set();
+        assertEquals("11010000", builder.getTruncatedBytes());
+        for (int i = 0; i < 6; i++)
+            builder.skip();
+        builder.set();
+        assertEquals("01010000 10010000", builder.getTruncatedBytes());
+        assertEquals(new BitVector(bytes("01010000 00010000 10000000")), builder.getBitVector());
+
+        byte[] destination = new byte[4];
+        assertEquals(2, builder.writeTruncatedBytes(destination, 1));
+        assertEquals("00000000 01010000 10010000 00000000", destination);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.writeTruncatedBytes(out);
+        assertEquals("01010000 10010000", out.toByteArray());
+    }
+
+    public void testBitsOfALong() {
+        BitVectorBuilder builder = new BitVectorBuilder(63);
+        for (int i = 0; i < 62; i++)
+            builder.skip();
+        builder.set();
+        assertEquals("00000000 00000000 00000000 00000000 00000000 00000000 00000000 00000000 10000001",
+                builder.getTruncatedBytes());
+    }
+
+    public void testBitPastCapacityIsRejected() {
+        BitVectorBuilder builder = new BitVectorBuilder(63);
+        for (int i = 0; i < 63; i++)
+            builder.skip();
+        try {
+            builder.set();
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+        builder = new BitVectorBuilder(3);
+        for (int i = 0; i < 6; i++)
+            builder.skip();
+        builder.set();
+        try {
+            builder.set();
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+        assertEquals("10000001", builder.getTruncatedBytes());
+    }
+
+    public void testLongPresenceMap() {
+        BitVectorBuilder builder = new BitVectorBuilder(70);
+        for (int i = 0; i < 63; i++)
+            builder.skip();
+        builder.set();
+        assertEquals(10, builder.getTruncatedLength());
+        assertEquals("00000000 00000000 00000000 00000000 00000000 00000000 00000000 00000000 00000000 11000000",
+                builder.getTruncatedBytes());
+    }
+}
@@ -1,7 +1,15 @@
 package org.openfast;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
 import junit.framework.TestCase;
 
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.type.codec.BitVectorType;
+import org.openfast.util.ByteBufferInputStream;
+
 public class BitVectorReaderTest extends TestCase {
 
 	public void testRead() {
@@ -11,4 +19,81 @@ public class BitVectorReaderTest extends TestCase {
 		assertFalse(reader.hasMoreBitsSet());
 	}
 
+	public void testDecodePresenceMap() {
+		String pmap = "01000001 00000000 10000001";
+		BitVectorReader reader = new BitVectorReader();
+		assertTrue(BitVectorType.decodePresenceMap(ByteUtil.createByteStream(pmap), reader));
+		assertRead(reader);
+		assertTrue(BitVectorType.decodePresenceMap(new ByteBufferInputStream(ByteBuffer.wrap(ByteUtil.convertBitStringToFastByteArray(pmap))), reader));
+		assertRead(reader);
+		assertEquals(new BitVector(ByteUtil.convertBitStringToFastByteArray(pmap)), reader.getBitVector());
+		assertFalse(BitVectorType.decodePresenceMap(ByteUtil.createByteStream(""), reader));
+	}
+
+	public void testOverlong() {
+		BitVectorReader reader = new BitVectorReader();
+		assertTrue(BitVectorType.decodePresenceMap(ByteUtil.createByteStream("01000000 10000000"), reader));
+		assertTrue(reader.isOverlong());
+		assertTrue(BitVectorType.decodePresenceMap(ByteUtil.createByteStream("10000000"), reader));
+		assertFalse(reader.isOverlong());
+		assertFalse(reader.hasMoreBitsSet());
+		assertFalse(reader.read());
+	}
+
+	public void testPresenceMapLongerThanALong() {
+		StringBuffer pmap = new StringBuffer();
+		for (int i = 0; i < 10; i++)
+			pmap.append("00000001 ");
+		pmap.append("11000000");
+		byte[] bytes = ByteUtil.convertBitStringToFastByteArray(pmap.toString());
+		InputStream[] inputs = new InputStream[] { ByteUtil.createByteStream(pmap.toString()),
+				new ByteBufferInputStream(ByteBuffer.wrap(bytes)) };
+		for (int i = 0; i < inputs.length; i++) {
+			BitVectorReader reader = new BitVectorReader();
+			assertTrue(BitVectorType.decodePresenceMap(inputs[i], reader));
+			assertEquals(new BitVector(bytes), reader.getBitVector());
+			for (int bit = 0; bit < 70; bit++)
+				assertEquals(bit % 7 == 6, reader.read());
+			assertTrue(reader.read());
+			assertFalse(reader.hasMoreBitsSet());
+		}
+	}
+
+	public void testTruncatedPresenceMap() {
+		try {
+			BitVectorType.decodePresenceMap(ByteUtil.createByteStream("01000000"), new BitVectorReader());
+			fail();
+		} catch (FastException e) {
+			assertEquals(FastConstants.END_OF_STREAM, e.getCode());
+		}
+	}
+
+	public void testContextReusesReadersByDepth() {
+		Context context = new Context();
+		BitVectorReader outer = context.acquirePresenceMapReader();
+		BitVectorReader[] inner = new BitVectorReader[6];
+		for (int i = 0; i < inner.length; i++)
+			inner[i] = context.acquirePresenceMapReader();
+		for (int i = 0; i < inner.length; i++)
+			context.releasePresenceMapReader();
+		assertNotSame(outer, inner[0]);
+		assertSame(inner[0], context.acquirePresenceMapReader());
+		context.releasePresenceMapReader();
+		context.releasePresenceMapReader();
+		assertSame(outer, context.acquirePresenceMapReader());
+	}
+
+	private void assertRead(BitVectorReader reader) {
+		assertTrue(reader.read());
+		for (int i = 0; i < 5; i++)
+			assertFalse(reader.read());
+		assertTrue(reader.read());
+		assertTrue(reader.hasMoreBitsSet());
+		for (int i = 0; i < 13; i++)
+			assertFalse(reader.read());
+		assertFalse(reader.hasMoreBitsSet());
+		assertTrue(reader.peek());
+		assertTrue(reader.read());
+		assertEquals(21, reader.getIndex());
+	}
 }
@@ -0,0 +1,215 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast;
+
+import org.openfast.template.Field;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Scalar;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.test.OpenFastTestCase;
+
+public class DictionarySlotsTest extends OpenFastTestCase {
+    private final MessageTemplate quote = new MessageTemplate("SlotQuote", new Field[] {
+            new Scalar("bid", Type.DECIMAL, Operator.COPY, ScalarValue.UNDEFINED, false) });
+    private final MessageTemplate request = new MessageTemplate("SlotRequest", new Field[] {
+            new Scalar("bid", Type.DECIMAL, Operator.COPY, ScalarValue.UNDEFINED, false) });
+    private final QName bid = new QName("bid");
+
+    public void testGlobalEntriesAreSharedBetweenTemplates() {
+        DictionarySlots slots = new DictionarySlots();
+        int slot = slots.getSlot(Dictionary.GLOBAL, quote, bid);
+        assertEquals(slot, slots.getSlot(Dictionary.GLOBAL, request, bid));
+        assertTrue(slot < slots.size());
+        assertFalse(slot == slots.getSlot(Dictionary.GLOBAL, quote, new QName("ask")));
+        assertFalse(slot == slots.getSlot("custom", quote, bid));
+    }
+
+    public void testTemplateEntriesAreScopedByTemplate() {
+        DictionarySlots slots = new DictionarySlots();
+        int quoteSlot = slots.getSlot(Dictionary.TEMPLATE, quote, bid);
+        assertEquals(quoteSlot, slots.getSlot(Dictionary.TEMPLATE, quote, bid));
+        assertFalse(quoteSlot == slots.getSlot(Dictionary.TEMPLATE, request, bid));
+        assertFalse(quoteSlot == slots.getSlot(Dictionary.GLOBAL, quote, bid));
+    }
+
+    public void testTypeEntriesAreScopedByApplicationType() {
+        DictionarySlots slots = new DictionarySlots();
+        quote.setTypeReference(new QName("Quote"));
+        request.setTypeReference(new QName("Quote"));
+        int slot = slots.getSlot(Dictionary.TYPE, quote, bid);
+        assertEquals(slot, slots.getSlot(Dictionary.TYPE, request, bid));
+        request.setTypeReference(new QName("Request"));
+        assertFalse(slot == slots.getSlot(Dictionary.TYPE, request, bid));
+    }
+
+    public void testRegisteringTemplateNumbersItsEntries() {
+        Context context = new Context();
+        DictionarySlots slots = context.getDictionarySlots();
+        assertEquals(0, slots.size());
+        context.registerTemplate(1, quote);
+        int size = slots.size();
+        assertTrue(size > 0);
+        slots.getSlot(Dictionary.GLOBAL, quote, bid);
+        assertEquals(size, slots.size());
+    }
+
+    public void testEachContextNumbersItsOwnEntries() {
+        Context first = new Context();
+        Context second = new Context();
+        second.getDictionarySlots().getSlot("custom", quote, bid);
+        first.registerTemplate(1, quote);
+        second.registerTemplate(1, quote);
+        int slot = first.getDictionarySlots().getSlot(Dictionary.GLOBAL, quote, bid);
+        assertFalse(slot == second.getDictionarySlots().getSlot(Dictionary.GLOBAL, quote, bid));
+        first.store(Dictionary.GLOBAL, quote, bid, d(1.5));
+        assertEquals(d(1.5), first.lookup(Dictionary.GLOBAL, quote, bid));
+        assertEquals(UNDEF, second.lookup(Dictionary.GLOBAL, quote, bid));
+    }
+
+    public void testScalarSlotsAreResolvedPerContext() {
+        Scalar scalar = (Scalar) quote.getField(1);
+        Context first = new Context();
+        Context second = new Context();
+        second.getDictionarySlots().getSlot("custom", quote, bid);
+        first.registerTemplate(1, quote);
+        second.registerTemplate(1, quote);
+        int firstSlot = scalar.getSlot(quote, first);
+        int secondSlot = scalar.getSlot(quote, second);
+        assertEquals(first.getDictionarySlots().getSlot(Dictionary.GLOBAL, quote, bid), firstSlot);
+        assertEquals(second.getDictionarySlots().getSlot(Dictionary.GLOBAL, quote, bid), secondSlot);
+        assertFalse(firstSlot == secondSlot);
+        assertEquals(firstSlot, scalar.getSlot(quote, first));
+        assertEquals(firstSlot, scalar.getSlot(request, first));
+    }
+
+    public void testChangingKeyResolvesNewSlot() {
+        Scalar scalar = (Scalar) quote.getField(1);
+        Context context = new Context();
+        int slot = scalar.getSlot(quote, context);
+        scalar.setKey(new QName("offer"));
+        int offer = scalar.getSlot(quote, context);
+        assertFalse(slot == offer);
+        assertEquals(context.getDictionarySlots().getSlot(Dictionary.GLOBAL, quote, new QName("offer")), offer);
+        scalar.setDictionary(Dictionary.TEMPLATE);
+        assertEquals(context.getDictionarySlots().getSlot(Dictionary.TEMPLATE, quote, new QName("offer")), scalar.getSlot(quote, context));
+    }
+
+    public void testContextStoresBySlot() {
+        Context context = new Context();
+        DictionarySlots slots = context.getDictionarySlots();
+        int slot = slots.getSlot(Dictionary.TEMPLATE, quote, new QName("slotTestKey"));
+        assertEquals(UNDEF, context.lookup(slot));
+        context.store(Dictionary.TEMPLATE, quote, new QName("slotTestKey"), d(1.5));
+        assertEquals(d(1.5), context.lookup(slot));
+        assertEquals(UNDEF, context.lookup(Dictionary.TEMPLATE, request, new QName("slotTestKey")));
+        context.store(slot, null);
+        assertNull(context.lookup(Dictionary.TEMPLATE, quote, new QName("slotTestKey")));
+        context.reset();
+        assertEquals(UNDEF, context.lookup(slot));
+    }
+
+    public void testPrimitiveEntriesAreVisibleAsValues() {
+        Context context = new Context();
+        DictionarySlots slots = context.getDictionarySlots();
+        int slot = slots.getSlot(Dictionary.GLOBAL, quote, new QName("size"));
+        assertFalse(context.hasLong(slot));
+        context.store(slot, 5000000000L);
+        assertTrue(context.hasLong(slot));
+        assertEquals(5000000000L, context.lookupLong(slot));
+        assertEquals(l(5000000000L), context.lookup(slot));
+        assertTrue(context.hasLong(slot));
+
+        context.store(slot, 12345, -2);
+        assertFalse(context.hasLong(slot));
+        assertTrue(context.hasDecimal(slot));
+        assertEquals(new DecimalValue(12345, -2), context.lookup(slot));
+        assertEquals(-2, context.lookupExponent(slot));
+
+        context.store(slot, i(3));
+        assertTrue(context.hasLong(slot));
+        assertEquals(3, context.lookupLong(slot));
+        context.reset();
+        assertEquals(ScalarValue.UNDEFINED, context.lookup(slot));
+    }
+
+    public void testByteEntriesAreVisibleAsValues() {
+        Context context = new Context();
+        DictionarySlots slots = context.getDictionarySlots();
+        int slot = slots.getSlot(Dictionary.GLOBAL, quote, new QName("symbol"));
+        assertFalse(context.hasBytes(slot));
+        ByteRange range = new ByteRange();
+        range.copy("IBM".getBytes(), 0, 3);
+        context.storeAscii(slot, range);
+        range.copy("XX".getBytes(), 0, 2);
+        assertTrue(context.hasBytes(slot));
+        context.lookupBytes(slot, range);
+        assertEquals("IBM", range.toString());
+        assertEquals(new StringValue("IBM"), context.lookup(slot));
+        assertFalse(context.hasBytes(slot));
+
+        range.copy(new byte[] { 1, 2 }, 0, 2);
+        context.storeBytes(slot, range);
+        assertEquals(new ByteVectorValue(new byte[] { 1, 2 }), context.lookup(slot));
+        context.reset();
+        assertEquals(ScalarValue.UNDEFINED, context.lookup(slot));
+    }
+
+    public void testResetIsSeenByEveryLane() {
+        Context context = new Context();
+        DictionarySlots slots = context.getDictionarySlots();
+        int size = slots.getSlot(Dictionary.GLOBAL, quote, new QName("size"));
+        int price = slots.getSlot(Dictionary.GLOBAL, quote, new QName("price"));
+        int symbol = slots.getSlot(Dictionary.GLOBAL, quote, new QName("symbol"));
+        ByteRange range = new ByteRange();
+        range.copy("IBM".getBytes(), 0, 3);
+        for (int i = 0; i < 3; i++) {
+            context.store(size, 100 + i);
+            context.store(price, 12345, -2);
+            context.storeAscii(symbol, range);
+            assertTrue(context.hasLong(size));
+            assertTrue(context.hasDecimal(price));
+            assertTrue(context.hasBytes(symbol));
+            context.reset();
+            assertFalse(context.hasLong(size));
+            assertFalse(context.hasDecimal(price));
+            assertFalse(context.hasBytes(symbol));
+            assertEquals(UNDEF, context.lookup(size));
+            assertEquals(UNDEF, context.lookup(price));
+            assertEquals(UNDEF, context.lookup(symbol));
+        }
+    }
+
+    public void testResetTemplateOnlyResetsItsTemplateDictionary() {
+        Context context = new Context();
+        QName key = new QName("resetTestKey");
+        context.store(Dictionary.TEMPLATE, quote, key, d(1.5));
+        context.store(Dictionary.TEMPLATE, request, key, d(2.5));
+        context.store(Dictionary.GLOBAL, quote, key, d(3.5));
+        context.reset(quote);
+        assertEquals(UNDEF, context.lookup(Dictionary.TEMPLATE, quote, key));
+        assertEquals(d(2.5), context.lookup(Dictionary.TEMPLATE, request, key));
+        assertEquals(d(3.5), context.lookup(Dictionary.GLOBAL, quote, key));
+        context.store(Dictionary.TEMPLATE, quote, key, d(4.5));
+        assertEquals(d(4.5), context.lookup(Dictionary.TEMPLATE, quote, key));
+    }
+}
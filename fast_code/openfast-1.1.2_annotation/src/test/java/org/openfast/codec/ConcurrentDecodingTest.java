@@ -0,0 +1,117 @@
+package org.openfast.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.Global;
+import org.openfast.Message;
+import org.openfast.QName;
+import org.openfast.template.BasicTemplateRegistry;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.TemplateRegistry;
+import org.openfast.template.compiler.TemplateCompiler;
+import org.openfast.test.OpenFastTestCase;
+
+public class ConcurrentDecodingTest extends OpenFastTestCase {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 50;
+
+    private MessageTemplate template;
+    private TemplateRegistry registry;
+    private Message[] messages;
+    private byte[] encoded;
+
+    protected void setUp() {
+        template = template(
+            "<template name=\"Quote\">" +
+            "  <uInt32 name=\"SeqNum\"><increment/></uInt32>" +
+            "  <decimal name=\"Bid\"><exponent><copy/></exponent><mantissa><delta/></mantissa></decimal>" +
+            "  <decimal name=\"Ask\" presence=\"optional\"><exponent><default value=\"-2\"/></exponent><mantissa><copy/></mantissa></decimal>" +
+            "  <decimal name=\"Last\"><delta/></decimal>" +
+            "</template>");
+        registry = new BasicTemplateRegistry();
+        registry.register(1, template);
+        messages = new Message[500];
+        FastEncoder encoder = encoder(template);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new Message(template);
+            messages[i].setInteger("SeqNum", i + 1);
+            messages[i].setFieldValue("Bid", new DecimalValue(10000 + (i * 37) % 500, (i % 50 == 0) ? -3 : -2));
+            if (i % 7 != 0)
+                messages[i].setFieldValue("Ask", new DecimalValue(10100 + (i * 13) % 300, -2));
+            messages[i].setFieldValue("Last", new DecimalValue(1005 + i % 11, -1));
+            byte[] bytes = encoder.encode(messages[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        encoded = out.toByteArray();
+    }
+
+    public void testInterpretedTemplateIsSharedByDecoderThreads() throws Exception {
+        assertDecodesConcurrently();
+    }
+
+    public void testCompiledTemplateIsSharedByDecoderThreads() throws Exception {
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        assertDecodesConcurrently();
+    }
+
+    public void testImplicitNamesAreUniqueAcrossThreads() throws Exception {
+        final Set names = Collections.synchronizedSet(new HashSet());
+        final QName name = new QName("length");
+        final int perThread = 10000;
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < perThread; i++)
+                        names.add(Global.createImplicitName(name));
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++)
+            threads[t].join();
+        assertEquals(THREADS * perThread, names.size());
+    }
+
+    private void assertDecodesConcurrently() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List failures = Collections.synchronizedList(new ArrayList());
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int round = 0; round < ROUNDS; round++) {
+                            Context context = new Context();
+                            context.setTemplateRegistry(registry);
+                            FastDecoder decoder = new FastDecoder(context, ByteBuffer.wrap(encoded));
+                            for (int i = 0; i < messages.length; i++) {
+                                Message message = decoder.readMessage();
+                                if (!messages[i].equals(message))
+                                    throw new AssertionError("Message " + i + " decoded as " + message);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (int t = 0; t < threads.length; t++)
+            threads[t].join();
+        assertEquals(failures.toString(), 0, failures.size());
+    }
+}
@@ -22,6 +22,9 @@ Contributor(s): Jacob Northey <jacob@lasalletech.com>
 package org.openfast.codec;
 
 import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
 
 import junit.framework.TestCase;
 
@@ -32,9 +35,14 @@ import org.openfast.IntegerValue;
 import org.openfast.Message;
 import org.openfast.ScalarValue;
 import org.openfast.StringValue;
+import org.openfast.ValidationLevel;
+import org.openfast.debug.BasicDecodeTrace;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
 import org.openfast.template.Field;
 import org.openfast.template.MessageTemplate;
 import org.openfast.template.Scalar;
+import org.openfast.template.compiler.TemplateCompiler;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.type.Type;
 
@@ -105,6 +113,55 @@ public class FastDecoderTest extends TestCase {
         assertEquals(message, new FastDecoder(context, in).readMessage());
     }
 
+    public void testDecodeMessageWithAllFieldTypesFromDirectBuffer() {
+        byte[] bytes = ByteUtil.convertBitStringToFastByteArray("11111111 11110001 11001000 10000001 11111111 11111101 00001001 10110001 11111111 01100001 01100010 11100011 10000010 11000000 11110001");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+
+        MessageTemplate template = new MessageTemplate("", new Field[] {
+                new Scalar("1", Type.ASCII, Operator.COPY, ScalarValue.UNDEFINED, false),
+                new Scalar("2", Type.BYTE_VECTOR, Operator.COPY, ScalarValue.UNDEFINED, false),
+                new Scalar("3", Type.DECIMAL, Operator.COPY, ScalarValue.UNDEFINED, false),
+                new Scalar("4", Type.I32, Operator.COPY, ScalarValue.UNDEFINED, false),
+                new Scalar("5", Type.ASCII, Operator.COPY, ScalarValue.UNDEFINED, false),
+                new Scalar("6", Type.U32, Operator.COPY, ScalarValue.UNDEFINED, false), });
+        Context context = new Context();
+        context.registerTemplate(113, template);
+
+        GroupValue message = new Message(template);
+        message.setString(1, "H");
+        message.setByteVector(2, new byte[] { (byte) 0xFF });
+        message.setDecimal(3, 1.201);
+        message.setInteger(4, -1);
+        message.setString(5, "abc");
+        message.setInteger(6, 2);
+        FastDecoder decoder = new FastDecoder(context, buffer);
+        assertEquals(message, decoder.readMessage());
+        assertEquals(13, buffer.position());
+        assertEquals(message, decoder.readMessage());
+        assertNull(decoder.readMessage());
+    }
+
+    public void testSetBufferReusesDecoder() {
+        MessageTemplate messageTemplate = new MessageTemplate("", new Field[] {});
+        Context context = new Context();
+        context.registerTemplate(113, messageTemplate);
+        byte[] packet = ByteUtil.convertBitStringToFastByteArray("11000000 11110001");
+
+        FastDecoder decoder = new FastDecoder(context, packet, 0, packet.length);
+        assertEquals(113, decoder.readMessage().getInt(0));
+        assertNull(decoder.readMessage());
+        decoder.setBuffer(ByteBuffer.wrap(packet));
+        assertEquals(113, decoder.readMessage().getInt(0));
+
+        try {
+            new FastDecoder(context, ByteUtil.createByteStream("11000000")).setBuffer(ByteBuffer.wrap(packet));
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
     public void testDecodeMessageWithSignedIntegerFieldTypesAndAllOperators() {
         MessageTemplate template = new MessageTemplate("", new Field[] {
                 new Scalar("1", Type.I32, Operator.COPY, ScalarValue.UNDEFINED, false),
@@ -258,4 +315,71 @@ public class FastDecoderTest extends TestCase {
         readMessage = decoder.readMessage();
         assertEquals(message, readMessage);
     }
+
+    public void testEnablingTraceStartsDecodeTrace() {
+        MessageTemplate template = new MessageTemplate("", new Field[] { new Scalar("1", Type.U32, Operator.COPY,
+                ScalarValue.UNDEFINED, false) });
+        Context context = new Context();
+        context.registerTemplate(113, template);
+        context.setTraceEnabled(true);
+        StringWriter trace = new StringWriter();
+        ((BasicDecodeTrace) context.getDecodeTrace()).setWriter(new PrintWriter(trace));
+
+        FastDecoder decoder = new FastDecoder(context, ByteUtil.createByteStream("11100000 11110001 10000001"));
+        assertEquals(1, decoder.readMessage().getInt(1));
+        assertTrue(trace.toString().length() > 0);
+    }
+
+    public void testDisablingTraceStopsReporting() {
+        MessageTemplate template = new MessageTemplate("", new Field[] { new Scalar("1", Type.U32, Operator.COPY,
+                ScalarValue.UNDEFINED, false) });
+        Context context = new Context();
+        context.registerTemplate(113, template);
+        context.setTraceEnabled(true);
+        StringWriter trace = new StringWriter();
+        ((BasicDecodeTrace) context.getDecodeTrace()).setWriter(new PrintWriter(trace));
+
+        FastDecoder decoder = new FastDecoder(context, ByteUtil.createByteStream("11100000 11110001 10000001 11100000 11110001 10000010"));
+        assertEquals(1, decoder.readMessage().getInt(1));
+        assertTrue(trace.toString().indexOf("1: 81 -> 1(1)") >= 0);
+        int traced = trace.toString().length();
+        context.setTraceEnabled(false);
+        assertEquals(2, decoder.readMessage().getInt(1));
+        assertEquals(traced, trace.toString().length());
+    }
+
+    public void testTrustedFeedSkipsFieldChecks() {
+        MessageTemplate template = new MessageTemplate("", new Field[] { new Scalar("1", Type.U8, Operator.NONE,
+                ScalarValue.UNDEFINED, false) });
+        String message = "11000000 11110001 00000010 10101100";
+        for (int compiled = 0; compiled < 2; compiled++) {
+            template.setCompiledDecoder(compiled == 0 ? null : new TemplateCompiler().compile(template));
+            Context context = new Context();
+            context.registerTemplate(113, template);
+            try {
+                new FastDecoder(context, ByteUtil.createByteStream(message)).readMessage();
+                fail();
+            } catch (FastException e) {
+                assertEquals(FastConstants.D2_INT_OUT_OF_RANGE, e.getCode());
+            }
+            context.setValidationLevel(ValidationLevel.TRUSTED);
+            assertEquals(300, new FastDecoder(context, ByteUtil.createByteStream(message)).readMessage().getInt(1));
+        }
+    }
+
+    public void testTrustedFeedChecksMessagePresenceMap() {
+        MessageTemplate template = new MessageTemplate("", new Field[] {});
+        for (int compiled = 0; compiled < 2; compiled++) {
+            template.setCompiledDecoder(compiled == 0 ? null : new TemplateCompiler().compile(template));
+            Context context = new Context();
+            context.registerTemplate(113, template);
+            context.setValidationLevel(ValidationLevel.TRUSTED);
+            try {
+                new FastDecoder(context, ByteUtil.createByteStream("11110000 11110001")).readMessage();
+                fail();
+            } catch (FastException e) {
+                assertEquals(FastConstants.R8_PMAP_TOO_MANY_BITS, e.getCode());
+            }
+        }
+    }
 }
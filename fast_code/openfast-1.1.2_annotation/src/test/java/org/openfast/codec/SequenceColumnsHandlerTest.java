@@ -0,0 +1,123 @@
+package org.openfast.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.openfast.Context;
+import org.openfast.GroupValue;
+import org.openfast.Message;
+import org.openfast.SequenceValue;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Sequence;
+import org.openfast.template.compiler.TemplateCompiler;
+import org.openfast.test.OpenFastTestCase;
+import org.openfast.util.FixedPoint;
+
+public class SequenceColumnsHandlerTest extends OpenFastTestCase {
+    private MessageTemplate template;
+    private Message[] messages;
+    private byte[] encoded;
+
+    protected void setUp() {
+        template = template(
+            "<template name=\"Snapshot\">" +
+            "  <string name=\"SecurityID\"><copy/></string>" +
+            "  <sequence name=\"Bids\">" +
+            "    <string name=\"MDEntryType\"><copy/></string>" +
+            "    <int64 name=\"MDEntryPx\" precision=\"4\"><delta/></int64>" +
+            "    <decimal name=\"MDEntrySize\" presence=\"optional\"><copy/></decimal>" +
+            "    <group name=\"Ignored\" presence=\"optional\"><uInt32 name=\"Value\"/></group>" +
+            "    <sequence name=\"NoOrders\"><int64 name=\"OrderQty\"><delta/></int64></sequence>" +
+            "  </sequence>" +
+            "  <sequence name=\"Asks\"><int64 name=\"Px\"/></sequence>" +
+            "</template>");
+        messages = new Message[] { snapshot(3, 2), snapshot(40, 1), snapshot(0, 0) };
+        FastEncoder encoder = encoder(template);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < messages.length; i++) {
+            byte[] bytes = encoder.encode(messages[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        encoded = out.toByteArray();
+    }
+
+    public void testCompiledTemplateDecodesIntoColumns() {
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        assertDecodesIntoColumns();
+    }
+
+    public void testInterpretedTemplateDecodesIntoColumns() {
+        assertDecodesIntoColumns();
+    }
+
+    private void assertDecodesIntoColumns() {
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        FastDecoder decoder = new FastDecoder(context, ByteBuffer.wrap(encoded));
+        SequenceColumnsHandler asks = new SequenceColumnsHandler(template, "Asks", null);
+        SequenceColumnsHandler bids = new SequenceColumnsHandler(template, "Bids", asks);
+        for (int i = 0; i < messages.length; i++) {
+            assertTrue(decoder.readMessage(bids));
+            assertColumns(messages[i].getSequence("Bids"), bids.getColumns());
+            assertColumns(messages[i].getSequence("Asks"), asks.getColumns());
+        }
+        assertFalse(decoder.readMessage(bids));
+    }
+
+    private void assertColumns(SequenceValue expected, SequenceColumns columns) {
+        assertEquals(expected.getLength(), columns.getRowCount());
+        if (expected.getSequence().getName().equals("Asks")) {
+            for (int row = 0; row < expected.getLength(); row++)
+                assertEquals(expected.get(row).getLong(0), columns.getLongs(0)[row]);
+            return;
+        }
+        SequenceColumns orders = columns.getChild(4);
+        for (int row = 0; row < expected.getLength(); row++) {
+            GroupValue entry = expected.get(row);
+            assertEquals(entry.getString(0), columns.getString(0, row));
+            assertEquals(entry.getLong(1), columns.getLongs(1)[row]);
+            assertEquals(entry.isDefined(2), columns.isPresent(2, row));
+            if (entry.isDefined(2))
+                assertEquals(entry.getScaledLong(2, -2), FixedPoint.rescale(columns.getLongs(2)[row], columns.getInts(2)[row], -2));
+            assertFalse(columns.isPresent(3, row));
+            SequenceValue expectedOrders = entry.getSequence(4);
+            assertEquals(expectedOrders.getLength(), columns.getLengths(4)[row]);
+            for (int i = 0; i < expectedOrders.getLength(); i++)
+                assertEquals(expectedOrders.get(i).getLong(0), orders.getLongs(0)[columns.getInts(4)[row] + i]);
+        }
+    }
+
+    private Message snapshot(int levels, int orders) {
+        Message message = new Message(template);
+        message.setString("SecurityID", "000001");
+        Sequence bids = template.getSequence("Bids");
+        SequenceValue entries = new SequenceValue(bids);
+        for (int i = 0; i < levels; i++) {
+            GroupValue entry = new GroupValue(bids.getGroup());
+            entry.setString("MDEntryType", (i % 2 == 0) ? "0" : "1");
+            entry.setLong("MDEntryPx", 123400 - i * 100);
+            if (i % 3 != 1)
+                entry.setDecimal("MDEntrySize", 1.5 * (i + 1));
+            GroupValue ignored = new GroupValue(bids.getGroup().getGroup("Ignored"));
+            ignored.setInteger("Value", i);
+            entry.setFieldValue("Ignored", ignored);
+            SequenceValue queue = new SequenceValue(bids.getGroup().getSequence("NoOrders"));
+            for (int j = 0; j < (i % (orders + 1)); j++) {
+                GroupValue order = new GroupValue(queue.getSequence().getGroup());
+                order.setLong("OrderQty", 100 * (j + 1));
+                queue.add(order);
+            }
+            entry.setFieldValue("NoOrders", queue);
+            entries.add(entry);
+        }
+        message.setFieldValue("Bids", entries);
+        SequenceValue asks = new SequenceValue(template.getSequence("Asks"));
+        for (int i = 0; i < levels / 2; i++) {
+            GroupValue entry = new GroupValue(template.getSequence("Asks").getGroup());
+            entry.setLong("Px", 123500 + i * 100);
+            asks.add(entry);
+        }
+        message.setFieldValue("Asks", asks);
+        return message;
+    }
+}
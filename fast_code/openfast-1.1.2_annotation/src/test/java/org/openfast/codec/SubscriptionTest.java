@@ -0,0 +1,172 @@
+package org.openfast.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.openfast.Context;
+import org.openfast.GroupValue;
+import org.openfast.Message;
+import org.openfast.SequenceValue;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.compiler.FlyweightMessage;
+import org.openfast.template.compiler.TemplateCompiler;
+import org.openfast.test.OpenFastTestCase;
+
+public class SubscriptionTest extends OpenFastTestCase {
+    private MessageTemplate quotes;
+    private MessageTemplate trades;
+    private Message[] messages;
+    private byte[] encoded;
+
+    protected void setUp() {
+        quotes = template(
+            "<template name=\"Quotes\">" +
+            "  <uInt32 name=\"SeqNum\"><increment/></uInt32>" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "  <decimal name=\"Price\"><delta/></decimal>" +
+            "  <group name=\"Trade\" presence=\"optional\"><uInt32 name=\"Size\"><copy/></uInt32></group>" +
+            "  <sequence name=\"Levels\">" +
+            "    <length name=\"NoLevels\"/>" +
+            "    <uInt32 name=\"Level\"><increment/></uInt32>" +
+            "    <decimal name=\"Px\"><delta/></decimal>" +
+            "  </sequence>" +
+            "</template>");
+        trades = template(
+            "<template name=\"Trades\">" +
+            "  <uInt32 name=\"SeqNum\"><increment/></uInt32>" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "  <byteVector name=\"Data\" presence=\"optional\"><copy/></byteVector>" +
+            "  <int64 name=\"Qty\"><delta/></int64>" +
+            "</template>");
+        messages = new Message[] { quote(1, "ABC", 10, 2), trade(2, "ABC", 100), trade(3, "DEF", -5),
+                quote(4, "ABC", 0, 0), quote(5, "DEF", 7, 3), trade(6, "DEF", 40) };
+        Context context = new Context();
+        context.registerTemplate(1, quotes);
+        context.registerTemplate(2, trades);
+        FastEncoder encoder = new FastEncoder(context);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < messages.length; i++) {
+            byte[] bytes = encoder.encode(messages[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        encoded = out.toByteArray();
+    }
+
+    public void testUnsubscribedTemplatesAreSkipped() {
+        Subscription subscription = new Subscription();
+        subscription.subscribe(2);
+        assertReads(subscription, new Message[] { messages[1], messages[2], messages[5] });
+        compile();
+        assertReads(subscription, new Message[] { messages[1], messages[2], messages[5] });
+    }
+
+    public void testUnsubscribedFieldsAreEmpty() {
+        Subscription subscription = new Subscription();
+        subscription.subscribe(1, new String[] { "Symbol", "Levels" });
+        subscription.subscribe(2, new String[] { "Qty" });
+        Message[] expected = new Message[messages.length];
+        for (int i = 0; i < messages.length; i++)
+            expected[i] = mask(messages[i], messages[i].getTemplate() == quotes ? new int[] { 2, 5 } : new int[] { 4 });
+        assertReads(subscription, expected);
+        compile();
+        assertReads(subscription, expected);
+    }
+
+    public void testFlyweightSkipsUnsubscribedTemplatesAndFields() {
+        Subscription subscription = new Subscription();
+        subscription.subscribe(1, new String[] { "Price", "Trade" });
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass == 1)
+                compile();
+            FastDecoder decoder = decoder(subscription);
+            FlyweightMessage message = new FlyweightMessage();
+            int[] quoteIndexes = { 0, 3, 4 };
+            for (int i = 0; i < quoteIndexes.length; i++) {
+                assertTrue(decoder.readMessage(message));
+                assertEquals(1, message.getTemplateId());
+                assertEquals(mask(messages[quoteIndexes[i]], new int[] { 3, 4 }), message.toMessage());
+                assertFalse(message.isPresent(1));
+                assertFalse(message.isPresent(2));
+            }
+            assertFalse(decoder.readMessage(message));
+        }
+    }
+
+    public void testSubscribingToUnknownFieldFails() {
+        Subscription subscription = new Subscription();
+        subscription.subscribe(1, new String[] { "Bogus" });
+        try {
+            decoder(subscription).readMessage();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("The template Quotes has no field named Bogus", e.getMessage());
+        }
+    }
+
+    public void testManyTemplates() {
+        Subscription subscription = new Subscription();
+        for (int id = 0; id < 1000; id += 3)
+            subscription.subscribe(id);
+        for (int id = 0; id < 1000; id++)
+            assertEquals(id % 3 == 0, subscription.isSubscribed(id));
+    }
+
+    private void assertReads(Subscription subscription, Message[] expected) {
+        FastDecoder decoder = decoder(subscription);
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], decoder.readMessage());
+        assertNull(decoder.readMessage());
+    }
+
+    private FastDecoder decoder(Subscription subscription) {
+        Context context = new Context();
+        context.registerTemplate(1, quotes);
+        context.registerTemplate(2, trades);
+        FastDecoder decoder = new FastDecoder(context, ByteBuffer.wrap(encoded));
+        decoder.setSubscription(subscription);
+        return decoder;
+    }
+
+    private void compile() {
+        quotes.setCompiledDecoder(new TemplateCompiler().compile(quotes));
+        trades.setCompiledDecoder(new TemplateCompiler().compile(trades));
+    }
+
+    private static Message mask(Message message, int[] subscribed) {
+        Message masked = new Message(message.getTemplate());
+        for (int i = 0; i < subscribed.length; i++)
+            masked.setFieldValue(subscribed[i], message.getValue(subscribed[i]));
+        return masked;
+    }
+
+    private Message quote(int seqNum, String symbol, int tradeSize, int levels) {
+        Message message = new Message(quotes);
+        message.setInteger("SeqNum", seqNum);
+        message.setString("Symbol", symbol);
+        message.setDecimal("Price", 100.25 + seqNum);
+        if (tradeSize > 0) {
+            GroupValue trade = new GroupValue(quotes.getGroup("Trade"));
+            trade.setInteger("Size", tradeSize);
+            message.setFieldValue("Trade", trade);
+        }
+        SequenceValue sequence = new SequenceValue(quotes.getSequence("Levels"));
+        for (int i = 0; i < levels; i++) {
+            GroupValue entry = new GroupValue(quotes.getSequence("Levels").getGroup());
+            entry.setInteger("Level", i + 1);
+            entry.setDecimal("Px", 1.00 + i * 0.01);
+            sequence.add(entry);
+        }
+        message.setFieldValue("Levels", sequence);
+        return message;
+    }
+
+    private Message trade(int seqNum, String symbol, long qty) {
+        Message message = new Message(trades);
+        message.setInteger("SeqNum", seqNum);
+        message.setString("Symbol", symbol);
+        if (seqNum % 2 == 0)
+            message.setByteVector("Data", new byte[] { (byte) seqNum, 1, 2 });
+        message.setLong("Qty", qty);
+        return message;
+    }
+}
@@ -1,8 +1,10 @@
 package org.openfast.session;
 
 import org.openfast.Message;
+import org.openfast.QName;
 import org.openfast.SequenceValue;
 import org.openfast.template.BasicTemplateRegistry;
+import org.openfast.template.Field;
 import org.openfast.template.MessageTemplate;
 import org.openfast.template.TemplateRegistry;
 import org.openfast.test.ObjectMother;
@@ -40,6 +42,17 @@ public class SessionControlProtocol_1_1Test extends OpenFastTestCase {
         assertEquals(ObjectMother.allocationInstruction(), template);
     }
 
+    public void testCreateTemplateFromMessageKeepsReset() {
+        QName reset = new QName("reset", SessionControlProtocol_1_1.NAMESPACE);
+        MessageTemplate snapshot = new MessageTemplate("Snapshot", new Field[0]);
+        assertFalse(SCP_1_1.createTemplateFromMessage(SCP_1_1.createTemplateDefinitionMessage(snapshot), TemplateRegistry.NULL)
+                .hasAttribute(reset));
+        snapshot.setAttribute(reset, "yes");
+        Message templateDef = SCP_1_1.createTemplateDefinitionMessage(snapshot);
+        assertEquals(1, templateDef.getInt("Reset"));
+        assertTrue(SCP_1_1.createTemplateFromMessage(templateDef, TemplateRegistry.NULL).hasAttribute(reset));
+    }
+
     public void testCreateTemplateDeclarationMessage() {
         Message templateDecl = SCP_1_1.createTemplateDeclarationMessage(ObjectMother.quoteTemplate(), 104);
         assertEquals("Quote", templateDecl.getString("Name"));
@@ -0,0 +1,212 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.multicast;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openfast.Context;
+import org.openfast.Message;
+import org.openfast.MessageBlockReader;
+import org.openfast.codec.FastEncoder;
+import org.openfast.error.ErrorCode;
+import org.openfast.error.ErrorHandler;
+import org.openfast.template.MessageTemplate;
+import org.openfast.test.OpenFastTestCase;
+
+public class MulticastFanInTest extends OpenFastTestCase {
+    private final MessageTemplate template = template("<template name=\"Quote\">" +
+            "  <uInt32 name=\"Seq\"><increment/></uInt32>" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "</template>");
+    private final List received = new ArrayList();
+    private final MulticastListener listener = new MulticastListener() {
+        public void onMessage(MulticastReceiver receiver, Message message) {
+            synchronized (received) {
+                received.add(receiver.getChannel().socket().getLocalPort() + ":" + message.getInt("Seq"));
+                received.notifyAll();
+            }
+        }
+    };
+    private DatagramChannel sender;
+    private MulticastFanIn fanIn;
+
+    protected void setUp() throws Exception {
+        sender = DatagramChannel.open();
+    }
+
+    protected void tearDown() throws Exception {
+        if (fanIn != null)
+            fanIn.close();
+        sender.close();
+    }
+
+    public void testEachGroupDecodesWithItsOwnContext() throws Exception {
+        fanIn = new MulticastFanIn(2);
+        MulticastReceiver[] groups = new MulticastReceiver[3];
+        FastEncoder[] encoders = new FastEncoder[3];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = receiver();
+            fanIn.add(groups[i], listener);
+            encoders[i] = encoder(template);
+        }
+        fanIn.start();
+        for (int seq = 1; seq <= 5; seq++)
+            for (int i = 0; i < groups.length; i++)
+                send(groups[i], encoders[i].encode(message(100 * i + seq)));
+        awaitMessages(15);
+        for (int i = 0; i < groups.length; i++) {
+            List expected = new ArrayList();
+            List actual = new ArrayList();
+            int port = groups[i].getChannel().socket().getLocalPort();
+            for (int seq = 1; seq <= 5; seq++)
+                expected.add(port + ":" + (100 * i + seq));
+            for (int j = 0; j < received.size(); j++)
+                if (((String) received.get(j)).startsWith(port + ":"))
+                    actual.add(received.get(j));
+            assertEquals(expected, actual);
+            assertEquals(5, groups[i].getCounters().getPackets());
+            assertEquals(5, groups[i].getCounters().getMessages());
+        }
+        assertEquals(3, fanIn.getReceivers().length);
+    }
+
+    public void testBusyGroupDoesNotStarveOthers() throws Exception {
+        fanIn = new MulticastFanIn(1);
+        fanIn.setPacketsPerTurn(1);
+        MulticastReceiver busy = receiver();
+        MulticastReceiver quiet = receiver();
+        fanIn.add(busy, listener);
+        fanIn.add(quiet, listener);
+        FastEncoder encoder = encoder(template);
+        for (int seq = 1; seq <= 20; seq++)
+            send(busy, encoder.encode(message(seq)));
+        send(quiet, encoder(template).encode(message(1000)));
+        fanIn.start();
+        awaitMessages(21);
+        int index = received.indexOf(quiet.getChannel().socket().getLocalPort() + ":1000");
+        assertTrue("served after " + index + " messages of the busy group", index >= 0 && index <= 2);
+    }
+
+    public void testListenerErrorsAreReported() throws Exception {
+        fanIn = new MulticastFanIn(1);
+        final List errors = new ArrayList();
+        fanIn.setErrorHandler(new ErrorHandler() {
+            public void error(ErrorCode code, String message) {
+                errors.add(message);
+            }
+
+            public void error(ErrorCode code, String message, Throwable t) {
+                errors.add(message);
+            }
+        });
+        MulticastReceiver group = receiver();
+        fanIn.add(group, new MulticastListener() {
+            public void onMessage(MulticastReceiver receiver, Message message) {
+                if (message.getInt("Seq") == 1)
+                    throw new IllegalStateException("rejected");
+                listener.onMessage(receiver, message);
+            }
+        });
+        fanIn.start();
+        FastEncoder encoder = encoder(template);
+        byte[] first = encoder.encode(message(1));
+        byte[] second = encoder.encode(message(2));
+        byte[] packet = new byte[first.length + second.length];
+        System.arraycopy(first, 0, packet, 0, first.length);
+        System.arraycopy(second, 0, packet, first.length, second.length);
+        send(group, packet);
+        awaitMessages(1);
+        assertEquals(1, errors.size());
+        assertEquals("rejected", errors.get(0));
+        assertTrue(((String) received.get(0)).endsWith(":2"));
+    }
+
+    public void testMalformedPacketsAreDroppedAndCounted() throws Exception {
+        fanIn = new MulticastFanIn(1);
+        MulticastReceiver group = receiver();
+        group.setBlockReader(new MessageBlockReader() {
+            public boolean readBlock(InputStream in) {
+                try {
+                    if (in.read() == 1)
+                        throw new IllegalArgumentException("bad header");
+                    return true;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            public void messageRead(InputStream in, Message message) {
+            }
+        });
+        fanIn.add(group, listener);
+        fanIn.start();
+        // the increment of Seq needs a value from an earlier packet
+        send(group, new byte[] { 0, (byte) 0xc0, (byte) 0x81 });
+        send(group, header(1, encoder(template).encode(message(2))));
+        send(group, header(0, encoder(template).encode(message(3))));
+        awaitMessages(1);
+        assertTrue(((String) received.get(0)).endsWith(":3"));
+        assertEquals(2, group.getCounters().getMalformedPackets());
+        assertEquals(3, group.getCounters().getPackets());
+    }
+
+    private MulticastReceiver receiver() throws Exception {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        return new MulticastReceiver(channel, context);
+    }
+
+    private void send(MulticastReceiver receiver, byte[] packet) throws Exception {
+        sender.send(ByteBuffer.wrap(packet), receiver.getChannel().socket().getLocalSocketAddress());
+    }
+
+    private static byte[] header(int header, byte[] message) {
+        byte[] packet = new byte[message.length + 1];
+        packet[0] = (byte) header;
+        System.arraycopy(message, 0, packet, 1, message.length);
+        return packet;
+    }
+
+    private void awaitMessages(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        synchronized (received) {
+            while (received.size() < count && System.currentTimeMillis() < deadline)
+                received.wait(100);
+            assertEquals(count, received.size());
+        }
+    }
+
+    private Message message(int seq) {
+        Message message = new Message(template);
+        message.setInteger("Seq", seq);
+        message.setString("Symbol", "IBM");
+        return message;
+    }
+}
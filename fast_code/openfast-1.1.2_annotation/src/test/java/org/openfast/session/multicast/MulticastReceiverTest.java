@@ -0,0 +1,210 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.session.multicast;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.openfast.Context;
+import org.openfast.Message;
+import org.openfast.codec.FastEncoder;
+import org.openfast.impl.CmeMessageBlockReader;
+import org.openfast.session.FastConnectionException;
+import org.openfast.template.MessageTemplate;
+import org.openfast.test.OpenFastTestCase;
+
+public class MulticastReceiverTest extends OpenFastTestCase {
+    private final MessageTemplate template = template("<template name=\"Quote\">" +
+            "  <uInt32 name=\"Seq\"><copy/></uInt32>" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "</template>");
+    private DatagramChannel sender;
+    private DatagramChannel channel;
+    private MulticastReceiver receiver;
+
+    protected void setUp() throws Exception {
+        channel = DatagramChannel.open();
+        channel.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        sender = DatagramChannel.open();
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        receiver = new MulticastReceiver(channel, context);
+        receiver.setResetOnPacket(true);
+    }
+
+    protected void tearDown() throws Exception {
+        receiver.close();
+        sender.close();
+    }
+
+    public void testDecodesEachPacket() throws Exception {
+        send(packet(null, 1, 2));
+        send(packet(null, 3));
+        for (int i = 1; i <= 3; i++)
+            assertEquals(message(i), receiver.readMessage());
+        assertEquals(2, receiver.getCounters().getPackets());
+        assertEquals(3, receiver.getCounters().getMessages());
+    }
+
+    public void testResynchronizesAfterMalformedPacket() throws Exception {
+        byte[] good = packet(null, 1, 2);
+        byte[] cut = new byte[good.length - 1];
+        System.arraycopy(good, 0, cut, 0, cut.length);
+        send(cut);
+        send(packet(null, 3));
+        assertEquals(message(1), receiver.readMessage());
+        assertEquals(message(3), receiver.readMessage());
+        assertEquals(1, receiver.getCounters().getMalformedPackets());
+        assertEquals(2, receiver.getCounters().getMessages());
+    }
+
+    public void testResynchronizesAfterLostPacketWithoutResets() throws Exception {
+        MessageTemplate increments = template("<template name=\"Trade\">" +
+                "  <uInt32 name=\"Seq\"><increment/></uInt32>" +
+                "  <string name=\"Symbol\"><copy/></string>" +
+                "</template>");
+        Context context = new Context();
+        context.registerTemplate(1, increments);
+        receiver = new MulticastReceiver(channel, context);
+        // the template id with Seq and Symbol left to their operators, which need the values of a lost packet
+        send(byt("c0 81"));
+        send(encoder(increments).encode(trade(increments, 5)));
+        assertEquals(trade(increments, 5), receiver.readMessage());
+        assertEquals(1, receiver.getCounters().getMalformedPackets());
+        assertEquals(1, receiver.getCounters().getMessages());
+    }
+
+    public void testDropsPacketsThatFillTheBuffer() throws Exception {
+        receiver.setPacketBufferSize(packet(null, 1).length + 1);
+        send(packet(null, 2, 3));
+        send(packet(null, 4));
+        assertEquals(message(4), receiver.readMessage());
+        assertEquals(1, receiver.getCounters().getTruncatedPackets());
+        assertEquals(2, receiver.getCounters().getPackets());
+    }
+
+    public void testReadsPreambleOfEachPacket() throws Exception {
+        CmeMessageBlockReader blockReader = new CmeMessageBlockReader();
+        receiver.setBlockReader(blockReader);
+        send(packet(new byte[] { 0, 0, 1, 0, 7 }, 1, 2));
+        send(packet(new byte[] { 0, 0, 1, 1, 7 }, 3));
+        assertEquals(message(1), receiver.readMessage());
+        assertEquals(256, blockReader.getLastSeqNum());
+        assertEquals(message(2), receiver.readMessage());
+        assertEquals(256, blockReader.getLastSeqNum());
+        assertEquals(message(3), receiver.readMessage());
+        assertEquals(257, blockReader.getLastSeqNum());
+    }
+
+    public void testNonBlockingChannelWithoutPackets() throws Exception {
+        channel.configureBlocking(false);
+        assertFalse(receiver.receivePacket());
+        assertNull(receiver.nextMessage());
+        assertNull(receiver.readMessage());
+        assertEquals(0, receiver.getCounters().getPackets());
+    }
+
+    public void testOpenJoinsGroupOnInterface() throws Exception {
+        DatagramChannel probe = DatagramChannel.open();
+        probe.socket().bind(new InetSocketAddress(0));
+        int port = probe.socket().getLocalPort();
+        probe.close();
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        MulticastReceiver joined = new MulticastReceiver(port, "239.255.42.99", "127.0.0.1", context);
+        joined.setResetOnPacket(true);
+        try {
+            joined.open();
+        } catch (FastConnectionException e) {
+            return; // the loopback interface cannot join multicast groups here
+        }
+        try {
+            assertEquals(port, ((InetSocketAddress) joined.getChannel().getLocalAddress()).getPort());
+            joined.getChannel().configureBlocking(false);
+            DatagramChannel multicastSender = DatagramChannel.open(StandardProtocolFamily.INET);
+            try {
+                multicastSender.setOption(StandardSocketOptions.IP_MULTICAST_IF, MulticastReceiver
+                        .getNetworkInterface("127.0.0.1"));
+                multicastSender.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, Boolean.TRUE);
+                Message received = null;
+                for (int attempt = 0; received == null && attempt < 100; attempt++) {
+                    multicastSender.send(ByteBuffer.wrap(packet(null, 1)), new InetSocketAddress("239.255.42.99", port));
+                    Thread.sleep(10);
+                    received = joined.readMessage();
+                }
+                assertEquals(message(1), received);
+            } finally {
+                multicastSender.close();
+            }
+        } finally {
+            joined.close();
+        }
+        assertFalse(joined.getChannel().isOpen());
+    }
+
+    public void testOpenFailsForUnknownInterface() {
+        MulticastReceiver unknown = new MulticastReceiver(0, "239.255.42.99", "192.0.2.1", new Context());
+        try {
+            unknown.open();
+            fail();
+        } catch (FastConnectionException e) {
+        }
+    }
+
+    private byte[] packet(byte[] preamble, int first, int last) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (preamble != null)
+            out.write(preamble, 0, preamble.length);
+        FastEncoder encoder = encoder(template);
+        for (int i = first; i <= last; i++) {
+            byte[] encoded = encoder.encode(message(i));
+            out.write(encoded, 0, encoded.length);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] packet(byte[] preamble, int seq) {
+        return packet(preamble, seq, seq);
+    }
+
+    private void send(byte[] packet) throws Exception {
+        sender.send(ByteBuffer.wrap(packet), channel.socket().getLocalSocketAddress());
+    }
+
+    private Message trade(MessageTemplate increments, int seq) {
+        Message message = new Message(increments);
+        message.setInteger("Seq", seq);
+        message.setString("Symbol", "IBM");
+        return message;
+    }
+
+    private Message message(int seq) {
+        Message message = new Message(template);
+        message.setInteger("Seq", seq);
+        message.setString("Symbol", "IBM");
+        return message;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+*/
+package org.openfast.session.tcp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openfast.Context;
+import org.openfast.Message;
+import org.openfast.MessageBlockReader;
+import org.openfast.MessageBlockWriter;
+import org.openfast.MessageInputStream;
+import org.openfast.MessageOutputStream;
+import org.openfast.codec.FastDecoder;
+import org.openfast.codec.FastEncoder;
+import org.openfast.session.Connection;
+import org.openfast.session.ConnectionListener;
+import org.openfast.session.FastConnectionException;
+import org.openfast.template.MessageTemplate;
+import org.openfast.test.OpenFastTestCase;
+
+public class TcpConnectionTest extends OpenFastTestCase {
+    private final MessageTemplate template = template("<template name=\"Quote\">" +
+            "  <uInt32 name=\"Seq\"><increment/></uInt32>" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "</template>");
+    private TcpEndpoint server;
+    private Connection accepted;
+    private Connection client;
+
+    protected void tearDown() {
+        if (client != null)
+            client.close();
+        if (accepted != null)
+            accepted.close();
+        if (server != null)
+            server.close();
+    }
+
+    public void testRoundTripPerBatch() throws Exception {
+        connect(FlushPolicy.perBatch(3));
+        MessageOutputStream out = new MessageOutputStream(client.getOutputStream(), context());
+        out.setBlockWriter(BLOCK_WRITER);
+        for (int i = 1; i <= 6; i++)
+            out.writeMessage(message(i));
+        MessageInputStream in = new MessageInputStream(accepted.getInputStream(), context());
+        in.setBlockReader(BLOCK_READER);
+        for (int i = 1; i <= 6; i++)
+            assertEquals(message(i), in.readMessage());
+    }
+
+    public void testPerBatchSendsWholeMessagesTogether() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        MessageOutputStream out = new MessageOutputStream(new ChannelOutputStream(channel, ByteBuffer.allocate(256),
+                FlushPolicy.perBatch(3)), context());
+        out.setBlockWriter(BLOCK_WRITER);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        MessageOutputStream reference = new MessageOutputStream(expected, context());
+        reference.setBlockWriter(BLOCK_WRITER);
+        for (int i = 1; i <= 7; i++) {
+            out.writeMessage(message(i));
+            reference.writeMessage(message(i));
+            if (i == 3)
+                assertEquals(expected.size(), channel.length());
+            assertEquals(i / 3, channel.sends.size());
+        }
+        assertEquals(2, channel.sends.size());
+        out.writeMessage(message(8), true);
+        reference.writeMessage(message(8));
+        assertEquals(3, channel.sends.size());
+        assertTrue(Arrays.equals(expected.toByteArray(), channel.bytes.toByteArray()));
+    }
+
+    public void testPerMessageSendsBlockLengthWithItsMessage() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        MessageOutputStream out = new MessageOutputStream(new ChannelOutputStream(channel, ByteBuffer.allocate(256),
+                FlushPolicy.PER_MESSAGE), context());
+        out.setBlockWriter(BLOCK_WRITER);
+        out.writeMessage(message(1));
+        out.writeMessage(message(2));
+        assertEquals(2, channel.sends.size());
+        assertEquals(1 + encoder(template).encode(message(1)).length, ((Integer) channel.sends.get(0)).intValue());
+    }
+
+    public void testIdleFlushSendsPartialBatch() throws Exception {
+        connect(FlushPolicy.onIdle(5));
+        new MessageOutputStream(client.getOutputStream(), context()).writeMessage(message(1));
+        assertEquals(message(1), new MessageInputStream(accepted.getInputStream(), context()).readMessage());
+    }
+
+    public void testDecodeFromReadBuffer() throws Exception {
+        connect(FlushPolicy.PER_MESSAGE);
+        MessageOutputStream out = new MessageOutputStream(client.getOutputStream(), context());
+        out.writeMessage(message(1));
+        out.writeMessage(message(2));
+        FastEncoder encoder = encoder(template);
+        int length = encoder.encode(message(1)).length + encoder.encode(message(2)).length;
+        TcpConnection connection = (TcpConnection) accepted;
+        while (connection.getReadBuffer().remaining() < length)
+            assertTrue(connection.fill() >= 0);
+        FastDecoder decoder = new FastDecoder(context(), connection.getReadBuffer());
+        assertEquals(message(1), decoder.readMessage());
+        assertEquals(message(2), decoder.readMessage());
+        assertFalse(connection.getReadBuffer().hasRemaining());
+    }
+
+    public void testInvalidFlushPolicies() {
+        try {
+            FlushPolicy.perBatch(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            FlushPolicy.onIdle(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private void connect(FlushPolicy flushPolicy) throws Exception {
+        ServerSocket probe = new ServerSocket(0);
+        int port = probe.getLocalPort();
+        probe.close();
+        server = new TcpEndpoint(port);
+        server.setReadBufferSize(256);
+        server.setConnectionListener(new ConnectionListener() {
+            public void onConnect(Connection connection) {
+                synchronized (TcpConnectionTest.this) {
+                    accepted = connection;
+                    TcpConnectionTest.this.notifyAll();
+                }
+            }
+        });
+        Thread acceptor = new Thread() {
+            public void run() {
+                try {
+                    server.accept();
+                } catch (FastConnectionException e) {
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        TcpEndpoint endpoint = new TcpEndpoint(null, port);
+        endpoint.setWriteBufferSize(256);
+        endpoint.setFlushPolicy(flushPolicy);
+        for (int attempt = 0; client == null; attempt++) {
+            try {
+                client = endpoint.connect();
+            } catch (FastConnectionException e) {
+                if (attempt == 100)
+                    throw e;
+                Thread.sleep(10);
+            }
+        }
+        synchronized (this) {
+            while (accepted == null)
+                wait(5000);
+        }
+    }
+
+    private static final MessageBlockWriter BLOCK_WRITER = new MessageBlockWriter() {
+        public void writeBlockLength(OutputStream out, Message message, byte[] encodedMessage) throws IOException {
+            out.write(encodedMessage.length);
+        }
+    };
+
+    private static final MessageBlockReader BLOCK_READER = new MessageBlockReader() {
+        public boolean readBlock(InputStream in) {
+            try {
+                return in.read() >= 0;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        public void messageRead(InputStream in, Message message) {
+        }
+    };
+
+    /**
+     * Records the bytes of each write, which a blocking channel makes in full.
+     */
+    private static class RecordingChannel implements WritableByteChannel {
+        final List sends = new ArrayList();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            while (src.hasRemaining())
+                bytes.write(src.get());
+            sends.add(new Integer(length));
+            return length;
+        }
+
+        int length() {
+            return bytes.size();
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    }
+
+    private Context context() {
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        return context;
+    }
+
+    private Message message(int seq) {
+        Message message = new Message(template);
+        message.setInteger("Seq", seq);
+        message.setString("Symbol", "IBM");
+        return message;
+    }
+}
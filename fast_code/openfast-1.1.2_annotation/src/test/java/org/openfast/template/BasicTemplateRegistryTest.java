@@ -57,6 +57,36 @@ public class BasicTemplateRegistryTest extends OpenFastTestCase {
         assertEquals(mt, registry.get("Logon"));
     }
 
+    // An equal but distinct template instance still resolves to the registered id
+
+    public void testGetIdOfEqualTemplate() {
+        MessageTemplate mt = new MessageTemplate("Logon", new Field[0]);
+        TemplateRegistry registry = new BasicTemplateRegistry();
+        registry.register(1000, mt);
+
+        assertEquals(1000, registry.getId(new MessageTemplate("Logon", new Field[0])));
+        assertTrue(registry.isRegistered(new MessageTemplate("Logon", new Field[0])));
+        assertEquals(-1, registry.getId(new MessageTemplate("Logout", new Field[0])));
+    }
+
+    public void testRemoveClearsIdLookup() {
+        MessageTemplate mt = new MessageTemplate("Logon", new Field[0]);
+        TemplateRegistry registry = new BasicTemplateRegistry();
+        registry.register(1000, mt);
+        registry.remove(mt);
+
+        assertEquals(-1, registry.getId(mt));
+        assertFalse(registry.isRegistered(mt));
+    }
+
+    public void testRegisterNegativeId() {
+        try {
+            new BasicTemplateRegistry().register(-1, new MessageTemplate("Logon", new Field[0]));
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
     private void assertContains(MessageTemplate mt, TemplateRegistry registry) {
         List templates = Arrays.asList(registry.getTemplates());
         assertTrue(templates.contains(mt));
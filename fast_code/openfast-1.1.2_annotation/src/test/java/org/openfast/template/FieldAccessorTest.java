@@ -0,0 +1,87 @@
+package org.openfast.template;
+
+import org.openfast.DecimalValue;
+import org.openfast.GroupValue;
+import org.openfast.Message;
+import org.openfast.SequenceValue;
+import org.openfast.template.type.Type;
+import org.openfast.test.OpenFastTestCase;
+
+public class FieldAccessorTest extends OpenFastTestCase {
+    private MessageTemplate template;
+    private Message message;
+
+    protected void setUp() {
+        template = template(
+            "<template name=\"Snapshot\">" +
+            "  <int64 name=\"TotalVolumeTrade\"/>" +
+            "  <string name=\"SecurityID\"/>" +
+            "  <group name=\"Header\" presence=\"optional\"><uInt32 name=\"SeqNum\"/></group>" +
+            "  <sequence name=\"NoMDEntries\">" +
+            "    <decimal name=\"MDEntryPx\"/>" +
+            "    <sequence name=\"NoOrders\"><int64 name=\"OrderQty\"/></sequence>" +
+            "  </sequence>" +
+            "</template>");
+        message = new Message(template);
+        message.setLong("TotalVolumeTrade", 123456789012L);
+        message.setString("SecurityID", "000001");
+        Sequence entries = template.getSequence("NoMDEntries");
+        SequenceValue sequence = new SequenceValue(entries);
+        for (int i = 0; i < 2; i++) {
+            GroupValue entry = new GroupValue(entries.getGroup());
+            entry.setFieldValue("MDEntryPx", new DecimalValue(10025 + i, -2));
+            SequenceValue orders = new SequenceValue(entries.getGroup().getSequence("NoOrders"));
+            for (int j = 0; j <= i; j++) {
+                GroupValue order = new GroupValue(orders.getSequence().getGroup());
+                order.setLong("OrderQty", 100 * (i + 1) + j);
+                orders.add(order);
+            }
+            entry.setFieldValue("NoOrders", orders);
+            sequence.add(entry);
+        }
+        message.setFieldValue("NoMDEntries", sequence);
+    }
+
+    public void testTopLevelField() {
+        FieldAccessor volume = template.accessor("TotalVolumeTrade");
+        assertEquals(1, volume.getIndex());
+        assertEquals(Type.I64, volume.getType());
+        assertEquals(0, volume.getSequenceCount());
+        assertEquals(123456789012L, volume.getLong(message));
+        assertEquals("000001", template.accessor("SecurityID").getString(message));
+    }
+
+    public void testNestedFields() {
+        FieldAccessor price = template.accessor("NoMDEntries/MDEntryPx");
+        assertEquals(1, price.getSequenceCount());
+        int[] entry = new int[1];
+        entry[0] = 1;
+        assertEquals(1002600, price.getScaledLong(message, entry, -4));
+        assertEquals(100.26, price.getDouble(message, entry), 0.0);
+        FieldAccessor quantity = template.accessor("NoMDEntries/NoOrders/OrderQty");
+        assertEquals(201, quantity.getLong(message, new int[] { 1, 1 }));
+        assertEquals(2, template.accessor("NoMDEntries/NoOrders").getSequence(message, entry).getLength());
+        FieldAccessor seqNum = template.accessor("Header/SeqNum");
+        assertFalse(seqNum.isDefined(message));
+        assertNull(seqNum.getString(message));
+    }
+
+    public void testInvalidPaths() {
+        try {
+            template.accessor("NoMDEntries/Missing");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("The group NoMDEntries has no field named Missing.", e.getMessage());
+        }
+        try {
+            template.accessor("SecurityID/Length");
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            template.accessor("NoMDEntries/MDEntryPx").getLong(message);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
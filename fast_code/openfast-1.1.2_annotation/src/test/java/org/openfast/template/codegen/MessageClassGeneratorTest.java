@@ -0,0 +1,166 @@
+package org.openfast.template.codegen;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.openfast.Context;
+import org.openfast.GroupValue;
+import org.openfast.Message;
+import org.openfast.codec.FastDecoder;
+import org.openfast.codec.FastEncoder;
+import org.openfast.template.BasicTemplateRegistry;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.TemplateRegistry;
+import org.openfast.test.OpenFastTestCase;
+
+public class MessageClassGeneratorTest extends OpenFastTestCase {
+    private TemplateRegistry registry;
+    private MessageTemplate template;
+    private File directory;
+
+    protected void setUp() {
+        template = template(
+            "<template name=\"Snapshot\">" +
+            "  <uInt32 name=\"TemplateID\"/>" +
+            "  <int64 name=\"OrigTime\"/>" +
+            "  <string name=\"SecurityID\"><copy/></string>" +
+            "  <int64 name=\"PreClosePx\" precision=\"4\" presence=\"optional\"/>" +
+            "  <decimal name=\"Last\"><delta/></decimal>" +
+            "  <sequence name=\"NoMDEntries\">" +
+            "    <uInt8 name=\"Level\"/>" +
+            "    <byteVector name=\"Data\"/>" +
+            "  </sequence>" +
+            "</template>");
+        registry = new BasicTemplateRegistry();
+        registry.register(4101, template);
+    }
+
+    protected void tearDown() {
+        if (directory != null)
+            delete(directory);
+    }
+
+    public void testGeneratesIndexedAccessors() {
+        MessageClassGenerator generator = new MessageClassGenerator("com.example");
+        Map sources = generator.generateSources(registry);
+        assertEquals(2, sources.size());
+        String snapshot = (String) sources.get("Snapshot");
+        assertTrue(snapshot.indexOf("package com.example;") != -1);
+        assertTrue(snapshot.indexOf("public static final int TEMPLATE_ID = 4101;") != -1);
+        assertTrue(snapshot.indexOf("public static final int TEMPLATE_ID_FIELD = 0;") != -1);
+        assertTrue(snapshot.indexOf("public long getOrigTime() {") != -1);
+        assertTrue(snapshot.indexOf("group.getLong(ORIG_TIME) : value.getLong(ORIG_TIME)") != -1);
+        assertTrue(snapshot.indexOf("public Snapshot setOrigTime(long origTime) {") != -1);
+        assertTrue(snapshot.indexOf("public boolean hasPreClosePx() {") != -1);
+        assertTrue(snapshot.indexOf("public long getLast(int exponent) {") != -1);
+        assertTrue(snapshot.indexOf("public int getNoMDEntriesLength() {") != -1);
+        assertTrue(snapshot.indexOf("public NoMDEntries addNoMDEntries() {") != -1);
+        assertTrue(snapshot.indexOf("public static final class NoMDEntries {") != -1);
+        assertTrue(snapshot.indexOf("public int getLevel() {") != -1);
+        assertTrue(snapshot.indexOf("public byte[] getData() {") != -1);
+        String binding = (String) sources.get("Messages");
+        assertTrue(binding.indexOf("void onSnapshot(Snapshot message);") != -1);
+        assertTrue(binding.indexOf("case Snapshot.TEMPLATE_ID:") != -1);
+    }
+
+    public void testGeneratedClassesCompileAndReadDecodedMessages() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            return; // running on a JRE without javac
+        directory = File.createTempFile("codegen", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        File[] files = new MessageClassGenerator("com.example").generate(registry, directory);
+        String[] arguments = new String[files.length + 4];
+        arguments[0] = "-classpath";
+        arguments[1] = System.getProperty("java.class.path");
+        arguments[2] = "-d";
+        arguments[3] = directory.getPath();
+        for (int i = 0; i < files.length; i++)
+            arguments[i + 4] = files[i].getPath();
+        assertEquals(0, compiler.run(null, null, null, arguments));
+        ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, getClass().getClassLoader());
+        Class snapshotClass = loader.loadClass("com.example.Snapshot");
+        Class entryClass = loader.loadClass("com.example.Snapshot$NoMDEntries");
+        Class bindingClass = loader.loadClass("com.example.Messages");
+        Class handlerClass = loader.loadClass("com.example.Messages$Handler");
+
+        Message message = new Message(template);
+        Object snapshot = snapshotClass.newInstance();
+        invoke(snapshot, "wrap", new Class[] { GroupValue.class }, new Object[] { message });
+        invoke(snapshot, "setTemplateID", new Class[] { long.class }, new Object[] { new Long(4101) });
+        invoke(snapshot, "setOrigTime", new Class[] { long.class }, new Object[] { new Long(20101231093000L) });
+        invoke(snapshot, "setSecurityID", new Class[] { String.class }, new Object[] { "000001" });
+        invoke(snapshot, "setLast", new Class[] { long.class, int.class }, new Object[] { new Long(1234), new Integer(-2) });
+        Object entry = invoke(snapshot, "addNoMDEntries", new Class[0], new Object[0]);
+        invoke(entry, "setLevel", new Class[] { int.class }, new Object[] { new Integer(3) });
+        invoke(entry, "setData", new Class[] { byte[].class }, new Object[] { new byte[] { 1, 2 } });
+
+        Context encodingContext = new Context();
+        encodingContext.setTemplateRegistry(registry);
+        byte[] encoding = new FastEncoder(encodingContext).encode(message);
+        Context decodingContext = new Context();
+        decodingContext.setTemplateRegistry(registry);
+        FastDecoder decoder = new FastDecoder(decodingContext, new ByteArrayInputStream(encoding));
+
+        final List received = new ArrayList();
+        Object handler = Proxy.newProxyInstance(loader, new Class[] { handlerClass }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                received.add(method.getName());
+                received.add(args[0]);
+                return null;
+            }
+        });
+        Object binding = bindingClass.newInstance();
+        Method readMessage = bindingClass.getMethod("readMessage", new Class[] { FastDecoder.class, handlerClass });
+        assertEquals(Boolean.TRUE, readMessage.invoke(binding, new Object[] { decoder, handler }));
+        assertEquals(2, received.size());
+        assertEquals("onSnapshot", received.get(0));
+        Object decoded = received.get(1);
+        assertTrue(snapshotClass.isInstance(decoded));
+        assertEquals(new Long(20101231093000L), invoke(decoded, "getOrigTime", new Class[0], new Object[0]));
+        assertEquals("000001", invoke(decoded, "getSecurityID", new Class[0], new Object[0]));
+        assertEquals(Boolean.FALSE, invoke(decoded, "hasPreClosePx", new Class[0], new Object[0]));
+        assertEquals(new Long(1234), invoke(decoded, "getLastMantissa", new Class[0], new Object[0]));
+        assertEquals(new Long(123400), invoke(decoded, "getLast", new Class[] { int.class }, new Object[] { new Integer(-4) }));
+        assertEquals(new Integer(1), invoke(decoded, "getNoMDEntriesLength", new Class[0], new Object[0]));
+        Object decodedEntry = invoke(decoded, "getNoMDEntries", new Class[] { int.class }, new Object[] { new Integer(0) });
+        assertTrue(entryClass.isInstance(decodedEntry));
+        assertEquals(new Integer(3), invoke(decodedEntry, "getLevel", new Class[0], new Object[0]));
+        byte[] data = (byte[]) invoke(decodedEntry, "getData", new Class[0], new Object[0]);
+        assertEquals(2, data.length);
+        assertEquals(2, data[1]);
+        assertEquals(Boolean.FALSE, readMessage.invoke(binding, new Object[] { decoder, handler }));
+    }
+
+    public void testNames() {
+        assertEquals("MDEntries", MessageClassGenerator.toClassName("MDEntries"));
+        assertEquals("SecurityId", MessageClassGenerator.toClassName("security-id"));
+        assertEquals("_1stLeg", MessageClassGenerator.toClassName("1stLeg"));
+        assertEquals("MD_ENTRIES", MessageClassGenerator.toConstantName("MDEntries"));
+        assertEquals("SECURITY_ID", MessageClassGenerator.toConstantName("SecurityID"));
+        assertEquals("NO_MD_ENTRIES", MessageClassGenerator.toConstantName("NoMDEntries"));
+    }
+
+    private static Object invoke(Object target, String name, Class[] parameterTypes, Object[] arguments) throws Exception {
+        return target.getClass().getMethod(name, parameterTypes).invoke(target, arguments);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (int i = 0; i < children.length; i++)
+                delete(children[i]);
+        file.delete();
+    }
+}
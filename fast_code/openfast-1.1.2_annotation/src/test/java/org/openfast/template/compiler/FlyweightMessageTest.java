@@ -0,0 +1,514 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.openfast.ByteUtil;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.GroupValue;
+import org.openfast.Message;
+import org.openfast.MessageInputStream;
+import org.openfast.SequenceValue;
+import org.openfast.codec.FastDecoder;
+import org.openfast.codec.FastEncoder;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.TemplateRegistry;
+import org.openfast.template.loader.XMLMessageTemplateLoader;
+import org.openfast.template.type.codec.ByteRange;
+import org.openfast.test.OpenFastTestCase;
+
+public class FlyweightMessageTest extends OpenFastTestCase {
+    private static final String TEMPLATE =
+        "<template name=\"Quotes\">" +
+        "  <uInt32 name=\"SeqNum\"><increment/></uInt32>" +
+        "  <int64 name=\"Time\"><delta/></int64>" +
+        "  <string name=\"Symbol\"><copy/></string>" +
+        "  <decimal name=\"Price\"><copy/></decimal>" +
+        "  <group name=\"Trade\" presence=\"optional\"><uInt32 name=\"Size\"><copy/></uInt32></group>" +
+        "  <sequence name=\"Levels\">" +
+        "    <length name=\"NoLevels\"/>" +
+        "    <uInt32 name=\"Level\"><increment/></uInt32>" +
+        "    <decimal name=\"Px\"><delta/></decimal>" +
+        "  </sequence>" +
+        "</template>";
+
+    private MessageTemplate template;
+    private Message[] messages;
+    private byte[] encoded;
+
+    protected void setUp() {
+        template = template(TEMPLATE);
+        messages = new Message[] { message(1, "ABC", 10, 2), message(2, "ABC", 0, 0), message(3, "DEF", 5, 3) };
+        FastEncoder encoder = encoder(template);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < messages.length; i++) {
+            byte[] bytes = encoder.encode(messages[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        encoded = out.toByteArray();
+    }
+
+    public void testCompiledTemplateDecodesIntoFlyweight() {
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        assertDecodes();
+    }
+
+    public void testInterpretedTemplateIsCopiedIntoFlyweight() {
+        assertDecodes();
+    }
+
+    public void testAccessors() {
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        FastDecoder decoder = decoder(template, encoded);
+        FlyweightMessage message = new FlyweightMessage();
+        assertTrue(decoder.readMessage(message));
+        assertEquals(1, message.getTemplateId());
+        assertEquals(1, message.getInt(0));
+        assertEquals(1, message.getInt(1));
+        assertEquals(5000000001L, message.getLong(2));
+        assertEquals("ABC", message.getString(3));
+        byte[] symbol = new byte[8];
+        assertEquals(3, message.getAsciiBytes(3, symbol, 2));
+        assertEquals('A', symbol[2]);
+        assertEquals(10025, message.getMantissa(4));
+        assertEquals(-2, message.getExponent(4));
+        assertEquals(100.25, message.getDouble(4), 0.0);
+        assertTrue(message.isPresent(5));
+        assertEquals(10, message.group(5).getInt(0));
+        assertEquals(2, message.sequenceLength(6));
+        FlyweightGroup entry = new FlyweightGroup();
+        assertEquals(2, message.entry(6, 1, entry).getInt(0));
+        assertEquals(101, entry.getMantissa(1));
+        assertSame(template.getSequence("Levels").getGroup(), entry.getGroup());
+
+        assertTrue(decoder.readMessage(message));
+        assertFalse(message.isPresent(5));
+        assertEquals(0, message.sequenceLength(6));
+        try {
+            message.group(5);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        try {
+            message.entry(6, 0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+
+    public void testOptionalIntegersAndDecimals() {
+        MessageTemplate optionals = template(
+            "<template name=\"Optionals\">" +
+            "  <uInt32 name=\"Copy\" presence=\"optional\"><copy/></uInt32>" +
+            "  <uInt32 name=\"Default\" presence=\"optional\"><default value=\"9\"/></uInt32>" +
+            "  <int32 name=\"NoDefault\" presence=\"optional\"><default/></int32>" +
+            "  <uInt64 name=\"Increment\" presence=\"optional\"><increment/></uInt64>" +
+            "  <int64 name=\"Delta\" presence=\"optional\"><delta/></int64>" +
+            "  <int32 name=\"None\" presence=\"optional\"/>" +
+            "  <decimal name=\"Px\" presence=\"optional\"><copy/></decimal>" +
+            "  <decimal name=\"Qty\" presence=\"optional\"><default value=\"1.5\"/></decimal>" +
+            "  <sequence name=\"Legs\" presence=\"optional\">" +
+            "    <length name=\"NoLegs\"><copy/></length>" +
+            "    <int32 name=\"Ratio\"><delta/></int32>" +
+            "  </sequence>" +
+            "</template>");
+        Message[] values = new Message[] { optionals(optionals, 1), optionals(optionals, 0), optionals(optionals, 2),
+                optionals(optionals, 2), optionals(optionals, 0) };
+        FastEncoder encoder = encoder(optionals);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = encoder.encode(values[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        optionals.setCompiledDecoder(new TemplateCompiler().compile(optionals));
+        FastDecoder decoder = decoder(optionals, out.toByteArray());
+        FlyweightMessage message = new FlyweightMessage();
+        for (int i = 0; i < values.length; i++) {
+            assertTrue(decoder.readMessage(message));
+            assertEquals(values[i], message.toMessage());
+        }
+    }
+
+    public void testStringsAndByteVectors() {
+        MessageTemplate strings = template(
+            "<template name=\"Strings\">" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "  <string name=\"Exchange\" presence=\"optional\"><copy/></string>" +
+            "  <string name=\"Currency\"><default value=\"EUR\"/></string>" +
+            "  <string name=\"Text\" presence=\"optional\"/>" +
+            "  <byteVector name=\"Data\" presence=\"optional\"><copy/></byteVector>" +
+            "  <sequence name=\"Legs\">" +
+            "    <string name=\"LegSymbol\"><copy/></string>" +
+            "  </sequence>" +
+            "</template>");
+        Message[] values = new Message[] { strings(strings, "ABC", "XEUR", "EUR", "first", new byte[] { 1, 2 }, 2),
+                strings(strings, "ABC", "XEUR", "USD", null, new byte[] { 1, 2 }, 3),
+                strings(strings, "DEF", null, "EUR", "", null, 1), strings(strings, "DEF", null, "EUR", "\u0000", null, 0) };
+        FastEncoder encoder = encoder(strings);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = encoder.encode(values[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        strings.setCompiledDecoder(new TemplateCompiler().compile(strings));
+        FastDecoder decoder = decoder(strings, out.toByteArray());
+        FlyweightMessage message = new FlyweightMessage(1);
+        ByteRange range = new ByteRange();
+        byte[] destination = new byte[8];
+        for (int i = 0; i < values.length; i++) {
+            assertTrue(decoder.readMessage(message));
+            assertEquals(values[i], message.toMessage());
+        }
+        assertEquals("DEF", message.getString(1));
+        assertEquals("DEF", message.getBytes(1, range).toString());
+        assertEquals(3, message.getAsciiBytes(3, destination, 0));
+        assertEquals('E', (char) destination[0]);
+        assertFalse(message.isPresent(2));
+        assertFalse(message.isPresent(5));
+        assertEquals(-1, message.getAsciiBytes(5, destination, 0));
+        assertNull(message.getBytes(5, range));
+    }
+
+    public void testSequenceLengthOutOfRangeIsRejected() {
+        MessageTemplate entries = template(
+            "<template name=\"Entries\">" +
+            "  <sequence name=\"Legs\">" +
+            "    <uInt32 name=\"Leg\"/>" +
+            "  </sequence>" +
+            "</template>");
+        entries.setCompiledDecoder(new TemplateCompiler().compile(entries));
+        byte[] encoded = byt("c0 81 08 00 00 00 80");
+        try {
+            decoder(entries, encoded).readMessage(new FlyweightMessage());
+            fail();
+        } catch (FastException e) {
+            assertEquals(FastConstants.D2_INT_OUT_OF_RANGE, e.getCode());
+        }
+        try {
+            decoder(entries, encoded).readMessage();
+            fail();
+        } catch (FastException e) {
+            assertEquals(FastConstants.D2_INT_OUT_OF_RANGE, e.getCode());
+        }
+    }
+
+    public void testScaledPrices() {
+        MessageTemplate prices = template(
+            "<template name=\"Prices\">" +
+            "  <decimal name=\"Bid\"><exponent><copy/></exponent><mantissa><delta/></mantissa></decimal>" +
+            "  <decimal name=\"Ask\" presence=\"optional\"><exponent><default value=\"-2\"/></exponent><mantissa><copy/></mantissa></decimal>" +
+            "  <decimal name=\"Last\" presence=\"optional\"><delta/></decimal>" +
+            "  <int64 name=\"Close\" precision=\"4\"><copy/></int64>" +
+            "</template>");
+        Message[] values = new Message[] { prices(prices, 10025, -2, 10050L, 1000, 1002500), prices(prices, 10030, -2, null, 1001, 1002500),
+                prices(prices, 100275, -3, 10050L, null, 1003000), prices(prices, 100275, -3, 10075L, 999, 990000) };
+        FastEncoder encoder = encoder(prices);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = encoder.encode(values[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        prices.setCompiledDecoder(new TemplateCompiler().compile(prices));
+        FastDecoder decoder = decoder(prices, out.toByteArray());
+        FlyweightMessage message = new FlyweightMessage();
+        for (int i = 0; i < values.length; i++) {
+            assertTrue(decoder.readMessage(message));
+            assertEquals(values[i], message.toMessage());
+            for (int field = 1; field <= 4; field++) {
+                if (values[i].isDefined(field))
+                    assertEquals(values[i].getScaledLong(field, -4), message.getScaledLong(field, -4));
+                else
+                    assertFalse(message.isPresent(field));
+            }
+        }
+        assertEquals(1002750, message.getScaledLong(1, -4));
+        assertEquals(100275, message.getMantissa(1));
+        assertEquals(-3, message.getExponent(1));
+        assertEquals(99, message.getScaledLong(4, 0));
+        try {
+            message.getScaledLong(1, -2);
+            fail();
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    public void testEncodeFilledFlyweight() {
+        template.setCompiledEncoder(new TemplateCompiler().compileEncoder(template));
+        assertEncodesFilledFlyweight();
+    }
+
+    public void testInterpretedTemplateEncodesFlyweight() {
+        assertEncodesFilledFlyweight();
+    }
+
+    public void testReuseReleasesObjectValues() {
+        MessageTemplate text = template("<template name=\"Text\"><string name=\"Text\"/></template>");
+        text.setCompiledDecoder(new TemplateCompiler().compile(text));
+        FlyweightMessage message = new FlyweightMessage();
+        message.reset(text);
+        message.setString(1, "caf\u00e9");
+        assertNotNull(message.objects[1]);
+        message.reset(text);
+        assertNull(message.objects[1]);
+        message.setString(1, "caf\u00e9");
+        Message ascii = new Message(text);
+        ascii.setString(1, "cafe");
+        assertTrue(decoder(text, encoder(text).encode(ascii)).readMessage(message));
+        assertNull(message.objects[1]);
+        assertEquals("cafe", message.getString(1));
+    }
+
+    public void testEncodeDecodedStringsAndByteVectors() {
+        MessageTemplate strings = template(
+            "<template name=\"Strings\">" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "  <string name=\"Exchange\" presence=\"optional\"><copy/></string>" +
+            "  <string name=\"Currency\"><default value=\"EUR\"/></string>" +
+            "  <string name=\"Text\" presence=\"optional\"/>" +
+            "  <byteVector name=\"Data\" presence=\"optional\"><copy/></byteVector>" +
+            "  <sequence name=\"Legs\">" +
+            "    <string name=\"LegSymbol\"><copy/></string>" +
+            "  </sequence>" +
+            "</template>");
+        Message[] values = new Message[] { strings(strings, "ABC", "XEUR", "EUR", "first", new byte[] { 1, 2 }, 2),
+                strings(strings, "ABC", "XEUR", "USD", null, new byte[] { 1, 2 }, 3),
+                strings(strings, "DEF", null, "EUR", "", null, 1), strings(strings, "DEF", null, "EUR", "\u0000", null, 0) };
+        FastEncoder encoder = encoder(strings);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = encoder.encode(values[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        strings.setCompiledDecoder(new TemplateCompiler().compile(strings));
+        strings.setCompiledEncoder(new TemplateCompiler().compileEncoder(strings));
+        FastDecoder decoder = decoder(strings, out.toByteArray());
+        FastEncoder flyweightEncoder = encoder(strings);
+        FlyweightMessage message = new FlyweightMessage(1);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        for (int i = 0; i < values.length; i++) {
+            assertTrue(decoder.readMessage(message));
+            flyweightEncoder.encode(message, buffer);
+        }
+        assertEquals(ByteUtil.convertByteArrayToBitString(out.toByteArray()), ByteUtil.convertByteArrayToBitString(bytes(buffer)));
+    }
+
+    public void testStringDeltaAndTail() {
+        MessageTemplate deltas = template(
+            "<template name=\"Deltas\">" +
+            "  <string name=\"Isin\"><delta/></string>" +
+            "  <string name=\"Address\" presence=\"optional\"><delta/></string>" +
+            "  <string name=\"Series\"><tail/></string>" +
+            "  <string name=\"Suffix\" presence=\"optional\"><tail value=\"D\"/></string>" +
+            "</template>");
+        String[][] values = new String[][] { { "ABCDEF", "X", "AB", null }, { "ABCDXY", null, "AC", "Q" },
+                { "ZZABCDXY", "X2", "AC", null }, { "ZZABCDXY", "", "BD", "QR" }, { "", "X2Y", "BE", "QS" },
+                { "XYZ", "Y", "BEE", "QS" } };
+        Message[] expected = new Message[values.length];
+        FastEncoder encoder = encoder(deltas);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            expected[i] = new Message(deltas);
+            for (int field = 0; field < values[i].length; field++)
+                if (values[i][field] != null)
+                    expected[i].setString(field + 1, values[i][field]);
+            byte[] bytes = encoder.encode(expected[i]);
+            out.write(bytes, 0, bytes.length);
+        }
+        deltas.setCompiledDecoder(new TemplateCompiler().compile(deltas));
+        deltas.setCompiledEncoder(new TemplateCompiler().compileEncoder(deltas));
+        FastDecoder decoder = decoder(deltas, out.toByteArray());
+        FastEncoder flyweightEncoder = encoder(deltas);
+        FlyweightMessage message = new FlyweightMessage(1);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        for (int i = 0; i < values.length; i++) {
+            assertTrue(decoder.readMessage(message));
+            assertEquals(expected[i], message.toMessage());
+            flyweightEncoder.encode(message, buffer);
+        }
+        assertEquals(ByteUtil.convertByteArrayToBitString(out.toByteArray()), ByteUtil.convertByteArrayToBitString(bytes(buffer)));
+
+        FastEncoder setterEncoder = encoder(deltas);
+        buffer.clear();
+        for (int i = 0; i < values.length; i++) {
+            message.reset(deltas);
+            for (int field = 0; field < values[i].length; field++)
+                if (values[i][field] != null)
+                    message.setString(field + 1, values[i][field]);
+            setterEncoder.encode(message, buffer);
+        }
+        assertEquals(ByteUtil.convertByteArrayToBitString(out.toByteArray()), ByteUtil.convertByteArrayToBitString(bytes(buffer)));
+    }
+
+    public void testMatchesMessagesDecodedFromData() {
+        assertSameMessages("CME/templates.xml", "CME/messages.fast");
+        assertSameMessages("FPL/FASTTestTemplate.xml", "FPL/messages.fast");
+    }
+
+    private void assertEncodesFilledFlyweight() {
+        FastEncoder encoder = encoder(template);
+        FlyweightMessage message = new FlyweightMessage(1);
+        FlyweightGroup view = new FlyweightGroup();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        int[][] values = new int[][] { { 1, 10, 2 }, { 2, 0, 0 }, { 3, 5, 3 } };
+        for (int i = 0; i < values.length; i++) {
+            message.reset(template);
+            assertFalse(message.isPresent(1));
+            message.setInteger(1, values[i][0]);
+            message.setLong(2, 5000000000L + values[i][0]);
+            message.setString(3, (i < 2) ? "ABC" : "DEF");
+            message.setDecimal(4, 10025, -2);
+            if (values[i][1] > 0)
+                message.addGroup(5, view).setInteger(0, values[i][1]);
+            message.addSequence(6, values[i][2]);
+            for (int level = 0; level < values[i][2]; level++) {
+                DecimalValue px = new DecimalValue(1.00 + level * 0.01);
+                message.entry(6, level, view).setInteger(0, level + 1);
+                view.setDecimal(1, px.mantissa, px.exponent);
+            }
+            assertEquals(messages[i], message.toMessage());
+            encoder.encode(message, buffer);
+        }
+        assertEquals(ByteUtil.convertByteArrayToBitString(encoded), ByteUtil.convertByteArrayToBitString(bytes(buffer)));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private void assertDecodes() {
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        FastDecoder decoder = new FastDecoder(context, ByteBuffer.wrap(encoded));
+        FlyweightMessage message = new FlyweightMessage(1);
+        for (int i = 0; i < messages.length; i++) {
+            assertTrue(decoder.readMessage(message));
+            assertSame(template, message.getTemplate());
+            assertEquals(messages[i], message.toMessage());
+        }
+        assertFalse(decoder.readMessage(message));
+    }
+
+    private void assertSameMessages(String templates, String data) {
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader();
+        loader.setLoadTemplateIdFromAuxId(true);
+        loader.setCompileTemplates(true);
+        loader.load(resource(templates));
+        TemplateRegistry registry = loader.getTemplateRegistry();
+        MessageInputStream in = new MessageInputStream(resource(data));
+        in.setTemplateRegistry(registry);
+        Context context = new Context();
+        context.setTemplateRegistry(registry);
+        FastDecoder decoder = new FastDecoder(context, resource(data));
+        FlyweightMessage message = new FlyweightMessage();
+        Message expected;
+        int count = 0;
+        while ((expected = in.readMessage()) != null) {
+            assertTrue(decoder.readMessage(message));
+            assertEquals(expected, message.toMessage());
+            count++;
+        }
+        assertTrue(count > 0);
+    }
+
+    private Message optionals(MessageTemplate optionals, int seed) {
+        Message message = new Message(optionals);
+        if (seed == 0)
+            return message;
+        message.setInteger("Copy", seed);
+        message.setInteger("Default", seed * 9);
+        message.setInteger("NoDefault", -seed);
+        message.setLong("Increment", 4294967295L + seed);
+        message.setLong("Delta", -5000000000L * seed);
+        message.setInteger("None", seed);
+        message.setDecimal("Px", 99.5);
+        message.setDecimal("Qty", 1.5);
+        SequenceValue legs = new SequenceValue(optionals.getSequence("Legs"));
+        for (int i = 0; i < seed; i++) {
+            GroupValue leg = new GroupValue(optionals.getSequence("Legs").getGroup());
+            leg.setInteger("Ratio", i - seed);
+            legs.add(leg);
+        }
+        message.setFieldValue("Legs", legs);
+        return message;
+    }
+
+    private Message prices(MessageTemplate prices, long bid, int exponent, Long ask, Integer last, long close) {
+        Message message = new Message(prices);
+        message.setFieldValue("Bid", new DecimalValue(bid, exponent));
+        if (ask != null)
+            message.setFieldValue("Ask", new DecimalValue(ask.longValue(), -2));
+        if (last != null)
+            message.setFieldValue("Last", new DecimalValue(last.intValue(), -1));
+        message.setLong("Close", close);
+        return message;
+    }
+
+    private Message strings(MessageTemplate strings, String symbol, String exchange, String currency, String text,
+            byte[] data, int legCount) {
+        Message message = new Message(strings);
+        message.setString("Symbol", symbol);
+        if (exchange != null)
+            message.setString("Exchange", exchange);
+        message.setString("Currency", currency);
+        if (text != null)
+            message.setString("Text", text);
+        if (data != null)
+            message.setByteVector("Data", data);
+        SequenceValue legs = new SequenceValue(strings.getSequence("Legs"));
+        for (int i = 0; i < legCount; i++) {
+            GroupValue leg = new GroupValue(strings.getSequence("Legs").getGroup());
+            leg.setString("LegSymbol", symbol + (i % 2));
+            legs.add(leg);
+        }
+        message.setFieldValue("Legs", legs);
+        return message;
+    }
+
+    private Message message(int seqNum, String symbol, int tradeSize, int levels) {
+        Message message = new Message(template);
+        message.setInteger("SeqNum", seqNum);
+        message.setLong("Time", 5000000000L + seqNum);
+        message.setString("Symbol", symbol);
+        message.setDecimal("Price", 100.25);
+        if (tradeSize > 0) {
+            GroupValue trade = new GroupValue(template.getGroup("Trade"));
+            trade.setInteger("Size", tradeSize);
+            message.setFieldValue("Trade", trade);
+        }
+        SequenceValue sequence = new SequenceValue(template.getSequence("Levels"));
+        for (int i = 0; i < levels; i++) {
+            GroupValue entry = new GroupValue(template.getSequence("Levels").getGroup());
+            entry.setInteger("Level", i + 1);
+            entry.setDecimal("Px", 1.00 + i * 0.01);
+            sequence.add(entry);
+        }
+        message.setFieldValue("Levels", sequence);
+        return message;
+    }
+}
@@ -0,0 +1,214 @@
+package org.openfast.template.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.openfast.Context;
+import org.openfast.GroupValue;
+import org.openfast.Message;
+import org.openfast.ScalarValue;
+import org.openfast.SequenceValue;
+import org.openfast.codec.FastDecoder;
+import org.openfast.codec.FastEncoder;
+import org.openfast.codec.MessageEventHandler;
+import org.openfast.codec.Subscription;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.loader.XMLMessageTemplateLoader;
+import org.openfast.test.OpenFastTestCase;
+
+public class MessageEventsTest extends OpenFastTestCase {
+    private static final String TEMPLATE =
+        "<template name=\"Quotes\">" +
+        "  <uInt32 name=\"SeqNum\"><increment/></uInt32>" +
+        "  <string name=\"Symbol\"><copy/></string>" +
+        "  <string name=\"Text\" charset=\"unicode\" presence=\"optional\"/>" +
+        "  <byteVector name=\"Data\" presence=\"optional\"><copy/></byteVector>" +
+        "  <decimal name=\"Price\"><copy/></decimal>" +
+        "  <group name=\"Trade\" presence=\"optional\"><uInt32 name=\"Size\"><copy/></uInt32></group>" +
+        "  <sequence name=\"Levels\">" +
+        "    <length name=\"NoLevels\"/>" +
+        "    <uInt32 name=\"Level\"><increment/></uInt32>" +
+        "    <decimal name=\"Px\"><delta/></decimal>" +
+        "  </sequence>" +
+        "</template>";
+
+    private static final String EVENTS =
+        "start 1 Quotes|long 1 1|ascii 2 ABC|value 3 caf\u00e9|bytes 4 0102|decimal 5 10025 -2|group 6|long 0 10|end group|" +
+        "sequence 7 2|entry 0|long 0 1|decimal 1 1 0|end entry|entry 1|long 0 2|decimal 1 101 -2|end entry|end sequence|end|" +
+        "start 1 Quotes|long 1 2|ascii 2 ABC|bytes 4 0102|decimal 5 10025 -2|sequence 7 0|end sequence|end|";
+
+    private MessageTemplate template;
+    private byte[] encoded;
+
+    protected void setUp() {
+        template = template(TEMPLATE);
+        Message first = new Message(template);
+        first.setInteger("SeqNum", 1);
+        first.setString("Symbol", "ABC");
+        first.setString("Text", "caf\u00e9");
+        first.setByteVector("Data", new byte[] { 1, 2 });
+        first.setDecimal("Price", 100.25);
+        GroupValue trade = new GroupValue(template.getGroup("Trade"));
+        trade.setInteger("Size", 10);
+        first.setFieldValue("Trade", trade);
+        SequenceValue levels = new SequenceValue(template.getSequence("Levels"));
+        for (int i = 0; i < 2; i++) {
+            GroupValue entry = new GroupValue(template.getSequence("Levels").getGroup());
+            entry.setInteger("Level", i + 1);
+            entry.setDecimal("Px", 1.00 + i * 0.01);
+            levels.add(entry);
+        }
+        first.setFieldValue("Levels", levels);
+        Message second = new Message(template);
+        second.setInteger("SeqNum", 2);
+        second.setString("Symbol", "ABC");
+        second.setByteVector("Data", new byte[] { 1, 2 });
+        second.setDecimal("Price", 100.25);
+        second.setFieldValue("Levels", new SequenceValue(template.getSequence("Levels")));
+        FastEncoder encoder = encoder(template);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = encoder.encode(first);
+        out.write(bytes, 0, bytes.length);
+        bytes = encoder.encode(second);
+        out.write(bytes, 0, bytes.length);
+        encoded = out.toByteArray();
+    }
+
+    public void testCompiledTemplateReportsFieldsAsDecoded() {
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        assertEquals(EVENTS, events(null));
+    }
+
+    public void testInterpretedTemplateReportsDecodedMessage() {
+        assertEquals(EVENTS, events(null));
+    }
+
+    public void testUnsubscribedFieldsAreNotReported() {
+        Subscription subscription = new Subscription();
+        subscription.subscribe(1, new String[] { "Symbol", "Trade" });
+        String expected = "start 1 Quotes|ascii 2 ABC|group 6|long 0 10|end group|end|start 1 Quotes|ascii 2 ABC|end|";
+        assertEquals(expected, events(subscription));
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        assertEquals(expected, events(subscription));
+    }
+
+    public void testStringsReadFromBufferHaveNoStopBit() {
+        MessageTemplate symbols = template(
+            "<template name=\"Symbols\">" +
+            "  <string name=\"Symbol\"/>" +
+            "  <string name=\"Venue\" presence=\"optional\"/>" +
+            "</template>");
+        Message message = new Message(symbols);
+        message.setString("Symbol", "IBM");
+        message.setString("Venue", "XNYS");
+        byte[] bytes = encoder(symbols).encode(message);
+        byte[] original = (byte[]) bytes.clone();
+        symbols.setCompiledDecoder(new TemplateCompiler().compile(symbols));
+        Context context = new Context();
+        context.registerTemplate(1, symbols);
+        RecordingHandler handler = new RecordingHandler();
+        assertTrue(new FastDecoder(context, ByteBuffer.wrap(bytes)).readMessage(handler));
+        assertEquals("start 1 Symbols|ascii 1 IBM|ascii 2 XNYS|end|", handler.toString());
+        assertTrue(Arrays.equals(original, bytes));
+    }
+
+    public void testCompiledAndInterpretedEventsMatch() {
+        assertSameEvents("CME/templates.xml", "CME/messages.fast");
+        assertSameEvents("FPL/FASTTestTemplate.xml", "FPL/messages.fast");
+    }
+
+    private String events(Subscription subscription) {
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        FastDecoder decoder = new FastDecoder(context, ByteBuffer.wrap(encoded));
+        decoder.setSubscription(subscription);
+        RecordingHandler handler = new RecordingHandler();
+        while (decoder.readMessage(handler))
+            ;
+        return handler.toString();
+    }
+
+    private void assertSameEvents(String templates, String data) {
+        String interpreted = events(templates, data, false);
+        assertTrue(interpreted.length() > 0);
+        assertEquals(interpreted, events(templates, data, true));
+    }
+
+    private String events(String templates, String data, boolean compile) {
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader();
+        loader.setLoadTemplateIdFromAuxId(true);
+        loader.setCompileTemplates(compile);
+        loader.load(resource(templates));
+        Context context = new Context();
+        context.setTemplateRegistry(loader.getTemplateRegistry());
+        FastDecoder decoder = new FastDecoder(context, resource(data));
+        RecordingHandler handler = new RecordingHandler();
+        while (decoder.readMessage(handler))
+            ;
+        return handler.toString();
+    }
+
+    private static class RecordingHandler implements MessageEventHandler {
+        private final StringBuffer events = new StringBuffer();
+
+        public void onMessageStart(int templateId, MessageTemplate template) {
+            events.append("start ").append(templateId).append(' ').append(template.getName()).append('|');
+        }
+
+        public void onMessageEnd() {
+            events.append("end|");
+        }
+
+        public void onLong(int fieldIndex, long value) {
+            events.append("long ").append(fieldIndex).append(' ').append(value).append('|');
+        }
+
+        public void onDecimal(int fieldIndex, long mantissa, int exponent) {
+            events.append("decimal ").append(fieldIndex).append(' ').append(mantissa).append(' ').append(exponent).append('|');
+        }
+
+        public void onAscii(int fieldIndex, byte[] buffer, int offset, int length) {
+            events.append("ascii ").append(fieldIndex).append(' ').append(new String(buffer, offset, length)).append('|');
+        }
+
+        public void onBytes(int fieldIndex, byte[] buffer, int offset, int length) {
+            events.append("bytes ").append(fieldIndex).append(' ');
+            for (int i = offset; i < offset + length; i++)
+                events.append(Integer.toHexString(0x100 | (buffer[i] & 0xff)).substring(1));
+            events.append('|');
+        }
+
+        public void onValue(int fieldIndex, ScalarValue value) {
+            events.append("value ").append(fieldIndex).append(' ').append(value).append('|');
+        }
+
+        public void onGroupStart(int fieldIndex) {
+            events.append("group ").append(fieldIndex).append('|');
+        }
+
+        public void onGroupEnd() {
+            events.append("end group|");
+        }
+
+        public void onSequenceStart(int fieldIndex, int length) {
+            events.append("sequence ").append(fieldIndex).append(' ').append(length).append('|');
+        }
+
+        public void onEntryStart(int entryIndex) {
+            events.append("entry ").append(entryIndex).append('|');
+        }
+
+        public void onEntryEnd() {
+            events.append("end entry|");
+        }
+
+        public void onSequenceEnd() {
+            events.append("end sequence|");
+        }
+
+        public String toString() {
+            return events.toString();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+ */
+package org.openfast.template.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openfast.BitVectorReader;
+import org.openfast.ByteUtil;
+import org.openfast.Context;
+import org.openfast.DecimalValue;
+import org.openfast.Global;
+import org.openfast.GroupValue;
+import org.openfast.Message;
+import org.openfast.MessageInputStream;
+import org.openfast.SequenceValue;
+import org.openfast.codec.FastDecoder;
+import org.openfast.codec.FastEncoder;
+import org.openfast.debug.BasicDecodeTrace;
+import org.openfast.error.ErrorHandler;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.TemplateDecoder;
+import org.openfast.template.TemplateRegistry;
+import org.openfast.template.loader.XMLMessageTemplateLoader;
+import org.openfast.test.OpenFastTestCase;
+
+public class TemplateCompilerTest extends OpenFastTestCase {
+    private static final String TEMPLATE =
+        "<template name=\"AllOperators\">" +
+        "  <uInt32 name=\"None\"/>" +
+        "  <uInt32 name=\"Copy\"><copy/></uInt32>" +
+        "  <uInt32 name=\"Increment\"><increment/></uInt32>" +
+        "  <int64 name=\"Delta\"><delta/></int64>" +
+        "  <string name=\"Default\" presence=\"optional\"><default value=\"X\"/></string>" +
+        "  <string name=\"Constant\"><constant value=\"C\"/></string>" +
+        "  <string name=\"OptionalConstant\" presence=\"optional\"><constant value=\"O\"/></string>" +
+        "  <decimal name=\"Price\"><copy/></decimal>" +
+        "  <decimal name=\"Size\"><exponent><copy/></exponent><mantissa><delta/></mantissa></decimal>" +
+        "  <group name=\"Optional\" presence=\"optional\"><uInt32 name=\"A\"><copy/></uInt32></group>" +
+        "  <sequence name=\"Entries\">" +
+        "    <length name=\"NoEntries\"/>" +
+        "    <uInt32 name=\"Id\"><increment/></uInt32>" +
+        "    <string name=\"Symbol\"><copy dictionary=\"template\"/></string>" +
+        "  </sequence>" +
+        "</template>";
+
+    public void testCompiledDecoderMatchesEncodedMessages() {
+        MessageTemplate template = template(TEMPLATE);
+        FastEncoder encoder = encoder(template);
+        Message[] messages = new Message[] { message(template, 1, "X", true, 2), message(template, 2, null, false, 0),
+                message(template, 2, "Y", true, 3) };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < messages.length; i++) {
+            byte[] encoded = encoder.encode(messages[i]);
+            out.write(encoded, 0, encoded.length);
+        }
+
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        FastDecoder decoder = decoder(template, out.toByteArray());
+        for (int i = 0; i < messages.length; i++)
+            assertEquals(messages[i], decoder.readMessage());
+        assertNull(decoder.readMessage());
+    }
+
+    public void testCompiledTemplateIsSharedByContextsNumberingEntriesDifferently() {
+        MessageTemplate template = template(TEMPLATE);
+        FastEncoder encoder = encoder(template);
+        Message[] messages = new Message[] { message(template, 1, "X", true, 2), message(template, 2, null, false, 0),
+                message(template, 2, "Y", true, 3) };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < messages.length; i++) {
+            byte[] encoded = encoder.encode(messages[i]);
+            out.write(encoded, 0, encoded.length);
+        }
+
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        Context context = new Context();
+        context.registerTemplate(2, template(TEMPLATE.replaceAll("AllOperators", "Other")));
+        context.registerTemplate(1, template);
+        FastDecoder first = decoder(template, out.toByteArray());
+        FastDecoder second = new FastDecoder(context, new ByteArrayInputStream(out.toByteArray()));
+        for (int i = 0; i < messages.length; i++) {
+            assertEquals(messages[i], first.readMessage());
+            assertEquals(messages[i], second.readMessage());
+        }
+    }
+
+    public void testOverlongPresenceMapReleasesItsReader() {
+        MessageTemplate template = template(
+            "<template name=\"Nested\">" +
+            "  <uInt32 name=\"A\"/>" +
+            "  <group name=\"G\"><uInt32 name=\"B\"><copy/></uInt32></group>" +
+            "</template>");
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        BitVectorReader outermost = context.acquirePresenceMapReader();
+        context.releasePresenceMapReader();
+
+        FastDecoder decoder = new FastDecoder(context, new ByteArrayInputStream(byt("c0 81 81 40 80 82")));
+        try {
+            decoder.readMessage(new FlyweightMessage());
+            fail();
+        } catch (FastException e) {
+            assertEquals(FastConstants.R7_PMAP_OVERLONG, e.getCode());
+        }
+        assertSame(outermost, context.acquirePresenceMapReader());
+        context.releasePresenceMapReader();
+
+        Global.setErrorHandler(ErrorHandler.NULL);
+        try {
+            decoder = new FastDecoder(context, new ByteArrayInputStream(byt("c0 81 81 40 80 82")));
+            assertEquals(2, decoder.readMessage().getGroup("G").getInt("B"));
+            decoder = new FastDecoder(context, new ByteArrayInputStream(byt("c0 81 81")));
+            decoder.readMessage();
+        } catch (RuntimeException e) {
+        } finally {
+            Global.setErrorHandler(ErrorHandler.DEFAULT);
+        }
+        assertSame(outermost, context.acquirePresenceMapReader());
+        context.releasePresenceMapReader();
+    }
+
+    public void testCompiledDecoderMatchesInterpreter() {
+        assertSameMessages("CME/templates.xml", "CME/messages.fast");
+        assertSameMessages("FPL/FASTTestTemplate.xml", "FPL/messages.fast");
+    }
+
+    public void testTracingAndRemovalFallBackToInterpreter() {
+        MessageTemplate template = template(TEMPLATE);
+        final int[] calls = new int[1];
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        final TemplateDecoder compiled = template.getCompiledDecoder();
+        template.setCompiledDecoder(new TemplateDecoder() {
+            public Message decode(InputStream in, int templateId, BitVectorReader pmap, Context context) {
+                calls[0]++;
+                return compiled.decode(in, templateId, pmap, context);
+            }
+        });
+        byte[] encoded = encoder(template).encode(message(template, 1, "X", true, 1));
+
+        FastDecoder decoder = decoder(template, encoded);
+        assertEquals(1, decoder.readMessage().getInt("None"));
+        assertEquals(1, calls[0]);
+
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        context.setTraceEnabled(true);
+        BasicDecodeTrace trace = new BasicDecodeTrace();
+        trace.setWriter(new PrintWriter(new StringWriter()));
+        context.setDecodeTrace(trace);
+        new FastDecoder(context, new ByteArrayInputStream(encoded)).readMessage();
+        assertEquals(1, calls[0]);
+
+        template.setCompiledDecoder(null);
+        decoder(template, encoded).readMessage();
+        assertEquals(1, calls[0]);
+    }
+
+    public void testCompiledEncoderMatchesInterpreter() {
+        MessageTemplate template = template(TEMPLATE);
+        Message[] messages = new Message[] { message(template, 1, "X", true, 2), message(template, 2, null, false, 0),
+                message(template, 2, "Y", true, 3), message(template, 16384, "X", false, 1) };
+        assertSameEncoding(template, messages, ByteBuffer.allocate(256));
+        assertSameEncoding(template, messages, ByteBuffer.allocateDirect(256));
+    }
+
+    public void testCompiledEncoderMatchesInterpreterOnSampleData() {
+        assertSameEncoding("CME/templates.xml", "CME/messages.fast");
+        assertSameEncoding("FPL/FASTTestTemplate.xml", "FPL/messages.fast");
+    }
+
+    public void testEncodeOverflowRestoresPosition() {
+        MessageTemplate template = template(TEMPLATE);
+        template.setCompiledEncoder(new TemplateCompiler().compileEncoder(template));
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.position(2);
+        try {
+            encoder(template).encode(message(template, 1, "X", true, 2), buffer);
+            fail();
+        } catch (BufferOverflowException e) {
+            assertEquals(2, buffer.position());
+        }
+    }
+
+    public void testEncodeOverflowRestoresDictionaries() {
+        MessageTemplate template = template(
+            "<template name=\"Quote\">" +
+            "  <uInt32 name=\"Seq\"><increment/></uInt32>" +
+            "  <string name=\"Symbol\"><copy/></string>" +
+            "  <string name=\"Text\"><delta/></string>" +
+            "  <byteVector name=\"Data\"><copy/></byteVector>" +
+            "  <int64 name=\"Px\"><delta/></int64>" +
+            "  <decimal name=\"Size\"><copy/></decimal>" +
+            "</template>");
+        Message[] messages = new Message[] { quote(template, 1, "IBM", "ABCD", 100, 5), quote(template, 7, "MSFT", "ABXYZ", 90, 6),
+                quote(template, 8, "MSFT", "ABXYZ-LONGER-TEXT", 91, 6) };
+        FastEncoder reference = encoder(template);
+        reference.encode(messages[0]);
+        byte[] expected = reference.encode(messages[1]);
+        byte[] next = reference.encode(messages[2]);
+        for (int compiled = 0; compiled < 2; compiled++) {
+            if (compiled == 1)
+                template.setCompiledEncoder(new TemplateCompiler().compileEncoder(template));
+            for (int room = 0; room < expected.length; room++) {
+                FastEncoder encoder = encoder(template);
+                ByteBuffer buffer = ByteBuffer.allocate(64);
+                encoder.encode(messages[0], buffer);
+                buffer.clear();
+                buffer.limit(room);
+                try {
+                    encoder.encode(messages[1], buffer);
+                    fail();
+                } catch (BufferOverflowException e) {
+                    assertEquals(0, buffer.position());
+                }
+                buffer.clear();
+                int length = encoder.encode(messages[1], buffer);
+                byte[] actual = new byte[length];
+                buffer.flip();
+                buffer.get(actual);
+                assertEquals(ByteUtil.convertByteArrayToBitString(expected), ByteUtil.convertByteArrayToBitString(actual));
+                buffer.clear();
+                actual = new byte[encoder.encode(messages[2], buffer)];
+                buffer.flip();
+                buffer.get(actual);
+                assertEquals(ByteUtil.convertByteArrayToBitString(next), ByteUtil.convertByteArrayToBitString(actual));
+            }
+        }
+        template.setCompiledEncoder(null);
+    }
+
+    public void testLoaderCompilesTemplates() {
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader();
+        loader.setCompileTemplates(true);
+        MessageTemplate[] templates = loader.load(resource("CME/templates.xml"));
+        for (int i = 0; i < templates.length; i++) {
+            assertNotNull(templates[i].getCompiledDecoder());
+            assertNotNull(templates[i].getCompiledEncoder());
+        }
+    }
+
+    public void testRegistryListenerCompilesTemplates() {
+        MessageTemplate template = template(TEMPLATE);
+        Context context = new Context();
+        context.getTemplateRegistry().addTemplateRegisteredListener(TemplateCompiler.DEFAULT);
+        context.registerTemplate(1, template);
+        assertNotNull(template.getCompiledDecoder());
+        assertNotNull(template.getCompiledEncoder());
+    }
+
+    private Message quote(MessageTemplate template, int seq, String symbol, String text, long px, int size) {
+        Message message = new Message(template);
+        message.setInteger("Seq", seq);
+        message.setString("Symbol", symbol);
+        message.setString("Text", text);
+        message.setByteVector("Data", symbol.getBytes());
+        message.setLong("Px", px);
+        message.setFieldValue("Size", new DecimalValue(size, 2));
+        return message;
+    }
+
+    private Message message(MessageTemplate template, int value, String defaulted, boolean optionalPresent, int entries) {
+        Message message = new Message(template);
+        message.setInteger("None", value);
+        message.setInteger("Copy", 7);
+        message.setInteger("Increment", value + 10);
+        message.setLong("Delta", 5000000000L + value);
+        if (defaulted != null)
+            message.setString("Default", defaulted);
+        message.setString("Constant", "C");
+        if (optionalPresent)
+            message.setString("OptionalConstant", "O");
+        message.setDecimal("Price", 100.25);
+        message.setDecimal("Size", 1.5 * value);
+        if (optionalPresent) {
+            GroupValue group = new GroupValue(template.getGroup("Optional"));
+            group.setInteger("A", value);
+            message.setFieldValue("Optional", group);
+        }
+        SequenceValue sequence = new SequenceValue(template.getSequence("Entries"));
+        for (int i = 0; i < entries; i++) {
+            GroupValue entry = new GroupValue(template.getSequence("Entries").getGroup());
+            entry.setInteger("Id", i + 1);
+            entry.setString("Symbol", (i % 2 == 0) ? "ABC" : "DEF");
+            sequence.add(entry);
+        }
+        message.setFieldValue("Entries", sequence);
+        return message;
+    }
+
+    private void assertSameMessages(String templates, String data) {
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader();
+        loader.setLoadTemplateIdFromAuxId(true);
+        loader.load(resource(templates));
+        TemplateRegistry registry = loader.getTemplateRegistry();
+        List expected = readAll(registry, data);
+        assertFalse(expected.isEmpty());
+
+        new TemplateCompiler().compile(registry);
+        List actual = readAll(registry, data);
+        MessageTemplate[] compiled = registry.getTemplates();
+        for (int i = 0; i < compiled.length; i++)
+            compiled[i].setCompiledDecoder(null);
+        assertEquals(expected, actual);
+    }
+
+    private void assertSameEncoding(MessageTemplate template, Message[] messages, ByteBuffer buffer) {
+        FastEncoder interpreted = encoder(template);
+        template.setCompiledEncoder(new TemplateCompiler().compileEncoder(template));
+        FastEncoder compiled = encoder(template);
+        for (int i = 0; i < messages.length; i++) {
+            buffer.clear();
+            int length = compiled.encode(messages[i], buffer);
+            assertEquals(buffer.position(), length);
+            byte[] actual = new byte[length];
+            buffer.flip();
+            buffer.get(actual);
+            assertEquals(ByteUtil.convertByteArrayToBitString(interpreted.encode(messages[i])), ByteUtil
+                    .convertByteArrayToBitString(actual));
+        }
+        template.setCompiledEncoder(null);
+    }
+
+    private void assertSameEncoding(String templates, String data) {
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader();
+        loader.setLoadTemplateIdFromAuxId(true);
+        loader.load(resource(templates));
+        TemplateRegistry registry = loader.getTemplateRegistry();
+        List messages = readAll(registry, data);
+        assertFalse(messages.isEmpty());
+
+        Context interpretedContext = new Context();
+        interpretedContext.setTemplateRegistry(registry);
+        FastEncoder interpreted = new FastEncoder(interpretedContext);
+        byte[][] expected = new byte[messages.size()][];
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = interpreted.encode((Message) messages.get(i));
+
+        new TemplateCompiler().compile(registry);
+        Context compiledContext = new Context();
+        compiledContext.setTemplateRegistry(registry);
+        FastEncoder compiled = new FastEncoder(compiledContext);
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 0; i < expected.length; i++) {
+            buffer.clear();
+            compiled.encode((Message) messages.get(i), buffer);
+            byte[] actual = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(actual);
+            assertEquals(ByteUtil.convertByteArrayToBitString(expected[i]), ByteUtil.convertByteArrayToBitString(actual));
+        }
+    }
+
+    private List readAll(TemplateRegistry registry, String data) {
+        MessageInputStream in = new MessageInputStream(resource(data));
+        in.setTemplateRegistry(registry);
+        List messages = new ArrayList();
+        Message message;
+        while ((message = in.readMessage()) != null)
+            messages.add(message);
+        return messages;
+    }
+}
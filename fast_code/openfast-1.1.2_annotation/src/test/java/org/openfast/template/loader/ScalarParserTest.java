@@ -3,6 +3,7 @@ package org.openfast.template.loader;
 import org.openfast.DecimalValue;
 import org.openfast.Dictionary;
 import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
 import org.openfast.error.FastException;
 import org.openfast.template.Scalar;
 import org.openfast.template.operator.Operator;
@@ -47,6 +48,18 @@ public class ScalarParserTest extends OpenFastTestCase {
 		assertScalarField(uint, Type.U32, "uint", null, "", Dictionary.GLOBAL, "values", "http://openfast.org/data/", Operator.COPY, ScalarValue.UNDEFINED, false);
 	}
 	
+	public void testParsePrecision() throws Exception {
+		Element priceDef = document("<int64 name=\"price\" precision=\"4\"><copy/></int64>").getDocumentElement();
+		assertEquals(4, ((Scalar) parser.parse(priceDef, context)).getPrecision());
+		Element decimalDef = document("<decimal name=\"price\" precision=\"4\"/>").getDocumentElement();
+		try {
+			parser.parse(decimalDef, context);
+			fail();
+		} catch (FastException e) {
+			assertEquals(FastConstants.PARSE_ERROR, e.getCode());
+		}
+	}
+
 	public void testInvalidType() throws Exception {
 		Element invalidDef = document("<array name=\"set\"/>").getDocumentElement();
 		try {
@@ -2,9 +2,13 @@ package org.openfast.template.loader;
 
 import org.openfast.Dictionary;
 import org.openfast.ScalarValue;
+import org.openfast.error.FastConstants;
+import org.openfast.error.FastException;
 import org.openfast.template.Scalar;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.InternedString;
+import org.openfast.template.type.codec.SymbolCache;
 import org.openfast.test.OpenFastTestCase;
 import org.w3c.dom.Element;
 
@@ -24,4 +28,19 @@ public class StringParserTest extends OpenFastTestCase {
         assertScalarField(unicode, Type.UNICODE, "message", null, "", Dictionary.GLOBAL, "message", Operator.NONE,
                 ScalarValue.UNDEFINED, false);
     }
+
+    public void testParseIntern() throws Exception {
+        Scalar symbol = (Scalar) parser.parse(document("<string name=\"symbol\" intern=\"true\"/>").getDocumentElement(), context);
+        assertEquals(SymbolCache.DEFAULT_CAPACITY, symbol.getSymbolCache().getCapacity());
+        assertTrue(symbol.getTypeCodec() instanceof InternedString);
+        Scalar plain = (Scalar) parser.parse(document("<string name=\"symbol\" intern=\"false\"/>").getDocumentElement(), context);
+        assertNull(plain.getSymbolCache());
+        assertEquals(plain, symbol);
+        try {
+            parser.parse(document("<string name=\"message\" charset=\"unicode\" intern=\"true\"/>").getDocumentElement(), context);
+            fail();
+        } catch (FastException e) {
+            assertEquals(FastConstants.PARSE_ERROR, e.getCode());
+        }
+    }
 }
@@ -39,4 +39,11 @@ public class ScalarSerializerTest extends OpenFastTestCase {
         serializer.serialize(writer, scalar, XMLMessageTemplateSerializer.createInitialContext());
         assertEquals(expected, byteOut.toString());
     }
+
+    public void testSerializePrecision() {
+        Scalar scalar = new Scalar("price", Type.I64, Operator.NONE, ScalarValue.UNDEFINED, false);
+        scalar.setPrecision(4);
+        serializer.serialize(writer, scalar, XMLMessageTemplateSerializer.createInitialContext());
+        assertEquals("<int64 name=\"price\" precision=\"4\"/>" + NL, byteOut.toString());
+    }
 }
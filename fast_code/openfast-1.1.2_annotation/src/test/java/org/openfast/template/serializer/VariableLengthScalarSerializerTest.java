@@ -11,6 +11,7 @@ import org.openfast.error.FastConstants;
 import org.openfast.template.Scalar;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.type.Type;
+import org.openfast.template.type.codec.SymbolCache;
 import org.openfast.test.OpenFastTestCase;
 import org.openfast.util.XmlWriter;
 
@@ -50,4 +51,11 @@ public class VariableLengthScalarSerializerTest extends OpenFastTestCase {
         serializer.serialize(writer, scalar, XMLMessageTemplateSerializer.createInitialContext());
         assertEquals(expected, byteOut.toString());
     }
+
+    public void testSerializeInternedString() {
+        Scalar scalar = new Scalar(new QName("symbol"), Type.ASCII, Operator.NONE, ScalarValue.UNDEFINED, false);
+        scalar.setSymbolCache(new SymbolCache(100));
+        serializer.serialize(writer, scalar, XMLMessageTemplateSerializer.createInitialContext());
+        assertEquals("<string name=\"symbol\" intern=\"128\"/>" + NL, byteOut.toString());
+    }
 }
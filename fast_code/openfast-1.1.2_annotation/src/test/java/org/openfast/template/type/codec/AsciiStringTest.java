@@ -1,10 +1,14 @@
 package org.openfast.template.type.codec;
 
+import java.nio.ByteBuffer;
+
+import org.openfast.ByteUtil;
 import org.openfast.error.FastConstants;
 import org.openfast.error.FastException;
 import org.openfast.template.operator.Operator;
 import org.openfast.template.type.Type;
 import org.openfast.test.OpenFastTestCase;
+import org.openfast.util.ByteBufferInputStream;
 
 public class AsciiStringTest extends OpenFastTestCase {
 
@@ -21,4 +25,56 @@ public class AsciiStringTest extends OpenFastTestCase {
 			assertEquals(FastConstants.R9_STRING_OVERLONG, e.getCode());
 		}
 	}
+
+	public void testDecodeFromByteBuffer() {
+		TypeCodec coder = Type.ASCII.getCodec(Operator.NONE, false);
+		ByteBuffer buffer = ByteBuffer.wrap(ByteUtil.convertBitStringToFastByteArray("01100001 01100010 11100011 00000000 10000000 01100001"));
+
+		assertEquals(string("abc"), coder.decode(buffer));
+		assertEquals(3, buffer.position());
+		assertEquals(string("\u0000"), coder.decode(buffer));
+		try {
+			coder.decode(buffer);
+			fail();
+		} catch (FastException e) {
+			assertEquals(FastConstants.END_OF_STREAM, e.getCode());
+		}
+	}
+
+	public void testDecodeBytes() {
+		ByteRange range = new ByteRange();
+
+		assertTrue(TypeCodec.ASCII.decodeBytes(bitStream("01100001 01100010 11100011"), range));
+		assertEquals("abc", range.toString());
+		assertTrue(TypeCodec.ASCII.decodeBytes(bitStream("10000000"), range));
+		assertEquals(0, range.length());
+		assertTrue(TypeCodec.ASCII.decodeBytes(bitStream("00000000 10000000"), range));
+		assertEquals("\u0000", range.toString());
+		try {
+			TypeCodec.ASCII.decodeBytes(bitStream("00000000 11000001"), range);
+			fail();
+		} catch (FastException e) {
+			assertEquals(FastConstants.R9_STRING_OVERLONG, e.getCode());
+		}
+	}
+
+	public void testDecodeBytesFromByteBuffer() {
+		byte[] bytes = ByteUtil.convertBitStringToFastByteArray("01100001 01100010 11100011 01111000 11111001");
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		ByteRange range = new ByteRange();
+
+		assertTrue(TypeCodec.ASCII.decodeBytes(new ByteBufferInputStream(buffer), range));
+		assertSame(bytes, range.getArray());
+		assertEquals("abc", range.toString());
+		assertEquals('c', range.charAt(2));
+		assertTrue(range.contentEquals("abc".getBytes(), 0, 3));
+		assertEquals(3, buffer.position());
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		direct.position(3);
+		assertTrue(TypeCodec.ASCII.decodeBytes(new ByteBufferInputStream(direct), range));
+		assertEquals("xy", range.toString());
+		assertEquals(5, direct.position());
+	}
 }
@@ -1,9 +1,13 @@
 package org.openfast.template.type.codec;
 
+import java.nio.ByteBuffer;
+
+import org.openfast.ByteUtil;
 import org.openfast.Message;
 import org.openfast.codec.FastDecoder;
 import org.openfast.template.MessageTemplate;
 import org.openfast.test.OpenFastTestCase;
+import org.openfast.util.ByteBufferInputStream;
 
 public class ByteVectorTest extends OpenFastTestCase {
     public void testEncode() {
@@ -23,4 +27,20 @@ public class ByteVectorTest extends OpenFastTestCase {
         Message message = decoder.readMessage();
         assertEquals(1, message.getInt("dataLength"));
     }
+
+    public void testDecodeBytes() {
+        ByteRange range = new ByteRange();
+        assertTrue(TypeCodec.BYTE_VECTOR.decodeBytes(bitStream("10000010 00000000 11111111"), range));
+        assertTrue(range.contentEquals(new byte[] { 0x00, (byte) 0xff }, 0, 2));
+
+        byte[] bytes = ByteUtil.convertBitStringToFastByteArray("10000010 01010111 01001110");
+        assertTrue(TypeCodec.BYTE_VECTOR.decodeBytes(new ByteBufferInputStream(ByteBuffer.wrap(bytes)), range));
+        assertSame(bytes, range.getArray());
+        assertEquals(1, range.getOffset());
+        assertEquals(2, range.length());
+
+        assertFalse(TypeCodec.NULLABLE_BYTE_VECTOR_TYPE.decodeBytes(bitStream("10000000"), range));
+        assertTrue(TypeCodec.NULLABLE_BYTE_VECTOR_TYPE.decodeBytes(bitStream("10000001"), range));
+        assertEquals(0, range.length());
+    }
 }
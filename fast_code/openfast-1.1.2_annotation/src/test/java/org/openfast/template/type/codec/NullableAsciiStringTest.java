@@ -19,4 +19,16 @@ public class NullableAsciiStringTest extends OpenFastTestCase {
 			assertEquals(FastConstants.R9_STRING_OVERLONG, e.getCode());
 		}
 	}
+
+	public void testDecodeBytes() {
+		ByteRange range = new ByteRange();
+
+		assertFalse(TypeCodec.NULLABLE_ASCII.decodeBytes(bitStream("10000000"), range));
+		assertTrue(TypeCodec.NULLABLE_ASCII.decodeBytes(bitStream("00000000 10000000"), range));
+		assertEquals(0, range.length());
+		assertTrue(TypeCodec.NULLABLE_ASCII.decodeBytes(bitStream("00000000 00000000 10000000"), range));
+		assertEquals("\u0000", range.toString());
+		assertTrue(TypeCodec.NULLABLE_ASCII.decodeBytes(bitStream("01100001 11100010"), range));
+		assertEquals("ab", range.toString());
+	}
 }
@@ -15,4 +15,19 @@ public class NullableSignedIntegerTest extends OpenFastTestCase {
 		assertEncodeDecode(i(124322), "00000111 01001011 10100011", TypeCodec.NULLABLE_INTEGER);
 	}
 
+	public void testDecodeNullableLong() {
+		PrimitiveValue value = new PrimitiveValue();
+		value.set(7);
+		assertFalse(TypeCodec.NULLABLE_INTEGER.decodeNullableLong(bitStream("10000000"), value));
+		assertEquals(7, value.value);
+		assertTrue(TypeCodec.NULLABLE_INTEGER.decodeNullableLong(bitStream("10000001"), value));
+		assertEquals(0, value.value);
+		assertTrue(TypeCodec.NULLABLE_INTEGER.decodeNullableLong(bitStream("00000100 11111111"), value));
+		assertEquals(638, value.value);
+		assertTrue(TypeCodec.NULLABLE_INTEGER.decodeNullableLong(bitStream("11101111"), value));
+		assertEquals(-17, value.value);
+		assertTrue(TypeCodec.INTEGER.decodeNullableLong(bitStream("10000000"), value));
+		assertEquals(0, value.value);
+	}
+
 }
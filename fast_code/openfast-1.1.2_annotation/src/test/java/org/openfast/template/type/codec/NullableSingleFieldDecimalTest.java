@@ -8,4 +8,15 @@ public class NullableSingleFieldDecimalTest extends OpenFastTestCase {
 		assertEncodeDecode(null, "10000000", TypeCodec.NULLABLE_SF_SCALED_NUMBER);
 	}
 
+	public void testDecodeDecimal() {
+		PrimitiveValue value = new PrimitiveValue();
+		assertFalse(TypeCodec.NULLABLE_SF_SCALED_NUMBER.decodeDecimal(bitStream("10000000"), value));
+		assertTrue(TypeCodec.NULLABLE_SF_SCALED_NUMBER.decodeDecimal(bitStream("11111110 00111001 01000101 10100011"), value));
+		assertEquals(942755, value.value);
+		assertEquals(-2, value.exponent);
+		assertTrue(TypeCodec.SF_SCALED_NUMBER.decodeDecimal(bitStream("11111110 00111001 01000101 10100011"), value));
+		assertEquals(942755, value.value);
+		assertEquals(-2, value.exponent);
+	}
+
 }
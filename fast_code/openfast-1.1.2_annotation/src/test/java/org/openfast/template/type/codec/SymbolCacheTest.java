@@ -0,0 +1,145 @@
+package org.openfast.template.type.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.openfast.Context;
+import org.openfast.Message;
+import org.openfast.MessageInputStream;
+import org.openfast.SequenceValue;
+import org.openfast.StringValue;
+import org.openfast.codec.FastDecoder;
+import org.openfast.codec.FastEncoder;
+import org.openfast.template.MessageTemplate;
+import org.openfast.template.Scalar;
+import org.openfast.template.compiler.FlyweightMessage;
+import org.openfast.template.compiler.TemplateCompiler;
+import org.openfast.template.loader.XMLMessageTemplateLoader;
+import org.openfast.template.operator.Operator;
+import org.openfast.template.type.Type;
+import org.openfast.test.OpenFastTestCase;
+
+public class SymbolCacheTest extends OpenFastTestCase {
+
+    public void testInternReturnsTheSameValueForTheSameBytes() {
+        SymbolCache cache = new SymbolCache(16);
+        ByteRange range = new ByteRange();
+        range.copy("IBM".getBytes(), 0, 3);
+        StringValue ibm = cache.intern(range);
+        assertEquals(new StringValue("IBM"), ibm);
+        range.copy("MSFT".getBytes(), 0, 4);
+        assertEquals(new StringValue("MSFT"), cache.intern(range));
+        range.copy("xIBMx".getBytes(), 1, 3);
+        assertSame(ibm, cache.intern(range));
+    }
+
+    public void testCapacityIsBounded() {
+        SymbolCache cache = new SymbolCache(5);
+        assertEquals(8, cache.getCapacity());
+        ByteRange range = new ByteRange();
+        range.copy("0".getBytes(), 0, 1);
+        StringValue zero = cache.intern(range);
+        for (int i = 1; i < 1000; i++) {
+            byte[] bytes = String.valueOf(i).getBytes();
+            range.copy(bytes, 0, bytes.length);
+            cache.intern(range);
+        }
+        range.copy("0".getBytes(), 0, 1);
+        assertNotSame(zero, cache.intern(range));
+        assertSame(cache.intern(range), cache.intern(range));
+        cache.clear();
+        assertNotSame(zero, cache.intern(range));
+        try {
+            new SymbolCache(1);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    public void testDecode() {
+        TypeCodec codec = new InternedString(TypeCodec.NULLABLE_ASCII, new SymbolCache());
+        StringValue abc = (StringValue) codec.decode(bitStream("01100001 01100010 11100011"));
+        assertEquals(string("abc"), abc);
+        assertSame(abc, codec.decode(ByteBuffer.wrap(bytes("01100001 01100010 11100011"))));
+        assertNull(codec.decode(bitStream("10000000")));
+        assertEquals(string(""), codec.decode(bitStream("00000000 10000000")));
+        assertEquals("00000000 10000000", codec.encode(string("")));
+    }
+
+    public void testScalarDecodesThroughCache() {
+        Scalar symbol = new Scalar("Symbol", Type.ASCII, Operator.COPY, null, false);
+        Scalar unicode = new Scalar("Text", Type.UNICODE, Operator.NONE, null, false);
+        try {
+            unicode.setSymbolCache(new SymbolCache());
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        MessageTemplate template = template(
+            "<template name=\"Symbols\">" +
+            "  <string name=\"Symbol\" intern=\"64\"/>" +
+            "  <string name=\"Exchange\" intern=\"true\"><copy/></string>" +
+            "  <uInt32 name=\"Size\"/>" +
+            "</template>");
+        SymbolCache symbols = ((Scalar) template.getField("Symbol")).getSymbolCache();
+        SymbolCache exchanges = ((Scalar) template.getField("Exchange")).getSymbolCache();
+        assertEquals(64, symbols.getCapacity());
+        assertNotNull(exchanges);
+        assertNotSame(symbols, exchanges);
+        assertNull(symbol.getSymbolCache());
+        assertNull(((Scalar) template.getField("Size")).getSymbolCache());
+        assertEquals(new Scalar("Exchange", Type.ASCII, Operator.COPY, null, false), template.getField("Exchange"));
+
+        FastEncoder encoder = encoder(template);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 4; i++) {
+            Message message = new Message(template);
+            message.setString("Symbol", (i % 2 == 0) ? "IBM" : "MSFT");
+            message.setString("Exchange", "XNYS");
+            message.setInteger("Size", i);
+            byte[] bytes = encoder.encode(message);
+            out.write(bytes, 0, bytes.length);
+        }
+        FastDecoder decoder = decoder(template, out.toByteArray());
+        Message first = decoder.readMessage();
+        Message second = decoder.readMessage();
+        assertSame(first.getScalar("Symbol"), decoder.readMessage().getScalar("Symbol"));
+        assertSame(first.getScalar("Exchange"), second.getScalar("Exchange"));
+        ByteRange range = new ByteRange();
+        range.copy("XNYS".getBytes(), 0, 4);
+        assertSame(first.getScalar("Exchange"), exchanges.intern(range));
+        assertNotSame(first.getScalar("Exchange"), symbols.intern(range));
+
+        template.setCompiledDecoder(new TemplateCompiler().compile(template));
+        Context context = new Context();
+        context.registerTemplate(1, template);
+        decoder = new FastDecoder(context, ByteBuffer.wrap(out.toByteArray()));
+        FlyweightMessage flyweight = new FlyweightMessage();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(decoder.readMessage(flyweight));
+            assertSame(((i % 2 == 0) ? first : second).getScalar("Symbol"), flyweight.getScalar(1));
+            assertSame(first.getScalar("Exchange"), flyweight.getScalar(2));
+        }
+    }
+
+    public void testTemplateFileDeclaresInternedFields() {
+        XMLMessageTemplateLoader loader = new XMLMessageTemplateLoader();
+        MessageTemplate template = loader.load(resource("FPL/FASTTestTemplate.xml"))[0];
+        Scalar securityDesc = (Scalar) template.getSequence("MDEntries").getGroup().getField("SecurityDesc");
+        assertEquals(4096, securityDesc.getSymbolCache().getCapacity());
+        assertNotNull(((Scalar) template.getSequence("MDEntries").getGroup().getField("MDEntryType")).getSymbolCache());
+        MessageInputStream in = new MessageInputStream(resource("FPL/messages.fast"));
+        in.registerTemplate(35, template);
+        StringValue first = null;
+        int entries = 0;
+        for (Message message = in.readMessage(); message != null; message = in.readMessage()) {
+            SequenceValue sequence = message.getSequence("MDEntries");
+            for (int i = 0; i < sequence.getLength(); i++, entries++) {
+                StringValue value = (StringValue) sequence.get(i).getScalar("SecurityDesc");
+                if (first == null)
+                    first = value;
+                assertSame(first, value);
+            }
+        }
+        assertTrue(entries > 1);
+    }
+}
@@ -1,6 +1,10 @@
 package org.openfast.template.type.codec;
 
+import java.nio.ByteBuffer;
+
+import org.openfast.ByteUtil;
 import org.openfast.test.OpenFastTestCase;
+import org.openfast.util.ByteBufferInputStream;
 
 public class UnsignedIntegerTest extends OpenFastTestCase {
 
@@ -18,4 +22,30 @@ public class UnsignedIntegerTest extends OpenFastTestCase {
         assertEncodeDecode(l(4294967295L), "00001111 01111111 01111111 01111111 11111111", TypeCodec.UINT);
     }
 
+    public void testEncodeDecodeBoundary() {
+        assertEncodeDecode(i(128),     "00000001 10000000", TypeCodec.UINT);
+        assertEncodeDecode(i(16384),   "00000001 00000000 10000000", TypeCodec.UINT);
+        assertEncodeDecode(i(2097152), "00000001 00000000 00000000 10000000", TypeCodec.UINT);
+    }
+
+    public void testEncodeIntoBuffer() {
+        long[] values = { 0, 127, 128, 16383, 16384, 2097152, 268435456L, 4294967295L, 1181048340000L };
+        for (int i = 0; i < values.length; i++) {
+            ByteBuffer buffer = ByteBuffer.allocate(10);
+            TypeCodec.UINT.encodeLong(values[i], buffer);
+            byte[] encoded = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(encoded);
+            assertEquals(ByteUtil.convertByteArrayToBitString(TypeCodec.UINT.encode(l(values[i]))), ByteUtil
+                    .convertByteArrayToBitString(encoded));
+        }
+    }
+
+	public void testDecodeLong() {
+		assertEquals(942755, TypeCodec.UINT.decodeLong(bitStream("00111001 01000101 10100011")));
+		assertEquals(4294967295L, TypeCodec.UINT.decodeLong(bitStream("00001111 01111111 01111111 01111111 11111111")));
+		assertEquals(1181048340000L, TypeCodec.UINT.decodeLong(new ByteBufferInputStream(ByteBuffer.wrap(bytes("00100010 00101111 01011111 01011101 01111100 10100000")))));
+		assertEquals(5, TypeCodec.UINT.decodeInt(bitStream("10000101")));
+	}
+
 }
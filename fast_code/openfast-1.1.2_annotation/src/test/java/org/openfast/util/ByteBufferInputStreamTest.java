@@ -0,0 +1,69 @@
+/*
+The contents of this file are subject to the Mozilla Public License
+Version 1.1 (the "License"); you may not use this file except in
+compliance with the License. You may obtain a copy of the License at
+http://www.mozilla.org/MPL/
+
+Software distributed under the License is distributed on an "AS IS"
+basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+License for the specific language governing rights and limitations
+under the License.
+
+The Original Code is OpenFAST.
+
+The Initial Developer of the Original Code is The LaSalle Technology
+Group, LLC.  Portions created by The LaSalle Technology Group, LLC
+are Copyright (C) The LaSalle Technology Group, LLC. All Rights Reserved.
+
+Contributor(s): Jacob Northey <jacob@lasalletech.com>
+                Craig Otis <cotis@lasalletech.com>
+*/
+package org.openfast.util;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+public class ByteBufferInputStreamTest extends TestCase {
+    public void testReadAdvancesBufferPosition() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 1, (byte) 0xff, 3 });
+        ByteBufferInputStream in = new ByteBufferInputStream(buffer);
+        assertEquals(3, in.available());
+        assertEquals(1, in.read());
+        assertEquals(0xff, in.read());
+        assertEquals(2, buffer.position());
+        assertEquals(3, in.read());
+        assertEquals(-1, in.read());
+    }
+
+    public void testBulkReadAndSkip() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(5);
+        buffer.put(new byte[] { 1, 2, 3, 4, 5 });
+        buffer.flip();
+        ByteBufferInputStream in = new ByteBufferInputStream(buffer);
+        assertEquals(2, in.skip(2));
+        byte[] b = new byte[4];
+        assertEquals(3, in.read(b, 0, 4));
+        assertEquals(3, b[0]);
+        assertEquals(5, b[2]);
+        assertEquals(-1, in.read(b, 0, 4));
+        assertEquals(0, in.skip(1));
+    }
+
+    public void testArrayRegion() {
+        ByteBufferInputStream in = new ByteBufferInputStream(new byte[] { 1, 2, 3, 4 }, 1, 2);
+        assertEquals(2, in.read());
+        in.mark(0);
+        assertEquals(3, in.read());
+        assertEquals(-1, in.read());
+        in.reset();
+        assertEquals(3, in.read());
+    }
+
+    public void testSetBuffer() {
+        ByteBufferInputStream in = new ByteBufferInputStream(ByteBuffer.allocate(0));
+        assertEquals(-1, in.read());
+        in.setBuffer(ByteBuffer.wrap(new byte[] { 7 }));
+        assertEquals(7, in.read());
+    }
+}
@@ -0,0 +1,75 @@
+package org.openfast.util;
+
+import junit.framework.TestCase;
+
+public class FixedPointTest extends TestCase {
+    public void testRescale() {
+        assertEquals(1002500, FixedPoint.rescale(10025, -2, -4));
+        assertEquals(10025, FixedPoint.rescale(1002500, -4, -2));
+        assertEquals(1200, FixedPoint.rescale(12, 2, 0));
+        assertEquals(0, FixedPoint.rescale(0, -30, 5));
+        try {
+            FixedPoint.rescale(10025, -2, -1);
+            fail();
+        } catch (ArithmeticException e) {
+        }
+        try {
+            FixedPoint.rescale(Long.MAX_VALUE / 5, 0, -1);
+            fail();
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    public void testRound() {
+        assertEquals(1003, FixedPoint.round(10025, -2, -1));
+        assertEquals(-1003, FixedPoint.round(-10025, -2, -1));
+        assertEquals(1002, FixedPoint.round(10024, -2, -1));
+        assertEquals(100, FixedPoint.round(10025, -2, 0));
+        assertEquals(1, FixedPoint.round(5000000000000000000L, -19, 0));
+        assertEquals(0, FixedPoint.round(Long.MAX_VALUE, -20, 0));
+        assertEquals(10025, FixedPoint.round(10025, -2, -2));
+    }
+
+    public void testArithmetic() {
+        assertEquals(3, FixedPoint.add(1, 2));
+        assertEquals(-1, FixedPoint.subtract(1, 2));
+        assertEquals(125012, FixedPoint.multiply(10025, -2, 1247, -1, -1));
+        try {
+            FixedPoint.add(Long.MAX_VALUE, 1);
+            fail();
+        } catch (ArithmeticException e) {
+        }
+        try {
+            FixedPoint.subtract(Long.MIN_VALUE, 1);
+            fail();
+        } catch (ArithmeticException e) {
+        }
+        try {
+            FixedPoint.multiply(Long.MAX_VALUE, 0, 2, 0, 0);
+            fail();
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    public void testCompare() {
+        assertEquals(0, FixedPoint.compare(10025, -2, 1002500, -4));
+        assertTrue(FixedPoint.compare(10025, -2, 10026, -2) < 0);
+        assertTrue(FixedPoint.compare(1, 0, 9999, -4) > 0);
+        assertTrue(FixedPoint.compare(1, 0, Long.MAX_VALUE, 10) < 0);
+        assertTrue(FixedPoint.compare(1, 0, -Long.MAX_VALUE, 10) > 0);
+    }
+
+    public void testParseAndToString() {
+        assertEquals(1002500, FixedPoint.parse("100.25", -4));
+        assertEquals(-500, FixedPoint.parse("-.05", -4));
+        assertEquals(1200, FixedPoint.parse("12", -2));
+        assertEquals("100.25", FixedPoint.toString(10025, -2));
+        assertEquals("-0.0125", FixedPoint.toString(-125, -4));
+        assertEquals("1200", FixedPoint.toString(12, 2));
+        try {
+            FixedPoint.parse("12.", -2);
+            fail();
+        } catch (NumberFormatException e) {
+        }
+    }
+}